@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.BatchIdenticonRenderer;
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.ScanlineIdenticonRenderer;
+import ch.keybridge.lib.identicon.SpriteSheet;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of rendering a batch of Identicon images, such as the
+ * avatars of a member list.
+ * <p>
+ * {@code renderSequential} renders each code in turn on one thread with the
+ * {@link ScanlineIdenticonRenderer}. {@code renderBatch} and
+ * {@code renderSheet} render the same codes in parallel with the
+ * {@link BatchIdenticonRenderer}, as individual images and as a single sprite
+ * sheet.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"16", "32", "64", "128"})
+  private int size;
+
+  /**
+   * The number of codes per batch.
+   */
+  @Param({"256"})
+  private int count;
+
+  private IdenticonRenderer renderer;
+  private BatchIdenticonRenderer batchRenderer;
+  private int[] codes;
+
+  @Setup
+  public void setup() {
+    renderer = ScanlineIdenticonRenderer.getInstance();
+    batchRenderer = BatchIdenticonRenderer.getInstance();
+    batchRenderer.setRenderer(renderer);
+    codes = Arrays.copyOf(BenchmarkData.codes(), count);
+  }
+
+  @Benchmark
+  public BufferedImage[] renderSequential() {
+    BufferedImage[] images = new BufferedImage[codes.length];
+    for (int i = 0; i < codes.length; i++) {
+      images[i] = renderer.render(codes[i], size);
+    }
+    return images;
+  }
+
+  @Benchmark
+  public BufferedImage[] renderBatch() {
+    return batchRenderer.render(codes, size);
+  }
+
+  @Benchmark
+  public SpriteSheet renderSheet() {
+    return batchRenderer.renderSheet(codes, size);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import java.util.Random;
+
+/**
+ * Shared benchmark input data.
+ * <p>
+ * Inputs are generated from a fixed seed so that successive runs (and runs on
+ * different branches) measure exactly the same identicon codes.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public final class BenchmarkData {
+
+  /**
+   * The number of distinct inputs to cycle through. Must be a power of two.
+   */
+  public static final int INPUT_COUNT = 1024;
+  /**
+   * The random seed. Fixed so that results are comparable across runs.
+   */
+  private static final long SEED = 0x1DE471C0L;
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * Get a fixed set of pseudo-random identicon codes.
+   *
+   * @return an array of {@link #INPUT_COUNT} codes
+   */
+  public static int[] codes() {
+    Random random = new Random(SEED);
+    int[] codes = new int[INPUT_COUNT];
+    for (int i = 0; i < codes.length; i++) {
+      codes[i] = random.nextInt();
+    }
+    return codes;
+  }
+
+  /**
+   * Get a fixed set of e-mail address style object keys, representative of
+   * what callers typically pass to {@code Identicon.generate}.
+   *
+   * @return an array of {@link #INPUT_COUNT} keys
+   */
+  public static String[] keys() {
+    return keys(INPUT_COUNT);
+  }
+
+  /**
+   * Get a fixed set of e-mail address style object keys. The first
+   * {@link #INPUT_COUNT} are those of {@link #keys()}.
+   *
+   * @param count the number of keys
+   * @return an array of {@code count} keys
+   */
+  public static String[] keys(int count) {
+    Random random = new Random(SEED);
+    String[] keys = new String[count];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = "user" + Integer.toHexString(random.nextInt()) + "@keybridgeglobal.com";
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.CodeFunction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of deriving an Identicon code from a key.
+ * <p>
+ * {@code getCodeDefault} measures the default {@code Objects.hash} function,
+ * which reads the cached {@code String.hashCode}, and {@code getCodeMurmur3}
+ * and {@code getCodeMurmur3Bytes} the salted MurmurHash3 function over the
+ * key characters and their UTF-8 bytes.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodeBenchmark {
+
+  private static final CodeFunction MURMUR3 = CodeFunction.murmur3("1321321321321321");
+
+  private String[] keys;
+  private byte[][] bytes;
+  private int index;
+
+  @Setup
+  public void setup() {
+    keys = BenchmarkData.keys();
+    bytes = new byte[keys.length][];
+    for (int i = 0; i < keys.length; i++) {
+      bytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  @Benchmark
+  public int getCodeDefault() {
+    return CodeFunction.DEFAULT.getCode(keys[index++ & (BenchmarkData.INPUT_COUNT - 1)]);
+  }
+
+  @Benchmark
+  public int getCodeMurmur3() {
+    return MURMUR3.getCode(keys[index++ & (BenchmarkData.INPUT_COUNT - 1)]);
+  }
+
+  @Benchmark
+  public int getCodeMurmur3Bytes() {
+    return MURMUR3.getCode(bytes[index++ & (BenchmarkData.INPUT_COUNT - 1)]);
+  }
+}
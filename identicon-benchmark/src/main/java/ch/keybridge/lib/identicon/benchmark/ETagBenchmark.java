@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.Identicon;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of generating an Identicon ETag.
+ * <p>
+ * The ETag is computed on every request, including those answered with "not
+ * modified", so its cost is paid even when no image is produced.
+ * {@code appendETag} and {@code isNotModified} measure the allocation-free
+ * variants.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ETagBenchmark {
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"16", "32", "64", "128", "256", "1024"})
+  private int size;
+
+  private String[] keys;
+  private String[] headers;
+  private StringBuilder builder;
+  private int index;
+
+  @Setup
+  public void setup() {
+    keys = BenchmarkData.keys();
+    headers = new String[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      headers[i] = Identicon.getETag(keys[i], size);
+    }
+    builder = new StringBuilder(Identicon.MAXIMUM_ETAG_LENGTH);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String getETag() {
+    return Identicon.getETag(keys[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public String getETagConcurrent() {
+    return Identicon.getETag(keys[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public StringBuilder appendETag() {
+    builder.setLength(0);
+    return Identicon.appendETag(builder, keys[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean isNotModified() {
+    int i = index++ & (BenchmarkData.INPUT_COUNT - 1);
+    return Identicon.isNotModified(headers[i], keys[i], size);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.NineBlockIdenticonRenderer;
+import ch.keybridge.lib.identicon.PngEncoder;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of encoding a rendered Identicon image as PNG.
+ * <p>
+ * This is the {@code ImageIO.write} step every caller performs after
+ * rendering, compared with the specialized {@link PngEncoder}. Images are
+ * rendered once during setup so that only the encoding is measured.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+
+  /**
+   * The number of distinct pre-rendered images to cycle through. Kept small
+   * so that large sizes do not exhaust the heap.
+   */
+  private static final int IMAGE_COUNT = 16;
+  /**
+   * The specialized PNG encoder.
+   */
+  private static final PngEncoder ENCODER = new PngEncoder();
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"16", "32", "64", "128", "256", "1024"})
+  private int size;
+
+  private BufferedImage[] images;
+  private int index;
+
+  @Setup
+  public void setup() {
+    IdenticonRenderer renderer = NineBlockIdenticonRenderer.getInstance();
+    int[] codes = BenchmarkData.codes();
+    images = new BufferedImage[IMAGE_COUNT];
+    for (int i = 0; i < images.length; i++) {
+      images[i] = renderer.render(codes[i], size);
+    }
+    ImageIO.setUseCache(false);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public byte[] encodePng() throws IOException {
+    return encode(images[index++ & (IMAGE_COUNT - 1)]);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public byte[] encodePngConcurrent() throws IOException {
+    return encode(images[index++ & (IMAGE_COUNT - 1)]);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public byte[] encodePngEncoder() throws IOException {
+    return ENCODER.encode(images[index++ & (IMAGE_COUNT - 1)]);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public byte[] encodePngEncoderConcurrent() throws IOException {
+    return ENCODER.encode(images[index++ & (IMAGE_COUNT - 1)]);
+  }
+
+  private static byte[] encode(BufferedImage image) throws IOException {
+    ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+    ImageIO.write(image, "PNG", byteOut);
+    return byteOut.toByteArray();
+  }
+}
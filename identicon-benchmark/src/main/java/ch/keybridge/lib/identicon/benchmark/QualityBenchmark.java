@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.ImmutableIdenticonRenderer;
+import ch.keybridge.lib.identicon.RenderQuality;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of rendering a single Identicon image at each quality tier.
+ * <p>
+ * {@code FAST} renders aliased, {@code DEFAULT} antialiased and {@code HIGH}
+ * supersampled. {@code AUTO} picks one of these by size, so at each size it
+ * costs the same as the tier it picks.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QualityBenchmark {
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"16", "32", "64", "128", "256", "1024"})
+  private int size;
+  /**
+   * The rendering quality.
+   */
+  @Param({"FAST", "DEFAULT", "HIGH", "AUTO"})
+  private RenderQuality quality;
+
+  private IdenticonRenderer renderer;
+  private int[] codes;
+  private int index;
+
+  @Setup
+  public void setup() {
+    renderer = ImmutableIdenticonRenderer.builder().quality(quality).build();
+    codes = BenchmarkData.codes();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public BufferedImage render() {
+    return renderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public BufferedImage renderConcurrent() {
+    return renderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+}
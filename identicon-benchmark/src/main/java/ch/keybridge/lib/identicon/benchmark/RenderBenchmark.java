@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.GlyphIdenticonRenderer;
+import ch.keybridge.lib.identicon.GridIdenticonRenderer;
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.NineBlockIdenticonRenderer;
+import ch.keybridge.lib.identicon.ScanlineIdenticonRenderer;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of rendering a single Identicon image.
+ * <p>
+ * {@code render} measures the renderer alone, using one renderer instance per
+ * thread, and {@code renderScanline} the same for the Java2D-free
+ * {@link ScanlineIdenticonRenderer}. {@code renderGlyph} measures the
+ * {@link GlyphIdenticonRenderer} recoloring cached shapes; its cache is shared
+ * by all threads and is warm after the first iteration at the smaller sizes.
+ * {@code renderGrid} measures the 5x5 {@link GridIdenticonRenderer}, the
+ * cheapest alternative to the 9-block image.
+ * {@code generate} measures the {@link Identicon} utility entry point,
+ * which includes object hashing and uses a shared renderer. Each is measured
+ * with a single thread and with all available processors to expose contention
+ * in the Java2D pipeline.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+  /**
+   * The glyph renderer, shared by all threads so that its cache is shared.
+   */
+  private static final GlyphIdenticonRenderer GLYPH_RENDERER = GlyphIdenticonRenderer.getInstance();
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"16", "32", "64", "128", "256", "1024"})
+  private int size;
+
+  private IdenticonRenderer renderer;
+  private IdenticonRenderer scanlineRenderer;
+  private IdenticonRenderer gridRenderer;
+  private int[] codes;
+  private String[] keys;
+  private int index;
+
+  @Setup
+  public void setup() {
+    renderer = NineBlockIdenticonRenderer.getInstance();
+    scanlineRenderer = ScanlineIdenticonRenderer.getInstance();
+    gridRenderer = GridIdenticonRenderer.getInstance();
+    codes = BenchmarkData.codes();
+    keys = BenchmarkData.keys();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public BufferedImage render() {
+    return renderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public BufferedImage renderConcurrent() {
+    return renderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public BufferedImage renderScanline() {
+    return scanlineRenderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public BufferedImage renderScanlineConcurrent() {
+    return scanlineRenderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public BufferedImage renderGlyph() {
+    return GLYPH_RENDERER.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public BufferedImage renderGlyphConcurrent() {
+    return GLYPH_RENDERER.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public BufferedImage renderGrid() {
+    return gridRenderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public BufferedImage renderGridConcurrent() {
+    return gridRenderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public BufferedImage generate() {
+    return Identicon.generate(keys[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public BufferedImage generateConcurrent() {
+    return Identicon.generate(keys[index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.NineBlockIdenticonRenderer;
+import ch.keybridge.lib.identicon.ScanlineIdenticonRenderer;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of rendering one Identicon code at a set of sizes, as for a
+ * responsive image set.
+ * <p>
+ * {@code renderEach} and {@code renderScanlineEach} render each size
+ * separately; {@code renderSet} and {@code renderScanlineSet} render all sizes
+ * together, sharing the decoded code. Drawing each size dominates, so the set
+ * is only a few percent faster.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SrcsetBenchmark {
+
+  /**
+   * The image sizes in pixels square: 1x, 2x and 3x densities of an avatar,
+   * and a range of layout sizes.
+   */
+  @Param({"32,64,96", "16,32,64,128,256"})
+  private String sizes;
+
+  private IdenticonRenderer renderer;
+  private IdenticonRenderer scanlineRenderer;
+  private int[] imageSizes;
+  private int[] codes;
+  private int index;
+
+  @Setup
+  public void setup() {
+    renderer = NineBlockIdenticonRenderer.getInstance();
+    scanlineRenderer = ScanlineIdenticonRenderer.getInstance();
+    imageSizes = Arrays.stream(sizes.split(",")).mapToInt(Integer::parseInt).toArray();
+    codes = BenchmarkData.codes();
+  }
+
+  @Benchmark
+  public BufferedImage[] renderEach() {
+    int code = codes[index++ & (BenchmarkData.INPUT_COUNT - 1)];
+    BufferedImage[] images = new BufferedImage[imageSizes.length];
+    for (int i = 0; i < imageSizes.length; i++) {
+      images[i] = renderer.render(code, imageSizes[i]);
+    }
+    return images;
+  }
+
+  @Benchmark
+  public BufferedImage[] renderSet() {
+    return renderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], imageSizes);
+  }
+
+  @Benchmark
+  public BufferedImage[] renderScanlineEach() {
+    int code = codes[index++ & (BenchmarkData.INPUT_COUNT - 1)];
+    BufferedImage[] images = new BufferedImage[imageSizes.length];
+    for (int i = 0; i < imageSizes.length; i++) {
+      images[i] = scanlineRenderer.render(code, imageSizes[i]);
+    }
+    return images;
+  }
+
+  @Benchmark
+  public BufferedImage[] renderScanlineSet() {
+    return scanlineRenderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], imageSizes);
+  }
+}
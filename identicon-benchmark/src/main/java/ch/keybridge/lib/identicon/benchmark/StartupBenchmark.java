@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.ScanlineIdenticonRenderer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the time to the first encoded avatar in a fresh JVM.
+ * <p>
+ * Each benchmark encodes a single image, once, in each of many forked JVMs,
+ * so the result includes class loading, static initialization and
+ * interpreted execution rather than steady-state performance. (JVM start and
+ * the JMH harness itself are excluded.)
+ * <ul>
+ * <li>{@code generateEncode} is the Java2D path:
+ * {@code Identicon.encode(Identicon.generate(...))} initializes the AWT
+ * toolkit, builds the patch shapes and runs the {@code Graphics2D}
+ * pipeline.</li>
+ * <li>{@code write} is the cold-start path: {@code Identicon.write} with the
+ * {@code ScanlineIdenticonRenderer} selected (in setup) rasterizes from
+ * static patch tables and encodes in strips, and never initializes AWT or
+ * Java2D.</li>
+ * <li>{@code scanlineBytes} renders an image with the pure Java rasterizer
+ * then encodes it: the cost of the {@code BufferedImage} and color model
+ * classes alone.</li>
+ * </ul>
+ * Run with more forks for tighter results, e.g. {@code -f 50}.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 20, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class StartupBenchmark {
+
+  /**
+   * The object of the first avatar.
+   */
+  private static final String KEY = "startup@keybridgeglobal.com";
+  /**
+   * The image size in pixels square.
+   */
+  private static final int SIZE = 64;
+
+  @Benchmark
+  public byte[] generateEncode() throws IOException {
+    return Identicon.encode(Identicon.generate(KEY, SIZE));
+  }
+
+  @Benchmark
+  public byte[] write(ScanlineRenderer renderer) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Identicon.write(KEY, SIZE, out);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] scanlineBytes() throws IOException {
+    return Identicon.encode(ScanlineIdenticonRenderer.getInstance().render(Identicon.getCode(KEY), SIZE));
+  }
+
+  /**
+   * Selects the scanline renderer before the {@code write} benchmark, outside
+   * the measured time.
+   */
+  @State(Scope.Thread)
+  public static class ScanlineRenderer {
+
+    @Setup
+    public void setUp() {
+      Identicon.setRenderer(ScanlineIdenticonRenderer.getInstance());
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.IdenticonCache;
+import ch.keybridge.lib.identicon.IdenticonStore;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measure the cost of serving an encoded Identicon image that is already held,
+ * from the persistent {@link IdenticonStore} and from the in-memory
+ * {@link IdenticonCache}.
+ * <p>
+ * Both hold every benchmark key. {@code storeGet} returns a slice of the
+ * mapped store file; {@code cacheGet} returns the cached array.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreBenchmark {
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"16", "64", "256"})
+  private int size;
+
+  private Path directory;
+  private IdenticonStore store;
+  private IdenticonCache cache;
+  private String[] keys;
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("identicon-store");
+    store = new IdenticonStore(directory, 64L * 1024 * 1024, 16 * 1024 * 1024);
+    cache = new IdenticonCache(Long.MAX_VALUE);
+    keys = BenchmarkData.keys();
+    for (String key : keys) {
+      store.get(key, size);
+      cache.get(key, size);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    store.close();
+    try (Stream<Path> paths = Files.list(directory)) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        Files.delete(path);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public ByteBuffer storeGet(ThreadIndex thread) throws IOException {
+    return store.get(keys[thread.index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public byte[] cacheGet(ThreadIndex thread) throws IOException {
+    return cache.get(keys[thread.index++ & (BenchmarkData.INPUT_COUNT - 1)], size);
+  }
+
+  /**
+   * The per-thread input index.
+   */
+  @State(Scope.Thread)
+  public static class ThreadIndex {
+
+    private int index;
+  }
+}
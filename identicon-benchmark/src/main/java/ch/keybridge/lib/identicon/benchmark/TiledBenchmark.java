@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.ScanlineIdenticonRenderer;
+import ch.keybridge.lib.identicon.TiledIdenticonRenderer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measure the cost of writing very large (print size) Identicon images.
+ * <p>
+ * {@code writeScanline} renders and encodes the image in strips of rows on
+ * one thread with the {@link ScanlineIdenticonRenderer}. {@code writeTiled}
+ * renders the same image in tiles on the common fork-join pool with the
+ * {@link TiledIdenticonRenderer}, rendering the next band of tiles while the
+ * current band is encoded. Both hold only a few rows of the image at a time;
+ * run with {@code -Xmx64m} to confirm.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TiledBenchmark {
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"4096", "8192", "16384"})
+  private int size;
+
+  /**
+   * The tile size in pixels square.
+   */
+  @Param({"256"})
+  private int tileSize;
+
+  private IdenticonRenderer scanlineRenderer;
+  private TiledIdenticonRenderer tiledRenderer;
+  private OutputStream out;
+  private int[] codes;
+  private int index;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    scanlineRenderer = ScanlineIdenticonRenderer.getInstance();
+    tiledRenderer = TiledIdenticonRenderer.getInstance();
+    tiledRenderer.setTileSize(tileSize);
+    out = new WriteBenchmark.BlackholeOutputStream(blackhole);
+    codes = BenchmarkData.codes();
+  }
+
+  @Benchmark
+  public void writeScanline() throws IOException {
+    scanlineRenderer.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+
+  @Benchmark
+  public void writeTiled() throws IOException {
+    tiledRenderer.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark;
+
+import ch.keybridge.lib.identicon.GlyphIdenticonRenderer;
+import ch.keybridge.lib.identicon.GridIdenticonRenderer;
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.NineBlockIdenticonRenderer;
+import ch.keybridge.lib.identicon.ScanlineIdenticonRenderer;
+import ch.keybridge.lib.identicon.SvgIdenticonRenderer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measure the cost of producing an encoded Identicon image, from code to PNG
+ * (or SVG) bytes.
+ * <p>
+ * {@code renderAndEncode} renders a full image with Java2D then encodes it,
+ * as a caller of {@code render} must. {@code writeScanline} and
+ * {@code writeGlyph} stream the encoded image in strips of rows without
+ * materializing the image raster, {@code writeGrid} does the same for the 5x5
+ * pixel-grid image, and {@code writeSvg} writes the vector image with no
+ * rasterization at all. The output is consumed by a black hole so
+ * only the cost of producing it is measured; run with the GC profiler to
+ * compare allocation rates.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WriteBenchmark {
+
+  /**
+   * The glyph renderer, shared by all threads so that its cache is shared.
+   */
+  private static final GlyphIdenticonRenderer GLYPH_RENDERER = GlyphIdenticonRenderer.getInstance();
+
+  /**
+   * The image size in pixels square.
+   */
+  @Param({"16", "32", "64", "128", "256", "1024"})
+  private int size;
+
+  private IdenticonRenderer renderer;
+  private IdenticonRenderer scanlineRenderer;
+  private IdenticonRenderer gridRenderer;
+  private SvgIdenticonRenderer svgRenderer;
+  private OutputStream out;
+  private int[] codes;
+  private int index;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    renderer = NineBlockIdenticonRenderer.getInstance();
+    scanlineRenderer = ScanlineIdenticonRenderer.getInstance();
+    gridRenderer = GridIdenticonRenderer.getInstance();
+    svgRenderer = SvgIdenticonRenderer.getInstance();
+    out = new BlackholeOutputStream(blackhole);
+    codes = BenchmarkData.codes();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public byte[] renderAndEncode() throws IOException {
+    return Identicon.encode(renderer.render(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void writeScanline() throws IOException {
+    scanlineRenderer.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void writeScanlineConcurrent() throws IOException {
+    scanlineRenderer.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void writeGlyph() throws IOException {
+    GLYPH_RENDERER.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void writeGrid() throws IOException {
+    gridRenderer.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void writeGridConcurrent() throws IOException {
+    gridRenderer.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void writeSvg() throws IOException {
+    svgRenderer.write(codes[index++ & (BenchmarkData.INPUT_COUNT - 1)], size, out);
+  }
+
+  /**
+   * An output stream that consumes bytes into a black hole.
+   */
+  static final class BlackholeOutputStream extends OutputStream {
+
+    private final Blackhole blackhole;
+
+    BlackholeOutputStream(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(int b) {
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      blackhole.consume(b);
+      blackhole.consume(len);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark.load;
+
+import java.util.Random;
+
+/**
+ * A distribution of key indexes, from which load threads choose the key of
+ * each request.
+ * <p>
+ * Real avatar traffic is skewed: a few users (the active or prominent ones)
+ * account for most requests. The {@link #zipfian(int, double) Zipfian}
+ * distribution models this; the {@link #uniform(int) uniform} distribution is
+ * the worst case for caches.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public abstract class KeyDistribution {
+
+  /**
+   * The number of distinct keys.
+   */
+  protected final int keyCount;
+
+  /**
+   * Construct a distribution.
+   *
+   * @param keyCount the number of distinct keys
+   */
+  protected KeyDistribution(int keyCount) {
+    if (keyCount < 1) {
+      throw new IllegalArgumentException("Key count must be positive.");
+    }
+    this.keyCount = keyCount;
+  }
+
+  /**
+   * Get the number of distinct keys.
+   *
+   * @return the key count
+   */
+  public int getKeyCount() {
+    return keyCount;
+  }
+
+  /**
+   * Choose the next key index.
+   *
+   * @param random the (thread confined) source of randomness
+   * @return a key index from zero to {@code getKeyCount() - 1}
+   */
+  public abstract int next(Random random);
+
+  /**
+   * Get a distribution in which every key is equally likely.
+   *
+   * @param keyCount the number of distinct keys
+   * @return the distribution
+   */
+  public static KeyDistribution uniform(int keyCount) {
+    return new KeyDistribution(keyCount) {
+      @Override
+      public int next(Random random) {
+        return random.nextInt(this.keyCount);
+      }
+
+      @Override
+      public String toString() {
+        return "uniform";
+      }
+    };
+  }
+
+  /**
+   * Get a Zipfian distribution, in which the key of rank {@code k} is chosen
+   * with probability proportional to {@code 1 / k^theta}. Key zero is the
+   * most popular.
+   * <p>
+   * Keys are generated in constant time by the method of Gray et al.,
+   * "Quickly Generating Billion-Record Synthetic Databases" (as used by
+   * YCSB). The normalizing constant is computed once, in time proportional to
+   * the key count.
+   *
+   * @param keyCount the number of distinct keys
+   * @param theta    the skew, greater than zero and less than one (YCSB uses
+   *                 0.99)
+   * @return the distribution
+   */
+  public static KeyDistribution zipfian(int keyCount, double theta) {
+    return new Zipfian(keyCount, theta);
+  }
+
+  /**
+   * The Zipfian distribution.
+   */
+  private static final class Zipfian extends KeyDistribution {
+
+    private final double theta;
+    private final double alpha;
+    private final double zetan;
+    private final double eta;
+    private final double halfPowTheta;
+
+    private Zipfian(int keyCount, double theta) {
+      super(keyCount);
+      if (!(theta > 0 && theta < 1)) {
+        throw new IllegalArgumentException("Theta must be between zero and one.");
+      }
+      this.theta = theta;
+      this.alpha = 1.0 / (1.0 - theta);
+      this.zetan = zeta(keyCount, theta);
+      this.eta = (1 - Math.pow(2.0 / keyCount, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+      this.halfPowTheta = 1 + Math.pow(0.5, theta);
+    }
+
+    @Override
+    public int next(Random random) {
+      double u = random.nextDouble();
+      double uz = u * zetan;
+      if (uz < 1.0) {
+        return 0;
+      }
+      if (uz < halfPowTheta) {
+        return Math.min(1, keyCount - 1);
+      }
+      return Math.min(keyCount - 1, (int) (keyCount * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    private static double zeta(int n, double theta) {
+      double sum = 0;
+      for (int i = 1; i <= n; i++) {
+        sum += 1 / Math.pow(i, theta);
+      }
+      return sum;
+    }
+
+    @Override
+    public String toString() {
+      return "zipfian(" + theta + ")";
+    }
+  }
+}
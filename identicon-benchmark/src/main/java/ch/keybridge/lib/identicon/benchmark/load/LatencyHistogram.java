@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark.load;
+
+/**
+ * A latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values are recorded into log-linear buckets: each power of two range is
+ * divided into {@link #SUB_BUCKET_COUNT} linear sub-buckets, so every value is
+ * held to within 1/128 (under 1%) of its magnitude, from one nanosecond up to
+ * {@code Long.MAX_VALUE}, in a fixed 30 kB of counts. Recording is a few
+ * shifts and an array increment and never allocates.
+ * <p>
+ * Histograms are not thread safe. Each load thread records into its own
+ * histogram, and they are combined with {@link #add(LatencyHistogram)} once
+ * the run is complete.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public final class LatencyHistogram {
+
+  /**
+   * The number of bits of precision within each power of two.
+   */
+  private static final int SUB_BUCKET_BITS = 7;
+  /**
+   * The number of linear sub-buckets in each power of two range.
+   */
+  static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  /**
+   * The number of power of two ranges above the first, linear one.
+   */
+  private static final int BUCKET_COUNT = 64 - SUB_BUCKET_BITS;
+
+  /**
+   * The counts. Index {@code i < SUB_BUCKET_COUNT} holds the value {@code i};
+   * each following group of {@code SUB_BUCKET_COUNT / 2} holds the upper half
+   * of the sub-buckets of the next power of two.
+   */
+  private final long[] counts = new long[SUB_BUCKET_COUNT + BUCKET_COUNT * (SUB_BUCKET_COUNT / 2)];
+  private long totalCount;
+  private long min = Long.MAX_VALUE;
+  private long max;
+  private double sum;
+
+  /**
+   * Record a value.
+   *
+   * @param value the value, such as a latency in nanoseconds (negative values
+   *              are recorded as zero)
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts[indexOf(value)]++;
+    totalCount++;
+    sum += value;
+    if (value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+  }
+
+  /**
+   * Add the values of another histogram to this histogram.
+   *
+   * @param other the other histogram
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Get the number of recorded values.
+   *
+   * @return the count
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * Get the smallest recorded value.
+   *
+   * @return the minimum, or zero if empty
+   */
+  public long getMin() {
+    return totalCount == 0 ? 0 : min;
+  }
+
+  /**
+   * Get the largest recorded value.
+   *
+   * @return the maximum, or zero if empty
+   */
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * Get the mean of the recorded values.
+   *
+   * @return the mean, or zero if empty
+   */
+  public double getMean() {
+    return totalCount == 0 ? 0 : sum / totalCount;
+  }
+
+  /**
+   * Get the value at a percentile: the (highest equivalent) value below which
+   * the given percentage of recorded values fall.
+   *
+   * @param percentile the percentile, from 0 to 100 (e.g. 99.9)
+   * @return the value, or zero if empty
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return Math.min(max, highestEquivalentValue(i));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Internal method to get the count index of a value.
+   */
+  static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int bucket = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> bucket);
+    return SUB_BUCKET_COUNT + (bucket - 1) * (SUB_BUCKET_COUNT / 2) + subBucket - SUB_BUCKET_COUNT / 2;
+  }
+
+  /**
+   * Internal method to get the largest value held by a count index.
+   */
+  static long highestEquivalentValue(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int bucket = (index - SUB_BUCKET_COUNT) / (SUB_BUCKET_COUNT / 2) + 1;
+    long subBucket = (index - SUB_BUCKET_COUNT) % (SUB_BUCKET_COUNT / 2) + SUB_BUCKET_COUNT / 2;
+    return ((subBucket + 1) << bucket) - 1;
+  }
+}
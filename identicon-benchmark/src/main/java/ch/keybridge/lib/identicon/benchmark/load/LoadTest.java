@@ -0,0 +1,451 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.benchmark.load;
+
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.benchmark.BenchmarkData;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An end-to-end load test that measures throughput and tail latency of
+ * Identicon requests under a realistic key distribution and size mix.
+ * <p>
+ * Requests are sent either to the {@code Identicon} API in-process (render and
+ * encode) or to an HTTP endpoint such as the {@code identicon-server}. Each
+ * thread records latencies into its own {@link LatencyHistogram}, overall and
+ * per image size, so that recording is never a point of contention. Results
+ * are printed and written as JSON so that runs can be compared.
+ * <p>
+ * By default each thread sends its next request as soon as the previous one
+ * completes (closed loop). With {@code --rate} requests are instead scheduled
+ * at a fixed total rate and latency is measured from the scheduled start, so
+ * that a stall is charged to every request it delays rather than hidden by it
+ * (coordinated omission).
+ * <p>
+ * Options are given as {@code --name=value}:
+ * <ul>
+ * <li>{@code --target} {@code in-process} (default) or the base URL of an
+ * endpoint, e.g. {@code http://localhost:8080/identicon/}</li>
+ * <li>{@code --distribution} {@code zipfian} (default) or {@code uniform}</li>
+ * <li>{@code --theta} the Zipfian skew (default 0.99)</li>
+ * <li>{@code --keys} the number of distinct keys (default 100000)</li>
+ * <li>{@code --sizes} the size mix as {@code size:weight} pairs (default
+ * {@code 32:5,64:3,128:2})</li>
+ * <li>{@code --threads} the number of load threads (default the number of
+ * processors)</li>
+ * <li>{@code --rate} the total requests per second, or 0 for closed loop
+ * (default 0)</li>
+ * <li>{@code --warmup} and {@code --duration} in seconds (default 10 and
+ * 30)</li>
+ * <li>{@code --result} the JSON result file (default
+ * {@code identicon-load.json})</li>
+ * </ul>
+ * Example:
+ * <pre>
+ * java -cp identicon-benchmark/target/benchmarks.jar \
+ *   ch.keybridge.lib.identicon.benchmark.load.LoadTest --threads=16 --rate=5000
+ * </pre>
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public final class LoadTest {
+
+  /**
+   * The reported percentiles.
+   */
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+  /**
+   * The random seed. Fixed so that results are comparable across runs.
+   */
+  private static final long SEED = 0x1DE471C0L;
+
+  /**
+   * The system under test.
+   */
+  interface Target {
+
+    /**
+     * Request one image.
+     *
+     * @param key       the object key
+     * @param imageSize the image size in pixels square
+     * @return the number of bytes received
+     * @throws IOException if the request fails
+     */
+    int request(String key, int imageSize) throws IOException;
+  }
+
+  private String target = "in-process";
+  private String distributionName = "zipfian";
+  private double theta = 0.99;
+  private int keyCount = 100_000;
+  private int[] sizes = {32, 64, 128};
+  private int[] weights = {5, 3, 2};
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private double rate;
+  private int warmup = 10;
+  private int duration = 30;
+  private String result = "identicon-load.json";
+
+  /**
+   * The current phase, read by the load threads.
+   */
+  private volatile int phase;
+  private static final int WARMUP = 0;
+  private static final int MEASURE = 1;
+  private static final int STOP = 2;
+
+  public static void main(String[] args) throws Exception {
+    LoadTest test = new LoadTest();
+    test.parse(args);
+    test.run(System.out);
+  }
+
+  /**
+   * Internal method to read the command line options.
+   */
+  private void parse(String[] args) {
+    for (String arg : args) {
+      int split = arg.indexOf('=');
+      if (!arg.startsWith("--") || split < 0) {
+        throw new IllegalArgumentException("Unrecognized option " + arg);
+      }
+      String name = arg.substring(2, split);
+      String value = arg.substring(split + 1);
+      switch (name) {
+        case "target":
+          target = value;
+          break;
+        case "distribution":
+          distributionName = value;
+          break;
+        case "theta":
+          theta = Double.parseDouble(value);
+          break;
+        case "keys":
+          keyCount = Integer.parseInt(value);
+          break;
+        case "sizes":
+          String[] pairs = value.split(",");
+          sizes = new int[pairs.length];
+          weights = new int[pairs.length];
+          for (int i = 0; i < pairs.length; i++) {
+            int colon = pairs[i].indexOf(':');
+            sizes[i] = Integer.parseInt(colon < 0 ? pairs[i] : pairs[i].substring(0, colon));
+            weights[i] = colon < 0 ? 1 : Integer.parseInt(pairs[i].substring(colon + 1));
+          }
+          break;
+        case "threads":
+          threads = Integer.parseInt(value);
+          break;
+        case "rate":
+          rate = Double.parseDouble(value);
+          break;
+        case "warmup":
+          warmup = Integer.parseInt(value);
+          break;
+        case "duration":
+          duration = Integer.parseInt(value);
+          break;
+        case "result":
+          result = value;
+          break;
+        default:
+          throw new IllegalArgumentException("Unrecognized option " + arg);
+      }
+    }
+  }
+
+  /**
+   * Internal method to run the load test and report the results.
+   */
+  private void run(PrintStream out) throws Exception {
+    KeyDistribution distribution;
+    switch (distributionName) {
+      case "zipfian":
+        distribution = KeyDistribution.zipfian(keyCount, theta);
+        break;
+      case "uniform":
+        distribution = KeyDistribution.uniform(keyCount);
+        break;
+      default:
+        throw new IllegalArgumentException("Unrecognized distribution " + distributionName);
+    }
+    String[] keys = BenchmarkData.keys(keyCount);
+    Target system = "in-process".equals(target) ? inProcess() : http(target);
+    /**
+     * The cumulative size weights.
+     */
+    int[] cumulative = new int[weights.length];
+    for (int i = 0, total = 0; i < weights.length; i++) {
+      total += weights[i];
+      cumulative[i] = total;
+    }
+    long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * threads / rate) : 0;
+
+    out.printf("Target %s, %s keys %d, sizes %s, %d threads, %s%n",
+               target, distribution, keyCount, sizeMix(), threads,
+               rate > 0 ? String.format("%.0f requests/s", rate) : "closed loop");
+    Worker[] workers = new Worker[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Worker(system, distribution, keys, cumulative, interval, new Random(SEED + i));
+      workers[i].setName("identicon-load-" + i);
+      workers[i].setDaemon(true);
+    }
+    phase = WARMUP;
+    for (Worker worker : workers) {
+      worker.start();
+    }
+    Thread.sleep(TimeUnit.SECONDS.toMillis(warmup));
+    phase = MEASURE;
+    long start = System.nanoTime();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(duration));
+    phase = STOP;
+    long elapsed = System.nanoTime() - start;
+    for (Worker worker : workers) {
+      worker.join();
+    }
+
+    LatencyHistogram overall = new LatencyHistogram();
+    LatencyHistogram[] bySize = new LatencyHistogram[sizes.length];
+    long bytes = 0;
+    long errors = 0;
+    for (int i = 0; i < sizes.length; i++) {
+      bySize[i] = new LatencyHistogram();
+    }
+    for (Worker worker : workers) {
+      for (int i = 0; i < sizes.length; i++) {
+        bySize[i].add(worker.histograms[i]);
+        overall.add(worker.histograms[i]);
+      }
+      bytes += worker.bytes;
+      errors += worker.errors;
+    }
+    double seconds = elapsed / 1e9;
+    double throughput = overall.getTotalCount() / seconds;
+
+    out.printf("%d requests in %.1f s: %.1f requests/s, %.1f MB/s, %d errors%n",
+               overall.getTotalCount(), seconds, throughput, bytes / seconds / 1e6, errors);
+    out.printf("%-8s %10s", "size", "count");
+    for (double percentile : PERCENTILES) {
+      out.printf(" %10s", "p" + format(percentile));
+    }
+    out.printf(" %10s %10s  (microseconds)%n", "max", "mean");
+    for (int i = 0; i < sizes.length; i++) {
+      print(out, Integer.toString(sizes[i]), bySize[i]);
+    }
+    print(out, "all", overall);
+
+    try (Writer writer = Files.newBufferedWriter(Paths.get(result), StandardCharsets.UTF_8)) {
+      writer.write("{\n");
+      writer.write("  \"target\": \"" + target + "\",\n");
+      writer.write("  \"distribution\": \"" + distribution + "\",\n");
+      writer.write("  \"keys\": " + keyCount + ",\n");
+      writer.write("  \"sizes\": \"" + sizeMix() + "\",\n");
+      writer.write("  \"threads\": " + threads + ",\n");
+      writer.write("  \"rate\": " + format(rate) + ",\n");
+      writer.write("  \"seconds\": " + format(seconds) + ",\n");
+      writer.write("  \"errors\": " + errors + ",\n");
+      writer.write("  \"throughput\": " + format(throughput) + ",\n");
+      writer.write("  \"bytes\": " + bytes + ",\n");
+      writer.write("  \"latency\": " + json(overall) + ",\n");
+      writer.write("  \"bySize\": {");
+      for (int i = 0; i < sizes.length; i++) {
+        writer.write((i == 0 ? "\n" : ",\n") + "    \"" + sizes[i] + "\": " + json(bySize[i]));
+      }
+      writer.write("\n  }\n}\n");
+    }
+    out.println("Results written to " + result);
+  }
+
+  /**
+   * Internal method to print one row of the latency table.
+   */
+  private static void print(PrintStream out, String label, LatencyHistogram histogram) {
+    out.printf("%-8s %10d", label, histogram.getTotalCount());
+    for (double percentile : PERCENTILES) {
+      out.printf(" %10.1f", histogram.getValueAtPercentile(percentile) / 1e3);
+    }
+    out.printf(" %10.1f %10.1f%n", histogram.getMax() / 1e3, histogram.getMean() / 1e3);
+  }
+
+  /**
+   * Internal method to write a histogram summary as a JSON object, in
+   * microseconds.
+   */
+  private static String json(LatencyHistogram histogram) {
+    StringBuilder sb = new StringBuilder("{\"count\": ").append(histogram.getTotalCount());
+    for (double percentile : PERCENTILES) {
+      sb.append(", \"p").append(format(percentile)).append("\": ")
+        .append(format(histogram.getValueAtPercentile(percentile) / 1e3));
+    }
+    return sb.append(", \"max\": ").append(format(histogram.getMax() / 1e3))
+      .append(", \"mean\": ").append(format(histogram.getMean() / 1e3))
+      .append('}').toString();
+  }
+
+  /**
+   * Internal method to format a number without a trailing ".0".
+   */
+  private static String format(double value) {
+    return value == Math.rint(value)
+           ? Long.toString((long) value)
+           : String.format(Locale.ROOT, "%.3f", value).replaceAll("\\.?0+$", "");
+  }
+
+  /**
+   * Internal method to describe the size mix.
+   */
+  private String sizeMix() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < sizes.length; i++) {
+      sb.append(i == 0 ? "" : ",").append(sizes[i]).append(':').append(weights[i]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Get a target that renders and encodes images with the {@code Identicon}
+   * API in the current JVM.
+   *
+   * @return the target
+   */
+  static Target inProcess() {
+    return (key, imageSize) -> Identicon.encode(Identicon.generate(key, imageSize)).length;
+  }
+
+  /**
+   * Get a target that requests images from an HTTP endpoint with
+   * {@code GET {base}{key}?s={size}}. Connections are kept alive.
+   *
+   * @param base the base URL, ending with '/'
+   * @return the target
+   */
+  static Target http(String base) {
+    return (key, imageSize) -> {
+      HttpURLConnection connection = (HttpURLConnection) new URL(base + encode(key) + "?s=" + imageSize).openConnection();
+      int status = connection.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK) {
+        connection.disconnect();
+        throw new IOException("HTTP " + status);
+      }
+      int length = 0;
+      byte[] buffer = new byte[8192];
+      try (InputStream in = connection.getInputStream()) {
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+          length += n;
+        }
+      }
+      return length;
+    };
+  }
+
+  private static String encode(String key) throws UnsupportedEncodingException {
+    return URLEncoder.encode(key, "UTF-8").replace("+", "%20");
+  }
+
+  /**
+   * A load thread. All state is confined to the thread until it is joined.
+   */
+  private final class Worker extends Thread {
+
+    private final Target system;
+    private final KeyDistribution distribution;
+    private final String[] keys;
+    private final int[] cumulative;
+    private final long interval;
+    private final Random random;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[sizes.length];
+    private long bytes;
+    private long errors;
+
+    Worker(Target system, KeyDistribution distribution, String[] keys, int[] cumulative, long interval, Random random) {
+      this.system = system;
+      this.distribution = distribution;
+      this.keys = keys;
+      this.cumulative = cumulative;
+      this.interval = interval;
+      this.random = random;
+      for (int i = 0; i < histograms.length; i++) {
+        histograms[i] = new LatencyHistogram();
+      }
+    }
+
+    @Override
+    public void run() {
+      int total = cumulative[cumulative.length - 1];
+      /**
+       * Stagger the schedules of the threads over one interval.
+       */
+      long next = System.nanoTime() + (interval > 0 ? (long) (random.nextDouble() * interval) : 0);
+      for (int current = phase; current != STOP; current = phase) {
+        String key = keys[distribution.next(random)];
+        int choice = random.nextInt(total);
+        int s = 0;
+        while (cumulative[s] <= choice) {
+          s++;
+        }
+        long start;
+        if (interval > 0) {
+          for (long wait = next - System.nanoTime(); wait > 0; wait = next - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+          }
+          start = next;
+          next += interval;
+        } else {
+          start = System.nanoTime();
+        }
+        int length;
+        try {
+          length = system.request(key, sizes[s]);
+        } catch (IOException ex) {
+          if (current == MEASURE) {
+            errors++;
+          }
+          continue;
+        }
+        long latency = System.nanoTime() - start;
+        if (current == MEASURE) {
+          histograms[s].record(latency);
+          bytes += length;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.server;
+
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.IdenticonCache;
+import ch.keybridge.lib.identicon.IdenticonCoalescer;
+import ch.keybridge.lib.identicon.SvgIdenticonRenderer;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles Identicon image requests for the {@link IdenticonServer}.
+ * <p>
+ * Handlers are thread safe. The ETag and {@code If-None-Match} check are
+ * computed from the code alone, so only requests that are not answered with
+ * {@code 304 Not Modified} or from the cache render. Concurrent requests for
+ * the same image are coalesced into one render, and only that render takes a
+ * render permit.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+class IdenticonHandler implements HttpHandler {
+
+  /**
+   * The image size query parameter name.
+   */
+  static final String SIZE_PARAMETER = "s";
+
+  private final String path;
+  private final ImageFormat format;
+  private final int defaultImageSize;
+  private final int maximumImageSize;
+  private final String cacheControl;
+  private final Semaphore permits;
+  private final long acquireTimeout;
+  private final IdenticonCache cache;
+  /**
+   * Coalesces concurrent uncached renders of the same image.
+   */
+  private final IdenticonCoalescer coalescer = new IdenticonCoalescer();
+
+  IdenticonHandler(String path,
+                   ImageFormat format,
+                   int defaultImageSize,
+                   int maximumImageSize,
+                   long maxAge,
+                   int concurrency,
+                   long acquireTimeout,
+                   IdenticonCache cache) {
+    this.path = path;
+    this.format = format;
+    this.defaultImageSize = defaultImageSize;
+    this.maximumImageSize = maximumImageSize;
+    this.cacheControl = "public, max-age=" + maxAge + ", immutable";
+    this.permits = new Semaphore(concurrency);
+    this.acquireTimeout = acquireTimeout;
+    this.cache = format == ImageFormat.PNG ? cache : null;
+  }
+
+  /**
+   * Get the context path.
+   *
+   * @return the context path
+   */
+  String getPath() {
+    return path;
+  }
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    try {
+      String method = exchange.getRequestMethod();
+      boolean head = "HEAD".equals(method);
+      if (!head && !"GET".equals(method)) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      /**
+       * The request path is decoded. The code is the single segment following
+       * the context path.
+       */
+      String requestPath = exchange.getRequestURI().getPath();
+      if (requestPath.length() <= path.length() || requestPath.indexOf('/', path.length()) >= 0) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      String code = requestPath.substring(path.length());
+      int imageSize = getImageSize(exchange.getRequestURI().getRawQuery());
+      if (imageSize < 1 || imageSize > maximumImageSize) {
+        exchange.sendResponseHeaders(400, -1);
+        return;
+      }
+      Headers headers = exchange.getResponseHeaders();
+      String etag = format.getETag(code, imageSize);
+      headers.set("ETag", etag);
+      headers.set("Cache-Control", cacheControl);
+      if (format.isNotModified(exchange.getRequestHeaders().getFirst("If-None-Match"), code, imageSize)) {
+        exchange.sendResponseHeaders(304, -1);
+        return;
+      }
+      byte[] encoded = cache != null ? cache.getIfPresent(etag) : null;
+      if (encoded == null) {
+        try {
+          encoded = coalescer.get(Identicon.getCode(code), imageSize, () -> render(code, imageSize, etag));
+        } catch (IOException ex) {
+          headers.remove("Cache-Control");
+          if (ex instanceof InterruptedIOException || ex.getCause() instanceof InterruptedIOException) {
+            headers.set("Retry-After", "1");
+            exchange.sendResponseHeaders(503, -1);
+          } else {
+            exchange.sendResponseHeaders(500, -1);
+          }
+          return;
+        }
+      }
+      headers.set("Content-Type", format.getMimeType());
+      if (head) {
+        headers.set("Content-Length", Integer.toString(encoded.length));
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, encoded.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(encoded);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Internal method to render and encode an image in the configured format,
+   * holding a render permit, and cache it. Concurrent requests for the same
+   * image wait for this render rather than for a permit.
+   *
+   * @param code      the code (object) to render
+   * @param imageSize the image size in pixels square
+   * @param etag      the image ETag
+   * @return the encoded image
+   * @throws InterruptedIOException if no permit is available within the
+   *                                acquire timeout
+   * @throws IOException            if the image cannot be encoded
+   */
+  private byte[] render(String code, int imageSize, String etag) throws IOException {
+    try {
+      if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+        throw new InterruptedIOException("No render permit within " + acquireTimeout + " ms");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for a render permit");
+    }
+    try {
+      byte[] encoded = format == ImageFormat.SVG
+                       ? SvgIdenticonRenderer.getInstance().renderBytes(Identicon.getCode(code), imageSize)
+                       : Identicon.encode(Identicon.generate(code, imageSize));
+      if (cache != null) {
+        cache.put(etag, encoded);
+      }
+      return encoded;
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Internal method to read the image size from a raw query string.
+   *
+   * @param query the raw query string (may be null)
+   * @return the requested image size, the default size if none is requested,
+   *         or -1 if the value is not a number
+   */
+  int getImageSize(String query) {
+    if (query == null) {
+      return defaultImageSize;
+    }
+    for (int start = 0; start < query.length();) {
+      int end = query.indexOf('&', start);
+      if (end < 0) {
+        end = query.length();
+      }
+      if (end - start > SIZE_PARAMETER.length()
+          && query.startsWith(SIZE_PARAMETER, start)
+          && query.charAt(start + SIZE_PARAMETER.length()) == '=') {
+        int value = 0;
+        int first = start + SIZE_PARAMETER.length() + 1;
+        if (first == end || end - first > 9) {
+          return -1;
+        }
+        for (int i = first; i < end; i++) {
+          char c = query.charAt(i);
+          if (c < '0' || c > '9') {
+            return -1;
+          }
+          value = value * 10 + (c - '0');
+        }
+        return value;
+      }
+      start = end + 1;
+    }
+    return defaultImageSize;
+  }
+}
@@ -0,0 +1,453 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.server;
+
+import ch.keybridge.lib.identicon.GridIdenticonRenderer;
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.IdenticonCache;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An embedded Identicon avatar server built on the JDK HTTP server
+ * ({@code com.sun.net.httpserver}).
+ * <p>
+ * The server answers {@code GET /identicon/{code}?s={size}}, where the code is
+ * any string (such as a hashed e-mail address) and the size is in pixels
+ * square. Responses carry the {@link Identicon#getETag(Object, int)} ETag and
+ * a long-lived {@code Cache-Control} header, and conditional requests with a
+ * matching {@code If-None-Match} header are answered with
+ * {@code 304 Not Modified} without rendering. Concurrent requests for the same
+ * image share one render. At most a configured number of images are rendered
+ * at once; requests that cannot start rendering within the acquire timeout
+ * are answered with {@code 503 Service Unavailable}.
+ * <p>
+ * Requests are handled on virtual threads where the JDK supports them (Java
+ * 21 and later) and on a cached thread pool otherwise.
+ * <p>
+ * The JDK server writes the response headers and body separately. With
+ * Nagle's algorithm the body then waits for the client's delayed ACK, adding
+ * about 40 ms to every keep-alive request. The standalone {@link #main} sets
+ * {@code -Dsun.net.httpserver.nodelay=true}; an embedding application should
+ * pass the same JVM flag. The setting applies to every JDK server in the JVM,
+ * so it is never changed by {@link #start()}.
+ * <p>
+ * Example:
+ * <pre>
+ * IdenticonServer server = IdenticonServer.builder()
+ *   .port(8080)
+ *   .format(ImageFormat.PNG)
+ *   .concurrency(4)
+ *   .build()
+ *   .start();
+ * </pre>
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public final class IdenticonServer implements AutoCloseable {
+
+  /**
+   * The default port.
+   */
+  public static final int DEFAULT_PORT = 8080;
+  /**
+   * The default context path.
+   */
+  public static final String DEFAULT_PATH = "/identicon/";
+  /**
+   * The default image size in pixels square, when none is requested.
+   */
+  public static final int DEFAULT_IMAGE_SIZE = 64;
+  /**
+   * The default maximum image size in pixels square.
+   */
+  public static final int DEFAULT_MAXIMUM_IMAGE_SIZE = 1024;
+  /**
+   * The default {@code Cache-Control} max-age in seconds (one year). Images
+   * never change for a given code, size and version.
+   */
+  public static final long DEFAULT_MAX_AGE = 365L * 24 * 60 * 60;
+  /**
+   * The default time in milliseconds a request waits to start rendering.
+   */
+  public static final long DEFAULT_ACQUIRE_TIMEOUT = 1000;
+  /**
+   * The JDK HTTP server property that disables Nagle's algorithm for every
+   * JDK server in the JVM.
+   */
+  private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+  /**
+   * The socket address.
+   */
+  private final InetSocketAddress address;
+  /**
+   * The request handler.
+   */
+  private final IdenticonHandler handler;
+  /**
+   * The running HTTP server, or null if not started.
+   */
+  private HttpServer server;
+  /**
+   * The request executor, or null if not started.
+   */
+  private ExecutorService executor;
+
+  /**
+   * Private constructor. Use {@code builder()}.
+   *
+   * @param builder the configuration
+   */
+  private IdenticonServer(Builder builder) {
+    this.address = builder.address;
+    this.handler = new IdenticonHandler(builder.path,
+                                        builder.format,
+                                        builder.defaultImageSize,
+                                        builder.maximumImageSize,
+                                        builder.maxAge,
+                                        builder.concurrency,
+                                        builder.acquireTimeout,
+                                        builder.cache);
+  }
+
+  /**
+   * Get a new builder with the default configuration.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Start the server.
+   *
+   * @return this server
+   * @throws IOException           if the server cannot be bound to its address
+   * @throws IllegalStateException if the server is already started
+   */
+  public synchronized IdenticonServer start() throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("Server is already started.");
+    }
+    HttpServer httpServer = HttpServer.create(address, 0);
+    executor = newExecutor();
+    httpServer.setExecutor(executor);
+    httpServer.createContext(handler.getPath(), handler);
+    httpServer.start();
+    server = httpServer;
+    return this;
+  }
+
+  /**
+   * Stop the server, waiting up to one second for requests in progress to
+   * complete. A stopped server may not be restarted.
+   */
+  public synchronized void stop() {
+    if (server != null) {
+      server.stop(1);
+      executor.shutdown();
+      try {
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      server = null;
+    }
+  }
+
+  /**
+   * Stop the server.
+   *
+   * @see #stop()
+   */
+  @Override
+  public void close() {
+    stop();
+  }
+
+  /**
+   * Get the bound socket address. This is the actual port if the server was
+   * configured with port zero.
+   *
+   * @return the socket address
+   */
+  public synchronized InetSocketAddress getAddress() {
+    return server != null ? server.getAddress() : address;
+  }
+
+  /**
+   * Internal method to create the request executor: one virtual thread per
+   * request where the JDK supports it, otherwise a cached thread pool.
+   * <p>
+   * The virtual thread executor is found reflectively so that this module
+   * also runs on JDKs without virtual threads.
+   *
+   * @return a new executor
+   */
+  static ExecutorService newExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException ex) {
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "identicon-server");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Run the server. Options are given as {@code --name=value}:
+   * <ul>
+   * <li>{@code --port} the port (default 8080)</li>
+   * <li>{@code --format} PNG or SVG (default PNG)</li>
+   * <li>{@code --concurrency} the maximum number of concurrent renders
+   * (default the number of processors)</li>
+   * <li>{@code --max-size} the maximum image size (default 1024)</li>
+   * <li>{@code --renderer} the PNG image style: nineblock or grid (default
+   * nineblock)</li>
+   * </ul>
+   *
+   * @param args the command line options
+   * @throws IOException if the server cannot be started
+   */
+  public static void main(String[] args) throws IOException {
+    /**
+     * The property is read once, when the first JDK server in the JVM is
+     * created, so it can only be set here, before any server exists. An
+     * explicit setting is kept.
+     */
+    if (System.getProperty(NODELAY_PROPERTY) == null) {
+      System.setProperty(NODELAY_PROPERTY, "true");
+    }
+    Builder builder = builder();
+    for (String arg : args) {
+      int split = arg.indexOf('=');
+      if (!arg.startsWith("--") || split < 0) {
+        throw new IllegalArgumentException("Unrecognized option " + arg);
+      }
+      String name = arg.substring(2, split);
+      String value = arg.substring(split + 1);
+      switch (name) {
+        case "port":
+          builder.port(Integer.parseInt(value));
+          break;
+        case "format":
+          builder.format(ImageFormat.valueOf(value.toUpperCase()));
+          break;
+        case "concurrency":
+          builder.concurrency(Integer.parseInt(value));
+          break;
+        case "max-size":
+          builder.maximumImageSize(Integer.parseInt(value));
+          break;
+        case "renderer":
+          if ("grid".equalsIgnoreCase(value)) {
+            Identicon.setRenderer(GridIdenticonRenderer.getInstance());
+          } else if (!"nineblock".equalsIgnoreCase(value)) {
+            throw new IllegalArgumentException("Unrecognized renderer " + value);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unrecognized option " + arg);
+      }
+    }
+    IdenticonServer server = builder.build().start();
+    Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    System.out.println("Identicon server listening on " + server.getAddress() + builder.path);
+  }
+
+  /**
+   * Builds {@link IdenticonServer} instances. Builders are not thread safe.
+   */
+  public static final class Builder {
+
+    private InetSocketAddress address = new InetSocketAddress(DEFAULT_PORT);
+    private String path = DEFAULT_PATH;
+    private ImageFormat format = ImageFormat.PNG;
+    private int defaultImageSize = DEFAULT_IMAGE_SIZE;
+    private int maximumImageSize = DEFAULT_MAXIMUM_IMAGE_SIZE;
+    private long maxAge = DEFAULT_MAX_AGE;
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+    private long acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+    private IdenticonCache cache;
+
+    private Builder() {
+    }
+
+    /**
+     * Set the port on all local addresses. Default is 8080; zero selects any
+     * free port.
+     *
+     * @param port the port
+     * @return this builder
+     */
+    public Builder port(int port) {
+      return address(new InetSocketAddress(port));
+    }
+
+    /**
+     * Set the socket address.
+     *
+     * @param address the socket address
+     * @return this builder
+     */
+    public Builder address(InetSocketAddress address) {
+      this.address = Objects.requireNonNull(address, "Address is required.");
+      return this;
+    }
+
+    /**
+     * Set the context path under which codes are served. Default is
+     * {@code /identicon/}.
+     *
+     * @param path the context path, beginning and ending with '/'
+     * @return this builder
+     */
+    public Builder path(String path) {
+      Objects.requireNonNull(path, "Path is required.");
+      if (!path.startsWith("/") || !path.endsWith("/")) {
+        throw new IllegalArgumentException("Path must begin and end with '/'.");
+      }
+      this.path = path;
+      return this;
+    }
+
+    /**
+     * Set the encoded image format. Default is {@link ImageFormat#PNG}.
+     *
+     * @param format the image format
+     * @return this builder
+     */
+    public Builder format(ImageFormat format) {
+      this.format = Objects.requireNonNull(format, "Format is required.");
+      return this;
+    }
+
+    /**
+     * Set the image size served when none is requested. Default is 64.
+     *
+     * @param defaultImageSize the image size in pixels square
+     * @return this builder
+     */
+    public Builder defaultImageSize(int defaultImageSize) {
+      if (defaultImageSize < 1) {
+        throw new IllegalArgumentException("Image size must be positive.");
+      }
+      this.defaultImageSize = defaultImageSize;
+      return this;
+    }
+
+    /**
+     * Set the largest image size that may be requested. Larger sizes are
+     * answered with {@code 400 Bad Request}. Default is 1024.
+     *
+     * @param maximumImageSize the image size in pixels square
+     * @return this builder
+     */
+    public Builder maximumImageSize(int maximumImageSize) {
+      if (maximumImageSize < 1) {
+        throw new IllegalArgumentException("Image size must be positive.");
+      }
+      this.maximumImageSize = maximumImageSize;
+      return this;
+    }
+
+    /**
+     * Set the {@code Cache-Control} max-age. Default is one year.
+     *
+     * @param maxAge the max-age in seconds
+     * @return this builder
+     */
+    public Builder maxAge(long maxAge) {
+      if (maxAge < 0) {
+        throw new IllegalArgumentException("Max age must not be negative.");
+      }
+      this.maxAge = maxAge;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of images rendered at once. Default is the number
+     * of processors, as rendering is CPU bound.
+     *
+     * @param concurrency the maximum number of concurrent renders
+     * @return this builder
+     */
+    public Builder concurrency(int concurrency) {
+      if (concurrency < 1) {
+        throw new IllegalArgumentException("Concurrency must be positive.");
+      }
+      this.concurrency = concurrency;
+      return this;
+    }
+
+    /**
+     * Set the time a request waits to start rendering before it is answered
+     * with {@code 503 Service Unavailable}. Default is one second.
+     *
+     * @param acquireTimeout the timeout in milliseconds
+     * @return this builder
+     */
+    public Builder acquireTimeout(long acquireTimeout) {
+      if (acquireTimeout < 0) {
+        throw new IllegalArgumentException("Timeout must not be negative.");
+      }
+      this.acquireTimeout = acquireTimeout;
+      return this;
+    }
+
+    /**
+     * Set a cache of encoded images. Default is null, which renders every
+     * request that is not answered with {@code 304 Not Modified}. The cache
+     * holds PNG images and is used only for the {@link ImageFormat#PNG}
+     * format.
+     *
+     * @param cache the cache, or null
+     * @return this builder
+     */
+    public Builder cache(IdenticonCache cache) {
+      this.cache = cache;
+      return this;
+    }
+
+    /**
+     * Build a server with the current configuration. The server is not
+     * started.
+     *
+     * @return a new server
+     */
+    public IdenticonServer build() {
+      return new IdenticonServer(this);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.server;
+
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.SvgIdenticonRenderer;
+
+/**
+ * The encoded image formats served by the {@link IdenticonServer}.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public enum ImageFormat {
+
+  /**
+   * Indexed-color PNG raster images. The ETag is the Identicon ETag.
+   */
+  PNG(Identicon.IMAGE_MIMETYPE, ""),
+  /**
+   * SVG vector images. One image serves every display size. The ETag is the
+   * Identicon ETag with a {@code -svg} suffix.
+   */
+  SVG(SvgIdenticonRenderer.SVG_MIMETYPE, "-svg");
+
+  /**
+   * The MIME type.
+   */
+  private final String mimeType;
+  /**
+   * The suffix added to the Identicon ETag, so that the formats of an image
+   * have different ETags.
+   */
+  private final String etagSuffix;
+
+  private ImageFormat(String mimeType, String etagSuffix) {
+    this.mimeType = mimeType;
+    this.etagSuffix = etagSuffix;
+  }
+
+  /**
+   * Get the MIME type, as sent in the {@code Content-Type} header.
+   *
+   * @return the MIME type
+   */
+  public String getMimeType() {
+    return mimeType;
+  }
+
+  /**
+   * Get the ETag of an image in this format.
+   *
+   * @param object    the object to hash
+   * @param imageSize the image size in pixels square
+   * @return the ETag
+   */
+  String getETag(Object object, int imageSize) {
+    String etag = Identicon.getETag(object, imageSize);
+    return etagSuffix.isEmpty() ? etag : etag.substring(0, etag.length() - 1) + etagSuffix + '"';
+  }
+
+  /**
+   * Determine whether a client's cached copy of an image in this format is
+   * still current, comparing ETags with the weak comparison function as
+   * {@link Identicon#isNotModified(String, Object, int)} does.
+   *
+   * @param ifNoneMatch the If-None-Match header value (may be null or a comma
+   *                    separated list of ETags)
+   * @param object      the object to hash
+   * @param imageSize   the image size in pixels square
+   * @return true if the client copy matches
+   */
+  boolean isNotModified(String ifNoneMatch, Object object, int imageSize) {
+    if (etagSuffix.isEmpty()) {
+      return Identicon.isNotModified(ifNoneMatch, object, imageSize);
+    }
+    if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+      return false;
+    }
+    String opaqueTag = getETag(object, imageSize).substring(2);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaqueTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.server;
+
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.SvgIdenticonRenderer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class IdenticonServerTest {
+
+  private static final String CODE = "servertest@keybridgeglobal.com";
+
+  @Test
+  public void testGet() throws IOException {
+    System.out.println("IdenticonServer TestGet");
+    try (IdenticonServer server = IdenticonServer.builder().port(0).build().start()) {
+      HttpURLConnection connection = open(server, CODE + "?s=32");
+      assertEquals(200, connection.getResponseCode());
+      assertEquals(Identicon.IMAGE_MIMETYPE, connection.getContentType());
+      assertEquals(Identicon.getETag(CODE, 32), connection.getHeaderField("ETag"));
+      assertTrue(connection.getHeaderField("Cache-Control").contains("max-age=" + IdenticonServer.DEFAULT_MAX_AGE));
+      assertArrayEquals(Identicon.encode(Identicon.generate(CODE, 32)), read(connection));
+      /**
+       * No size: the default size.
+       */
+      connection = open(server, CODE);
+      assertEquals(200, connection.getResponseCode());
+      assertEquals(Identicon.getETag(CODE, IdenticonServer.DEFAULT_IMAGE_SIZE), connection.getHeaderField("ETag"));
+      read(connection);
+    }
+  }
+
+  @Test
+  public void testNotModified() throws IOException {
+    System.out.println("IdenticonServer TestNotModified");
+    try (IdenticonServer server = IdenticonServer.builder().port(0).build().start()) {
+      HttpURLConnection connection = open(server, CODE + "?s=48");
+      connection.setRequestProperty("If-None-Match", Identicon.getETag(CODE, 48));
+      assertEquals(304, connection.getResponseCode());
+      assertEquals(Identicon.getETag(CODE, 48), connection.getHeaderField("ETag"));
+      /**
+       * A different size does not match.
+       */
+      connection = open(server, CODE + "?s=64");
+      connection.setRequestProperty("If-None-Match", Identicon.getETag(CODE, 48));
+      assertEquals(200, connection.getResponseCode());
+      read(connection);
+    }
+  }
+
+  @Test
+  public void testErrors() throws IOException {
+    System.out.println("IdenticonServer TestErrors");
+    try (IdenticonServer server = IdenticonServer.builder().port(0).maximumImageSize(256).build().start()) {
+      assertEquals(400, open(server, CODE + "?s=257").getResponseCode());
+      assertEquals(400, open(server, CODE + "?s=0").getResponseCode());
+      assertEquals(400, open(server, CODE + "?s=abc").getResponseCode());
+      assertEquals(404, open(server, "").getResponseCode());
+      assertEquals(404, open(server, "a/b").getResponseCode());
+      HttpURLConnection connection = open(server, CODE);
+      connection.setRequestMethod("DELETE");
+      assertEquals(405, connection.getResponseCode());
+    }
+  }
+
+  @Test
+  public void testSvg() throws IOException {
+    System.out.println("IdenticonServer TestSvg");
+    try (IdenticonServer server = IdenticonServer.builder().port(0).format(ImageFormat.SVG).build().start()) {
+      HttpURLConnection connection = open(server, CODE + "?s=32");
+      assertEquals(200, connection.getResponseCode());
+      assertEquals(SvgIdenticonRenderer.SVG_MIMETYPE, connection.getContentType());
+      assertArrayEquals(SvgIdenticonRenderer.getInstance().renderBytes(Identicon.getCode(CODE), 32), read(connection));
+      /**
+       * The ETag names the format, so a cached PNG does not match.
+       */
+      String etag = connection.getHeaderField("ETag");
+      String pngETag = Identicon.getETag(CODE, 32);
+      assertEquals(pngETag.substring(0, pngETag.length() - 1) + "-svg\"", etag);
+      connection = open(server, CODE + "?s=32");
+      connection.setRequestProperty("If-None-Match", pngETag);
+      assertEquals(200, connection.getResponseCode());
+      read(connection);
+      connection = open(server, CODE + "?s=32");
+      connection.setRequestProperty("If-None-Match", pngETag + ", " + etag.substring(2));
+      assertEquals(304, connection.getResponseCode());
+    }
+  }
+
+  @Test
+  public void testGetImageSize() {
+    System.out.println("IdenticonServer TestGetImageSize");
+    IdenticonHandler handler = new IdenticonHandler("/identicon/", ImageFormat.PNG, 64, 1024, 0, 1, 0, null);
+    assertEquals(64, handler.getImageSize(null));
+    assertEquals(64, handler.getImageSize("d=identicon"));
+    assertEquals(128, handler.getImageSize("s=128"));
+    assertEquals(32, handler.getImageSize("d=identicon&s=32&r=g"));
+    assertEquals(64, handler.getImageSize("size=32"));
+    assertEquals(-1, handler.getImageSize("s="));
+    assertEquals(-1, handler.getImageSize("s=-1"));
+    assertEquals(-1, handler.getImageSize("s=12345678901"));
+  }
+
+  private static HttpURLConnection open(IdenticonServer server, String code) throws IOException {
+    URL url = new URL("http://localhost:" + server.getAddress().getPort() + IdenticonServer.DEFAULT_PATH + code);
+    return (HttpURLConnection) url.openConnection();
+  }
+
+  private static byte[] read(HttpURLConnection connection) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = connection.getInputStream()) {
+      byte[] buffer = new byte[4096];
+      for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+        out.write(buffer, 0, n);
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,801 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.tools;
+
+import ch.keybridge.lib.identicon.CodeFunction;
+import ch.keybridge.lib.identicon.GridIdenticonRenderer;
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import ch.keybridge.lib.identicon.ImmutableIdenticonRenderer;
+import ch.keybridge.lib.identicon.RenderQuality;
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pre-generates the Identicon images of a list of IDs, such as every user of
+ * a site, into a directory tree or a single tar archive.
+ * <p>
+ * IDs are read one per line from a file or standard input and pass through a
+ * pipeline of bounded queues: a reader thread groups IDs into batches, a
+ * configurable number of worker threads hash, render and encode each batch at
+ * every requested size, and the calling thread writes the images in input
+ * order. A fixed number of batches is in flight at any time, so memory use
+ * does not grow with the number of IDs.
+ * <p>
+ * Each image is named {@code xx/ID@SIZE.png}, where {@code xx} is the high
+ * byte of the code in hexadecimal (spreading the images over 256
+ * directories) and {@code ID} is the URL-encoded ID. The images are identical
+ * to those of the configured renderer and code function.
+ * <p>
+ * The writer periodically makes its output durable and records the number of
+ * IDs written in a checkpoint file next to the output. A run that is
+ * interrupted can be resumed with the same input: the IDs already written are
+ * skipped and an archive is truncated to its last checkpoint. Throughput is
+ * reported at a configurable interval.
+ * <p>
+ * Example:
+ * <pre>
+ * long count = BulkGenerator.builder()
+ *   .input(Paths.get("ids.txt"))
+ *   .output(Paths.get("avatars.tar"))
+ *   .imageSizes(32, 64, 128)
+ *   .threads(8)
+ *   .build()
+ *   .run();
+ * </pre>
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public final class BulkGenerator {
+
+  /**
+   * The default image size in pixels square.
+   */
+  public static final int DEFAULT_IMAGE_SIZE = 64;
+  /**
+   * The default number of IDs in a batch.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 64;
+  /**
+   * The default capacity of each queue, in batches.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 16;
+  /**
+   * The default interval between checkpoints and progress reports in
+   * milliseconds.
+   */
+  public static final long DEFAULT_REPORT_INTERVAL = 10000;
+  /**
+   * The suffix of the checkpoint file name, appended to the output name.
+   */
+  public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+  /**
+   * The file name extension that selects tar archive output.
+   */
+  public static final String ARCHIVE_EXTENSION = ".tar";
+
+  /**
+   * The image file name extension.
+   */
+  private static final String EXTENSION = "." + Identicon.IMAGE_FORMAT.toLowerCase(Locale.ROOT);
+  /**
+   * Hexadecimal digits.
+   */
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  /**
+   * The batch that marks the end of the input.
+   */
+  private static final Batch END = new Batch(-1, 0);
+
+  /**
+   * The input file, or null to read standard input.
+   */
+  private final Path input;
+  private final Path output;
+  private final Path checkpoint;
+  private final boolean archive;
+  private final int[] imageSizes;
+  private final IdenticonRenderer renderer;
+  private final CodeFunction codeFunction;
+  private final int threads;
+  private final int batchSize;
+  private final int queueCapacity;
+  private final boolean resume;
+  private final long reportInterval;
+  /**
+   * The progress report stream, or null for none.
+   */
+  private final PrintStream report;
+
+  /**
+   * Private constructor. Use {@code builder()}.
+   *
+   * @param builder the configuration
+   */
+  private BulkGenerator(Builder builder) {
+    this.input = builder.input;
+    this.output = builder.output;
+    this.checkpoint = builder.output.resolveSibling(builder.output.getFileName() + CHECKPOINT_SUFFIX);
+    this.archive = builder.output.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ARCHIVE_EXTENSION);
+    this.imageSizes = builder.imageSizes.clone();
+    this.renderer = builder.renderer;
+    this.codeFunction = builder.codeFunction;
+    this.threads = builder.threads;
+    this.batchSize = builder.batchSize;
+    this.queueCapacity = builder.queueCapacity;
+    this.resume = builder.resume;
+    this.reportInterval = builder.reportInterval;
+    this.report = builder.report;
+  }
+
+  /**
+   * Get a new builder with the default configuration.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Get the checkpoint file.
+   *
+   * @return the checkpoint file, next to the output
+   */
+  public Path getCheckpoint() {
+    return checkpoint;
+  }
+
+  /**
+   * Generate the images of every ID in the input.
+   *
+   * @return the number of IDs generated by this run, excluding any skipped
+   *         when resuming
+   * @throws IOException          if the input cannot be read, an image cannot
+   *                              be rendered or the output cannot be written
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  public long run() throws IOException, InterruptedException {
+    long skip = 0;
+    long offset = 0;
+    if (resume && Files.exists(checkpoint)) {
+      Properties properties = readCheckpoint();
+      skip = Long.parseLong(properties.getProperty("ids"));
+      offset = Long.parseLong(properties.getProperty("offset"));
+    } else {
+      Files.deleteIfExists(checkpoint);
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+      input != null ? Files.newInputStream(input) : System.in, StandardCharsets.UTF_8));
+         ImageSink sink = archive ? new TarSink(output, offset) : new DirectorySink(output)) {
+      return new Pipeline(reader, sink, skip).run();
+    }
+  }
+
+  /**
+   * Internal method to read and validate the checkpoint file.
+   *
+   * @return the checkpoint properties
+   * @throws IOException if the file cannot be read or was written for other
+   *                     image sizes
+   */
+  private Properties readCheckpoint() throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(checkpoint)) {
+      properties.load(in);
+    }
+    if (properties.getProperty("ids") == null
+        || properties.getProperty("offset") == null
+        || !Arrays.toString(imageSizes).equals(properties.getProperty("sizes"))) {
+      throw new IOException("Checkpoint " + checkpoint + " does not match this output.");
+    }
+    return properties;
+  }
+
+  /**
+   * Internal method to write the checkpoint file. The file is replaced
+   * atomically, so it always describes a complete checkpoint.
+   *
+   * @param ids    the number of IDs written
+   * @param offset the position from which the sink resumes
+   * @throws IOException if the file cannot be written
+   */
+  private void writeCheckpoint(long ids, long offset) throws IOException {
+    Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    String content = "ids=" + ids + "\noffset=" + offset + "\nsizes=" + Arrays.toString(imageSizes) + "\n";
+    Files.write(temporary, content.getBytes(StandardCharsets.ISO_8859_1));
+    Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Get the name of an image. A directory output requires the name to be a
+   * valid file name, so IDs should be well under 255 bytes once encoded; an
+   * archive accepts names of any length.
+   *
+   * @param id        the ID
+   * @param code      the ID code
+   * @param imageSize the image size
+   * @return the image name, {@code xx/ID@SIZE.png}
+   */
+  static String getName(String id, int code, int imageSize) {
+    String encoded;
+    try {
+      encoded = URLEncoder.encode(id, "UTF-8").replace("*", "%2A");
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+    return new StringBuilder(encoded.length() + 16)
+      .append(HEX[(code >>> 28) & 0xf])
+      .append(HEX[(code >>> 24) & 0xf])
+      .append('/')
+      .append(encoded)
+      .append('@')
+      .append(imageSize)
+      .append(EXTENSION)
+      .toString();
+  }
+
+  /**
+   * Run the generator. Options are given as {@code --name=value}:
+   * <ul>
+   * <li>{@code --input} the file of IDs, one per line, or {@code -} for
+   * standard input (default)</li>
+   * <li>{@code --output} the output directory, or a file ending in
+   * {@code .tar} for a tar archive (required)</li>
+   * <li>{@code --sizes} the comma separated image sizes (default 64)</li>
+   * <li>{@code --renderer} the image style: nineblock or grid (default
+   * nineblock)</li>
+   * <li>{@code --background} the background color as {@code RRGGBB} (default
+   * {@code ffffff})</li>
+   * <li>{@code --quality} the 9-block rendering quality (default
+   * {@code default})</li>
+   * <li>{@code --salt} hash IDs with the salted MurmurHash3 code function
+   * (default the {@code Identicon} code function)</li>
+   * <li>{@code --threads} the number of render threads (default the number of
+   * processors)</li>
+   * <li>{@code --batch} the number of IDs in a batch (default 64)</li>
+   * <li>{@code --queue} the capacity of each queue in batches (default
+   * 16)</li>
+   * <li>{@code --resume} resume from the checkpoint of an earlier run</li>
+   * <li>{@code --interval} the seconds between progress reports (default
+   * 10)</li>
+   * </ul>
+   * Progress is reported to standard error.
+   *
+   * @param args the command line options
+   * @throws IOException          if the images cannot be generated
+   * @throws InterruptedException if interrupted
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    parse(args).report(System.err).build().run();
+  }
+
+  /**
+   * Internal method to configure a builder from command line options.
+   *
+   * @param args the command line options
+   * @return the configured builder
+   */
+  static Builder parse(String[] args) {
+    Builder builder = builder();
+    String style = "nineblock";
+    Color background = Color.WHITE;
+    RenderQuality quality = RenderQuality.DEFAULT;
+    for (String arg : args) {
+      int split = arg.indexOf('=');
+      if (!arg.startsWith("--")) {
+        throw new IllegalArgumentException("Unrecognized option " + arg);
+      }
+      String name = arg.substring(2, split < 0 ? arg.length() : split);
+      String value = split < 0 ? "true" : arg.substring(split + 1);
+      switch (name) {
+        case "input":
+          builder.input("-".equals(value) ? null : Paths.get(value));
+          break;
+        case "output":
+          builder.output(Paths.get(value));
+          break;
+        case "sizes":
+          builder.imageSizes(Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray());
+          break;
+        case "renderer":
+          style = value.toLowerCase(Locale.ROOT);
+          break;
+        case "background":
+          background = new Color(Integer.parseInt(value.startsWith("#") ? value.substring(1) : value, 16));
+          break;
+        case "quality":
+          quality = RenderQuality.valueOf(value.toUpperCase(Locale.ROOT));
+          break;
+        case "salt":
+          builder.codeFunction(CodeFunction.murmur3(value));
+          break;
+        case "threads":
+          builder.threads(Integer.parseInt(value));
+          break;
+        case "batch":
+          builder.batchSize(Integer.parseInt(value));
+          break;
+        case "queue":
+          builder.queueCapacity(Integer.parseInt(value));
+          break;
+        case "resume":
+          builder.resume(Boolean.parseBoolean(value));
+          break;
+        case "interval":
+          builder.reportInterval(TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+          break;
+        default:
+          throw new IllegalArgumentException("Unrecognized option " + arg);
+      }
+    }
+    switch (style) {
+      case "nineblock":
+        builder.renderer(ImmutableIdenticonRenderer.builder().backgroundColor(background).quality(quality).build());
+        break;
+      case "grid":
+        GridIdenticonRenderer grid = GridIdenticonRenderer.getInstance();
+        grid.setBackgroundColor(background);
+        builder.renderer(grid);
+        break;
+      default:
+        throw new IllegalArgumentException("Unrecognized renderer " + style);
+    }
+    return builder;
+  }
+
+  /**
+   * A group of IDs and their encoded images, passed between the pipeline
+   * stages.
+   */
+  private static final class Batch {
+
+    /**
+     * The position of the batch in the input.
+     */
+    private final long sequence;
+    private final String[] ids;
+    private final int[] codes;
+    /**
+     * The encoded images of each ID, in the order of the image sizes.
+     */
+    private final byte[][][] images;
+    private int count;
+
+    private Batch(long sequence, int capacity) {
+      this.sequence = sequence;
+      this.ids = new String[capacity];
+      this.codes = new int[capacity];
+      this.images = new byte[capacity][][];
+    }
+  }
+
+  /**
+   * The stages of one run. The reader and the workers run on their own
+   * threads; the writer runs on the calling thread. The first failure in any
+   * stage interrupts the others and is rethrown by {@code run()}.
+   */
+  private final class Pipeline {
+
+    private final BufferedReader reader;
+    private final ImageSink sink;
+    /**
+     * The number of IDs to skip, already written by an earlier run.
+     */
+    private final long skip;
+    /**
+     * IDs waiting to be rendered.
+     */
+    private final BlockingQueue<Batch> pending = new ArrayBlockingQueue<>(queueCapacity);
+    /**
+     * Images waiting to be written.
+     */
+    private final BlockingQueue<Batch> rendered = new ArrayBlockingQueue<>(queueCapacity);
+    /**
+     * Bounds the batches read but not yet written. Batches may complete out of
+     * order, and those behind a slow batch wait for it in the writer; the
+     * permits keep that wait from buffering the whole input.
+     */
+    private final Semaphore window = new Semaphore(2 * queueCapacity + threads);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final List<Thread> stages = new ArrayList<>();
+    private final Thread writer = Thread.currentThread();
+
+    private Pipeline(BufferedReader reader, ImageSink sink, long skip) {
+      this.reader = reader;
+      this.sink = sink;
+      this.skip = skip;
+    }
+
+    /**
+     * Start the reader and the workers and write their output.
+     *
+     * @return the number of IDs written
+     */
+    private long run() throws IOException, InterruptedException {
+      stages.add(new Thread(() -> stage(this::read), "identicon-read"));
+      for (int i = 0; i < threads; i++) {
+        stages.add(new Thread(() -> stage(this::render), "identicon-render-" + i));
+      }
+      for (Thread stage : stages) {
+        stage.setDaemon(true);
+        stage.start();
+      }
+      try {
+        return write();
+      } catch (IOException | InterruptedException | RuntimeException ex) {
+        Throwable cause = failure.get();
+        if (cause == null) {
+          failure.set(ex);
+          throw ex;
+        }
+        Thread.interrupted();
+        throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+      } finally {
+        for (Thread stage : stages) {
+          stage.interrupt();
+        }
+        for (Thread stage : stages) {
+          stage.join();
+        }
+      }
+    }
+
+    /**
+     * Run a stage, recording its failure and stopping the pipeline.
+     *
+     * @param task the stage
+     */
+    private void stage(Task task) {
+      try {
+        task.run();
+      } catch (Throwable ex) {
+        if (failure.compareAndSet(null, ex)) {
+          writer.interrupt();
+        }
+      }
+    }
+
+    /**
+     * The reader stage: group the IDs into batches, skipping blank lines and
+     * the IDs already written.
+     */
+    private void read() throws IOException, InterruptedException {
+      long skipped = 0;
+      long sequence = 0;
+      Batch batch = null;
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        String id = line.trim();
+        if (id.isEmpty() || skipped++ < skip) {
+          continue;
+        }
+        if (batch == null) {
+          window.acquire();
+          batch = new Batch(sequence++, batchSize);
+        }
+        batch.ids[batch.count++] = id;
+        if (batch.count == batchSize) {
+          pending.put(batch);
+          batch = null;
+        }
+      }
+      if (batch != null) {
+        pending.put(batch);
+      }
+      for (int i = 0; i < threads; i++) {
+        pending.put(END);
+      }
+    }
+
+    /**
+     * The worker stage: hash, render and encode each ID of a batch.
+     */
+    private void render() throws IOException, InterruptedException {
+      for (Batch batch = pending.take(); batch != END; batch = pending.take()) {
+        for (int i = 0; i < batch.count; i++) {
+          batch.codes[i] = codeFunction.getCode(batch.ids[i]);
+          batch.images[i] = renderer.renderBytes(batch.codes[i], imageSizes);
+        }
+        rendered.put(batch);
+      }
+      rendered.put(END);
+    }
+
+    /**
+     * The writer stage: write the batches in input order, checkpoint and
+     * report progress.
+     *
+     * @return the number of IDs written
+     */
+    private long write() throws IOException, InterruptedException {
+      Map<Long, Batch> waiting = new HashMap<>();
+      long next = 0;
+      long ids = 0;
+      long images = 0;
+      long bytes = 0;
+      long start = System.nanoTime();
+      long due = System.currentTimeMillis() + reportInterval;
+      for (int ended = 0; ended < threads;) {
+        Batch batch = rendered.take();
+        if (batch == END) {
+          ended++;
+          continue;
+        }
+        waiting.put(batch.sequence, batch);
+        for (batch = waiting.remove(next); batch != null; batch = waiting.remove(++next)) {
+          for (int i = 0; i < batch.count; i++) {
+            for (int j = 0; j < imageSizes.length; j++) {
+              sink.write(getName(batch.ids[i], batch.codes[i], imageSizes[j]), batch.images[i][j]);
+              bytes += batch.images[i][j].length;
+            }
+          }
+          ids += batch.count;
+          images += batch.count * imageSizes.length;
+          window.release();
+        }
+        if (System.currentTimeMillis() >= due) {
+          writeCheckpoint(skip + ids, sink.checkpoint());
+          report(ids, images, bytes, start, false);
+          due = System.currentTimeMillis() + reportInterval;
+        }
+      }
+      if (failure.get() != null) {
+        throw new InterruptedIOException("Pipeline stopped.");
+      }
+      writeCheckpoint(skip + ids, sink.checkpoint());
+      sink.finish();
+      report(ids, images, bytes, start, true);
+      return ids;
+    }
+
+    /**
+     * Report the throughput so far.
+     */
+    private void report(long ids, long images, long bytes, long start, boolean done) {
+      if (report == null) {
+        return;
+      }
+      double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+      report.printf(Locale.ROOT, "%s%d IDs, %d images, %.1f MB in %.1f s: %.0f IDs/s, %.0f images/s, %.1f MB/s%n",
+                    done ? "Done: " : "", ids, images, bytes / 1e6, seconds,
+                    ids / seconds, images / seconds, bytes / 1e6 / seconds);
+    }
+  }
+
+  /**
+   * A pipeline stage.
+   */
+  @FunctionalInterface
+  private interface Task {
+
+    void run() throws IOException, InterruptedException;
+  }
+
+  /**
+   * Builds {@link BulkGenerator} instances. Builders are not thread safe.
+   */
+  public static final class Builder {
+
+    private Path input;
+    private Path output;
+    private int[] imageSizes = {DEFAULT_IMAGE_SIZE};
+    private IdenticonRenderer renderer = Identicon.getRenderer();
+    private CodeFunction codeFunction = Identicon.getCodeFunction();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private boolean resume;
+    private long reportInterval = DEFAULT_REPORT_INTERVAL;
+    private PrintStream report;
+
+    private Builder() {
+    }
+
+    /**
+     * Set the file of IDs, one per line. Leading and trailing white space is
+     * removed and blank lines are ignored. Default is null, which reads
+     * standard input.
+     *
+     * @param input the input file, or null
+     * @return this builder
+     */
+    public Builder input(Path input) {
+      this.input = input;
+      return this;
+    }
+
+    /**
+     * Set the output. A file name ending in {@code .tar} writes a tar archive;
+     * any other name is a directory. Required.
+     *
+     * @param output the output directory or archive
+     * @return this builder
+     */
+    public Builder output(Path output) {
+      this.output = Objects.requireNonNull(output, "Output is required.").toAbsolutePath();
+      return this;
+    }
+
+    /**
+     * Set the image sizes generated for each ID. Default is 64.
+     *
+     * @param imageSizes the image sizes in pixels square
+     * @return this builder
+     */
+    public Builder imageSizes(int... imageSizes) {
+      if (imageSizes.length == 0 || Arrays.stream(imageSizes).anyMatch(size -> size < 1)) {
+        throw new IllegalArgumentException("Image sizes must be positive.");
+      }
+      this.imageSizes = imageSizes.clone();
+      return this;
+    }
+
+    /**
+     * Set the renderer. Default is the {@link Identicon#getRenderer()}.
+     *
+     * @param renderer the renderer, shared by the worker threads
+     * @return this builder
+     */
+    public Builder renderer(IdenticonRenderer renderer) {
+      this.renderer = Objects.requireNonNull(renderer, "Renderer is required.");
+      return this;
+    }
+
+    /**
+     * Set the code function applied to each ID. Default is the
+     * {@link Identicon#getCodeFunction()}.
+     *
+     * @param codeFunction the code function
+     * @return this builder
+     */
+    public Builder codeFunction(CodeFunction codeFunction) {
+      this.codeFunction = Objects.requireNonNull(codeFunction, "Code function is required.");
+      return this;
+    }
+
+    /**
+     * Set the number of worker threads that hash, render and encode. Default
+     * is the number of processors.
+     *
+     * @param threads the number of worker threads
+     * @return this builder
+     */
+    public Builder threads(int threads) {
+      if (threads < 1) {
+        throw new IllegalArgumentException("Threads must be positive.");
+      }
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Set the number of IDs passed between the stages at once. Default is 64.
+     *
+     * @param batchSize the batch size
+     * @return this builder
+     */
+    public Builder batchSize(int batchSize) {
+      if (batchSize < 1) {
+        throw new IllegalArgumentException("Batch size must be positive.");
+      }
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * Set the capacity of the queues between the stages, in batches. Together
+     * with the batch size and the number of threads this bounds the IDs and
+     * images held in memory. Default is 16.
+     *
+     * @param queueCapacity the queue capacity
+     * @return this builder
+     */
+    public Builder queueCapacity(int queueCapacity) {
+      if (queueCapacity < 1) {
+        throw new IllegalArgumentException("Queue capacity must be positive.");
+      }
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * Set whether to resume from the checkpoint of an earlier run with the
+     * same input, output and image sizes. If there is no checkpoint the run
+     * starts from the beginning. Default is false, which starts a new
+     * output.
+     *
+     * @param resume true to resume
+     * @return this builder
+     */
+    public Builder resume(boolean resume) {
+      this.resume = resume;
+      return this;
+    }
+
+    /**
+     * Set the interval between checkpoints and progress reports. Default is
+     * ten seconds.
+     *
+     * @param reportInterval the interval in milliseconds
+     * @return this builder
+     */
+    public Builder reportInterval(long reportInterval) {
+      if (reportInterval < 0) {
+        throw new IllegalArgumentException("Report interval must not be negative.");
+      }
+      this.reportInterval = reportInterval;
+      return this;
+    }
+
+    /**
+     * Set the stream progress is reported to. Default is null, which reports
+     * nothing.
+     *
+     * @param report the progress stream, or null
+     * @return this builder
+     */
+    public Builder report(PrintStream report) {
+      this.report = report;
+      return this;
+    }
+
+    /**
+     * Build a generator with the current configuration.
+     *
+     * @return a new generator
+     */
+    public BulkGenerator build() {
+      if (output == null) {
+        throw new IllegalArgumentException("Output is required.");
+      }
+      return new BulkGenerator(this);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes each image to its own file in a directory tree.
+ * <p>
+ * Files are written directly, so a checkpoint has nothing to flush. Images
+ * written after the last checkpoint of an interrupted run are simply
+ * overwritten when it is resumed.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+class DirectorySink implements ImageSink {
+
+  /**
+   * The root directory.
+   */
+  private final Path directory;
+  /**
+   * The subdirectories known to exist.
+   */
+  private final Set<String> created = new HashSet<>();
+
+  /**
+   * Constructor. The directory is created if it does not exist.
+   *
+   * @param directory the root directory
+   * @throws IOException if the directory cannot be created
+   */
+  DirectorySink(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+  }
+
+  @Override
+  public void write(String name, byte[] image) throws IOException {
+    int split = name.lastIndexOf('/');
+    if (split > 0 && created.add(name.substring(0, split))) {
+      Files.createDirectories(directory.resolve(name.substring(0, split)));
+    }
+    Files.write(directory.resolve(name), image);
+  }
+
+  @Override
+  public long checkpoint() {
+    return 0;
+  }
+
+  @Override
+  public void finish() {
+  }
+
+  @Override
+  public void close() {
+  }
+}
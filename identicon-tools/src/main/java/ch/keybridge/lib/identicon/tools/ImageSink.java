@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.tools;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The destination of the images written by the {@link BulkGenerator}.
+ * <p>
+ * Sinks are written by a single thread and need not be thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+interface ImageSink extends Closeable {
+
+  /**
+   * Write an encoded image.
+   *
+   * @param name  the image name, a relative path with '/' separators
+   * @param image the encoded image
+   * @throws IOException if the image cannot be written
+   */
+  void write(String name, byte[] image) throws IOException;
+
+  /**
+   * Make every image written so far durable.
+   *
+   * @return the position from which writing resumes after this checkpoint
+   * @throws IOException if the images cannot be flushed
+   */
+  long checkpoint() throws IOException;
+
+  /**
+   * Complete the output after the last image. The sink remains open until it
+   * is closed.
+   *
+   * @throws IOException if the output cannot be completed
+   */
+  void finish() throws IOException;
+}
@@ -0,0 +1,262 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes images as the entries of a single POSIX (ustar) tar archive.
+ * <p>
+ * One archive holds any number of images without creating a file for each,
+ * and is read by the standard {@code tar} tool. Entry names that do not fit
+ * the ustar header are written with a PAX extended header. A checkpoint
+ * returns the archive length after the last complete entry; an interrupted
+ * archive is truncated to that length when it is resumed.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+class TarSink implements ImageSink {
+
+  /**
+   * The tar block size in bytes.
+   */
+  static final int BLOCK_SIZE = 512;
+  /**
+   * The output buffer size in bytes.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /**
+   * The maximum length of the header name field.
+   */
+  private static final int NAME_LENGTH = 100;
+  /**
+   * The maximum length of the header name prefix field.
+   */
+  private static final int PREFIX_LENGTH = 155;
+  /**
+   * A block of zeros, for padding.
+   */
+  private static final byte[] ZEROS = new byte[BLOCK_SIZE];
+
+  private final FileChannel channel;
+  private final OutputStream out;
+  /**
+   * The entry modification time in seconds since the epoch.
+   */
+  private final long modified = System.currentTimeMillis() / 1000;
+  /**
+   * The header block, reused for every entry.
+   */
+  private final byte[] header = new byte[BLOCK_SIZE];
+  /**
+   * The archive length written so far.
+   */
+  private long position;
+
+  /**
+   * Constructor.
+   *
+   * @param file   the archive file, created if it does not exist
+   * @param offset the archive length to keep from a previous run, or zero to
+   *               start a new archive
+   * @throws IOException if the file cannot be opened or is shorter than the
+   *                     offset
+   */
+  TarSink(Path file, long offset) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    try {
+      if (offset > channel.size() || offset % BLOCK_SIZE != 0) {
+        throw new IOException("Archive " + file + " does not match its checkpoint at " + offset + " bytes.");
+      }
+      channel.truncate(offset);
+      channel.position(offset);
+    } catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+    this.out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    this.position = offset;
+  }
+
+  @Override
+  public void write(String name, byte[] image) throws IOException {
+    byte[] path = name.getBytes(StandardCharsets.UTF_8);
+    int split = getSplit(path);
+    if (split < 0) {
+      /**
+       * The name does not fit: precede the entry with a PAX extended header
+       * holding the full name, and truncate the name in the ustar header.
+       */
+      byte[] record = getPathRecord(name);
+      writeHeader(path, 0, Math.min(path.length, NAME_LENGTH), null, 0, record.length, 'x');
+      writeData(record);
+      split = 0;
+    }
+    if (split > 0) {
+      writeHeader(path, split + 1, path.length - split - 1, path, split, image.length, '0');
+    } else {
+      writeHeader(path, 0, Math.min(path.length, NAME_LENGTH), null, 0, image.length, '0');
+    }
+    writeData(image);
+  }
+
+  @Override
+  public long checkpoint() throws IOException {
+    out.flush();
+    channel.force(false);
+    return position;
+  }
+
+  @Override
+  public void finish() throws IOException {
+    /**
+     * The archive ends with two zero blocks.
+     */
+    out.write(ZEROS);
+    out.write(ZEROS);
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  /**
+   * Internal method to find where to split a name between the ustar prefix and
+   * name fields.
+   *
+   * @param path the UTF-8 encoded name
+   * @return zero if the name fits the name field, the index of the '/' that
+   *         splits the name, or -1 if the name does not fit
+   */
+  private static int getSplit(byte[] path) {
+    if (path.length <= NAME_LENGTH) {
+      return 0;
+    }
+    for (int i = Math.min(path.length - 2, PREFIX_LENGTH); i > 0; i--) {
+      if (path[i] == '/') {
+        return path.length - i - 1 <= NAME_LENGTH ? i : -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Internal method to build a PAX {@code path} record. The record begins with
+   * its own length in decimal.
+   *
+   * @param name the full entry name
+   * @return the record
+   */
+  private static byte[] getPathRecord(String name) {
+    String record = " path=" + name + "\n";
+    int length = record.getBytes(StandardCharsets.UTF_8).length;
+    int total = length + Integer.toString(length).length();
+    if (Integer.toString(total).length() > Integer.toString(length).length()) {
+      total++;
+    }
+    return (total + record).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Internal method to write an entry header.
+   *
+   * @param name         the buffer holding the name field
+   * @param nameOffset   the offset of the name field
+   * @param nameLength   the length of the name field
+   * @param prefix       the buffer holding the prefix field, or null
+   * @param prefixLength the length of the prefix field
+   * @param size         the entry size in bytes
+   * @param type         the entry type flag
+   * @throws IOException if the header cannot be written
+   */
+  private void writeHeader(byte[] name, int nameOffset, int nameLength,
+                           byte[] prefix, int prefixLength,
+                           long size, char type) throws IOException {
+    Arrays.fill(header, (byte) 0);
+    System.arraycopy(name, nameOffset, header, 0, nameLength);
+    putOctal(0644, 100, 8);
+    putOctal(0, 108, 8);
+    putOctal(0, 116, 8);
+    putOctal(size, 124, 12);
+    putOctal(modified, 136, 12);
+    header[156] = (byte) type;
+    System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+    if (prefix != null) {
+      System.arraycopy(prefix, 0, header, 345, prefixLength);
+    }
+    /**
+     * The checksum is the sum of the header bytes with the checksum field
+     * counted as spaces.
+     */
+    Arrays.fill(header, 148, 156, (byte) ' ');
+    int checksum = 0;
+    for (byte b : header) {
+      checksum += b & 0xff;
+    }
+    putOctal(checksum, 148, 7);
+    out.write(header);
+    position += BLOCK_SIZE;
+  }
+
+  /**
+   * Internal method to write entry data, padded to a whole block.
+   *
+   * @param data the entry data
+   * @throws IOException if the data cannot be written
+   */
+  private void writeData(byte[] data) throws IOException {
+    out.write(data);
+    int padding = (BLOCK_SIZE - data.length % BLOCK_SIZE) % BLOCK_SIZE;
+    out.write(ZEROS, 0, padding);
+    position += data.length + padding;
+  }
+
+  /**
+   * Internal method to write a zero-padded octal number followed by a NUL into
+   * a header field.
+   *
+   * @param value  the value
+   * @param offset the field offset
+   * @param length the field length, including the NUL
+   */
+  private void putOctal(long value, int offset, int length) {
+    int end = offset + length - 1;
+    header[end] = 0;
+    for (int i = end - 1; i >= offset; i--) {
+      header[i] = (byte) ('0' + (value & 7));
+      value >>>= 3;
+    }
+  }
+}
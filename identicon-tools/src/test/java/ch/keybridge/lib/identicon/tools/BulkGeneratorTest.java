@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon.tools;
+
+import ch.keybridge.lib.identicon.CodeFunction;
+import ch.keybridge.lib.identicon.GridIdenticonRenderer;
+import ch.keybridge.lib.identicon.Identicon;
+import ch.keybridge.lib.identicon.IdenticonRenderer;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class BulkGeneratorTest {
+
+  private static final int[] SIZES = {16, 32};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testDirectory() throws Exception {
+    System.out.println("BulkGenerator TestDirectory");
+    List<String> ids = getIds(0, 200);
+    Path input = writeIds(ids, true);
+    Path output = folder.getRoot().toPath().resolve("avatars");
+    long count = BulkGenerator.builder()
+      .input(input)
+      .output(output)
+      .imageSizes(SIZES)
+      .threads(3)
+      .batchSize(7)
+      .queueCapacity(2)
+      .build()
+      .run();
+    assertEquals(ids.size(), count);
+    for (String id : ids) {
+      int code = Identicon.getCode(id);
+      byte[][] expected = Identicon.getRenderer().renderBytes(code, SIZES);
+      for (int i = 0; i < SIZES.length; i++) {
+        assertArrayEquals(id, expected[i], Files.readAllBytes(output.resolve(BulkGenerator.getName(id, code, SIZES[i]))));
+      }
+    }
+  }
+
+  @Test
+  public void testArchive() throws Exception {
+    System.out.println("BulkGenerator TestArchive");
+    List<String> ids = getIds(0, 150);
+    /**
+     * An ID too long for the ustar name field.
+     */
+    char[] longId = new char[300];
+    Arrays.fill(longId, 'x');
+    ids.add(new String(longId));
+    ids.add("user with spaces/and slashes@example.com");
+    Path output = folder.getRoot().toPath().resolve("avatars.tar");
+    BulkGenerator generator = BulkGenerator.builder()
+      .input(writeIds(ids, false))
+      .output(output)
+      .imageSizes(SIZES)
+      .renderer(GridIdenticonRenderer.getInstance())
+      .threads(4)
+      .batchSize(5)
+      .build();
+    assertEquals(ids.size(), generator.run());
+    assertTrue(Files.exists(generator.getCheckpoint()));
+    Map<String, byte[]> entries = readTar(output);
+    assertEquals(ids.size() * SIZES.length, entries.size());
+    /**
+     * Entries are in input order.
+     */
+    List<String> names = new ArrayList<>(entries.keySet());
+    for (int i = 0; i < ids.size(); i++) {
+      String id = ids.get(i);
+      int code = Identicon.getCode(id);
+      for (int j = 0; j < SIZES.length; j++) {
+        String name = BulkGenerator.getName(id, code, SIZES[j]);
+        assertEquals(name, names.get(i * SIZES.length + j));
+        assertArrayEquals(name, Identicon.encode(GridIdenticonRenderer.getInstance().render(code, SIZES[j])), entries.get(name));
+      }
+    }
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    System.out.println("BulkGenerator TestResume");
+    List<String> ids = getIds(0, 120);
+    Path output = folder.getRoot().toPath().resolve("resume.tar");
+    /**
+     * A first run over part of the input, then a resumed run over all of it.
+     */
+    BulkGenerator.Builder builder = BulkGenerator.builder().output(output).imageSizes(SIZES).threads(2).batchSize(8);
+    assertEquals(50, builder.input(writeIds(ids.subList(0, 50), false)).build().run());
+    assertEquals(70, builder.input(writeIds(ids, false)).resume(true).build().run());
+    Map<String, byte[]> entries = readTar(output);
+    assertEquals(ids.size() * SIZES.length, entries.size());
+    for (String id : ids) {
+      assertTrue(id, entries.containsKey(BulkGenerator.getName(id, Identicon.getCode(id), SIZES[0])));
+    }
+    /**
+     * Nothing left to do.
+     */
+    assertEquals(0, builder.build().run());
+    assertEquals(ids.size() * SIZES.length, readTar(output).size());
+    /**
+     * A new run replaces the output.
+     */
+    assertEquals(120, builder.resume(false).build().run());
+    assertEquals(ids.size() * SIZES.length, readTar(output).size());
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    System.out.println("BulkGenerator TestFailure");
+    List<String> ids = getIds(0, 500);
+    int bad = Identicon.getCode(ids.get(321));
+    IdenticonRenderer renderer = new IdenticonRenderer() {
+      @Override
+      public BufferedImage render(Integer hashCode, int imageSize) {
+        if (hashCode == bad) {
+          throw new IllegalStateException("Bad code.");
+        }
+        return Identicon.getRenderer().render(hashCode.intValue(), imageSize);
+      }
+    };
+    try {
+      BulkGenerator.builder()
+        .input(writeIds(ids, false))
+        .output(folder.getRoot().toPath().resolve("failure"))
+        .renderer(renderer)
+        .imageSizes(16)
+        .threads(4)
+        .batchSize(3)
+        .queueCapacity(1)
+        .build()
+        .run();
+      fail("Expected an IOException.");
+    } catch (IOException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void testParse() throws Exception {
+    System.out.println("BulkGenerator TestParse");
+    List<String> ids = getIds(0, 20);
+    Path output = folder.getRoot().toPath().resolve("parsed");
+    BulkGenerator.parse(new String[]{"--input=" + writeIds(ids, false), "--output=" + output,
+                                     "--sizes=24", "--renderer=grid", "--background=000000",
+                                     "--salt=pepper", "--threads=2", "--resume"})
+      .build()
+      .run();
+    GridIdenticonRenderer renderer = GridIdenticonRenderer.getInstance();
+    renderer.setBackgroundColor(Color.BLACK);
+    int code = CodeFunction.murmur3("pepper").getCode(ids.get(0));
+    assertArrayEquals(Identicon.encode(renderer.render(code, 24)),
+                      Files.readAllBytes(output.resolve(BulkGenerator.getName(ids.get(0), code, 24))));
+    try {
+      BulkGenerator.parse(new String[]{"--output=x", "--renderer=svg"});
+      fail("Expected an IllegalArgumentException.");
+    } catch (IllegalArgumentException ex) {
+    }
+  }
+
+  private static List<String> getIds(int from, int to) {
+    List<String> ids = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      ids.add("user" + i + "@example.com");
+    }
+    return ids;
+  }
+
+  private Path writeIds(List<String> ids, boolean blanks) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (String id : ids) {
+      sb.append(blanks ? "  " + id + " \n\n" : id + "\n");
+    }
+    Path file = folder.newFile().toPath();
+    Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  /**
+   * Read the entries of a tar archive, in order.
+   */
+  private static Map<String, byte[]> readTar(Path file) throws IOException {
+    byte[] tar = Files.readAllBytes(file);
+    assertEquals(0, tar.length % TarSink.BLOCK_SIZE);
+    Map<String, byte[]> entries = new LinkedHashMap<>();
+    String longName = null;
+    for (int offset = 0;;) {
+      if (tar[offset] == 0) {
+        /**
+         * The end of archive: two zero blocks.
+         */
+        assertEquals(tar.length, offset + 2 * TarSink.BLOCK_SIZE);
+        return entries;
+      }
+      int checksum = 0;
+      for (int i = 0; i < TarSink.BLOCK_SIZE; i++) {
+        checksum += i >= 148 && i < 156 ? ' ' : tar[offset + i] & 0xff;
+      }
+      assertEquals(checksum, Integer.parseInt(getString(tar, offset + 148, 6), 8));
+      assertEquals("ustar", getString(tar, offset + 257, 6));
+      String name = getString(tar, offset, 100);
+      String prefix = getString(tar, offset + 345, 155);
+      int size = Integer.parseInt(getString(tar, offset + 124, 11), 8);
+      char type = (char) tar[offset + 156];
+      byte[] data = Arrays.copyOfRange(tar, offset + TarSink.BLOCK_SIZE, offset + TarSink.BLOCK_SIZE + size);
+      offset += TarSink.BLOCK_SIZE + (size + TarSink.BLOCK_SIZE - 1) / TarSink.BLOCK_SIZE * TarSink.BLOCK_SIZE;
+      if (type == 'x') {
+        String record = new String(data, StandardCharsets.UTF_8);
+        assertEquals(record.length(), Integer.parseInt(record.substring(0, record.indexOf(' '))));
+        longName = record.substring(record.indexOf("path=") + 5, record.length() - 1);
+        continue;
+      }
+      assertEquals('0', type);
+      entries.put(longName != null ? longName : prefix.isEmpty() ? name : prefix + "/" + name, data);
+      longName = null;
+    }
+  }
+
+  private static String getString(byte[] buffer, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && buffer[end] != 0) {
+      end++;
+    }
+    return new String(buffer, offset, end - offset, StandardCharsets.UTF_8);
+  }
+}
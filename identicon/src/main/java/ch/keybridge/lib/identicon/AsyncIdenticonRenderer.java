@@ -0,0 +1,466 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An asynchronous Identicon renderer for non-blocking callers.
+ * <p>
+ * Requests return a {@link CompletableFuture} immediately and are rendered on
+ * a fixed number of threads fed by a bounded queue. When the queue is full
+ * new requests are rejected or the oldest queued requests are shed, according
+ * to the {@link OverloadPolicy}, and queued requests that have waited longer
+ * than the maximum queue time are failed rather than rendered. Under overload
+ * the renderer therefore fails fast instead of accumulating threads, queued
+ * work and Java2D contexts.
+ * <p>
+ * Rejected and shed requests fail with a {@link RejectedExecutionException};
+ * requests that waited too long fail with a {@link TimeoutException}. A
+ * request whose future is cancelled while queued is not rendered. The time
+ * each request spends queued is reported to the
+ * {@link Identicon#getListener() listener}.
+ * <p>
+ * Renderers are configured with a {@link Builder}, are thread safe, and
+ * should be built once, shared and {@link #close() closed} when no longer
+ * needed.
+ * <p>
+ * Example:
+ * <pre>
+ * AsyncIdenticonRenderer renderer = AsyncIdenticonRenderer.builder()
+ *   .threads(4)
+ *   .queueCapacity(256)
+ *   .overloadPolicy(OverloadPolicy.SHED_OLDEST)
+ *   .build();
+ * renderer.renderBytes(code, 64).thenAccept(png -&gt; ...);
+ * </pre>
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public final class AsyncIdenticonRenderer implements AutoCloseable {
+
+  /**
+   * The default queue capacity.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  /**
+   * The renderer.
+   */
+  private final IdenticonRenderer renderer;
+  /**
+   * The render threads and their bounded queue.
+   */
+  private final ThreadPoolExecutor executor;
+  private final OverloadPolicy overloadPolicy;
+  /**
+   * The maximum queue time in nanoseconds, or zero for none.
+   */
+  private final long maxQueueNanos;
+  private final LongAdder rejectedCount = new LongAdder();
+  private final LongAdder shedCount = new LongAdder();
+  private final LongAdder expiredCount = new LongAdder();
+
+  /**
+   * Private constructor. Use {@code builder()}.
+   *
+   * @param builder the configuration
+   */
+  private AsyncIdenticonRenderer(Builder builder) {
+    this.renderer = builder.renderer;
+    this.overloadPolicy = builder.overloadPolicy;
+    this.maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxQueueTime);
+    ThreadFactory threadFactory = builder.threadFactory != null
+                                  ? builder.threadFactory
+                                  : builder.virtualThreads ? virtualThreadFactory() : platformThreadFactory();
+    this.executor = new ThreadPoolExecutor(builder.threads,
+                                           builder.threads,
+                                           0,
+                                           TimeUnit.MILLISECONDS,
+                                           new ArrayBlockingQueue<>(builder.queueCapacity),
+                                           threadFactory,
+                                           this::overloaded);
+  }
+
+  /**
+   * Get a new builder with the default configuration.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Render the numeric hashcode into an Identicon image.
+   *
+   * @param code      the numeric hash code to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @return the rendered image, when complete
+   */
+  public CompletableFuture<BufferedImage> render(int code, int imageSize) {
+    return submit(() -> render(renderer, code, imageSize));
+  }
+
+  /**
+   * Render the numeric hashcode into an Identicon image encoded in the
+   * {@link Identicon#IMAGE_FORMAT} format.
+   *
+   * @param code      the numeric hash code to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @return the encoded image bytes, when complete
+   */
+  public CompletableFuture<byte[]> renderBytes(int code, int imageSize) {
+    return submit(() -> Identicon.encode(render(renderer, code, imageSize)));
+  }
+
+  /**
+   * Stop accepting requests. Queued requests are still rendered.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  /**
+   * Stop accepting requests and wait for queued requests to be rendered.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit    the time unit
+   * @return true if all requests completed, false if the timeout elapsed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+    executor.shutdown();
+    return executor.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * Get the number of requests waiting in the queue.
+   *
+   * @return the queue depth
+   */
+  public int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Get the number of requests being rendered.
+   *
+   * @return the number of active renders
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * Get the number of requests rejected because the queue was full.
+   *
+   * @return the rejected count
+   */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  /**
+   * Get the number of queued requests shed to make room for newer requests.
+   *
+   * @return the shed count
+   */
+  public long getShedCount() {
+    return shedCount.sum();
+  }
+
+  /**
+   * Get the number of queued requests failed because they waited longer than
+   * the maximum queue time.
+   *
+   * @return the expired count
+   */
+  public long getExpiredCount() {
+    return expiredCount.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncIdenticonRenderer{" + "threads=" + executor.getMaximumPoolSize()
+      + ", queueSize=" + getQueueSize() + ", overloadPolicy=" + overloadPolicy
+      + ", rejectedCount=" + getRejectedCount() + ", shedCount=" + getShedCount()
+      + ", expiredCount=" + getExpiredCount() + '}';
+  }
+
+  /**
+   * Internal method to queue a request.
+   */
+  private <T> CompletableFuture<T> submit(Work<T> work) {
+    Request<T> request = new Request<>(work);
+    try {
+      executor.execute(request);
+    } catch (RejectedExecutionException ex) {
+      request.future.completeExceptionally(ex);
+    }
+    return request.future;
+  }
+
+  /**
+   * Internal method to handle a request that does not fit in the queue.
+   */
+  private void overloaded(Runnable runnable, ThreadPoolExecutor pool) {
+    if (pool.isShutdown()) {
+      throw new RejectedExecutionException("Renderer is closed.");
+    }
+    if (overloadPolicy == OverloadPolicy.SHED_OLDEST) {
+      Runnable oldest = pool.getQueue().poll();
+      if (oldest != null) {
+        shedCount.increment();
+        ((Request<?>) oldest).future.completeExceptionally(new RejectedExecutionException("Shed from a full render queue."));
+      }
+      pool.execute(runnable);
+      return;
+    }
+    rejectedCount.increment();
+    throw new RejectedExecutionException("Render queue is full.");
+  }
+
+  /**
+   * Internal method to render an image, reporting the render time.
+   */
+  private static BufferedImage render(IdenticonRenderer renderer, int code, int imageSize) {
+    IdenticonListener l = Identicon.getListener();
+    if (l == IdenticonListener.NONE) {
+      return renderer.render(code, imageSize);
+    }
+    long start = System.nanoTime();
+    BufferedImage image = renderer.render(code, imageSize);
+    l.rendered(imageSize, System.nanoTime() - start);
+    return image;
+  }
+
+  /**
+   * Internal method to create platform render threads.
+   */
+  private static ThreadFactory platformThreadFactory() {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "identicon-async-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Internal method to create virtual render threads. They are found
+   * reflectively so that this class also runs on JDKs without virtual
+   * threads, which fall back to platform threads.
+   */
+  private static ThreadFactory virtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException ex) {
+      return platformThreadFactory();
+    }
+  }
+
+  /**
+   * The work of a request.
+   */
+  @FunctionalInterface
+  private interface Work<T> {
+
+    T run() throws IOException;
+  }
+
+  /**
+   * A queued request.
+   */
+  private final class Request<T> implements Runnable {
+
+    private final Work<T> work;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final long queued = System.nanoTime();
+
+    private Request(Work<T> work) {
+      this.work = work;
+    }
+
+    @Override
+    public void run() {
+      if (future.isDone()) {
+        /**
+         * Cancelled or shed while queued.
+         */
+        return;
+      }
+      long waited = System.nanoTime() - queued;
+      Identicon.getListener().queued(waited);
+      if (maxQueueNanos > 0 && waited > maxQueueNanos) {
+        expiredCount.increment();
+        future.completeExceptionally(new TimeoutException("Queued for " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms."));
+        return;
+      }
+      try {
+        future.complete(work.run());
+      } catch (IOException | RuntimeException | Error ex) {
+        future.completeExceptionally(ex);
+      }
+    }
+  }
+
+  /**
+   * Builds {@link AsyncIdenticonRenderer} instances. Builders are not thread
+   * safe.
+   */
+  public static final class Builder {
+
+    private IdenticonRenderer renderer = Identicon.getRenderer(ImmutableIdenticonRenderer.builder());
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private OverloadPolicy overloadPolicy = OverloadPolicy.REJECT;
+    private long maxQueueTime;
+    private ThreadFactory threadFactory;
+    private boolean virtualThreads;
+
+    private Builder() {
+    }
+
+    /**
+     * Set the renderer. It must be thread safe. Default is the shared
+     * renderer of {@link Identicon#generate(Object, int)}.
+     *
+     * @param renderer the renderer
+     * @return this builder
+     */
+    public Builder renderer(IdenticonRenderer renderer) {
+      this.renderer = Objects.requireNonNull(renderer, "Renderer is required.");
+      return this;
+    }
+
+    /**
+     * Set the number of render threads. Rendering is CPU bound, so the default
+     * is the number of processors.
+     *
+     * @param threads the number of threads
+     * @return this builder
+     */
+    public Builder threads(int threads) {
+      if (threads < 1) {
+        throw new IllegalArgumentException("Threads must be positive.");
+      }
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of requests waiting to be rendered. Default is
+     * 1024.
+     *
+     * @param queueCapacity the queue capacity
+     * @return this builder
+     */
+    public Builder queueCapacity(int queueCapacity) {
+      if (queueCapacity < 1) {
+        throw new IllegalArgumentException("Queue capacity must be positive.");
+      }
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * Set what to do with a new request when the queue is full. Default is
+     * {@link OverloadPolicy#REJECT}.
+     *
+     * @param overloadPolicy the overload policy
+     * @return this builder
+     */
+    public Builder overloadPolicy(OverloadPolicy overloadPolicy) {
+      this.overloadPolicy = Objects.requireNonNull(overloadPolicy, "Overload policy is required.");
+      return this;
+    }
+
+    /**
+     * Set the longest a request may wait in the queue. Requests that waited
+     * longer are failed when they reach a render thread, as their callers have
+     * likely given up. Default is zero, which waits indefinitely.
+     *
+     * @param maxQueueTime the maximum queue time in milliseconds
+     * @return this builder
+     */
+    public Builder maxQueueTime(long maxQueueTime) {
+      if (maxQueueTime < 0) {
+        throw new IllegalArgumentException("Maximum queue time must not be negative.");
+      }
+      this.maxQueueTime = maxQueueTime;
+      return this;
+    }
+
+    /**
+     * Render on virtual threads where the JDK supports them (Java 21 and
+     * later), and on platform threads otherwise. The number of threads is
+     * still bounded. Default is false.
+     *
+     * @param virtualThreads true to render on virtual threads
+     * @return this builder
+     */
+    public Builder virtualThreads(boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * Set the factory of render threads. This takes precedence over
+     * {@link #virtualThreads(boolean)}. Default is null, which creates daemon
+     * threads.
+     *
+     * @param threadFactory the thread factory, or null
+     * @return this builder
+     */
+    public Builder threadFactory(ThreadFactory threadFactory) {
+      this.threadFactory = threadFactory;
+      return this;
+    }
+
+    /**
+     * Build a renderer with the current configuration. Its threads are
+     * started on demand.
+     *
+     * @return a new renderer
+     */
+    public AsyncIdenticonRenderer build() {
+      return new AsyncIdenticonRenderer(this);
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders many Identicon images at once, in parallel.
+ * <p>
+ * Codes are rendered on a fork-join pool, either into individual images or
+ * directly into a single {@link SpriteSheet}. By default each code is rendered
+ * by the {@link Identicon#getRenderer() Identicon renderer}, so batch output is
+ * identical to {@link Identicon#generate(Object, int)} and follows
+ * {@link Identicon#setRenderer(IdenticonRenderer)}. Another renderer may be
+ * set; with a {@link ScanlineIdenticonRenderer} each worker also reuses its
+ * rasterizer scratch buffers across the codes it renders.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class BatchIdenticonRenderer {
+
+  /**
+   * The number of tasks to create per pool thread, to balance the load.
+   */
+  private static final int TASKS_PER_THREAD = 4;
+
+  /**
+   * The pool to render on.
+   */
+  private final ForkJoinPool pool;
+  /**
+   * The renderer, or null to use the Identicon renderer.
+   */
+  private volatile IdenticonRenderer renderer;
+  /**
+   * The color of unused sprite sheet cells as 0xRRGGBB.
+   */
+  private volatile int backgroundColor = 0xffffff;
+
+  /**
+   * Private constructor. Use {@code getInstance()}.
+   *
+   * @param pool the pool to render on
+   */
+  private BatchIdenticonRenderer(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine that
+   * renders on the common fork-join pool.
+   *
+   * @return a ready instance.
+   */
+  public static BatchIdenticonRenderer getInstance() {
+    return new BatchIdenticonRenderer(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine.
+   *
+   * @param pool the fork-join pool to render on
+   * @return a ready instance.
+   */
+  public static BatchIdenticonRenderer getInstance(ForkJoinPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool is required.");
+    }
+    return new BatchIdenticonRenderer(pool);
+  }
+
+  /**
+   * Get the renderer.
+   *
+   * @return the renderer set, otherwise the current Identicon renderer
+   */
+  public IdenticonRenderer getRenderer() {
+    IdenticonRenderer r = renderer;
+    return r != null ? r : Identicon.getRenderer();
+  }
+
+  /**
+   * Set the renderer. Renderers must be thread safe. Default is null, which
+   * renders with the {@link Identicon#getRenderer() Identicon renderer} at
+   * the time of each call.
+   *
+   * @param renderer the renderer, or null
+   */
+  public void setRenderer(IdenticonRenderer renderer) {
+    this.renderer = renderer;
+  }
+
+  /**
+   * Get the color of unused sprite sheet cells.
+   *
+   * @return the background color.
+   */
+  public Color getBackgroundColor() {
+    return new Color(backgroundColor);
+  }
+
+  /**
+   * Set the color of unused sprite sheet cells. Default is white. The image
+   * background is set on the renderer.
+   *
+   * @param backgroundColor the background color.
+   */
+  public void setBackgroundColor(Color backgroundColor) {
+    this.backgroundColor = backgroundColor.getRGB() & 0xffffff;
+  }
+
+  /**
+   * Render the numeric hashcodes into Identicon images.
+   *
+   * @param codes     the numeric hash codes to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @return the rendered Identicon images, in code order
+   */
+  public BufferedImage[] render(int[] codes, int imageSize) {
+    BufferedImage[] images = new BufferedImage[codes.length];
+    IdenticonRenderer target = getRenderer();
+    NineBlockRasterizer rasterizer = getRasterizer(target);
+    invoke(codes.length, (from, to) -> {
+      int[] scratch = null;
+      for (int i = from; i < to; i++) {
+        if (rasterizer == null) {
+          images[i] = target.render(codes[i], imageSize);
+          continue;
+        }
+        images[i] = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) images[i].getRaster().getDataBuffer()).getData();
+        scratch = rasterizer.render(new NineBlockCode(codes[i]), imageSize, 0, 0, imageSize, imageSize, pixels, 0, imageSize, scratch);
+      }
+    });
+    return images;
+  }
+
+  /**
+   * Render the numeric hashcodes into a single sprite sheet image with the
+   * smallest square-ish grid.
+   *
+   * @param codes     the numeric hash codes to render.
+   * @param imageSize the horizontal and vertical size of each image
+   * @return the sprite sheet
+   */
+  public SpriteSheet renderSheet(int[] codes, int imageSize) {
+    return renderSheet(codes, imageSize, (int) Math.ceil(Math.sqrt(codes.length)));
+  }
+
+  /**
+   * Render the numeric hashcodes into a single sprite sheet image. Images are
+   * placed left to right then top to bottom, in code order. Unused cells in
+   * the last row are left the background color.
+   *
+   * @param codes     the numeric hash codes to render.
+   * @param imageSize the horizontal and vertical size of each image
+   * @param columns   the number of images per sheet row
+   * @return the sprite sheet
+   */
+  public SpriteSheet renderSheet(int[] codes, int imageSize, int columns) {
+    if (codes.length == 0 || columns <= 0 || imageSize <= 0) {
+      throw new IllegalArgumentException("At least one code, column and pixel are required.");
+    }
+    columns = Math.min(columns, codes.length);
+    int rows = (codes.length + columns - 1) / columns;
+    long width = (long) columns * imageSize;
+    long height = (long) rows * imageSize;
+    if (width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Sprite sheet of " + width + "x" + height + " pixels is too large.");
+    }
+    BufferedImage sheet = new BufferedImage((int) width, (int) height, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) sheet.getRaster().getDataBuffer()).getData();
+    IdenticonRenderer target = getRenderer();
+    NineBlockRasterizer rasterizer = getRasterizer(target);
+    int stride = (int) width;
+    int cells = columns;
+    invoke(codes.length, (from, to) -> {
+      int[] scratch = null;
+      for (int i = from; i < to; i++) {
+        int offset = (i / cells) * imageSize * stride + (i % cells) * imageSize;
+        if (rasterizer == null) {
+          target.render(codes[i], imageSize, pixels, offset, stride, PixelLayout.RGB);
+        } else {
+          scratch = rasterizer.render(new NineBlockCode(codes[i]), imageSize, 0, 0, imageSize, imageSize, pixels, offset, stride, scratch);
+        }
+      }
+    });
+    /**
+     * Fill the unused cells.
+     */
+    int background = 0xff000000 | backgroundColor;
+    for (int i = codes.length; i < rows * columns; i++) {
+      int offset = (i / columns) * imageSize * stride + (i % columns) * imageSize;
+      for (int y = 0; y < imageSize; y++) {
+        Arrays.fill(pixels, offset + y * stride, offset + y * stride + imageSize, background);
+      }
+    }
+    return new SpriteSheet(sheet, imageSize, columns, codes.length);
+  }
+
+  /**
+   * Internal method to get the rasterizer of a scanline renderer, which is
+   * called directly so that each worker can reuse its scratch buffer.
+   *
+   * @param renderer the renderer
+   * @return the rasterizer, or null if the renderer is not a scanline
+   *         renderer
+   */
+  private static NineBlockRasterizer getRasterizer(IdenticonRenderer renderer) {
+    return renderer instanceof ScanlineIdenticonRenderer ? ((ScanlineIdenticonRenderer) renderer).getRasterizer() : null;
+  }
+
+  /**
+   * Internal method to run a range of work on the pool, split into tasks of
+   * roughly equal size.
+   */
+  private void invoke(int count, Range range) {
+    if (count == 0) {
+      return;
+    }
+    int threshold = Math.max(1, count / (pool.getParallelism() * TASKS_PER_THREAD));
+    pool.invoke(new RangeTask(range, 0, count, threshold));
+  }
+
+  /**
+   * A unit of work over a range of indices.
+   */
+  interface Range {
+
+    /**
+     * Do the work for the indices from (inclusive) to (exclusive).
+     */
+    void run(int from, int to);
+  }
+
+  /**
+   * Splits a range in half until it is no larger than the threshold.
+   */
+  static final class RangeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Range range;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    RangeTask(Range range, int from, int to, int threshold) {
+      this.range = range;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        range.run(from, to);
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new RangeTask(range, from, middle, threshold), new RangeTask(range, middle, to, threshold));
+      }
+    }
+  }
+}
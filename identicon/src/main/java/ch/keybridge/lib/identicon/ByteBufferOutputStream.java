@@ -1,9 +1,7 @@
 /*
  * The MIT License
  *
- * Copyright (c) 2007-2014 Don Park <donpark@docuverse.com>
- * Contributor   2014-2014 Paulo Miguel Almeida Rodenas <paulo.ubuntu@gmail.com>
- * Contributor & Copyright  2016 Key Bridge LLC.
+ * Copyright 2016 Key Bridge LLC.
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -25,25 +23,39 @@
  */
 package ch.keybridge.lib.identicon;
 
-import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
- * Identicon renderer interface.
- * <p>
- * An Identicon is a visual representation of a hash value, usually of an IP
- * address, that serves to identify a user of a computer system as a form of
- * avatar while protecting the users' privacy.
+ * An output stream that writes into a byte buffer. Writes beyond the buffer
+ * limit throw {@code BufferOverflowException}.
  *
- * @author Don Park donpark@docuverse.com
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
  */
-public interface IdenticonRenderer {
+final class ByteBufferOutputStream extends OutputStream {
 
   /**
-   * Render the numeric hashcode into a unique Identicon image.
+   * The destination buffer.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * Construct a new stream writing at the current buffer position.
    *
-   * @param hashCode  the numeric hash code to render.
-   * @param imageSize the horizontal and vertical image size to create
-   * @return the rendered Identicon image
+   * @param buffer the destination buffer
    */
-  public BufferedImage render(Integer hashCode, int imageSize);
+  ByteBufferOutputStream(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public void write(int b) {
+    buffer.put((byte) b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    buffer.put(b, off, len);
+  }
 }
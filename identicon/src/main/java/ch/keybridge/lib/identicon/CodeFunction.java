@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Derives the numeric Identicon code from an object.
+ * <p>
+ * The {@link #DEFAULT} function is {@code Objects.hash(object)}, which is
+ * {@code 31 + object.hashCode()}. It is compatible with earlier versions but
+ * diffuses poorly: similar strings (such as e-mail addresses) produce similar
+ * upper bits, and those bits select the Identicon colors. The
+ * {@link #murmur3(String)} function mixes every input bit into every code
+ * bit, and may be salted so that codes cannot be predicted from the input.
+ * <p>
+ * Functions must be thread safe and should not allocate.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+@FunctionalInterface
+public interface CodeFunction {
+
+  /**
+   * The default code function, equivalent to {@code Objects.hash(object)}.
+   * <p>
+   * A class rather than a lambda: the first lambda in a JVM bootstraps
+   * {@code java.lang.invoke}, which dominates the time to the first image.
+   */
+  public static final CodeFunction DEFAULT = new CodeFunction() {
+    @Override
+    public int getCode(Object object) {
+      return 31 + Objects.hashCode(object);
+    }
+  };
+
+  /**
+   * Get the code of an object.
+   *
+   * @param object the object (may be null)
+   * @return the Identicon code
+   */
+  int getCode(Object object);
+
+  /**
+   * Get an unsalted MurmurHash3 code function.
+   *
+   * @return the code function
+   * @see #murmur3(String)
+   */
+  static CodeFunction murmur3() {
+    return murmur3(0);
+  }
+
+  /**
+   * Get a salted MurmurHash3 code function.
+   * <p>
+   * Byte arrays and the remaining bytes of byte buffers are hashed in place.
+   * Character sequences are hashed as their UTF-8 encoding (so a string and
+   * its UTF-8 bytes have the same code). Other objects are hashed by their
+   * {@code hashCode()}, and null as an empty input.
+   *
+   * @param salt the salt (may be null or empty for none)
+   * @return the code function
+   */
+  static CodeFunction murmur3(String salt) {
+    return murmur3(salt == null || salt.isEmpty() ? 0 : Murmur3.hash(salt, 0));
+  }
+
+  /**
+   * Get a MurmurHash3 code function with a numeric seed.
+   *
+   * @param seed the seed
+   * @return the code function
+   * @see #murmur3(String)
+   */
+  static CodeFunction murmur3(int seed) {
+    return object -> {
+      if (object == null) {
+        return Murmur3.hash("", seed);
+      } else if (object instanceof byte[]) {
+        byte[] bytes = (byte[]) object;
+        return Murmur3.hash(bytes, 0, bytes.length, seed);
+      } else if (object instanceof ByteBuffer) {
+        return Murmur3.hash((ByteBuffer) object, seed);
+      } else if (object instanceof CharSequence) {
+        return Murmur3.hash((CharSequence) object, seed);
+      }
+      return Murmur3.hash(object.hashCode(), seed);
+    };
+  }
+}
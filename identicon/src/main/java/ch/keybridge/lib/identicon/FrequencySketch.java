@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+/**
+ * A probabilistic estimate of how often a key has been seen recently.
+ * <p>
+ * This is a count-min sketch of 4-bit saturating counters. Each key updates
+ * one counter in each of four rows and its frequency is the minimum of those
+ * counters. To favour recent popularity over historic popularity all counters
+ * are halved once the number of recorded events reaches a sample size
+ * proportional to the table width.
+ * <p>
+ * This class is not thread safe. Callers must synchronize access.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+class FrequencySketch {
+
+  /**
+   * The number of counter rows (hash functions).
+   */
+  private static final int DEPTH = 4;
+  /**
+   * The maximum value of a 4-bit counter.
+   */
+  private static final int MAXIMUM_COUNT = 15;
+  /**
+   * Odd multipliers used to derive an independent index for each row.
+   */
+  private static final int[] SEEDS = {0x97cb3127, 0xb3f3c2c5, 0xc2b2ae35, 0x85ebca6b};
+
+  /**
+   * Counter table. Each long holds sixteen 4-bit counters.
+   */
+  private final long[] table;
+  /**
+   * The number of counters per row minus one. A power of two minus one.
+   */
+  private final int mask;
+  /**
+   * The number of events after which counters are halved.
+   */
+  private final int sampleSize;
+  /**
+   * The number of events recorded since the last reset.
+   */
+  private int events;
+
+  /**
+   * Construct a new sketch.
+   *
+   * @param expectedKeys the expected number of distinct keys being tracked
+   */
+  FrequencySketch(int expectedKeys) {
+    int width = Integer.highestOneBit(Math.max(1024, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+    this.table = new long[width * DEPTH / 16];
+    this.mask = width - 1;
+    this.sampleSize = 10 * width;
+  }
+
+  /**
+   * Record an occurrence of the key.
+   *
+   * @param hash the key hash code
+   */
+  void increment(int hash) {
+    boolean added = false;
+    for (int row = 0; row < DEPTH; row++) {
+      int counter = counterIndex(hash, row);
+      int word = counter >>> 4;
+      int shift = (counter & 0xf) << 2;
+      if (((table[word] >>> shift) & 0xfL) < MAXIMUM_COUNT) {
+        table[word] += 1L << shift;
+        added = true;
+      }
+    }
+    if (added && ++events >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Get the estimated number of occurrences of the key, up to 15.
+   *
+   * @param hash the key hash code
+   * @return the estimated frequency
+   */
+  int frequency(int hash) {
+    int frequency = MAXIMUM_COUNT;
+    for (int row = 0; row < DEPTH; row++) {
+      int counter = counterIndex(hash, row);
+      int count = (int) ((table[counter >>> 4] >>> ((counter & 0xf) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Halve every counter so that old popularity decays.
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+    }
+    events >>>= 1;
+  }
+
+  /**
+   * Get the absolute index of the counter for the key in the given row.
+   *
+   * @param hash the key hash code
+   * @param row  the row number
+   * @return the counter index into the table, in units of counters
+   */
+  private int counterIndex(int hash, int row) {
+    int h = hash * SEEDS[row];
+    h ^= h >>> 16;
+    return row * (mask + 1) + (h & mask);
+  }
+}
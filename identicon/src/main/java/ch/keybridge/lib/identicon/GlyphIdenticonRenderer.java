@@ -0,0 +1,332 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 9-block Identicon renderer that recolors cached, pre-rasterized shapes.
+ * <p>
+ * Only the low 17 bits of an Identicon code select its geometry; the
+ * remaining bits select its color. This renderer keeps a bounded cache of
+ * colorless glyphs keyed by (shape, size, outline) and renders an image by
+ * computing a small palette from the fill, background and outline colors and
+ * mapping each glyph pixel through it. Once a shape is cached a render is a
+ * single pass over the pixels with no geometry or Java2D work at all.
+ * <p>
+ * The output is bit-identical to {@link NineBlockIdenticonRenderer}: glyphs
+ * are captured from the Java2D renderer itself and recolored with the same
+ * 8-bit blend arithmetic used by the Java2D software loops.
+ * <p>
+ * Instances are thread safe and are intended to be retained and shared so
+ * that the glyph cache is effective.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class GlyphIdenticonRenderer implements IdenticonRenderer {
+
+  /**
+   * The default maximum glyph cache size in bytes (64 MB).
+   */
+  public static final long DEFAULT_MAXIMUM_BYTES = 64L * 1024 * 1024;
+  /**
+   * The code bits that select the geometry.
+   */
+  private static final int SHAPE_MASK = 0x1ffff;
+
+  /**
+   * The Java2D renderer that glyphs are captured from.
+   */
+  private final NineBlockIdenticonRenderer renderer;
+  /**
+   * The maximum total weight of all cached glyphs in bytes.
+   */
+  private final long maximumBytes;
+  /**
+   * The cached glyphs, in access order (least recently used first).
+   */
+  private final LinkedHashMap<Long, NineBlockGlyph> glyphs;
+  /**
+   * The background color as 0xRRGGBB.
+   */
+  private volatile int backgroundColor = 0xffffff;
+  /**
+   * The version tag; the same as the Java2D renderer with the same background
+   * color, as the images are identical.
+   */
+  private volatile String versionTag = "";
+  /**
+   * Renders the images of shapes that are not cached, with the background
+   * color it was built for. Null until first needed.
+   */
+  private volatile ImmutableIdenticonRenderer fallback;
+  private long weightedSize;
+  private long hitCount;
+  private long missCount;
+
+  /**
+   * Private constructor. Use {@code getInstance()}.
+   *
+   * @param maximumBytes the maximum glyph cache size in bytes
+   */
+  private GlyphIdenticonRenderer(long maximumBytes) {
+    this.renderer = (NineBlockIdenticonRenderer) NineBlockIdenticonRenderer.getInstance();
+    this.maximumBytes = maximumBytes;
+    this.glyphs = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine with the
+   * default glyph cache size.
+   *
+   * @return a ready instance.
+   */
+  public static GlyphIdenticonRenderer getInstance() {
+    return new GlyphIdenticonRenderer(DEFAULT_MAXIMUM_BYTES);
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine.
+   *
+   * @param maximumBytes the maximum glyph cache size in bytes
+   * @return a ready instance.
+   */
+  public static GlyphIdenticonRenderer getInstance(long maximumBytes) {
+    if (maximumBytes < 0) {
+      throw new IllegalArgumentException("Maximum bytes must not be negative.");
+    }
+    return new GlyphIdenticonRenderer(maximumBytes);
+  }
+
+  /**
+   * Get the background color.
+   *
+   * @return the background color.
+   */
+  public Color getBackgroundColor() {
+    return new Color(backgroundColor);
+  }
+
+  /**
+   * Set the background color. Default is white. Cached glyphs do not depend
+   * upon the background color and remain valid.
+   *
+   * @param backgroundColor the background color.
+   */
+  public void setBackgroundColor(Color backgroundColor) {
+    this.backgroundColor = backgroundColor.getRGB() & 0xffffff;
+    this.versionTag = NineBlockIdenticonRenderer.getVersionTag(renderer.getPatchSize(), new Color(this.backgroundColor),
+                                                               renderer.getFillColor(), renderer.getStrokeColor(), renderer.getQuality());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The tag is that of the {@link NineBlockIdenticonRenderer} with the same
+   * background color, as the images are identical.
+   */
+  @Override
+  public String getVersionTag() {
+    return versionTag;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(Integer code, int size) {
+    return render(code.intValue(), size);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(int code, int size) {
+    int background = backgroundColor;
+    NineBlockCode decoded = new NineBlockCode(code);
+    NineBlockGlyph glyph = getGlyph(code, size, decoded.getStrokeColor(background) >= 0);
+    if (glyph == null) {
+      return getFallback(background).render(code, size);
+    }
+    BufferedImage targetImage = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    int[] palette = glyph.getPalette(background, decoded.getFillColor(), decoded.getStrokeColor(background));
+    glyph.getPixels(palette, ((DataBufferInt) targetImage.getRaster().getDataBuffer()).getData());
+    return targetImage;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Pixels are colored from the cached glyph once, in strips of rows. Above
+   * 512 x 512 pixels each strip is encoded as it is colored and no image
+   * raster is allocated.
+   */
+  @Override
+  public void write(int code, int size, OutputStream out) throws IOException {
+    int background = backgroundColor;
+    NineBlockCode decoded = new NineBlockCode(code);
+    NineBlockGlyph glyph = getGlyph(code, size, decoded.getStrokeColor(background) >= 0);
+    if (glyph == null) {
+      Identicon.ENCODER.encode(render(code, size), out);
+      return;
+    }
+    int[] palette = glyph.getPalette(background, decoded.getFillColor(), decoded.getStrokeColor(background));
+    Identicon.ENCODER.encode(size, size, (y, height, pixels) -> glyph.getPixels(palette, y * size, height * size, pixels), out);
+  }
+
+  /**
+   * Render the numeric hashcode into an indexed-color Identicon image.
+   * <p>
+   * The pixels are identical to {@link #render(Integer, int)}, but where the
+   * image has no more than 256 distinct pixel recipes it is returned as a
+   * {@code TYPE_BYTE_INDEXED} image whose color model holds the palette. The
+   * raster is then a copy of the cached glyph indices and no per-pixel color
+   * work is done at all. Larger palettes fall back to an RGB image.
+   *
+   * @param code the numeric hash code to render.
+   * @param size the horizontal and vertical image size to create
+   * @return the rendered Identicon image
+   */
+  public BufferedImage renderIndexed(int code, int size) {
+    int background = backgroundColor;
+    NineBlockCode decoded = new NineBlockCode(code);
+    NineBlockGlyph glyph = getGlyph(code, size, decoded.getStrokeColor(background) >= 0);
+    byte[] indices = glyph == null ? null : glyph.getIndices();
+    if (indices == null) {
+      return render(code, size);
+    }
+    int[] palette = glyph.getPalette(background, decoded.getFillColor(), decoded.getStrokeColor(background));
+    IndexColorModel colorModel = new IndexColorModel(8, palette.length, palette, 0, false, -1, DataBuffer.TYPE_BYTE);
+    WritableRaster raster = Raster.createInterleavedRaster(new DataBufferByte(indices, indices.length),
+                                                           size, size, size, 1, new int[]{0}, null);
+    return new BufferedImage(colorModel, raster, false, null);
+  }
+
+  /**
+   * Internal method to get the renderer for shapes that are not cached. It is
+   * rebuilt only when the background color has changed.
+   *
+   * @param background the background color as 0xRRGGBB
+   * @return a renderer with the background color
+   */
+  private ImmutableIdenticonRenderer getFallback(int background) {
+    ImmutableIdenticonRenderer direct = fallback;
+    if (direct == null || (direct.getBackgroundColor().getRGB() & 0xffffff) != background) {
+      direct = ImmutableIdenticonRenderer.builder().backgroundColor(new Color(background)).build();
+      fallback = direct;
+    }
+    return direct;
+  }
+
+  /**
+   * Internal method to get a glyph from the cache, capturing it on a miss.
+   *
+   * @param code    the Identicon code
+   * @param size    the image size
+   * @param outline whether patches are outlined
+   * @return the glyph, or null if the shape cannot be represented as a glyph
+   */
+  private NineBlockGlyph getGlyph(int code, int size, boolean outline) {
+    Long key = ((long) size << 18) | (outline ? 1L << 17 : 0) | (code & SHAPE_MASK);
+    synchronized (glyphs) {
+      NineBlockGlyph glyph = glyphs.get(key);
+      if (glyph != null) {
+        hitCount++;
+        return glyph;
+      }
+      missCount++;
+    }
+    NineBlockGlyph glyph = NineBlockGlyph.capture(renderer, code & SHAPE_MASK, size, outline);
+    if (glyph != null && glyph.getWeight() <= maximumBytes) {
+      synchronized (glyphs) {
+        NineBlockGlyph previous = glyphs.put(key, glyph);
+        weightedSize += glyph.getWeight() - (previous == null ? 0 : previous.getWeight());
+        Iterator<Map.Entry<Long, NineBlockGlyph>> iterator = glyphs.entrySet().iterator();
+        while (weightedSize > maximumBytes) {
+          weightedSize -= iterator.next().getValue().getWeight();
+          iterator.remove();
+        }
+      }
+    }
+    return glyph;
+  }
+
+  /**
+   * Get the current total size of all cached glyphs.
+   *
+   * @return the approximate size in bytes
+   */
+  public long getWeightedSize() {
+    synchronized (glyphs) {
+      return weightedSize;
+    }
+  }
+
+  /**
+   * Get the number of cached glyphs.
+   *
+   * @return the number of glyphs
+   */
+  public int getSize() {
+    synchronized (glyphs) {
+      return glyphs.size();
+    }
+  }
+
+  /**
+   * Get the number of renders that found a cached glyph.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    synchronized (glyphs) {
+      return hitCount;
+    }
+  }
+
+  /**
+   * Get the number of renders that captured a new glyph.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    synchronized (glyphs) {
+      return missCount;
+    }
+  }
+}
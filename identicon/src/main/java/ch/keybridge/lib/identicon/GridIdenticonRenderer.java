@@ -0,0 +1,211 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Symmetric 5x5 pixel-grid Identicon renderer.
+ * <p>
+ * This is the cheapest Identicon to render and encode, intended for high
+ * volume surfaces such as member lists and notification badges. The image is
+ * a grid of 5 x 5 square cells, mirrored left to right. Each of the 15 cells
+ * of the left three columns is filled or left the background color according
+ * to one of the lower 15 code bits (the bits that select the 9-block patches),
+ * and the fill color is taken from the upper 16 code bits exactly as for the
+ * {@link NineBlockIdenticonRenderer}. If the fill color is too close to the
+ * background color the cells are filled with its complement instead.
+ * <p>
+ * Only axis aligned rectangles are drawn, with cell edges on whole pixels, so
+ * there are no paths, rotations or antialiased edges. The image has at most
+ * two colors and so encodes as a 1-bit PNG. Images are streamed by rows
+ * without materializing the full image raster.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class GridIdenticonRenderer implements IdenticonRenderer {
+
+  /**
+   * The number of cells in each row and column.
+   */
+  public static final int GRID_SIZE = 5;
+  /**
+   * Opaque alpha channel.
+   */
+  private static final int OPAQUE = 0xff000000;
+
+  /**
+   * The background color as 0xRRGGBB.
+   */
+  private volatile int backgroundColor = 0xffffff;
+  /**
+   * The version tag: "g" and the background color, if not white.
+   */
+  private volatile String versionTag = "g";
+
+  /**
+   * Private constructor. Use {@code getInstance()}.
+   */
+  private GridIdenticonRenderer() {
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine.
+   *
+   * @return a ready instance.
+   */
+  public static GridIdenticonRenderer getInstance() {
+    return new GridIdenticonRenderer();
+  }
+
+  /**
+   * Get the background color.
+   *
+   * @return the background color.
+   */
+  public Color getBackgroundColor() {
+    return new Color(backgroundColor);
+  }
+
+  /**
+   * Set the background color. Default is white.
+   *
+   * @param backgroundColor the background color.
+   */
+  public void setBackgroundColor(Color backgroundColor) {
+    this.backgroundColor = backgroundColor.getRGB() & 0xffffff;
+    this.versionTag = Identicon.getVersionTag("g", backgroundColor.getRGB());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The tag is {@code g}, followed by the background color if it is not
+   * white.
+   */
+  @Override
+  public String getVersionTag() {
+    return versionTag;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(Integer code, int size) {
+    return render(code.intValue(), size);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(int code, int size) {
+    BufferedImage targetImage = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) targetImage.getRaster().getDataBuffer()).getData();
+    renderRows(code, backgroundColor, size, 0, size, pixels);
+    return targetImage;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The image is rendered once, in strips of rows. Above 512 x 512 pixels
+   * each strip is encoded as it is rendered and the full image raster is
+   * never materialized.
+   */
+  @Override
+  public void write(int code, int size, OutputStream out) throws IOException {
+    int background = backgroundColor;
+    Identicon.ENCODER.encode(size, size, (y, height, pixels) -> renderRows(code, background, size, y, height, pixels), out);
+  }
+
+  /**
+   * Determine whether a grid cell is filled.
+   *
+   * @param code   the Identicon hash code
+   * @param row    the cell row (0 to 4)
+   * @param column the cell column (0 to 4)
+   * @return true if the cell is filled with the fill color
+   */
+  static boolean isFilled(int code, int row, int column) {
+    int mirrored = Math.min(column, GRID_SIZE - 1 - column);
+    return ((code >>> (mirrored * GRID_SIZE + row)) & 1) != 0;
+  }
+
+  /**
+   * Get the cell fill color.
+   *
+   * @param code            the Identicon hash code
+   * @param backgroundColor the background color as 0xRRGGBB
+   * @return the fill color as 0xRRGGBB
+   */
+  static int getCellColor(int code, int backgroundColor) {
+    int fillColor = NineBlockCode.getFillColor(code);
+    int strokeColor = NineBlockCode.getStrokeColor(fillColor, backgroundColor);
+    return strokeColor < 0 ? fillColor : strokeColor;
+  }
+
+  /**
+   * Internal method to render a strip of rows. The first row of each cell row
+   * is filled cell by cell and then copied to the remaining rows.
+   *
+   * @param code            the Identicon hash code
+   * @param backgroundColor the background color as 0xRRGGBB
+   * @param size            the horizontal and vertical image size
+   * @param y               the first row
+   * @param height          the number of rows
+   * @param pixels          the destination 0xAARRGGBB pixels, starting at
+   *                        index 0 with a stride of the image size
+   */
+  private static void renderRows(int code, int backgroundColor, int size, int y, int height, int[] pixels) {
+    int background = OPAQUE | backgroundColor;
+    int fill = OPAQUE | getCellColor(code, backgroundColor);
+    for (int row = 0; row < GRID_SIZE; row++) {
+      int from = Math.max(y, row * size / GRID_SIZE);
+      int to = Math.min(y + height, (row + 1) * size / GRID_SIZE);
+      if (from >= to) {
+        continue;
+      }
+      int first = (from - y) * size;
+      for (int column = 0; column < GRID_SIZE; column++) {
+        Arrays.fill(pixels,
+                    first + column * size / GRID_SIZE,
+                    first + (column + 1) * size / GRID_SIZE,
+                    isFilled(code, row, column) ? fill : background);
+      }
+      for (int line = first + size; line < (to - y) * size; line += size) {
+        System.arraycopy(pixels, first, pixels, line, size);
+      }
+    }
+  }
+}
@@ -0,0 +1,717 @@
+/*
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * All rights reserved. Use is subject to license terms.
+ * This software is protected by copyright.
+ *
+ * See the License for specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Utility class to simplify interaction with the Identicon image rendering
+ * engine.
+ *
+ * @author Key Bridge LLC
+ * @since 1.0.0 created 06/01/16
+ */
+public class Identicon {
+
+  /**
+   * The default image size in pixels square.
+   */
+  private static final int DEFAULT_IDENTICON_SIZE = 64;
+  /**
+   * The version of this implementation.
+   */
+  static final String VERSION = "1";
+  /**
+   * The maximum length of a renderer version tag in characters.
+   */
+  public static final int MAXIMUM_VERSION_TAG_LENGTH = 16;
+  /**
+   * The maximum length of an ETag in characters.
+   */
+  public static final int MAXIMUM_ETAG_LENGTH = 26 + VERSION.length() + MAXIMUM_VERSION_TAG_LENGTH;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  /**
+   * A reusable ETag buffer per thread.
+   */
+  private static final ThreadLocal<char[]> ETAG_BUFFER = new ThreadLocal<char[]>() {
+    @Override
+    protected char[] initialValue() {
+      return new char[MAXIMUM_ETAG_LENGTH];
+    }
+  };
+  /**
+   * The encoded image format name.
+   */
+  public static final String IMAGE_FORMAT = "PNG";
+  /**
+   * The encoded image MIME type.
+   */
+  public static final String IMAGE_MIMETYPE = "image/png";
+  /**
+   * The shared image encoder.
+   */
+  static final PngEncoder ENCODER = new PngEncoder();
+  /**
+   * The maximum number of shared renderers retained by
+   * {@link #getRenderer(ImmutableIdenticonRenderer.Builder)}.
+   */
+  static final int MAXIMUM_SHARED_RENDERERS = 64;
+  /**
+   * The shared renderers, by configuration.
+   */
+  static final ConcurrentMap<List<Object>, ImmutableIdenticonRenderer> RENDERERS = new ConcurrentHashMap<>();
+  /**
+   * The renderer used to generate images, or null for the default renderer.
+   * The default renderer is created on first use, so streaming with the
+   * default renderer does not initialize Java2D.
+   */
+  private static volatile IdenticonRenderer renderer;
+  /**
+   * The function from which object codes are derived.
+   */
+  private static volatile CodeFunction codeFunction = CodeFunction.DEFAULT;
+  /**
+   * The receiver of timing, size and cache events.
+   */
+  private static volatile IdenticonListener listener = IdenticonListener.NONE;
+
+  /**
+   * Get the function from which object codes are derived.
+   *
+   * @return the code function
+   */
+  public static CodeFunction getCodeFunction() {
+    return codeFunction;
+  }
+
+  /**
+   * Set the function from which object codes are derived.
+   * <p>
+   * This changes the image and ETag of every object, and so should be set once
+   * when the application starts. For example, to derive well mixed, salted
+   * codes from e-mail addresses:
+   * <pre>
+   * Identicon.setCodeFunction(CodeFunction.murmur3(salt));
+   * </pre>
+   *
+   * @param codeFunction the code function (default is
+   *                     {@link CodeFunction#DEFAULT})
+   */
+  public static void setCodeFunction(CodeFunction codeFunction) {
+    Identicon.codeFunction = Objects.requireNonNull(codeFunction, "Code function is required");
+  }
+
+  /**
+   * Get the receiver of timing, size and cache events.
+   *
+   * @return the listener
+   */
+  public static IdenticonListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Set the receiver of timing, size and cache events, such as an
+   * {@link IdenticonMetrics} instance.
+   * <p>
+   * While the listener is {@link IdenticonListener#NONE} (the default) no
+   * clock is read and no event is reported.
+   *
+   * @param listener the listener (default is {@link IdenticonListener#NONE})
+   */
+  public static void setListener(IdenticonListener listener) {
+    Identicon.listener = Objects.requireNonNull(listener, "Listener is required");
+  }
+
+  /**
+   * Get the renderer used to generate and write images.
+   *
+   * @return the renderer
+   */
+  public static IdenticonRenderer getRenderer() {
+    IdenticonRenderer r = renderer;
+    return r != null ? r : DefaultRenderer.INSTANCE;
+  }
+
+  /**
+   * Set the renderer used to generate and write images. For example, to
+   * render the cheaper pixel-grid Identicon:
+   * <pre>
+   * Identicon.setRenderer(GridIdenticonRenderer.getInstance());
+   * </pre>
+   * <p>
+   * The ETag includes the renderer {@link IdenticonRenderer#getVersionTag()
+   * version tag}, so this changes the ETag of every image along with the
+   * image; cached copies of the previous images are no longer matched. It
+   * should still be set once when the application starts. SVG images are
+   * always 9-block images.
+   *
+   * @param renderer the renderer (default is the shared renderer with the
+   *                 default configuration)
+   * @throws IllegalArgumentException if the renderer version tag is not valid
+   */
+  public static void setRenderer(IdenticonRenderer renderer) {
+    Objects.requireNonNull(renderer, "Renderer is required");
+    if (!isVersionTag(renderer.getVersionTag())) {
+      throw new IllegalArgumentException("Renderer version tag must be at most " + MAXIMUM_VERSION_TAG_LENGTH + " letters, digits, '.', '-' or '_'.");
+    }
+    Identicon.renderer = renderer;
+  }
+
+  /**
+   * Get the version tag of the renderer, as included in the ETag. The default
+   * renderer has an empty tag.
+   *
+   * @return the renderer version tag
+   * @throws IllegalStateException if the tag is not valid
+   */
+  static String getVersionTag() {
+    IdenticonRenderer r = renderer;
+    String tag = r == null ? "" : r.getVersionTag();
+    if (!isVersionTag(tag)) {
+      throw new IllegalStateException("Renderer version tag must be at most " + MAXIMUM_VERSION_TAG_LENGTH + " letters, digits, '.', '-' or '_'.");
+    }
+    return tag;
+  }
+
+  /**
+   * Get the version tag of a renderer identified by name and background
+   * color: the name alone for a white background, else followed by the
+   * color.
+   *
+   * @param name            the renderer name
+   * @param backgroundColor the background color as 0xRRGGBB
+   * @return the version tag
+   */
+  static String getVersionTag(String name, int backgroundColor) {
+    return (backgroundColor & 0xffffff) == 0xffffff
+           ? name
+           : name + Integer.toHexString(0x1000000 | backgroundColor & 0xffffff).substring(1);
+  }
+
+  /**
+   * Internal method to determine if a renderer version tag is valid.
+   */
+  private static boolean isVersionTag(String tag) {
+    if (tag == null || tag.length() > MAXIMUM_VERSION_TAG_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < tag.length(); i++) {
+      char c = tag.charAt(i);
+      if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '.' || c == '-' || c == '_')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get a shared renderer with the configuration of a builder.
+   * <p>
+   * Renderers are immutable and thread safe, and one instance is created and
+   * retained for each distinct configuration. At most 64 configurations are
+   * retained: when a new configuration would exceed this, the retained
+   * renderers are released and sharing starts over, so that a varying
+   * configuration (for example, one derived from request parameters) cannot
+   * grow the retained set without bound. Renderers already returned remain
+   * valid. Applications should still use a small, fixed set of
+   * configurations.
+   *
+   * @param builder the renderer configuration
+   * @return the shared renderer
+   */
+  public static ImmutableIdenticonRenderer getRenderer(ImmutableIdenticonRenderer.Builder builder) {
+    List<Object> key = builder.getKey();
+    ImmutableIdenticonRenderer renderer = RENDERERS.get(key);
+    if (renderer == null) {
+      if (RENDERERS.size() >= MAXIMUM_SHARED_RENDERERS) {
+        RENDERERS.clear();
+      }
+      renderer = RENDERERS.computeIfAbsent(key, k -> builder.build());
+    }
+    return renderer;
+  }
+
+  /**
+   * Generate a Identicon image based upon the provided Object instance.
+   * <p>
+   * The object instance is hashed and a unique image is generated based upon
+   * the hash value. The image is rendered by the
+   * {@link #getRenderer() renderer}, by default a shared renderer with the
+   * default configuration.
+   *
+   * @param object    the object to hash (is null safe)
+   * @param imageSize the image horizontal and vertical size in pixels (default
+   *                  is 64)
+   * @return a rendered Identicon image
+   */
+  public static BufferedImage generate(Object object, int imageSize) {
+    int code = getCode(object);
+    IdenticonListener l = listener;
+    if (l == IdenticonListener.NONE) {
+      return getRenderer().render(code, imageSize);
+    }
+    long start = System.nanoTime();
+    BufferedImage image = getRenderer().render(code, imageSize);
+    l.rendered(imageSize, System.nanoTime() - start);
+    return image;
+  }
+
+  /**
+   * Generate a Identicon image based upon the provided Object instance.
+   * <p>
+   * The object instance is hashed and a unique image is generated based upon
+   * the hash value. The default image size of 64 pixels square is created.
+   *
+   *
+   * @param object the object to hash
+   * @return a rendered Identicon image (64 x 64 pixels)
+   */
+  public static BufferedImage generate(Object object) {
+    return generate(object, DEFAULT_IDENTICON_SIZE);
+  }
+
+  /**
+   * Generate a set of Identicon images of different sizes based upon the
+   * provided Object instance, such as the images of a responsive
+   * {@code srcset}.
+   * <p>
+   * The object is hashed and decoded once for all sizes. Each image is
+   * identical to that of {@link #generate(Object, int)} for its size. This
+   * is a convenience rather than an optimization: each size is still drawn
+   * in full, so a set costs about the same as generating each size.
+   *
+   * @param object     the object to hash (is null safe)
+   * @param imageSizes the image sizes in pixels
+   * @return the rendered Identicon images, in the order of the sizes
+   */
+  public static BufferedImage[] generate(Object object, int[] imageSizes) {
+    int code = getCode(object);
+    IdenticonListener l = listener;
+    if (l == IdenticonListener.NONE) {
+      return getRenderer().render(code, imageSizes);
+    }
+    long start = System.nanoTime();
+    BufferedImage[] images = getRenderer().render(code, imageSizes);
+    long elapsed = System.nanoTime() - start;
+    /**
+     * The sizes are rendered together: apportion the time by image area.
+     */
+    double area = 0;
+    for (int imageSize : imageSizes) {
+      area += (double) imageSize * imageSize;
+    }
+    for (int imageSize : imageSizes) {
+      l.rendered(imageSize, area == 0 ? 0 : Math.round(elapsed * ((double) imageSize * imageSize / area)));
+    }
+    return images;
+  }
+
+  /**
+   * Generate a set of encoded Identicon images of different sizes based upon
+   * the provided Object instance. Each is encoded in the {@link #IMAGE_FORMAT}
+   * format.
+   *
+   * @param object     the object to hash (is null safe)
+   * @param imageSizes the image sizes in pixels
+   * @return the encoded Identicon images, in the order of the sizes
+   * @throws IOException if an image cannot be encoded
+   * @see #generate(Object, int[])
+   */
+  public static byte[][] generateBytes(Object object, int[] imageSizes) throws IOException {
+    BufferedImage[] images = generate(object, imageSizes);
+    byte[][] encoded = new byte[images.length][];
+    for (int i = 0; i < images.length; i++) {
+      encoded[i] = encode(images[i]);
+    }
+    return encoded;
+  }
+
+  /**
+   * Generate a Identicon SVG image based upon the provided Object instance.
+   * <p>
+   * The SVG image has the same shapes and colors as
+   * {@link #generate(Object, int)} and scales to any display size. Its MIME
+   * type is {@link SvgIdenticonRenderer#SVG_MIMETYPE}.
+   *
+   * @param object the object to hash (is null safe)
+   * @return the SVG document
+   */
+  public static String generateSvg(Object object) {
+    return SvgRenderer.INSTANCE.render(getCode(object));
+  }
+
+  /**
+   * Get the numeric hash code of an Object instance. This is the code from
+   * which its Identicon image is rendered.
+   * <p>
+   * The code is derived by the {@link #getCodeFunction() code function}. By
+   * default the value is identical to {@code Objects.hash(object)} but no
+   * varargs array is allocated.
+   *
+   * @param object the object to hash (is null safe)
+   * @return the hash code
+   */
+  public static int getCode(Object object) {
+    IdenticonListener l = listener;
+    if (l == IdenticonListener.NONE) {
+      return codeFunction.getCode(object);
+    }
+    long start = System.nanoTime();
+    int code = codeFunction.getCode(object);
+    l.hashed(System.nanoTime() - start);
+    return code;
+  }
+
+  /**
+   * Generate a ETag to correspond with the generated Identicon image based upon
+   * the provided Object instance.
+   * <p>
+   * The ETag identifies the object code, the image size, the implementation
+   * version and the renderer {@link IdenticonRenderer#getVersionTag() version
+   * tag}, if any: {@code W/"bdb5e3e5@48v1"} with the default renderer and
+   * {@code W/"bdb5e3e5@48v1-g"} with the {@link GridIdenticonRenderer}.
+   *
+   * @param object    the object to hash
+   * @param imageSize the image horizontal and vertical size in pixels (default
+   *                  is 64)
+   * @return the Identicon image ETAG string
+   */
+  public static String getETag(Object object, int imageSize) {
+    char[] buffer = ETAG_BUFFER.get();
+    return new String(buffer, 0, writeETag(buffer, 0, getCode(object), imageSize));
+  }
+
+  /**
+   * Generate a ETag to correspond with the generated Identicon image based upon
+   * the provided Object instance.
+   *
+   * @param object the object to hash
+   * @return the Identicon image ETAG string
+   */
+  public static String getETag(Object object) {
+    return getETag(object, DEFAULT_IDENTICON_SIZE);
+  }
+
+  /**
+   * Append the ETag of the generated Identicon image to a string builder. This
+   * does not allocate if the builder has sufficient capacity.
+   *
+   * @param sb        the string builder
+   * @param object    the object to hash
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @return the string builder
+   */
+  public static StringBuilder appendETag(StringBuilder sb, Object object, int imageSize) {
+    int code = getCode(object);
+    sb.append("W/\"");
+    for (int shift = Math.max(0, (31 - Integer.numberOfLeadingZeros(code)) & ~3); shift >= 0; shift -= 4) {
+      sb.append(HEX[(code >>> shift) & 0xf]);
+    }
+    sb.append('@').append(imageSize).append('v').append(VERSION);
+    String tag = getVersionTag();
+    if (!tag.isEmpty()) {
+      sb.append('-').append(tag);
+    }
+    return sb.append('"');
+  }
+
+  /**
+   * Write the ETag of the generated Identicon image into a character array.
+   * This does not allocate.
+   *
+   * @param buffer    the destination, with room for at least
+   *                  {@link #MAXIMUM_ETAG_LENGTH} characters from the offset
+   * @param offset    the index of the first character
+   * @param object    the object to hash
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @return the number of characters written
+   */
+  public static int getETag(char[] buffer, int offset, Object object, int imageSize) {
+    return writeETag(buffer, offset, getCode(object), imageSize);
+  }
+
+  /**
+   * Internal method to write an ETag.
+   */
+  private static int writeETag(char[] buffer, int offset, int code, int imageSize) {
+    int i = offset;
+    buffer[i++] = 'W';
+    buffer[i++] = '/';
+    buffer[i++] = '"';
+    for (int shift = Math.max(0, (31 - Integer.numberOfLeadingZeros(code)) & ~3); shift >= 0; shift -= 4) {
+      buffer[i++] = HEX[(code >>> shift) & 0xf];
+    }
+    buffer[i++] = '@';
+    long value = imageSize;
+    if (value < 0) {
+      buffer[i++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long v = value / 10; v > 0; v /= 10) {
+      digits++;
+    }
+    for (int d = digits - 1; d >= 0; d--) {
+      buffer[i + d] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    i += digits;
+    buffer[i++] = 'v';
+    for (int v = 0; v < VERSION.length(); v++) {
+      buffer[i++] = VERSION.charAt(v);
+    }
+    String tag = getVersionTag();
+    if (!tag.isEmpty()) {
+      buffer[i++] = '-';
+      tag.getChars(0, tag.length(), buffer, i);
+      i += tag.length();
+    }
+    buffer[i++] = '"';
+    return i - offset;
+  }
+
+  /**
+   * Determine whether a client's cached copy of the Identicon image is still
+   * current, based upon the value of its {@code If-None-Match} request header.
+   * <p>
+   * This requires only the ETag, which is computed from the object hash. No
+   * image is rendered or encoded, and nothing is allocated. ETags are compared
+   * using the weak comparison function (RFC 7232), so a {@code W/} prefix on
+   * either side is ignored. A header value of {@code *} always matches.
+   *
+   * @param ifNoneMatch the If-None-Match header value (may be null or a comma
+   *                    separated list of ETags)
+   * @param object      the object to hash
+   * @param imageSize   the image horizontal and vertical size in pixels
+   * @return true if the client copy matches and a "304 Not Modified" response
+   *         may be returned
+   */
+  public static boolean isNotModified(String ifNoneMatch, Object object, int imageSize) {
+    if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+      return false;
+    }
+    char[] etag = ETAG_BUFFER.get();
+    int length = writeETag(etag, 0, getCode(object), imageSize);
+    /**
+     * Compare the opaque-tag only, i.e. the quoted portion after "W/".
+     */
+    int opaqueLength = length - 2;
+    int headerLength = ifNoneMatch.length();
+    for (int start = 0; start <= headerLength;) {
+      int end = ifNoneMatch.indexOf(',', start);
+      if (end < 0) {
+        end = headerLength;
+      }
+      int tagStart = start;
+      int tagEnd = end;
+      while (tagStart < tagEnd && ifNoneMatch.charAt(tagStart) <= ' ') {
+        tagStart++;
+      }
+      while (tagEnd > tagStart && ifNoneMatch.charAt(tagEnd - 1) <= ' ') {
+        tagEnd--;
+      }
+      if (tagEnd - tagStart == 1 && ifNoneMatch.charAt(tagStart) == '*') {
+        return true;
+      }
+      if (ifNoneMatch.startsWith("W/", tagStart)) {
+        tagStart += 2;
+      }
+      if (tagEnd - tagStart == opaqueLength && regionMatches(ifNoneMatch, tagStart, etag, 2, opaqueLength)) {
+        return true;
+      }
+      start = end + 1;
+    }
+    return false;
+  }
+
+  /**
+   * Internal method to compare a region of a string with a region of a
+   * character array.
+   */
+  private static boolean regionMatches(String string, int offset, char[] chars, int charsOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      if (string.charAt(offset + i) != chars[charsOffset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Encode a rendered Identicon image into the {@link #IMAGE_FORMAT} format.
+   * <p>
+   * Images are written by the {@link PngEncoder} as indexed-color PNG where
+   * possible.
+   *
+   * @param image the rendered Identicon image
+   * @return the encoded image bytes
+   * @throws IOException if the image cannot be encoded
+   */
+  public static byte[] encode(RenderedImage image) throws IOException {
+    IdenticonListener l = listener;
+    if (l == IdenticonListener.NONE) {
+      return ENCODER.encode(image);
+    }
+    long start = System.nanoTime();
+    byte[] encoded = ENCODER.encode(image);
+    l.encoded(image.getWidth(), System.nanoTime() - start, encoded.length);
+    return encoded;
+  }
+
+  /**
+   * Encode a rendered Identicon image into the {@link #IMAGE_FORMAT} format
+   * and write it to an output stream. The stream is not closed.
+   *
+   * @param image the rendered Identicon image
+   * @param out   the output stream
+   * @throws IOException if the image cannot be encoded or written
+   */
+  public static void encode(RenderedImage image, OutputStream out) throws IOException {
+    IdenticonListener l = listener;
+    if (l == IdenticonListener.NONE) {
+      ENCODER.encode(image, out);
+      return;
+    }
+    CountingOutputStream counter = new CountingOutputStream(out);
+    long start = System.nanoTime();
+    ENCODER.encode(image, counter);
+    l.encoded(image.getWidth(), System.nanoTime() - start, counter.count);
+  }
+
+  /**
+   * Generate a Identicon image based upon the provided Object instance and
+   * stream it to an output stream in the {@link #IMAGE_FORMAT} format. The
+   * stream is not closed.
+   * <p>
+   * The image is written by the {@link #getRenderer() renderer} and has the
+   * same pixels as {@link #generate(Object, int)}; up to 512 x 512 pixels
+   * its bytes are the same as {@link #encode(RenderedImage)} of that image.
+   * The default 9-block renderer and the {@link ScanlineIdenticonRenderer}
+   * render and encode the image in bands of rows, so that above 512 x 512
+   * pixels (written as RGB) memory use is bounded regardless of the image
+   * size. The {@code ScanlineIdenticonRenderer} never initializes the AWT
+   * toolkit or Java2D, so with it selected this is also the fastest way to
+   * the first image in a new JVM.
+   *
+   * @param object    the object to hash (is null safe)
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @param out       the output stream
+   * @throws IOException if the image cannot be written
+   */
+  public static void write(Object object, int imageSize, OutputStream out) throws IOException {
+    int code = getCode(object);
+    IdenticonListener l = listener;
+    if (l == IdenticonListener.NONE) {
+      getRenderer().write(code, imageSize, out);
+      return;
+    }
+    CountingOutputStream counter = new CountingOutputStream(out);
+    long start = System.nanoTime();
+    getRenderer().write(code, imageSize, counter);
+    l.encoded(imageSize, System.nanoTime() - start, counter.count);
+  }
+
+  /**
+   * Generate a Identicon image based upon the provided Object instance and
+   * stream it to a (blocking) channel in the {@link #IMAGE_FORMAT} format. The
+   * channel is not closed.
+   *
+   * @param object    the object to hash (is null safe)
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @param channel   the channel
+   * @throws IOException if the image cannot be written
+   * @see #write(Object, int, OutputStream)
+   */
+  public static void write(Object object, int imageSize, WritableByteChannel channel) throws IOException {
+    if (listener == IdenticonListener.NONE) {
+      getRenderer().write(getCode(object), imageSize, channel);
+      return;
+    }
+    write(object, imageSize, Channels.newOutputStream(channel));
+  }
+
+  /**
+   * Generate a Identicon image based upon the provided Object instance and
+   * write it into a buffer in the {@link #IMAGE_FORMAT} format, starting at
+   * the buffer's current position.
+   *
+   * @param object    the object to hash (is null safe)
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @param buffer    the buffer
+   * @return the number of bytes written
+   * @throws IOException             if the image cannot be written
+   * @throws BufferOverflowException if the buffer has insufficient space
+   * @see #write(Object, int, OutputStream)
+   */
+  public static int write(Object object, int imageSize, ByteBuffer buffer) throws IOException {
+    int code = getCode(object);
+    IdenticonListener l = listener;
+    if (l == IdenticonListener.NONE) {
+      return getRenderer().write(code, imageSize, buffer);
+    }
+    long start = System.nanoTime();
+    int length = getRenderer().write(code, imageSize, buffer);
+    l.encoded(imageSize, System.nanoTime() - start, length);
+    return length;
+  }
+
+  /**
+   * Holds the default renderer, created when first used.
+   */
+  private static final class DefaultRenderer {
+
+    private static final ImmutableIdenticonRenderer INSTANCE = getRenderer(ImmutableIdenticonRenderer.builder());
+  }
+
+  /**
+   * Holds the SVG renderer, created when first used.
+   */
+  private static final class SvgRenderer {
+
+    private static final SvgIdenticonRenderer INSTANCE = SvgIdenticonRenderer.getInstance();
+  }
+
+  /**
+   * An output stream that counts the bytes written through it.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
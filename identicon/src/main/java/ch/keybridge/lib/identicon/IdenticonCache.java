@@ -0,0 +1,405 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded in-memory cache of encoded Identicon images.
+ * <p>
+ * Entries are keyed by the Identicon ETag (see
+ * {@link Identicon#getETag(Object, int)}), which uniquely identifies the
+ * object hash, image size, implementation version and renderer. Images of a
+ * previous renderer are not matched and age out. The cache is bounded by the
+ * total number of encoded image bytes it holds.
+ * <p>
+ * Eviction is frequency aware: entries are kept in least-recently-used order,
+ * but when space is needed a new entry only displaces the least recently used
+ * entry if it has been requested more often recently (TinyLFU admission). This
+ * keeps a popular working set resident when it is interleaved with a stream of
+ * one-off requests.
+ * <p>
+ * Use {@link Identicon#isNotModified(String, Object, int)} before consulting
+ * the cache to answer conditional requests without any image at all.
+ * <p>
+ * This class is thread safe. Lookups read a concurrent map and take no shared
+ * lock: they are counted with striped counters ({@link LongAdder}) and
+ * recorded in per-thread striped buffers, which are applied to the frequency
+ * sketch and the access order in batches under the eviction lock. If a buffer
+ * is full while another thread holds the lock, the lookup is not recorded;
+ * recency and frequency are estimates in any case. Listeners are notified
+ * outside of the lock, and images are rendered and encoded outside of it.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class IdenticonCache {
+
+  /**
+   * The default maximum cache size in bytes (32 MB).
+   */
+  public static final long DEFAULT_MAXIMUM_BYTES = 32L * 1024 * 1024;
+  /**
+   * The assumed average encoded image size, used to size the frequency sketch.
+   */
+  private static final int AVERAGE_ENTRY_BYTES = 1024;
+  /**
+   * The number of lookups each read buffer holds before it is drained.
+   */
+  private static final int READ_BUFFER_SIZE = 32;
+
+  /**
+   * The maximum total size of all cached images in bytes.
+   */
+  private final long maximumBytes;
+  /**
+   * The cached images.
+   */
+  private final ConcurrentHashMap<String, byte[]> entries;
+  /**
+   * The cached images, in access order (least recently used first). Guarded
+   * by the eviction lock.
+   */
+  private final LinkedHashMap<String, byte[]> order;
+  /**
+   * Recent access frequency of both cached and uncached keys. Guarded by the
+   * eviction lock.
+   */
+  private final FrequencySketch sketch;
+  /**
+   * Guards the access order, the sketch and changes to the entries.
+   */
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  /**
+   * Lookups not yet applied to the sketch and access order, striped by
+   * thread. The length is a power of two.
+   */
+  private final ReadBuffer[] readBuffers;
+  /**
+   * Coalesces concurrent renders of the same missing image.
+   */
+  private final IdenticonCoalescer coalescer = new IdenticonCoalescer();
+  /**
+   * The current total size of all cached images in bytes. Written under the
+   * eviction lock.
+   */
+  private volatile long weightedSize;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * Construct a new cache with the default maximum size.
+   */
+  public IdenticonCache() {
+    this(DEFAULT_MAXIMUM_BYTES);
+  }
+
+  /**
+   * Construct a new cache.
+   *
+   * @param maximumBytes the maximum total size of all cached images in bytes
+   */
+  public IdenticonCache(long maximumBytes) {
+    if (maximumBytes < 0) {
+      throw new IllegalArgumentException("Maximum bytes must not be negative.");
+    }
+    this.maximumBytes = maximumBytes;
+    this.entries = new ConcurrentHashMap<>();
+    this.order = new LinkedHashMap<>(16, 0.75f, true);
+    this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maximumBytes / AVERAGE_ENTRY_BYTES));
+    int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+    this.readBuffers = new ReadBuffer[stripes];
+    for (int i = 0; i < stripes; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+  }
+
+  /**
+   * Get the encoded Identicon image for the provided Object instance, rendering
+   * and encoding it if it is not already cached.
+   * <p>
+   * Concurrent requests for the same missing image are coalesced: one renders
+   * and caches the image and the others share its result.
+   * <p>
+   * The returned array is shared and must not be modified.
+   *
+   * @param object    the object to hash (is null safe)
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @return the encoded image bytes
+   * @throws IOException if the image cannot be encoded
+   */
+  public byte[] get(Object object, int imageSize) throws IOException {
+    String etag = Identicon.getETag(object, imageSize);
+    byte[] encoded = getIfPresent(etag);
+    if (encoded == null) {
+      encoded = coalescer.get(Identicon.getCode(object), imageSize, () -> {
+        byte[] rendered = Identicon.encode(Identicon.generate(object, imageSize));
+        put(etag, rendered);
+        return rendered;
+      });
+    }
+    return encoded;
+  }
+
+  /**
+   * Get a cached encoded image.
+   * <p>
+   * The returned array is shared and must not be modified.
+   *
+   * @param etag the Identicon ETag
+   * @return the encoded image bytes, or null if not cached
+   */
+  public byte[] getIfPresent(String etag) {
+    byte[] encoded = entries.get(etag);
+    ReadBuffer buffer = readBuffers[(Thread.currentThread().hashCode() * 0x9e3779b9 >>> 16) & (readBuffers.length - 1)];
+    if (buffer.offer(etag) && evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+    if (encoded == null) {
+      missCount.increment();
+      Identicon.getListener().cacheMiss();
+    } else {
+      hitCount.increment();
+      Identicon.getListener().cacheHit();
+    }
+    return encoded;
+  }
+
+  /**
+   * Offer an encoded image to the cache.
+   * <p>
+   * The image is not cached if it is larger than the cache or if room can only
+   * be made by evicting entries that are used more frequently.
+   *
+   * @param etag    the Identicon ETag
+   * @param encoded the encoded image bytes
+   * @return true if the image was cached
+   */
+  public boolean put(String etag, byte[] encoded) {
+    if (encoded.length > maximumBytes) {
+      return false;
+    }
+    List<byte[]> evicted = null;
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      byte[] previous = order.remove(etag);
+      if (previous != null) {
+        weightedSize -= previous.length;
+      }
+      if (previous == null && weightedSize + encoded.length > maximumBytes) {
+        /**
+         * Admit a new entry only if it is more popular than the entry it would
+         * first displace.
+         */
+        String victimKey = order.keySet().iterator().next();
+        if (sketch.frequency(etag.hashCode()) <= sketch.frequency(victimKey.hashCode())) {
+          return false;
+        }
+      }
+      Iterator<Map.Entry<String, byte[]>> iterator = order.entrySet().iterator();
+      while (weightedSize + encoded.length > maximumBytes) {
+        Map.Entry<String, byte[]> victim = iterator.next();
+        iterator.remove();
+        entries.remove(victim.getKey());
+        weightedSize -= victim.getValue().length;
+        if (evicted == null) {
+          evicted = new ArrayList<>();
+        }
+        evicted.add(victim.getValue());
+      }
+      order.put(etag, encoded);
+      entries.put(etag, encoded);
+      weightedSize += encoded.length;
+    } finally {
+      evictionLock.unlock();
+    }
+    if (evicted != null) {
+      IdenticonListener l = Identicon.getListener();
+      for (byte[] victim : evicted) {
+        evictionCount.increment();
+        l.cacheEvicted(victim.length);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Remove all cached images. Statistics are not reset.
+   */
+  public void invalidateAll() {
+    evictionLock.lock();
+    try {
+      order.clear();
+      entries.clear();
+      weightedSize = 0;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Internal method to apply the recorded lookups to the frequency sketch and
+   * the access order. The eviction lock must be held.
+   */
+  private void drainReadBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      buffer.drain(this);
+    }
+  }
+
+  /**
+   * Internal method to apply one recorded lookup. The eviction lock must be
+   * held.
+   *
+   * @param etag the ETag looked up
+   */
+  private void record(String etag) {
+    sketch.increment(etag.hashCode());
+    order.get(etag);
+  }
+
+  /**
+   * Get the maximum total size of all cached images.
+   *
+   * @return the maximum size in bytes
+   */
+  public long getMaximumBytes() {
+    return maximumBytes;
+  }
+
+  /**
+   * Get the current total size of all cached images.
+   *
+   * @return the current size in bytes
+   */
+  public long getWeightedSize() {
+    return weightedSize;
+  }
+
+  /**
+   * Get the number of cached images.
+   *
+   * @return the number of entries
+   */
+  public int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * Get the number of lookups that found a cached image.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Get the number of lookups that did not find a cached image.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Get the number of images removed to make room for others.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * Get the ratio of lookups that found a cached image.
+   *
+   * @return the hit rate, between 0 and 1 (1 if there were no lookups)
+   */
+  public double getHitRate() {
+    long hits = hitCount.sum();
+    long requestCount = hits + missCount.sum();
+    return requestCount == 0 ? 1.0 : (double) hits / requestCount;
+  }
+
+  @Override
+  public String toString() {
+    return "IdenticonCache{" + "size=" + entries.size()
+      + ", weightedSize=" + weightedSize + ", maximumBytes=" + maximumBytes
+      + ", hitCount=" + hitCount.sum() + ", missCount=" + missCount.sum()
+      + ", evictionCount=" + evictionCount.sum() + '}';
+  }
+
+  /**
+   * A fixed-size buffer of recent lookups. Lookups offered while the buffer is
+   * full are dropped.
+   */
+  private static final class ReadBuffer {
+
+    private final String[] etags = new String[READ_BUFFER_SIZE];
+    private int size;
+
+    /**
+     * Record a lookup.
+     *
+     * @param etag the ETag looked up
+     * @return true if the buffer is full and should be drained
+     */
+    synchronized boolean offer(String etag) {
+      if (size < etags.length) {
+        etags[size++] = etag;
+      }
+      return size == etags.length;
+    }
+
+    /**
+     * Apply the recorded lookups to a cache and empty the buffer. The cache
+     * eviction lock must be held.
+     *
+     * @param cache the cache
+     */
+    synchronized void drain(IdenticonCache cache) {
+      for (int i = 0; i < size; i++) {
+        cache.record(etags[i]);
+        etags[i] = null;
+      }
+      size = 0;
+    }
+  }
+}
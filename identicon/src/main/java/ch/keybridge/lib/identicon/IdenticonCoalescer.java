@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent requests for the same encoded Identicon image into a
+ * single render (single flight).
+ * <p>
+ * The first caller for a code and image size renders and encodes the image.
+ * Every caller that asks for the same code and size while that render is in
+ * flight waits for, and shares, its result instead of rendering the identical
+ * image again. This stops a burst of requests for one popular image from
+ * occupying every processor with the same work.
+ * <p>
+ * Renders in flight are held in a concurrent map, so callers for different
+ * images neither lock nor wait for each other. If the render fails, every
+ * waiting caller receives the failure and the next request renders again.
+ * Waiting callers give up after the configured timeout; the render itself is
+ * not interrupted.
+ * <p>
+ * This class is thread safe. The returned arrays are shared and must not be
+ * modified.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class IdenticonCoalescer {
+
+  /**
+   * The default time in milliseconds a caller waits for another caller's
+   * render.
+   */
+  public static final long DEFAULT_TIMEOUT = 10_000;
+
+  /**
+   * Produces an encoded image.
+   */
+  @FunctionalInterface
+  public interface Loader {
+
+    /**
+     * Render and encode an image.
+     *
+     * @return the encoded image bytes
+     * @throws IOException if the image cannot be encoded
+     */
+    byte[] load() throws IOException;
+  }
+
+  /**
+   * The renders in flight, by code and image size.
+   */
+  private final ConcurrentMap<Long, CompletableFuture<byte[]>> flights = new ConcurrentHashMap<>();
+  /**
+   * The time a caller waits for another caller's render.
+   */
+  private final long timeoutMillis;
+  private final LongAdder loadCount = new LongAdder();
+  private final LongAdder coalescedCount = new LongAdder();
+
+  /**
+   * Construct a new coalescer with the default timeout.
+   */
+  public IdenticonCoalescer() {
+    this(DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * Construct a new coalescer.
+   *
+   * @param timeoutMillis the time in milliseconds a caller waits for another
+   *                      caller's render
+   */
+  public IdenticonCoalescer(long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative.");
+    }
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Get the encoded Identicon image for the provided Object instance, joining
+   * a concurrent render of the same image if there is one.
+   *
+   * @param object    the object to hash (is null safe)
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @return the encoded image bytes
+   * @throws InterruptedIOException if the wait for a concurrent render times
+   *                                out or is interrupted
+   * @throws IOException            if the image cannot be encoded
+   */
+  public byte[] get(Object object, int imageSize) throws IOException {
+    return get(Identicon.getCode(object), imageSize, () -> Identicon.encode(Identicon.generate(object, imageSize)));
+  }
+
+  /**
+   * Get an encoded image, loading it unless the same code and size is already
+   * being loaded, in which case the result of that load is returned.
+   * <p>
+   * The loader is called on the current thread, and only if this caller is
+   * the first.
+   *
+   * @param code      the Identicon code
+   * @param imageSize the image size in pixels
+   * @param loader    renders and encodes the image
+   * @return the encoded image bytes
+   * @throws InterruptedIOException if the wait for a concurrent render times
+   *                                out or is interrupted
+   * @throws IOException            if the image cannot be encoded
+   */
+  public byte[] get(int code, int imageSize, Loader loader) throws IOException {
+    Long key = ((long) code << 32) | (imageSize & 0xffffffffL);
+    CompletableFuture<byte[]> flight = new CompletableFuture<>();
+    CompletableFuture<byte[]> existing = flights.putIfAbsent(key, flight);
+    if (existing != null) {
+      coalescedCount.increment();
+      return await(existing, code, imageSize);
+    }
+    loadCount.increment();
+    try {
+      byte[] encoded = loader.load();
+      flight.complete(encoded);
+      return encoded;
+    } catch (IOException | RuntimeException | Error ex) {
+      flight.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      /**
+       * Callers that arrive between completion and removal receive the
+       * completed result.
+       */
+      flights.remove(key, flight);
+    }
+  }
+
+  /**
+   * Internal method to wait for another caller's render.
+   */
+  private byte[] await(CompletableFuture<byte[]> flight, int code, int imageSize) throws IOException {
+    try {
+      return flight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for image " + Integer.toHexString(code) + "@" + imageSize);
+    } catch (TimeoutException ex) {
+      throw new InterruptedIOException("Timed out after " + timeoutMillis + " ms waiting for image "
+        + Integer.toHexString(code) + "@" + imageSize);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException("Failed to render image " + Integer.toHexString(code) + "@" + imageSize, cause);
+    }
+  }
+
+  /**
+   * Get the number of renders currently in flight.
+   *
+   * @return the number of renders
+   */
+  public int getInFlightCount() {
+    return flights.size();
+  }
+
+  /**
+   * Get the number of renders performed.
+   *
+   * @return the load count
+   */
+  public long getLoadCount() {
+    return loadCount.sum();
+  }
+
+  /**
+   * Get the number of requests that joined another request's render instead
+   * of rendering.
+   *
+   * @return the coalesced count
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "IdenticonCoalescer{" + "inFlight=" + flights.size()
+      + ", loadCount=" + loadCount.sum() + ", coalescedCount=" + coalescedCount.sum() + '}';
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+/**
+ * Receives timing, size and cache events from the Identicon engine.
+ * <p>
+ * Events are reported by the {@link Identicon} utility methods and by the
+ * {@link IdenticonCache} and {@link IdenticonStore}. Renderers used directly
+ * report only images encoded by {@link Identicon#encode}. The listener is set
+ * with
+ * {@link Identicon#setListener(IdenticonListener)}; the default is
+ * {@link #NONE}, in which case no clock is read and no event is reported.
+ * <p>
+ * Listeners are called on the request thread, sometimes while a cache lock is
+ * held, so they must be thread safe, fast and must not block.
+ * {@link IdenticonMetrics} is a listener that records statistics.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public interface IdenticonListener {
+
+  /**
+   * The listener that ignores all events. This is the default.
+   */
+  IdenticonListener NONE = new IdenticonListener() {
+  };
+
+  /**
+   * An object was hashed into its Identicon code.
+   *
+   * @param nanos the elapsed time in nanoseconds
+   */
+  default void hashed(long nanos) {
+  }
+
+  /**
+   * An image was rendered.
+   *
+   * @param imageSize the image size in pixels
+   * @param nanos     the elapsed time in nanoseconds
+   */
+  default void rendered(int imageSize, long nanos) {
+  }
+
+  /**
+   * An image was encoded. Images that are streamed are rendered and encoded
+   * together, and are reported only as encoded.
+   *
+   * @param imageSize the image size in pixels
+   * @param nanos     the elapsed time in nanoseconds
+   * @param bytes     the number of encoded bytes
+   */
+  default void encoded(int imageSize, long nanos, long bytes) {
+  }
+
+  /**
+   * A request waited in the queue of an {@link AsyncIdenticonRenderer}
+   * before a render thread took it.
+   *
+   * @param nanos the time in the queue in nanoseconds
+   */
+  default void queued(long nanos) {
+  }
+
+  /**
+   * A cache lookup found an encoded image.
+   */
+  default void cacheHit() {
+  }
+
+  /**
+   * A cache lookup did not find an encoded image.
+   */
+  default void cacheMiss() {
+  }
+
+  /**
+   * An encoded image was removed from a cache to make room for others.
+   *
+   * @param bytes the size of the removed image in bytes
+   */
+  default void cacheEvicted(long bytes) {
+  }
+}
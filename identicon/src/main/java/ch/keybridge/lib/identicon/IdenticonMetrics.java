@@ -0,0 +1,497 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * An {@link IdenticonListener} that records counts, latency distributions and
+ * encoded bytes of the hash, render and encode phases, overall and by image
+ * size, the queue time of asynchronous requests, and cache hit, miss and
+ * eviction counts. The statistics are
+ * published as a JMX MBean by {@link #register()}.
+ * <p>
+ * All statistics are recorded with striped counters ({@link LongAdder}), so
+ * concurrent render threads do not contend on a shared counter. Latencies are
+ * recorded into log-linear buckets with four buckets per power of two.
+ * <p>
+ * Example:
+ * <pre>
+ * IdenticonMetrics metrics = new IdenticonMetrics();
+ * metrics.register();
+ * Identicon.setListener(metrics);
+ * </pre>
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class IdenticonMetrics implements IdenticonListener, IdenticonMetricsMXBean {
+
+  /**
+   * The default MBean object name.
+   */
+  public static final String OBJECT_NAME = "ch.keybridge.lib.identicon:type=IdenticonMetrics";
+
+  private final Timer hash = new Timer();
+  private final Timer render = new Timer();
+  private final Timer encode = new Timer();
+  private final Timer queue = new Timer();
+  private final LongAdder encodedBytes = new LongAdder();
+  /**
+   * The statistics by image size. Sizes are few, so entries are never removed
+   * other than by {@link #reset()}.
+   */
+  private final ConcurrentMap<Integer, SizeStatistics> sizes = new ConcurrentHashMap<>();
+  private final LongAdder cacheHitCount = new LongAdder();
+  private final LongAdder cacheMissCount = new LongAdder();
+  private final LongAdder cacheEvictionCount = new LongAdder();
+  private final LongAdder cacheEvictedBytes = new LongAdder();
+  /**
+   * The MBean server this instance is registered with, or null if not
+   * registered.
+   */
+  private MBeanServer server;
+  /**
+   * The registered object name, or null if not registered.
+   */
+  private ObjectName objectName;
+
+  /**
+   * Register this instance with the platform MBean server under
+   * {@link #OBJECT_NAME}.
+   *
+   * @return the object name
+   * @throws JMException if the MBean cannot be registered, for example if
+   *                     another instance is already registered
+   */
+  public synchronized ObjectName register() throws JMException {
+    return register(ManagementFactory.getPlatformMBeanServer(), new ObjectName(OBJECT_NAME));
+  }
+
+  /**
+   * Register this instance with an MBean server.
+   *
+   * @param server the MBean server
+   * @param name   the object name
+   * @return the object name
+   * @throws JMException if the MBean cannot be registered
+   */
+  public synchronized ObjectName register(MBeanServer server, ObjectName name) throws JMException {
+    objectName = server.registerMBean(this, name).getObjectName();
+    this.server = server;
+    return objectName;
+  }
+
+  /**
+   * Unregister this instance from the MBean server it was registered with,
+   * if registered.
+   *
+   * @throws JMException if the MBean cannot be unregistered
+   */
+  public synchronized void unregister() throws JMException {
+    if (objectName != null) {
+      server.unregisterMBean(objectName);
+      server = null;
+      objectName = null;
+    }
+  }
+
+  @Override
+  public void hashed(long nanos) {
+    hash.record(nanos);
+  }
+
+  @Override
+  public void rendered(int imageSize, long nanos) {
+    render.record(nanos);
+    getSizeStatistics(imageSize).render.record(nanos);
+  }
+
+  @Override
+  public void encoded(int imageSize, long nanos, long bytes) {
+    encode.record(nanos);
+    encodedBytes.add(bytes);
+    SizeStatistics statistics = getSizeStatistics(imageSize);
+    statistics.encode.record(nanos);
+    statistics.encodedBytes.add(bytes);
+  }
+
+  @Override
+  public void queued(long nanos) {
+    queue.record(nanos);
+  }
+
+  @Override
+  public void cacheHit() {
+    cacheHitCount.increment();
+  }
+
+  @Override
+  public void cacheMiss() {
+    cacheMissCount.increment();
+  }
+
+  @Override
+  public void cacheEvicted(long bytes) {
+    cacheEvictionCount.increment();
+    cacheEvictedBytes.add(bytes);
+  }
+
+  /**
+   * Internal method to get the statistics of an image size. The lookup does
+   * not lock once the size has been seen.
+   */
+  private SizeStatistics getSizeStatistics(int imageSize) {
+    SizeStatistics statistics = sizes.get(imageSize);
+    return statistics != null ? statistics : sizes.computeIfAbsent(imageSize, size -> new SizeStatistics());
+  }
+
+  @Override
+  public Timing getHash() {
+    return hash.snapshot();
+  }
+
+  @Override
+  public Timing getRender() {
+    return render.snapshot();
+  }
+
+  @Override
+  public Timing getEncode() {
+    return encode.snapshot();
+  }
+
+  @Override
+  public Timing getQueue() {
+    return queue.snapshot();
+  }
+
+  @Override
+  public SortedMap<Integer, Timing> getRenderBySize() {
+    SortedMap<Integer, Timing> map = new TreeMap<>();
+    for (Map.Entry<Integer, SizeStatistics> entry : sizes.entrySet()) {
+      map.put(entry.getKey(), entry.getValue().render.snapshot());
+    }
+    return map;
+  }
+
+  @Override
+  public SortedMap<Integer, Timing> getEncodeBySize() {
+    SortedMap<Integer, Timing> map = new TreeMap<>();
+    for (Map.Entry<Integer, SizeStatistics> entry : sizes.entrySet()) {
+      map.put(entry.getKey(), entry.getValue().encode.snapshot());
+    }
+    return map;
+  }
+
+  @Override
+  public long getEncodedBytes() {
+    return encodedBytes.sum();
+  }
+
+  @Override
+  public SortedMap<Integer, Long> getEncodedBytesBySize() {
+    SortedMap<Integer, Long> map = new TreeMap<>();
+    for (Map.Entry<Integer, SizeStatistics> entry : sizes.entrySet()) {
+      map.put(entry.getKey(), entry.getValue().encodedBytes.sum());
+    }
+    return map;
+  }
+
+  @Override
+  public long getCacheHitCount() {
+    return cacheHitCount.sum();
+  }
+
+  @Override
+  public long getCacheMissCount() {
+    return cacheMissCount.sum();
+  }
+
+  @Override
+  public double getCacheHitRate() {
+    long hits = cacheHitCount.sum();
+    long requestCount = hits + cacheMissCount.sum();
+    return requestCount == 0 ? 1.0 : (double) hits / requestCount;
+  }
+
+  @Override
+  public long getCacheEvictionCount() {
+    return cacheEvictionCount.sum();
+  }
+
+  @Override
+  public long getCacheEvictedBytes() {
+    return cacheEvictedBytes.sum();
+  }
+
+  @Override
+  public void reset() {
+    hash.reset();
+    render.reset();
+    encode.reset();
+    queue.reset();
+    encodedBytes.reset();
+    sizes.clear();
+    cacheHitCount.reset();
+    cacheMissCount.reset();
+    cacheEvictionCount.reset();
+    cacheEvictedBytes.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "IdenticonMetrics{" + "hash=" + getHash() + ", render=" + getRender()
+      + ", encode=" + getEncode() + ", queue=" + getQueue() + ", encodedBytes=" + getEncodedBytes()
+      + ", cacheHitCount=" + getCacheHitCount() + ", cacheMissCount=" + getCacheMissCount()
+      + ", cacheEvictionCount=" + getCacheEvictionCount() + '}';
+  }
+
+  /**
+   * The statistics of one image size.
+   */
+  private static final class SizeStatistics {
+
+    private final Timer render = new Timer();
+    private final Timer encode = new Timer();
+    private final LongAdder encodedBytes = new LongAdder();
+  }
+
+  /**
+   * A striped latency recorder. Values are counted in log-linear buckets:
+   * values below four have their own bucket and each power of two above is
+   * divided into four.
+   */
+  static final class Timer {
+
+    /**
+     * The largest distinguished value, about 68 seconds. Larger values are
+     * counted in the last bucket.
+     */
+    private static final long MAXIMUM_VALUE = (1L << 36) - 1;
+    /**
+     * The number of buckets.
+     */
+    static final int BUCKET_COUNT = bucket(MAXIMUM_VALUE) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Timer() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param nanos the value in nanoseconds
+     */
+    void record(long nanos) {
+      long value = Math.max(0, nanos);
+      buckets[bucket(Math.min(value, MAXIMUM_VALUE))].increment();
+      total.add(value);
+      max.accumulate(value);
+    }
+
+    /**
+     * Reset all counts to zero.
+     */
+    void reset() {
+      for (LongAdder bucket : buckets) {
+        bucket.reset();
+      }
+      total.reset();
+      max.reset();
+    }
+
+    /**
+     * Get a snapshot of the statistics. Values recorded concurrently may or
+     * may not be included.
+     *
+     * @return the statistics
+     */
+    Timing snapshot() {
+      long[] counts = new long[buckets.length];
+      long count = 0;
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = buckets[i].sum();
+        count += counts[i];
+      }
+      long maximum = max.get();
+      return new Timing(count,
+                        total.sum(),
+                        maximum,
+                        percentile(counts, count, 0.5, maximum),
+                        percentile(counts, count, 0.99, maximum),
+                        percentile(counts, count, 0.999, maximum));
+    }
+
+    /**
+     * Internal method to get the bucket index of a value.
+     */
+    static int bucket(long value) {
+      if (value < 4) {
+        return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      return 4 * (exponent - 1) + (int) ((value >>> (exponent - 2)) & 3);
+    }
+
+    /**
+     * Internal method to get the largest value counted in a bucket.
+     */
+    static long highestValue(int bucket) {
+      if (bucket < 4) {
+        return bucket;
+      }
+      int exponent = bucket / 4 + 1;
+      return ((5L + bucket % 4) << (exponent - 2)) - 1;
+    }
+
+    /**
+     * Internal method to estimate a percentile from bucket counts.
+     */
+    private static long percentile(long[] counts, long count, double fraction, long maximum) {
+      if (count == 0) {
+        return 0;
+      }
+      long target = Math.max(1, (long) Math.ceil(fraction * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= target) {
+          return Math.min(maximum, highestValue(i));
+        }
+      }
+      return maximum;
+    }
+  }
+
+  /**
+   * A snapshot of the statistics of one phase. Times are in nanoseconds.
+   */
+  public static final class Timing {
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+    @ConstructorProperties({"count", "totalNanos", "maxNanos", "p50Nanos", "p99Nanos", "p999Nanos"})
+    public Timing(long count, long totalNanos, long maxNanos, long p50Nanos, long p99Nanos, long p999Nanos) {
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.p50Nanos = p50Nanos;
+      this.p99Nanos = p99Nanos;
+      this.p999Nanos = p999Nanos;
+    }
+
+    /**
+     * Get the number of recorded events.
+     *
+     * @return the count
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Get the total elapsed time of all events.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /**
+     * Get the mean elapsed time.
+     *
+     * @return the mean time in nanoseconds, or zero if there were no events
+     */
+    public double getMeanNanos() {
+      return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Get the longest elapsed time.
+     *
+     * @return the maximum time in nanoseconds
+     */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * Get the estimated median elapsed time.
+     *
+     * @return the 50th percentile time in nanoseconds
+     */
+    public long getP50Nanos() {
+      return p50Nanos;
+    }
+
+    /**
+     * Get the estimated 99th percentile elapsed time.
+     *
+     * @return the 99th percentile time in nanoseconds
+     */
+    public long getP99Nanos() {
+      return p99Nanos;
+    }
+
+    /**
+     * Get the estimated 99.9th percentile elapsed time.
+     *
+     * @return the 99.9th percentile time in nanoseconds
+     */
+    public long getP999Nanos() {
+      return p999Nanos;
+    }
+
+    @Override
+    public String toString() {
+      return "Timing{" + "count=" + count + ", meanNanos=" + Math.round(getMeanNanos())
+        + ", p50Nanos=" + p50Nanos + ", p99Nanos=" + p99Nanos
+        + ", p999Nanos=" + p999Nanos + ", maxNanos=" + maxNanos + '}';
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.util.SortedMap;
+
+/**
+ * The JMX management interface of {@link IdenticonMetrics}.
+ * <p>
+ * Times are in nanoseconds. Percentiles are estimates, accurate to within
+ * 25%.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public interface IdenticonMetricsMXBean {
+
+  /**
+   * Get the statistics of hashing objects into Identicon codes.
+   *
+   * @return the hash statistics
+   */
+  IdenticonMetrics.Timing getHash();
+
+  /**
+   * Get the statistics of rendering images, of all sizes.
+   *
+   * @return the render statistics
+   */
+  IdenticonMetrics.Timing getRender();
+
+  /**
+   * Get the statistics of encoding images, of all sizes.
+   *
+   * @return the encode statistics
+   */
+  IdenticonMetrics.Timing getEncode();
+
+  /**
+   * Get the statistics of the time asynchronous requests wait to be rendered.
+   *
+   * @return the queue time statistics
+   * @see AsyncIdenticonRenderer
+   */
+  IdenticonMetrics.Timing getQueue();
+
+  /**
+   * Get the statistics of rendering images, by image size.
+   *
+   * @return the render statistics by image size
+   */
+  SortedMap<Integer, IdenticonMetrics.Timing> getRenderBySize();
+
+  /**
+   * Get the statistics of encoding images, by image size.
+   *
+   * @return the encode statistics by image size
+   */
+  SortedMap<Integer, IdenticonMetrics.Timing> getEncodeBySize();
+
+  /**
+   * Get the total number of encoded bytes produced.
+   *
+   * @return the number of bytes
+   */
+  long getEncodedBytes();
+
+  /**
+   * Get the number of encoded bytes produced, by image size.
+   *
+   * @return the number of bytes by image size
+   */
+  SortedMap<Integer, Long> getEncodedBytesBySize();
+
+  /**
+   * Get the number of cache lookups that found an encoded image.
+   *
+   * @return the hit count
+   */
+  long getCacheHitCount();
+
+  /**
+   * Get the number of cache lookups that did not find an encoded image.
+   *
+   * @return the miss count
+   */
+  long getCacheMissCount();
+
+  /**
+   * Get the ratio of cache lookups that found an encoded image.
+   *
+   * @return the hit rate, between 0 and 1 (1 if there were no lookups)
+   */
+  double getCacheHitRate();
+
+  /**
+   * Get the number of encoded images removed from caches to make room for
+   * others.
+   *
+   * @return the eviction count
+   */
+  long getCacheEvictionCount();
+
+  /**
+   * Get the total size of the encoded images removed from caches.
+   *
+   * @return the number of bytes
+   */
+  long getCacheEvictedBytes();
+
+  /**
+   * Reset all statistics to zero.
+   */
+  void reset();
+}
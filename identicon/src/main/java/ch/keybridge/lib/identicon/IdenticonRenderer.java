@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2007-2014 Don Park <donpark@docuverse.com>
+ * Contributor   2014-2014 Paulo Miguel Almeida Rodenas <paulo.ubuntu@gmail.com>
+ * Contributor & Copyright  2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Identicon renderer interface.
+ * <p>
+ * An Identicon is a visual representation of a hash value, usually of an IP
+ * address, that serves to identify a user of a computer system as a form of
+ * avatar while protecting the users' privacy.
+ *
+ * @author Don Park donpark@docuverse.com
+ */
+public interface IdenticonRenderer {
+
+  /**
+   * Render the numeric hashcode into a unique Identicon image.
+   *
+   * @param hashCode  the numeric hash code to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @return the rendered Identicon image
+   */
+  public BufferedImage render(Integer hashCode, int imageSize);
+
+  /**
+   * Render the numeric hashcode into a unique Identicon image.
+   * <p>
+   * This primitive variant avoids boxing the hash code. The default
+   * implementation delegates to {@link #render(Integer, int)}; renderers in
+   * this library implement it directly.
+   *
+   * @param hashCode  the numeric hash code to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @return the rendered Identicon image
+   */
+  default BufferedImage render(int hashCode, int imageSize) {
+    return render(Integer.valueOf(hashCode), imageSize);
+  }
+
+  /**
+   * Render the numeric hashcode into a set of Identicon images of different
+   * sizes, such as the 1x, 2x and 3x densities of a responsive image set.
+   * <p>
+   * Each image is identical to a standalone {@link #render(int, int)} of its
+   * size. This is a convenience: nearly all of the cost of an image is drawing
+   * it at its size, which cannot be shared. Implementations that override
+   * this share only the decoded code and colors, which saves a few percent.
+   *
+   * @param hashCode   the numeric hash code to render.
+   * @param imageSizes the horizontal and vertical image sizes to create
+   * @return the rendered Identicon images, in the order of the sizes
+   */
+  default BufferedImage[] render(int hashCode, int[] imageSizes) {
+    BufferedImage[] images = new BufferedImage[imageSizes.length];
+    for (int i = 0; i < imageSizes.length; i++) {
+      images[i] = render(hashCode, imageSizes[i]);
+    }
+    return images;
+  }
+
+  /**
+   * Render the numeric hashcode into a set of Identicon images of different
+   * sizes and encode each in the {@link Identicon#IMAGE_FORMAT} format.
+   * <p>
+   * The default implementation encodes the images of
+   * {@link #render(int, int[])}.
+   *
+   * @param hashCode   the numeric hash code to render.
+   * @param imageSizes the horizontal and vertical image sizes to create
+   * @return the encoded Identicon images, in the order of the sizes
+   * @throws IOException if an image cannot be encoded
+   */
+  default byte[][] renderBytes(int hashCode, int[] imageSizes) throws IOException {
+    BufferedImage[] images = render(hashCode, imageSizes);
+    byte[][] encoded = new byte[images.length][];
+    for (int i = 0; i < images.length; i++) {
+      encoded[i] = Identicon.encode(images[i]);
+    }
+    return encoded;
+  }
+
+  /**
+   * Render the numeric hashcode into a unique Identicon image and write it
+   * to an output stream in the {@link Identicon#IMAGE_FORMAT} format. The
+   * stream is not closed.
+   * <p>
+   * The default implementation renders the image then encodes it.
+   * Implementations may override this to stream the encoded image without
+   * materializing the full image raster.
+   *
+   * @param hashCode  the numeric hash code to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @param out       the output stream
+   * @throws IOException if the image cannot be written
+   */
+  default void write(int hashCode, int imageSize, OutputStream out) throws IOException {
+    Identicon.ENCODER.encode(render(hashCode, imageSize), out);
+  }
+
+  /**
+   * Render the numeric hashcode into a unique Identicon image and write it
+   * to a (blocking) channel in the {@link Identicon#IMAGE_FORMAT} format. The
+   * channel is not closed.
+   *
+   * @param hashCode  the numeric hash code to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @param channel   the channel
+   * @throws IOException if the image cannot be written
+   */
+  default void write(int hashCode, int imageSize, WritableByteChannel channel) throws IOException {
+    write(hashCode, imageSize, Channels.newOutputStream(channel));
+  }
+
+  /**
+   * Render the numeric hashcode into a unique Identicon image and write it
+   * into a buffer in the {@link Identicon#IMAGE_FORMAT} format, starting at
+   * the buffer's current position.
+   *
+   * @param hashCode  the numeric hash code to render.
+   * @param imageSize the horizontal and vertical image size to create
+   * @param buffer    the buffer
+   * @return the number of bytes written
+   * @throws IOException             if the image cannot be written
+   * @throws BufferOverflowException if the buffer has insufficient space, in
+   *                                 which case the buffer contents and
+   *                                 position are undefined
+   */
+  default int write(int hashCode, int imageSize, ByteBuffer buffer) throws IOException {
+    int position = buffer.position();
+    write(hashCode, imageSize, new ByteBufferOutputStream(buffer));
+    return buffer.position() - position;
+  }
+
+  /**
+   * Get a short tag identifying the images this renderer draws. The Identicon
+   * ETag, and so the {@link IdenticonCache} and {@link IdenticonStore} keys,
+   * include the tag of the {@link Identicon#getRenderer() renderer}, so that
+   * renderers and configurations that draw different images have different
+   * ETags.
+   * <p>
+   * A tag has at most {@link Identicon#MAXIMUM_VERSION_TAG_LENGTH} letters,
+   * digits, {@code '.'}, {@code '-'} or {@code '_'}. It is read for every
+   * ETag, and so should be a cached string. The tag must change whenever the
+   * images drawn change, including with the renderer configuration, so that
+   * cached images and client ETags from before the change are not reused.
+   * <p>
+   * The default implementation identifies the renderer class by a hash of its
+   * canonical name, which is the same in every JVM. It cannot distinguish
+   * differently configured instances of one class, so renderers with settings
+   * that affect the image should override it. Lambda, anonymous, local and
+   * other synthetic or hidden classes have no stable name and get an empty
+   * tag.
+   *
+   * @return the version tag; empty for the default 9-block renderer
+   */
+  default String getVersionTag() {
+    String name = getClass().isSynthetic() ? null : getClass().getCanonicalName();
+    return name == null ? "" : "c" + Integer.toHexString(name.hashCode());
+  }
+
+  /**
+   * Render the numeric hashcode into a caller-supplied {@code int[]} of
+   * pixels, such as a pooled buffer or a region of a larger image.
+   * <p>
+   * The image is written row by row starting at the offset, each row
+   * {@code scanlineStride} pixels after the previous one. Pixels between the
+   * rows are not changed. The image is identical to that of
+   * {@link #render(int, int)} converted to the layout.
+   * <p>
+   * The default implementation renders an image then copies its pixels.
+   * Implementations may override this to render directly into the array.
+   *
+   * @param hashCode       the numeric hash code to render.
+   * @param imageSize      the horizontal and vertical image size to create
+   * @param pixels         the destination pixels
+   * @param offset         the array index of the top left pixel
+   * @param scanlineStride the array distance between vertically adjacent
+   *                       pixels
+   * @param layout         the pixel layout
+   * @throws IllegalArgumentException if the image does not fit the array
+   */
+  default void render(int hashCode, int imageSize, int[] pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.length, offset, scanlineStride, imageSize, 1);
+    render(hashCode, imageSize).getRGB(0, 0, imageSize, imageSize, pixels, offset, scanlineStride);
+    for (int y = 0, i = offset; y < imageSize; y++, i += scanlineStride) {
+      layout.pack(pixels, i, i + imageSize);
+    }
+  }
+
+  /**
+   * Render the numeric hashcode into a caller-supplied int buffer, which may
+   * be direct. Indexes are absolute and in pixels; the buffer position is not
+   * changed.
+   * <p>
+   * The default implementation renders into the backing array of a heap
+   * buffer, and otherwise renders into an array then copies its pixels.
+   *
+   * @param hashCode       the numeric hash code to render.
+   * @param imageSize      the horizontal and vertical image size to create
+   * @param pixels         the destination pixels
+   * @param offset         the buffer index of the top left pixel
+   * @param scanlineStride the buffer distance between vertically adjacent
+   *                       pixels
+   * @param layout         the pixel layout
+   * @throws IllegalArgumentException if the image does not fit the buffer
+   * @see #render(int, int, int[], int, int, PixelLayout)
+   */
+  default void render(int hashCode, int imageSize, IntBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.limit(), offset, scanlineStride, imageSize, 1);
+    if (pixels.hasArray()) {
+      render(hashCode, imageSize, pixels.array(), pixels.arrayOffset() + offset, scanlineStride, layout);
+      return;
+    }
+    int[] image = new int[imageSize * imageSize];
+    render(hashCode, imageSize, image, 0, imageSize, PixelLayout.RGB);
+    for (int y = 0; y < imageSize; y++) {
+      layout.put(image, y * imageSize, (y + 1) * imageSize, pixels, offset + y * scanlineStride);
+    }
+  }
+
+  /**
+   * Render the numeric hashcode into a caller-supplied byte buffer, such as a
+   * direct buffer handed to native code or a network pipeline. Indexes are
+   * absolute and in bytes; the buffer position and byte order are not
+   * changed.
+   * <p>
+   * The default implementation renders into an array then copies its pixels.
+   *
+   * @param hashCode       the numeric hash code to render.
+   * @param imageSize      the horizontal and vertical image size to create
+   * @param pixels         the destination pixels
+   * @param offset         the buffer index of the first byte of the top left
+   *                       pixel
+   * @param scanlineStride the number of bytes between vertically adjacent
+   *                       pixels
+   * @param layout         the pixel layout
+   * @throws IllegalArgumentException if the image does not fit the buffer
+   * @see #render(int, int, int[], int, int, PixelLayout)
+   */
+  default void render(int hashCode, int imageSize, ByteBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.limit(), offset, scanlineStride, imageSize, layout.getBytesPerPixel());
+    int[] image = new int[imageSize * imageSize];
+    render(hashCode, imageSize, image, 0, imageSize, PixelLayout.RGB);
+    for (int y = 0; y < imageSize; y++) {
+      layout.put(image, y * imageSize, (y + 1) * imageSize, pixels, offset + y * scanlineStride);
+    }
+  }
+}
@@ -0,0 +1,966 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent, memory-mapped store of encoded Identicon images.
+ * <p>
+ * Encoded images are held outside of the Java heap in memory-mapped segment
+ * files in a directory, and survive restarts: a store reopened on the same
+ * directory serves the images it held without rendering them again. Entries
+ * are keyed by the object code and image size; the implementation version and
+ * renderer version tag (as used in {@link Identicon#getETag(Object, int)}) are
+ * recorded in each segment. Segments written by another version or renderer
+ * are discarded when the store is opened, and all images are discarded when
+ * the next image is stored after the renderer has changed.
+ * <p>
+ * Segments are append-only. Each record carries a CRC32 of the image and its
+ * length is written last, so an interrupted write is detected and discarded
+ * when the store is reopened. Full segments are forced to disk before the
+ * next is started, and {@link #flush()} forces the current segment. Images are
+ * read through read-only {@code ByteBuffer} slices of the mapped segments
+ * without copying; as segments are never rewritten, a slice remains valid
+ * after its entry is evicted or the store is closed.
+ * <p>
+ * The store is bounded by the total size of its segment files. When it is
+ * full it is compacted if at least half of its bytes are held by replaced
+ * entries; otherwise the oldest segment is evicted. Compaction copies each
+ * live entry to new segments and deletes the old segments one at a time. One
+ * segment of the maximum size is kept free for it to copy into, so the segment
+ * files never exceed the maximum size, even while compacting.
+ * <p>
+ * The index is an open-addressing hash table, also held outside of the heap,
+ * of 16 bytes per entry. It is rebuilt from the segment record headers when
+ * the store is opened.
+ * <p>
+ * This class is thread safe. Lookups share a read lock, so concurrent reads
+ * do not block each other; storing, compacting and evicting take the write
+ * lock. Images are rendered and encoded, and the
+ * {@link IdenticonListener listener} is called, outside of the store lock.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class IdenticonStore implements Closeable {
+
+  /**
+   * The default maximum store size in bytes (1 GB).
+   */
+  public static final long DEFAULT_MAXIMUM_BYTES = 1L << 30;
+  /**
+   * The default segment file size in bytes (64 MB).
+   */
+  public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+  /**
+   * The segment file name suffix.
+   */
+  private static final String SEGMENT_SUFFIX = ".seg";
+  /**
+   * The segment header: magic number, format, version length and version
+   * (the implementation version and renderer version tag).
+   */
+  private static final int MAGIC = 0x49444e54;
+  private static final int FORMAT = 1;
+  private static final int SEGMENT_HEADER_BYTES = 32;
+  /**
+   * The record header: code, size, length and CRC32, followed by the image.
+   */
+  private static final int RECORD_HEADER_BYTES = 16;
+
+  private final Path directory;
+  private final long maximumBytes;
+  private final int segmentBytes;
+  /**
+   * The maximum number of segments between compactions. This is one less than
+   * fit in the maximum size, which leaves room for the segment a compaction
+   * copies into before it deletes the first source segment.
+   */
+  private final int maximumSegments;
+  /**
+   * The segments by identifier, oldest first. The last is being written.
+   */
+  private final TreeMap<Integer, Segment> segments;
+  private final Index index;
+  private final CRC32 crc;
+  /**
+   * Coalesces concurrent renders of the same missing image.
+   */
+  private final IdenticonCoalescer coalescer = new IdenticonCoalescer();
+  /**
+   * Guards the segments, the index and the counters. Lookups hold the read
+   * lock; everything that changes the store holds the write lock.
+   */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private Segment active;
+  /**
+   * The renderer version tag of the stored images.
+   */
+  private String versionTag;
+  /**
+   * The record bytes of indexed and of replaced entries.
+   */
+  private long liveBytes;
+  private long deadBytes;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private long evictionCount;
+  private boolean closed;
+
+  /**
+   * Open a store with the default maximum and segment sizes.
+   *
+   * @param directory the store directory, created if it does not exist
+   * @throws IOException if the store cannot be opened
+   */
+  public IdenticonStore(Path directory) throws IOException {
+    this(directory, DEFAULT_MAXIMUM_BYTES, DEFAULT_SEGMENT_BYTES);
+  }
+
+  /**
+   * Open a store.
+   * <p>
+   * A store may be reopened with different sizes. Segments beyond the maximum
+   * are evicted, oldest first.
+   *
+   * @param directory    the store directory, created if it does not exist
+   * @param maximumBytes the maximum total size of all segment files in bytes,
+   *                     including one segment reserved for compaction; at
+   *                     least two segments
+   * @param segmentBytes the size of each segment file in bytes
+   * @throws IOException if the store cannot be opened
+   */
+  public IdenticonStore(Path directory, long maximumBytes, int segmentBytes) throws IOException {
+    if (segmentBytes < SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES + 1) {
+      throw new IllegalArgumentException("Segment bytes is too small.");
+    }
+    if (maximumBytes / segmentBytes < 2) {
+      throw new IllegalArgumentException("Maximum bytes must hold at least two segments.");
+    }
+    this.directory = directory;
+    this.maximumBytes = maximumBytes;
+    this.segmentBytes = segmentBytes;
+    this.maximumSegments = (int) Math.min(Integer.MAX_VALUE, maximumBytes / segmentBytes) - 1;
+    this.segments = new TreeMap<>();
+    this.index = new Index(1024);
+    this.crc = new CRC32();
+    this.versionTag = Identicon.getVersionTag();
+    Files.createDirectories(directory);
+    List<Path> paths = new ArrayList<>();
+    try (Stream<Path> stream = Files.list(directory)) {
+      stream.filter(path -> path.getFileName().toString().matches("\\d{10}\\" + SEGMENT_SUFFIX)).sorted().forEach(paths::add);
+    }
+    for (int i = 0; i < paths.size(); i++) {
+      Path path = paths.get(i);
+      int id = Integer.parseInt(path.getFileName().toString().substring(0, 10));
+      Segment segment = Segment.open(path, id, getVersion());
+      if (segment == null) {
+        Files.delete(path);
+      } else {
+        segments.put(id, segment);
+        recover(segment, i == paths.size() - 1);
+      }
+    }
+    List<Integer> evicted = new ArrayList<>(0);
+    while (segments.size() > maximumSegments) {
+      evict(segments.firstEntry().getValue(), evicted);
+    }
+    for (int bytes : evicted) {
+      Identicon.getListener().cacheEvicted(bytes);
+    }
+    active = segments.isEmpty()
+             ? createSegment(0)
+             : segments.lastEntry().getValue();
+  }
+
+  /**
+   * Get the encoded Identicon image for the provided Object instance, rendering
+   * and encoding it if it is not already stored. Concurrent requests for the
+   * same missing image are coalesced into one render.
+   *
+   * @param object    the object to hash (is null safe)
+   * @param imageSize the image horizontal and vertical size in pixels
+   * @return a read-only buffer of the encoded image bytes
+   * @throws IOException if the image cannot be encoded or stored
+   */
+  public ByteBuffer get(Object object, int imageSize) throws IOException {
+    int code = Identicon.getCode(object);
+    ByteBuffer encoded = getIfPresent(code, imageSize);
+    if (encoded == null) {
+      byte[] bytes = coalescer.get(code, imageSize, () -> {
+        byte[] rendered = Identicon.encode(Identicon.generate(object, imageSize));
+        put(code, imageSize, rendered);
+        return rendered;
+      });
+      encoded = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+    return encoded;
+  }
+
+  /**
+   * Get a stored encoded image.
+   *
+   * @param code      the Identicon code
+   * @param imageSize the image size in pixels
+   * @return a read-only slice of the mapped encoded image bytes, or null if
+   *         not stored
+   */
+  public ByteBuffer getIfPresent(int code, int imageSize) {
+    ByteBuffer slice = null;
+    String tag = Identicon.getVersionTag();
+    lock.readLock().lock();
+    try {
+      checkOpen();
+      long location = imageSize > 0 && tag.equals(versionTag)
+                      ? index.get(key(code, imageSize))
+                      : Index.ABSENT;
+      if (location != Index.ABSENT) {
+        Segment segment = segments.get((int) (location >>> 32));
+        int offset = (int) location + RECORD_HEADER_BYTES;
+        slice = segment.buffer.asReadOnlyBuffer();
+        slice.limit(offset + segment.buffer.getInt((int) location + 8)).position(offset);
+        slice = slice.slice();
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (slice == null) {
+      missCount.increment();
+      Identicon.getListener().cacheMiss();
+    } else {
+      hitCount.increment();
+      Identicon.getListener().cacheHit();
+    }
+    return slice;
+  }
+
+  /**
+   * Store an encoded image, replacing any previous image with the same code
+   * and size.
+   *
+   * @param code      the Identicon code
+   * @param imageSize the image size in pixels
+   * @param encoded   the encoded image bytes
+   * @return true if the image was stored; false if it is empty or larger than
+   *         a segment
+   * @throws IOException if the store cannot be written
+   */
+  public boolean put(int code, int imageSize, byte[] encoded) throws IOException {
+    return put(code, imageSize, ByteBuffer.wrap(encoded));
+  }
+
+  /**
+   * Store an encoded image, replacing any previous image with the same code
+   * and size. The remaining bytes of the buffer are stored; its position is
+   * not changed.
+   *
+   * @param code      the Identicon code
+   * @param imageSize the image size in pixels
+   * @param encoded   the encoded image bytes
+   * @return true if the image was stored; false if it is empty or larger than
+   *         a segment
+   * @throws IOException if the store cannot be written
+   */
+  public boolean put(int code, int imageSize, ByteBuffer encoded) throws IOException {
+    if (imageSize <= 0) {
+      throw new IllegalArgumentException("Image size must be positive.");
+    }
+    String tag = Identicon.getVersionTag();
+    List<Integer> evicted = new ArrayList<>(0);
+    boolean stored;
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      stored = store(code, imageSize, encoded, tag, evicted);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    IdenticonListener l = Identicon.getListener();
+    for (int bytes : evicted) {
+      l.cacheEvicted(bytes);
+    }
+    return stored;
+  }
+
+  /**
+   * Internal method to store an encoded image. Called with the write lock
+   * held.
+   *
+   * @param evicted collects the sizes of the images evicted to make room
+   */
+  private boolean store(int code, int imageSize, ByteBuffer encoded, String tag, List<Integer> evicted) throws IOException {
+    if (!tag.equals(versionTag)) {
+      /**
+       * The stored images are those of another renderer.
+       */
+      versionTag = tag;
+      invalidateAll();
+    }
+    int length = encoded.remaining();
+    if (length == 0 || length > segmentBytes - SEGMENT_HEADER_BYTES - RECORD_HEADER_BYTES) {
+      return false;
+    }
+    reserve(RECORD_HEADER_BYTES + length, evicted);
+    int position = active.writePosition;
+    ByteBuffer target = active.buffer.duplicate();
+    target.position(position + RECORD_HEADER_BYTES);
+    target.put(encoded.duplicate());
+    target.limit(target.position()).position(position + RECORD_HEADER_BYTES);
+    crc.reset();
+    crc.update(target);
+    active.buffer.putInt(position, code);
+    active.buffer.putInt(position + 4, imageSize);
+    active.buffer.putInt(position + 12, (int) crc.getValue());
+    append(active, position, length);
+    index(key(code, imageSize), location(active.id, position), RECORD_HEADER_BYTES + length);
+    return true;
+  }
+
+  /**
+   * Force the current segment to disk. Full segments are forced when they are
+   * completed.
+   *
+   * @throws IOException if the segment cannot be forced
+   */
+  public void flush() throws IOException {
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      active.buffer.force();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Copy every stored image to new segments, reclaiming the space of replaced
+   * images.
+   *
+   * @throws IOException if the store cannot be written
+   */
+  public void compact() throws IOException {
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      List<Segment> sources = new ArrayList<>(segments.values());
+      active.buffer.force();
+      Segment target = createSegment(active.id + 1);
+      for (Segment source : sources) {
+        for (int position = SEGMENT_HEADER_BYTES; position < source.writePosition;) {
+          int length = source.buffer.getInt(position + 8);
+          int recordBytes = RECORD_HEADER_BYTES + length;
+          long key = key(source.buffer.getInt(position), source.buffer.getInt(position + 4));
+          if (index.get(key) == location(source.id, position)) {
+            if (target.writePosition + recordBytes > target.capacity) {
+              target.buffer.force();
+              target = createSegment(target.id + 1);
+            }
+            int copy = target.writePosition;
+            ByteBuffer record = source.buffer.duplicate();
+            record.limit(position + recordBytes).position(position + 12);
+            ByteBuffer destination = target.buffer.duplicate();
+            destination.position(copy + 12);
+            destination.put(record);
+            target.buffer.putInt(copy, source.buffer.getInt(position));
+            target.buffer.putInt(copy + 4, source.buffer.getInt(position + 4));
+            append(target, copy, length);
+            index.put(key, location(target.id, copy));
+          }
+          position += recordBytes;
+        }
+        /**
+         * Force the copies before the source is deleted: only the last segment
+         * is verified when the store is reopened.
+         */
+        target.buffer.force();
+        segments.remove(source.id);
+        source.delete();
+      }
+      active = target;
+      deadBytes = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove all stored images. Statistics are not reset.
+   *
+   * @throws IOException if the segment files cannot be deleted
+   */
+  public void invalidateAll() throws IOException {
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      int id = active.id + 1;
+      for (Segment segment : segments.values()) {
+        segment.delete();
+      }
+      segments.clear();
+      index.clear();
+      liveBytes = 0;
+      deadBytes = 0;
+      active = createSegment(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Force the current segment to disk and close the store. Buffers returned by
+   * the store remain valid.
+   *
+   * @throws IOException if the store cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      active.buffer.force();
+      for (Segment segment : segments.values()) {
+        segment.channel.close();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Get the store directory.
+   *
+   * @return the directory
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Get the maximum total size of all segment files.
+   *
+   * @return the maximum size in bytes
+   */
+  public long getMaximumBytes() {
+    return maximumBytes;
+  }
+
+  /**
+   * Get the size of each segment file.
+   *
+   * @return the segment size in bytes
+   */
+  public int getSegmentBytes() {
+    return segmentBytes;
+  }
+
+  /**
+   * Get the number of stored images.
+   *
+   * @return the number of images
+   */
+  public int getSize() {
+    lock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get the number of segment files.
+   *
+   * @return the number of segments
+   */
+  public int getSegmentCount() {
+    lock.readLock().lock();
+    try {
+      return segments.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get the total size of the stored images, including record headers.
+   *
+   * @return the live size in bytes
+   */
+  public long getLiveBytes() {
+    lock.readLock().lock();
+    try {
+      return liveBytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get the total size of replaced images not yet reclaimed by compaction.
+   *
+   * @return the dead size in bytes
+   */
+  public long getDeadBytes() {
+    lock.readLock().lock();
+    try {
+      return deadBytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get the number of lookups that found a stored image.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Get the number of lookups that did not find a stored image.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Get the number of images evicted with the oldest segment.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    lock.readLock().lock();
+    try {
+      return evictionCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    lock.readLock().lock();
+    try {
+      return "IdenticonStore{" + directory
+             + " size=" + index.size()
+             + " segments=" + segments.size()
+             + " live=" + liveBytes
+             + " dead=" + deadBytes
+             + " hits=" + hitCount.sum()
+             + " misses=" + missCount.sum()
+             + " evictions=" + evictionCount + '}';
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("The store is closed.");
+    }
+  }
+
+  /**
+   * Ensure that the current segment has room for a record, starting a new
+   * segment, and compacting or evicting to stay within the maximum size, if
+   * it does not.
+   *
+   * @param recordBytes the record size in bytes
+   * @throws IOException if the store cannot be written
+   */
+  private void reserve(int recordBytes, List<Integer> evicted) throws IOException {
+    if (active.writePosition + recordBytes <= active.capacity) {
+      return;
+    }
+    active.buffer.force();
+    if (segments.size() >= maximumSegments && deadBytes >= liveBytes) {
+      compact();
+      if (active.writePosition + recordBytes <= active.capacity) {
+        return;
+      }
+    }
+    while (segments.size() >= maximumSegments) {
+      evict(segments.firstEntry().getValue(), evicted);
+    }
+    active = createSegment(active.id + 1);
+  }
+
+  /**
+   * Complete a record whose image, code, size and CRC are written: terminate
+   * the log after it, then commit it by writing its length.
+   */
+  private static void append(Segment segment, int position, int length) {
+    int next = position + RECORD_HEADER_BYTES + length;
+    if (next + RECORD_HEADER_BYTES <= segment.capacity) {
+      segment.buffer.putInt(next + 8, 0);
+    }
+    segment.buffer.putInt(position + 8, length);
+    segment.writePosition = next;
+  }
+
+  /**
+   * Index the records of a segment that is being opened. Records in the last
+   * segment are verified against their CRC and the log is truncated at the
+   * first invalid record.
+   */
+  private void recover(Segment segment, boolean verify) {
+    ByteBuffer buffer = segment.buffer;
+    int position = SEGMENT_HEADER_BYTES;
+    while (position + RECORD_HEADER_BYTES <= segment.capacity) {
+      int imageSize = buffer.getInt(position + 4);
+      int length = buffer.getInt(position + 8);
+      if (length <= 0 || imageSize <= 0 || length > segment.capacity - position - RECORD_HEADER_BYTES) {
+        break;
+      }
+      if (verify) {
+        ByteBuffer image = buffer.duplicate();
+        image.limit(position + RECORD_HEADER_BYTES + length).position(position + RECORD_HEADER_BYTES);
+        crc.reset();
+        crc.update(image);
+        if ((int) crc.getValue() != buffer.getInt(position + 12)) {
+          break;
+        }
+      }
+      index(key(buffer.getInt(position), imageSize), location(segment.id, position), RECORD_HEADER_BYTES + length);
+      position += RECORD_HEADER_BYTES + length;
+    }
+    if (verify && position + RECORD_HEADER_BYTES <= segment.capacity) {
+      buffer.putInt(position + 8, 0);
+    }
+    segment.writePosition = position;
+  }
+
+  /**
+   * Index a record, accounting for any record it replaces.
+   */
+  private void index(long key, long location, int recordBytes) {
+    long previous = index.put(key, location);
+    liveBytes += recordBytes;
+    if (previous != Index.ABSENT) {
+      int previousBytes = recordBytes(previous);
+      liveBytes -= previousBytes;
+      deadBytes += previousBytes;
+    }
+  }
+
+  /**
+   * Remove the oldest segment, evicting the images it holds.
+   *
+   * @param evicted collects the sizes of the evicted images, reported to the
+   *                listener once the lock is released
+   */
+  private void evict(Segment segment, List<Integer> evicted) throws IOException {
+    for (int position = SEGMENT_HEADER_BYTES; position < segment.writePosition;) {
+      int recordBytes = RECORD_HEADER_BYTES + segment.buffer.getInt(position + 8);
+      long key = key(segment.buffer.getInt(position), segment.buffer.getInt(position + 4));
+      if (index.get(key) == location(segment.id, position)) {
+        index.remove(key);
+        liveBytes -= recordBytes;
+        evictionCount++;
+        evicted.add(recordBytes - RECORD_HEADER_BYTES);
+      } else {
+        deadBytes -= recordBytes;
+      }
+      position += recordBytes;
+    }
+    segments.remove(segment.id);
+    segment.delete();
+  }
+
+  private Segment createSegment(int id) throws IOException {
+    Segment segment = Segment.create(directory.resolve(String.format("%010d", id) + SEGMENT_SUFFIX), id, segmentBytes, getVersion());
+    segments.put(id, segment);
+    return segment;
+  }
+
+  private int recordBytes(long location) {
+    return RECORD_HEADER_BYTES + segments.get((int) (location >>> 32)).buffer.getInt((int) location + 8);
+  }
+
+  /**
+   * The version recorded in the segment header: the implementation version
+   * and the renderer version tag, if any.
+   */
+  private byte[] getVersion() {
+    String version = versionTag.isEmpty() ? Identicon.VERSION : Identicon.VERSION + "-" + versionTag;
+    return version.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The index key of an image; never zero as the size is positive.
+   */
+  private static long key(int code, int imageSize) {
+    return (long) code << 32 | (imageSize & 0xffffffffL);
+  }
+
+  /**
+   * The location of a record: its segment identifier and offset.
+   */
+  private static long location(int id, int position) {
+    return (long) id << 32 | position;
+  }
+
+  /**
+   * A memory-mapped segment file.
+   */
+  private static final class Segment {
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    /**
+     * The offset of the next record.
+     */
+    private int writePosition;
+
+    private Segment(int id, Path path, FileChannel channel, int capacity) throws IOException {
+      this.id = id;
+      this.path = path;
+      this.channel = channel;
+      this.capacity = capacity;
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      this.writePosition = SEGMENT_HEADER_BYTES;
+    }
+
+    /**
+     * Create and map a new, empty segment file.
+     */
+    static Segment create(Path path, int id, int capacity, byte[] version) throws IOException {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        Segment segment = new Segment(id, path, channel, capacity);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, FORMAT);
+        segment.buffer.putInt(8, version.length);
+        for (int i = 0; i < version.length; i++) {
+          segment.buffer.put(12 + i, version[i]);
+        }
+        return segment;
+      } catch (IOException | RuntimeException exception) {
+        channel.close();
+        throw exception;
+      }
+    }
+
+    /**
+     * Map an existing segment file.
+     *
+     * @return the segment, or null if the file is not a segment of this
+     *         format and version
+     */
+    static Segment open(Path path, int id, byte[] version) throws IOException {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        long size = channel.size();
+        if (size >= SEGMENT_HEADER_BYTES && size <= Integer.MAX_VALUE) {
+          Segment segment = new Segment(id, path, channel, (int) size);
+          if (segment.isVersion(version)) {
+            return segment;
+          }
+        }
+        channel.close();
+        return null;
+      } catch (IOException | RuntimeException exception) {
+        channel.close();
+        throw exception;
+      }
+    }
+
+    private boolean isVersion(byte[] version) {
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT || buffer.getInt(8) != version.length) {
+        return false;
+      }
+      for (int i = 0; i < version.length; i++) {
+        if (buffer.get(12 + i) != version[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Close and delete the segment file. The mapping, and any slices of it,
+     * remain valid until they are no longer referenced.
+     */
+    void delete() throws IOException {
+      channel.close();
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException exception) {
+        /**
+         * Some platforms cannot delete a mapped file. It is evicted when the
+         * store is next opened.
+         */
+        path.toFile().deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * An open-addressing (linear probing) hash table from non-zero long keys to
+   * long values, held in a direct buffer of 16 bytes per slot.
+   */
+  private static final class Index {
+
+    static final long ABSENT = -1;
+    private static final int SLOT_BYTES = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    Index(int capacity) {
+      allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+      table = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+      mask = capacity - 1;
+    }
+
+    private int slot(long key) {
+      long hash = key * 0x9e3779b97f4a7c15L;
+      return (int) (hash ^ hash >>> 32) & mask;
+    }
+
+    int size() {
+      return size;
+    }
+
+    long get(long key) {
+      for (int i = slot(key);; i = i + 1 & mask) {
+        long k = table.getLong(i * SLOT_BYTES);
+        if (k == key) {
+          return table.getLong(i * SLOT_BYTES + 8);
+        } else if (k == 0) {
+          return ABSENT;
+        }
+      }
+    }
+
+    /**
+     * @return the previous value, or ABSENT
+     */
+    long put(long key, long value) {
+      int i = slot(key);
+      for (;; i = i + 1 & mask) {
+        long k = table.getLong(i * SLOT_BYTES);
+        if (k == key) {
+          long previous = table.getLong(i * SLOT_BYTES + 8);
+          table.putLong(i * SLOT_BYTES + 8, value);
+          return previous;
+        } else if (k == 0) {
+          break;
+        }
+      }
+      table.putLong(i * SLOT_BYTES, key);
+      table.putLong(i * SLOT_BYTES + 8, value);
+      if (++size > (mask + 1) / 4 * 3) {
+        resize();
+      }
+      return ABSENT;
+    }
+
+    /**
+     * Remove a key, shifting later entries of its probe sequence back so that
+     * no tombstones are needed.
+     */
+    void remove(long key) {
+      int i = slot(key);
+      for (;; i = i + 1 & mask) {
+        long k = table.getLong(i * SLOT_BYTES);
+        if (k == key) {
+          break;
+        } else if (k == 0) {
+          return;
+        }
+      }
+      for (int j = i + 1 & mask;; j = j + 1 & mask) {
+        long k = table.getLong(j * SLOT_BYTES);
+        if (k == 0) {
+          break;
+        }
+        int home = slot(k);
+        if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+          table.putLong(i * SLOT_BYTES, k);
+          table.putLong(i * SLOT_BYTES + 8, table.getLong(j * SLOT_BYTES + 8));
+          i = j;
+        }
+      }
+      table.putLong(i * SLOT_BYTES, 0);
+      size--;
+    }
+
+    void clear() {
+      for (int i = 0; i <= mask; i++) {
+        table.putLong(i * SLOT_BYTES, 0);
+      }
+      size = 0;
+    }
+
+    private void resize() {
+      if (mask + 1 >= MAXIMUM_CAPACITY) {
+        throw new IllegalStateException("The store index is full.");
+      }
+      ByteBuffer old = table;
+      int oldCapacity = mask + 1;
+      allocate(oldCapacity * 2);
+      size = 0;
+      for (int i = 0; i < oldCapacity; i++) {
+        long k = old.getLong(i * SLOT_BYTES);
+        if (k != 0) {
+          put(k, old.getLong(i * SLOT_BYTES + 8));
+        }
+      }
+    }
+  }
+}
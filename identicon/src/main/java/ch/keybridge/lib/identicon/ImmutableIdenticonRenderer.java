@@ -0,0 +1,331 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable, thread safe 9-block Identicon renderer.
+ * <p>
+ * Renderers are configured with a {@link Builder} and cannot be changed once
+ * built. A single instance may be shared by any number of threads, so the
+ * patch shapes are built once rather than for each image. The output is
+ * identical to a {@link NineBlockIdenticonRenderer} with the same
+ * configuration.
+ * <p>
+ * Example:
+ * <pre>
+ * IdenticonRenderer renderer = ImmutableIdenticonRenderer.builder()
+ *   .backgroundColor(Color.BLACK)
+ *   .quality(RenderQuality.FAST)
+ *   .build();
+ * </pre>
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public final class ImmutableIdenticonRenderer implements IdenticonRenderer {
+
+  /**
+   * The default patch size in pixels.
+   */
+  public static final double DEFAULT_PATCH_SIZE = 20.0;
+
+  /**
+   * The configured renderer. It is never exposed, and so never modified after
+   * construction.
+   */
+  private final NineBlockIdenticonRenderer renderer;
+  /**
+   * The configuration key.
+   */
+  private final List<Object> key;
+
+  /**
+   * Private constructor. Use {@code builder()}.
+   *
+   * @param builder the configuration
+   */
+  private ImmutableIdenticonRenderer(Builder builder) {
+    this.renderer = (NineBlockIdenticonRenderer) NineBlockIdenticonRenderer.getInstance();
+    this.renderer.setPatchSize(builder.patchSize);
+    this.renderer.setBackgroundColor(builder.backgroundColor);
+    this.renderer.setFillColor(builder.fillColor);
+    this.renderer.setStrokeColor(builder.strokeColor);
+    this.renderer.setQuality(builder.quality);
+    this.key = builder.getKey();
+  }
+
+  /**
+   * Get a new builder with the default configuration.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Get a new builder initialized with this renderer's configuration.
+   *
+   * @return a new builder
+   */
+  public Builder toBuilder() {
+    return new Builder()
+      .patchSize(getPatchSize())
+      .backgroundColor(getBackgroundColor())
+      .fillColor(getFillColor())
+      .strokeColor(getStrokeColor())
+      .quality(getQuality());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(Integer hashCode, int imageSize) {
+    return render(hashCode.intValue(), imageSize);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(int hashCode, int imageSize) {
+    return renderer.render(hashCode, imageSize);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage[] render(int hashCode, int[] imageSizes) {
+    return renderer.render(hashCode, imageSizes);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void render(int hashCode, int imageSize, int[] pixels, int offset, int scanlineStride, PixelLayout layout) {
+    renderer.render(hashCode, imageSize, pixels, offset, scanlineStride, layout);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void render(int hashCode, int imageSize, IntBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    renderer.render(hashCode, imageSize, pixels, offset, scanlineStride, layout);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void render(int hashCode, int imageSize, ByteBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    renderer.render(hashCode, imageSize, pixels, offset, scanlineStride, layout);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(int hashCode, int imageSize, OutputStream out) throws IOException {
+    renderer.write(hashCode, imageSize, out);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getVersionTag() {
+    return renderer.getVersionTag();
+  }
+
+  /**
+   * Get the patch size.
+   *
+   * @return the patch size in pixels
+   */
+  public double getPatchSize() {
+    return renderer.getPatchSize();
+  }
+
+  /**
+   * Get the background color.
+   *
+   * @return the background color.
+   */
+  public Color getBackgroundColor() {
+    return renderer.getBackgroundColor();
+  }
+
+  /**
+   * Get the patch fill color.
+   *
+   * @return the fill color, or null if derived from the code
+   */
+  public Color getFillColor() {
+    return renderer.getFillColor();
+  }
+
+  /**
+   * Get the patch outline color.
+   *
+   * @return the outline color, or null if the complement of the fill color
+   */
+  public Color getStrokeColor() {
+    return renderer.getStrokeColor();
+  }
+
+  /**
+   * Get the rendering quality.
+   *
+   * @return the rendering quality
+   */
+  public RenderQuality getQuality() {
+    return renderer.getQuality();
+  }
+
+  @Override
+  public int hashCode() {
+    return key.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof ImmutableIdenticonRenderer && key.equals(((ImmutableIdenticonRenderer) obj).key);
+  }
+
+  @Override
+  public String toString() {
+    return "ImmutableIdenticonRenderer{" + key + "}";
+  }
+
+  /**
+   * Builds {@link ImmutableIdenticonRenderer} instances. Builders are not
+   * thread safe.
+   */
+  public static final class Builder {
+
+    private double patchSize = DEFAULT_PATCH_SIZE;
+    private Color backgroundColor = Color.WHITE;
+    private Color fillColor;
+    private Color strokeColor;
+    private RenderQuality quality = RenderQuality.DEFAULT;
+
+    private Builder() {
+    }
+
+    /**
+     * Set the size in pixels at which each patch is drawn before it is scaled
+     * to the image size. This determines the outline width. Default is 20.
+     *
+     * @param patchSize the patch size in pixels
+     * @return this builder
+     */
+    public Builder patchSize(double patchSize) {
+      if (!(patchSize > 0)) {
+        throw new IllegalArgumentException("Patch size must be positive.");
+      }
+      this.patchSize = patchSize;
+      return this;
+    }
+
+    /**
+     * Set the background color. Default is white.
+     *
+     * @param backgroundColor the background color
+     * @return this builder
+     */
+    public Builder backgroundColor(Color backgroundColor) {
+      this.backgroundColor = Objects.requireNonNull(backgroundColor, "Background color is required.");
+      return this;
+    }
+
+    /**
+     * Set a fixed patch fill color. Default is null, which derives the fill
+     * color from each code.
+     *
+     * @param fillColor the fill color, or null
+     * @return this builder
+     */
+    public Builder fillColor(Color fillColor) {
+      this.fillColor = fillColor;
+      return this;
+    }
+
+    /**
+     * Set the color used to outline patches when the fill color is too close
+     * to the background color. Default is null, which uses the complement of
+     * the fill color.
+     *
+     * @param strokeColor the outline color, or null
+     * @return this builder
+     */
+    public Builder strokeColor(Color strokeColor) {
+      this.strokeColor = strokeColor;
+      return this;
+    }
+
+    /**
+     * Set the rendering quality. Default is {@link RenderQuality#DEFAULT}.
+     *
+     * @param quality the rendering quality
+     * @return this builder
+     */
+    public Builder quality(RenderQuality quality) {
+      this.quality = Objects.requireNonNull(quality, "Quality is required.");
+      return this;
+    }
+
+    /**
+     * Build a renderer with the current configuration.
+     *
+     * @return a new renderer
+     */
+    public ImmutableIdenticonRenderer build() {
+      return new ImmutableIdenticonRenderer(this);
+    }
+
+    /**
+     * Get a value identifying the current configuration. Builders with equal
+     * keys build equal renderers.
+     *
+     * @return the configuration key
+     */
+    List<Object> getKey() {
+      return Arrays.asList(patchSize, backgroundColor, fillColor, strokeColor, quality);
+    }
+  }
+}
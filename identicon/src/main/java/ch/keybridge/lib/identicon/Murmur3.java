@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The 32-bit MurmurHash3 (x86_32) non-cryptographic hash function.
+ * <p>
+ * Inputs are read in place; nothing is copied or allocated. Character
+ * sequences are hashed as their UTF-8 encoding, so a string and its UTF-8
+ * bytes have the same hash.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+final class Murmur3 {
+
+  private static final int C1 = 0xcc9e2d51;
+  private static final int C2 = 0x1b873593;
+
+  private Murmur3() {
+  }
+
+  /**
+   * Hash a range of bytes.
+   *
+   * @param data   the bytes
+   * @param offset the index of the first byte
+   * @param length the number of bytes
+   * @param seed   the seed
+   * @return the hash
+   */
+  static int hash(byte[] data, int offset, int length, int seed) {
+    int h = seed;
+    int end = offset + (length & ~3);
+    for (int i = offset; i < end; i += 4) {
+      int k = (data[i] & 0xff)
+        | (data[i + 1] & 0xff) << 8
+        | (data[i + 2] & 0xff) << 16
+        | (data[i + 3] & 0xff) << 24;
+      h = mixH(h, mixK(k));
+    }
+    int k = 0;
+    switch (length & 3) {
+      case 3:
+        k ^= (data[end + 2] & 0xff) << 16;
+      case 2:
+        k ^= (data[end + 1] & 0xff) << 8;
+      case 1:
+        k ^= data[end] & 0xff;
+        h ^= mixK(k);
+      default:
+    }
+    return fmix(h, length);
+  }
+
+  /**
+   * Hash the remaining bytes of a buffer. The buffer position is not changed.
+   *
+   * @param buffer the buffer
+   * @param seed   the seed
+   * @return the hash
+   */
+  static int hash(ByteBuffer buffer, int seed) {
+    if (buffer.hasArray()) {
+      return hash(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), seed);
+    }
+    int h = seed;
+    int position = buffer.position();
+    int length = buffer.remaining();
+    int end = position + (length & ~3);
+    for (int i = position; i < end; i += 4) {
+      int k = (buffer.get(i) & 0xff)
+        | (buffer.get(i + 1) & 0xff) << 8
+        | (buffer.get(i + 2) & 0xff) << 16
+        | (buffer.get(i + 3) & 0xff) << 24;
+      h = mixH(h, mixK(k));
+    }
+    int k = 0;
+    switch (length & 3) {
+      case 3:
+        k ^= (buffer.get(end + 2) & 0xff) << 16;
+      case 2:
+        k ^= (buffer.get(end + 1) & 0xff) << 8;
+      case 1:
+        k ^= buffer.get(end) & 0xff;
+        h ^= mixK(k);
+      default:
+    }
+    return fmix(h, length);
+  }
+
+  /**
+   * Hash the UTF-8 encoding of a character sequence. Unpaired surrogates are
+   * encoded as '?', as by {@code String.getBytes}.
+   *
+   * @param chars the characters
+   * @param seed  the seed
+   * @return the hash
+   */
+  static int hash(CharSequence chars, int seed) {
+    int h = seed;
+    /**
+     * The pending bytes of the current 4-byte block, and their count.
+     */
+    int k = 0;
+    int shift = 0;
+    int length = 0;
+    int count = chars.length();
+    for (int i = 0; i < count; i++) {
+      int c = chars.charAt(i);
+      int bytes;
+      int utf8;
+      if (c < 0x80) {
+        utf8 = c;
+        bytes = 1;
+      } else if (c < 0x800) {
+        utf8 = (0xc0 | c >> 6) | (0x80 | c & 0x3f) << 8;
+        bytes = 2;
+      } else if (Character.isSurrogate((char) c)) {
+        if (Character.isHighSurrogate((char) c) && i + 1 < count && Character.isLowSurrogate(chars.charAt(i + 1))) {
+          int cp = Character.toCodePoint((char) c, chars.charAt(++i));
+          utf8 = (0xf0 | cp >> 18)
+            | (0x80 | cp >> 12 & 0x3f) << 8
+            | (0x80 | cp >> 6 & 0x3f) << 16
+            | (0x80 | cp & 0x3f) << 24;
+          bytes = 4;
+        } else {
+          utf8 = '?';
+          bytes = 1;
+        }
+      } else {
+        utf8 = (0xe0 | c >> 12) | (0x80 | c >> 6 & 0x3f) << 8 | (0x80 | c & 0x3f) << 16;
+        bytes = 3;
+      }
+      length += bytes;
+      /**
+       * Append the encoded bytes to the block, mixing each full block.
+       */
+      k |= utf8 << shift;
+      shift += 8 * bytes;
+      if (shift >= 32) {
+        h = mixH(h, mixK(k));
+        shift -= 32;
+        k = shift == 0 ? 0 : utf8 >>> (8 * bytes - shift);
+      }
+    }
+    if (shift > 0) {
+      h ^= mixK(k);
+    }
+    return fmix(h, length);
+  }
+
+  /**
+   * Hash a single int, as its 4 little-endian bytes.
+   *
+   * @param value the value
+   * @param seed  the seed
+   * @return the hash
+   */
+  static int hash(int value, int seed) {
+    return fmix(mixH(seed, mixK(value)), 4);
+  }
+
+  private static int mixK(int k) {
+    k *= C1;
+    k = Integer.rotateLeft(k, 15);
+    return k * C2;
+  }
+
+  private static int mixH(int h, int k) {
+    h ^= k;
+    h = Integer.rotateLeft(h, 13);
+    return h * 5 + 0xe6546b64;
+  }
+
+  private static int fmix(int h, int length) {
+    h ^= length;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+}
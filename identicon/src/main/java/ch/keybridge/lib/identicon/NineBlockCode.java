@@ -0,0 +1,278 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2007-2014 Don Park <donpark@docuverse.com>
+ * Contributor   2014-2014 Paulo Miguel Almeida Rodenas <paulo.ubuntu@gmail.com>
+ * Contributor & Copyright  2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+/**
+ * A 9-block Identicon code decoded into its patch and color choices.
+ * <p>
+ * This holds the patch geometry tables and the code decoding shared by all
+ * 9-block renderers so that each produces the same shapes and colors for a
+ * given code. Blocks are numbered in drawing order: the middle patch, the
+ * side patches starting from the top and moving clock-wise, then the corner
+ * patches starting from the top left and moving clock-wise.
+ * <pre>
+ * 5 1 6
+ * 4 0 2
+ * 8 3 7
+ * </pre>
+ *
+ * @author Don Park donpark@docuverse.com
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+final class NineBlockCode {
+
+  /*
+   * Each patch is a polygon created from a list of vertices on a 5 by 5 grid.
+   * Vertices are numbered from 0 to 24, starting from top-left corner of the
+   * grid, moving left to right and top to bottom.
+   */
+  static final int PATCH_GRIDS = 5;
+  static final byte PATCH_SYMMETRIC = 1;
+  static final byte PATCH_INVERTED = 2;
+  static final int PATCH_MOVETO = -1;
+  private static final byte[] PATCH0 = {0, 4, 24, 20};
+  private static final byte[] PATCH1 = {0, 4, 20};
+  private static final byte[] PATCH2 = {2, 24, 20};
+  private static final byte[] PATCH3 = {0, 2, 20, 22};
+  private static final byte[] PATCH4 = {2, 14, 22, 10};
+  private static final byte[] PATCH5 = {0, 14, 24, 22};
+  private static final byte[] PATCH6 = {2, 24, 22, 13, 11, 22, 20};
+  private static final byte[] PATCH7 = {0, 14, 22};
+  private static final byte[] PATCH8 = {6, 8, 18, 16};
+  private static final byte[] PATCH9 = {4, 20, 10, 12, 2};
+  private static final byte[] PATCH10 = {0, 2, 12, 10};
+  private static final byte[] PATCH11 = {10, 14, 22};
+  private static final byte[] PATCH12 = {20, 12, 24};
+  private static final byte[] PATCH13 = {10, 2, 12};
+  private static final byte[] PATCH14 = {0, 2, 10};
+  /**
+   * A circular array of patches.
+   */
+  static final byte[] PATCH_TYPES[] = {PATCH0, PATCH1, PATCH2, PATCH3, PATCH4,
+                                       PATCH5, PATCH6, PATCH7, PATCH8, PATCH9,
+                                       PATCH10, PATCH11, PATCH12, PATCH13, PATCH14,
+                                       PATCH0};
+  /**
+   * Set of flags used to determine inversion status.
+   */
+  static final byte PATCH_FLAGS[] = {PATCH_SYMMETRIC, 0, 0, 0,
+                                     PATCH_SYMMETRIC, 0, 0, 0,
+                                     PATCH_SYMMETRIC, 0, 0, 0, 0, 0, 0,
+                                     PATCH_SYMMETRIC + PATCH_INVERTED};
+  /**
+   * Sequence to identify the center patch type.
+   */
+  static final int CENTER_PATCH_TYPES[] = {0, 4, 8, 15};
+  /**
+   * The number of blocks in the quilt.
+   */
+  static final int BLOCKS = 9;
+  /**
+   * The block column (0, 1 or 2) of each block, in drawing order.
+   */
+  static final int[] BLOCK_COLUMN = {1, 1, 2, 1, 0, 0, 2, 2, 0};
+  /**
+   * The block row (0, 1 or 2) of each block, in drawing order.
+   */
+  static final int[] BLOCK_ROW = {1, 0, 1, 2, 1, 0, 0, 2, 2};
+  /**
+   * Fill and background colors closer than this distance are outlined.
+   */
+  private static final double STROKE_COLOR_DISTANCE = 32.0;
+
+  /**
+   * The patch type of each block (an index into PATCH_TYPES).
+   */
+  private final int[] patch = new int[BLOCKS];
+  /**
+   * The number of quarter turns clockwise of each block (0 to 3).
+   */
+  private final int[] turn = new int[BLOCKS];
+  /**
+   * Whether each block is inverted, including the patch inversion flag.
+   */
+  private final boolean[] invert = new boolean[BLOCKS];
+  /**
+   * The fill color as 0xRRGGBB.
+   */
+  private final int fillColor;
+
+  /**
+   * Decode an Identicon code.
+   * <pre>
+   * decode the code into parts
+   * bit 0-1: middle patch type
+   * bit 2: middle invert
+   * bit 3-6: corner patch type
+   * bit 7: corner invert
+   * bit 8-9: corner turns
+   * bit 10-13: side patch type
+   * bit 14: side invert
+   * bit 15: corner turns
+   * bit 16-20: blue color component
+   * bit 21-26: green color component
+   * bit 27-31: red color component
+   * </pre>
+   *
+   * @param code the Identicon hash code
+   */
+  NineBlockCode(int code) {
+    int middleType = CENTER_PATCH_TYPES[code & 0x3];
+    boolean middleInvert = ((code >> 2) & 0x1) != 0;
+    int cornerType = (code >> 3) & 0x0f;
+    boolean cornerInvert = ((code >> 7) & 0x1) != 0;
+    int cornerTurn = (code >> 8) & 0x3;
+    int sideType = (code >> 10) & 0x0f;
+    boolean sideInvert = ((code >> 14) & 0x1) != 0;
+    int sideTurn = (code >> 15) & 0x3;
+    this.fillColor = getFillColor(code);
+    setBlock(0, middleType, 0, middleInvert);
+    for (int i = 0; i < 4; i++) {
+      setBlock(1 + i, sideType, sideTurn + i, sideInvert);
+      setBlock(5 + i, cornerType, cornerTurn + i, cornerInvert);
+    }
+  }
+
+  /**
+   * Get the fill color encoded in the upper 16 bits of a code.
+   *
+   * @param code the Identicon hash code
+   * @return the fill color as 0xRRGGBB
+   */
+  static int getFillColor(int code) {
+    int blue = (code >> 16) & 0x01f;
+    int green = (code >> 21) & 0x01f;
+    int red = (code >> 27) & 0x01f;
+    /**
+     * color components are used at top of the range for color difference.
+     */
+    return (red << 19) | (green << 11) | (blue << 3);
+  }
+
+  /**
+   * Internal method to normalize the patch, turn and inversion of a block.
+   */
+  private void setBlock(int block, int patchType, int turns, boolean inverted) {
+    patchType %= PATCH_TYPES.length;
+    this.patch[block] = patchType;
+    this.turn[block] = turns % 4;
+    this.invert[block] = (PATCH_FLAGS[patchType] & PATCH_INVERTED) != 0 ? !inverted : inverted;
+  }
+
+  /**
+   * Get the patch type of a block.
+   *
+   * @param block the block number (0 to 8)
+   * @return the index into {@link #PATCH_TYPES}
+   */
+  int getPatch(int block) {
+    return patch[block];
+  }
+
+  /**
+   * Get the rotation of a block.
+   *
+   * @param block the block number (0 to 8)
+   * @return the number of quarter turns clockwise (0 to 3)
+   */
+  int getTurn(int block) {
+    return turn[block];
+  }
+
+  /**
+   * Determine if a block is inverted; i.e. whether the block background is
+   * painted with the fill color and the patch with the background color.
+   *
+   * @param block the block number (0 to 8)
+   * @return true if inverted
+   */
+  boolean isInvert(int block) {
+    return invert[block];
+  }
+
+  /**
+   * Get the fill color.
+   *
+   * @return the fill color as 0xRRGGBB
+   */
+  int getFillColor() {
+    return fillColor;
+  }
+
+  /**
+   * Get the color used to outline the patches against the given background.
+   * <p>
+   * Shapes are outlined with a noticeable color (complementary will do) if
+   * shape color and background color are too similar (measured by color
+   * distance).
+   *
+   * @param backgroundColor the background color as 0xRRGGBB
+   * @return the stroke color as 0xRRGGBB, or -1 if no outline is drawn
+   */
+  int getStrokeColor(int backgroundColor) {
+    return getStrokeColor(fillColor, backgroundColor);
+  }
+
+  /**
+   * Get the color used to outline patches of a fill color against a
+   * background color.
+   *
+   * @param fillColor       the fill color as 0xRRGGBB
+   * @param backgroundColor the background color as 0xRRGGBB
+   * @return the stroke color as 0xRRGGBB, or -1 if no outline is drawn
+   */
+  static int getStrokeColor(int fillColor, int backgroundColor) {
+    if (getColorDistance(fillColor, backgroundColor) < STROKE_COLOR_DISTANCE) {
+      return getComplementaryColor(fillColor);
+    }
+    return -1;
+  }
+
+  /**
+   * Calculate the distance between two colors.
+   *
+   * @param c1 the first color as 0xRRGGBB
+   * @param c2 the second color as 0xRRGGBB
+   * @return the distance
+   */
+  static double getColorDistance(int c1, int c2) {
+    double dx = ((c1 >> 16) & 0xff) - ((c2 >> 16) & 0xff);
+    double dy = ((c1 >> 8) & 0xff) - ((c2 >> 8) & 0xff);
+    double dz = (c1 & 0xff) - (c2 & 0xff);
+    return Math.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+
+  /**
+   * Calculate a complementary color.
+   *
+   * @param color the input color as 0xRRGGBB
+   * @return a complementary color as 0xRRGGBB
+   */
+  static int getComplementaryColor(int color) {
+    return (color ^ 0x00FFFFFF) & 0x00FFFFFF;
+  }
+}
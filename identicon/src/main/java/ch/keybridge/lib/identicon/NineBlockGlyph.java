@@ -0,0 +1,371 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ch.keybridge.lib.identicon.NineBlockCode.*;
+
+/**
+ * A colorless, pre-rasterized 9-block Identicon shape.
+ * <p>
+ * The geometry of a 9-block Identicon is selected by the low 17 bits of the
+ * code (the side turn uses bits 15 and 16) while the color is selected by the
+ * high bits. A glyph records, for one shape at one size, how every pixel of
+ * the Java2D rendering is composed from the three colors involved: the
+ * background, the fill and the optional outline.
+ * <p>
+ * Each layer that {@link NineBlockIdenticonRenderer} paints (block
+ * background, outline, patch) is rendered once by Java2D on its own to capture
+ * its antialiasing coverage. Each pixel is then described by a recipe: the
+ * last color that covered it completely followed by the sequence of partial
+ * coverage blends painted over it. Recipes are interned in a tree so that
+ * identical recipes share a palette entry. Coloring a glyph evaluates each
+ * recipe once with the Java2D 8-bit blend arithmetic and then maps every pixel
+ * through the resulting palette, reproducing the Java2D output exactly.
+ * <p>
+ * Instances are immutable and thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+final class NineBlockGlyph {
+
+  /**
+   * Recipe color roles. These are also the recipe tree root nodes.
+   */
+  static final int ROLE_BACKGROUND = 0;
+  static final int ROLE_FILL = 1;
+  static final int ROLE_STROKE = 2;
+  /**
+   * The maximum number of distinct recipes a glyph may hold.
+   */
+  private static final int MAXIMUM_RECIPES = 1 << 16;
+
+  /**
+   * The image horizontal and vertical size in pixels.
+   */
+  private final int size;
+  /**
+   * The recipe tree, in creation order so that parents precede children.
+   * Root nodes have no parent (-1).
+   */
+  private final int[] parent;
+  private final byte[] role;
+  private final byte[] alpha;
+  /**
+   * The recipe tree node of each palette entry.
+   */
+  private final int[] paletteNode;
+  /**
+   * The palette index of each pixel. One of these is set, depending upon the
+   * palette size.
+   */
+  private final byte[] byteIndex;
+  private final char[] charIndex;
+
+  private NineBlockGlyph(int size, int[] parent, byte[] role, byte[] alpha, int[] paletteNode, byte[] byteIndex, char[] charIndex) {
+    this.size = size;
+    this.parent = parent;
+    this.role = role;
+    this.alpha = alpha;
+    this.paletteNode = paletteNode;
+    this.byteIndex = byteIndex;
+    this.charIndex = charIndex;
+  }
+
+  /**
+   * Capture a glyph from the Java2D renderer.
+   *
+   * @param renderer  the Java2D renderer whose output is to be reproduced
+   * @param shapeKey  the Identicon code geometry bits
+   * @param imageSize the horizontal and vertical image size
+   * @param outline   true if the patches are outlined
+   * @return the glyph, or null if the shape has too many distinct pixel
+   *         recipes to be represented
+   */
+  static NineBlockGlyph capture(NineBlockIdenticonRenderer renderer, int shapeKey, int imageSize, boolean outline) {
+    NineBlockCode code = new NineBlockCode(shapeKey);
+    BufferedImage scratch = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
+    int[] coverage = ((DataBufferInt) scratch.getRaster().getDataBuffer()).getData();
+    Graphics2D g = scratch.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    g.setBackground(Color.BLACK);
+    g.setColor(Color.WHITE);
+    Recipes recipes = new Recipes();
+    int[] node = new int[imageSize * imageSize];
+    double blockSize = imageSize / 3.0f;
+    int margin = (int) Math.ceil(blockSize / renderer.getPatchSize() * 5) + 2;
+    for (int block = 0; block < BLOCKS; block++) {
+      double x = blockSize * BLOCK_COLUMN[block];
+      double y = blockSize * BLOCK_ROW[block];
+      boolean invert = code.isInvert(block);
+      Shape shape = renderer.getPatchShape(code.getPatch(block));
+      /**
+       * Block background.
+       */
+      int[] region = region(x, y, blockSize, 1, imageSize);
+      g.clearRect(region[0], region[1], region[2] - region[0], region[3] - region[1]);
+      renderer.fillBlock(g, x, y, blockSize);
+      recipes.apply(coverage, node, imageSize, region, invert ? ROLE_FILL : ROLE_BACKGROUND);
+      /**
+       * Outline.
+       */
+      if (outline) {
+        region = region(x, y, blockSize, margin, imageSize);
+        g.clearRect(region[0], region[1], region[2] - region[0], region[3] - region[1]);
+        AffineTransform savet = renderer.transformPatch(g, x, y, blockSize, code.getTurn(block));
+        g.draw(shape);
+        g.setTransform(savet);
+        recipes.apply(coverage, node, imageSize, region, ROLE_STROKE);
+      }
+      /**
+       * Patch.
+       */
+      region = region(x, y, blockSize, 1, imageSize);
+      g.clearRect(region[0], region[1], region[2] - region[0], region[3] - region[1]);
+      AffineTransform savet = renderer.transformPatch(g, x, y, blockSize, code.getTurn(block));
+      g.fill(shape);
+      g.setTransform(savet);
+      recipes.apply(coverage, node, imageSize, region, invert ? ROLE_BACKGROUND : ROLE_FILL);
+    }
+    g.dispose();
+    /**
+     * Number the recipes in use as palette entries.
+     */
+    int[] paletteIndex = new int[recipes.count];
+    Arrays.fill(paletteIndex, -1);
+    int paletteSize = 0;
+    int[] paletteNode = new int[Math.min(recipes.count, MAXIMUM_RECIPES + 1)];
+    for (int n : node) {
+      if (paletteIndex[n] < 0) {
+        if (paletteSize == MAXIMUM_RECIPES) {
+          return null;
+        }
+        paletteNode[paletteSize] = n;
+        paletteIndex[n] = paletteSize++;
+      }
+    }
+    byte[] byteIndex = null;
+    char[] charIndex = null;
+    if (paletteSize <= 256) {
+      byteIndex = new byte[node.length];
+      for (int i = 0; i < node.length; i++) {
+        byteIndex[i] = (byte) paletteIndex[node[i]];
+      }
+    } else {
+      charIndex = new char[node.length];
+      for (int i = 0; i < node.length; i++) {
+        charIndex[i] = (char) paletteIndex[node[i]];
+      }
+    }
+    return new NineBlockGlyph(imageSize,
+                              Arrays.copyOf(recipes.parent, recipes.count),
+                              Arrays.copyOf(recipes.role, recipes.count),
+                              Arrays.copyOf(recipes.alpha, recipes.count),
+                              Arrays.copyOf(paletteNode, paletteSize),
+                              byteIndex,
+                              charIndex);
+  }
+
+  /**
+   * Internal method to get the pixel region [x0, y0, x1, y1] of a block,
+   * expanded by a margin and clipped to the image.
+   */
+  private static int[] region(double x, double y, double blockSize, int margin, int imageSize) {
+    return new int[]{Math.max(0, (int) Math.floor(x) - margin),
+                     Math.max(0, (int) Math.floor(y) - margin),
+                     Math.min(imageSize, (int) Math.ceil(x + blockSize) + margin),
+                     Math.min(imageSize, (int) Math.ceil(y + blockSize) + margin)};
+  }
+
+  /**
+   * Get the image size.
+   *
+   * @return the horizontal and vertical image size in pixels
+   */
+  int getSize() {
+    return size;
+  }
+
+  /**
+   * Get the number of palette entries.
+   *
+   * @return the palette size
+   */
+  int getPaletteSize() {
+    return paletteNode.length;
+  }
+
+  /**
+   * Estimate the memory used by this glyph.
+   *
+   * @return the approximate size in bytes
+   */
+  long getWeight() {
+    long indices = byteIndex != null ? byteIndex.length : 2L * charIndex.length;
+    return indices + 6L * parent.length + 4L * paletteNode.length + 64;
+  }
+
+  /**
+   * Compute the palette for the given colors.
+   *
+   * @param backgroundColor the background color as 0xRRGGBB
+   * @param fillColor       the fill color as 0xRRGGBB
+   * @param strokeColor     the outline color as 0xRRGGBB (ignored if the
+   *                        glyph has no outline)
+   * @return the opaque 0xAARRGGBB color of each palette entry
+   */
+  int[] getPalette(int backgroundColor, int fillColor, int strokeColor) {
+    int[] roleColor = {backgroundColor & 0xffffff, fillColor & 0xffffff, strokeColor & 0xffffff};
+    int[] color = new int[parent.length];
+    for (int n = 0; n < parent.length; n++) {
+      int c = roleColor[role[n]];
+      color[n] = parent[n] < 0
+                 ? 0xff000000 | c
+                 : NineBlockRasterizer.blend(c, color[parent[n]], alpha[n] & 0xff);
+    }
+    int[] palette = new int[paletteNode.length];
+    for (int i = 0; i < palette.length; i++) {
+      palette[i] = color[paletteNode[i]];
+    }
+    return palette;
+  }
+
+  /**
+   * Write the colored glyph pixels.
+   *
+   * @param palette the palette from {@link #getPalette(int, int, int)}
+   * @param pixels  the destination 0xAARRGGBB pixels, size x size
+   */
+  void getPixels(int[] palette, int[] pixels) {
+    getPixels(palette, 0, size * size, pixels);
+  }
+
+  /**
+   * Write a range of the colored glyph pixels.
+   *
+   * @param palette the palette from {@link #getPalette(int, int, int)}
+   * @param offset  the index of the first pixel, in row order
+   * @param length  the number of pixels
+   * @param pixels  the destination 0xAARRGGBB pixels, starting at index 0
+   */
+  void getPixels(int[] palette, int offset, int length, int[] pixels) {
+    if (byteIndex != null) {
+      for (int i = 0; i < length; i++) {
+        pixels[i] = palette[byteIndex[offset + i] & 0xff];
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        pixels[i] = palette[charIndex[offset + i]];
+      }
+    }
+  }
+
+  /**
+   * Get a copy of the pixel palette indices, if the palette has no more than
+   * 256 entries.
+   *
+   * @return the palette index of each pixel, or null if the palette is larger
+   *         than 256 entries
+   */
+  byte[] getIndices() {
+    return byteIndex == null ? null : byteIndex.clone();
+  }
+
+  /**
+   * The recipe tree under construction.
+   */
+  private static final class Recipes {
+
+    /**
+     * Child node lookup by (parent node, role, alpha).
+     */
+    private final Map<Long, Integer> children = new HashMap<>();
+    private int[] parent = new int[64];
+    private byte[] role = new byte[64];
+    private byte[] alpha = new byte[64];
+    private int count;
+
+    Recipes() {
+      add(-1, ROLE_BACKGROUND, 0xff);
+      add(-1, ROLE_FILL, 0xff);
+      add(-1, ROLE_STROKE, 0xff);
+    }
+
+    /**
+     * Apply a captured layer to the pixel recipes of a region.
+     *
+     * @param coverage  the captured layer, white on black
+     * @param node      the current recipe of each pixel
+     * @param imageSize the image size
+     * @param region    the layer region [x0, y0, x1, y1]
+     * @param layerRole the layer color role
+     */
+    void apply(int[] coverage, int[] node, int imageSize, int[] region, int layerRole) {
+      for (int y = region[1]; y < region[3]; y++) {
+        for (int x = region[0], i = y * imageSize + region[0]; x < region[2]; x++, i++) {
+          int a = coverage[i] & 0xff;
+          if (a == 0xff) {
+            node[i] = layerRole;
+          } else if (a != 0) {
+            node[i] = child(node[i], layerRole, a);
+          }
+        }
+      }
+    }
+
+    private int child(int parentNode, int childRole, int childAlpha) {
+      Long key = ((long) parentNode << 16) | (childRole << 8) | childAlpha;
+      Integer existing = children.get(key);
+      if (existing != null) {
+        return existing;
+      }
+      int n = add(parentNode, childRole, childAlpha);
+      children.put(key, n);
+      return n;
+    }
+
+    private int add(int parentNode, int nodeRole, int nodeAlpha) {
+      if (count == parent.length) {
+        parent = Arrays.copyOf(parent, count * 2);
+        role = Arrays.copyOf(role, count * 2);
+        alpha = Arrays.copyOf(alpha, count * 2);
+      }
+      parent[count] = parentNode;
+      role[count] = (byte) nodeRole;
+      alpha[count] = (byte) nodeAlpha;
+      return count++;
+    }
+  }
+}
@@ -0,0 +1,869 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2007-2014 Don Park <donpark@docuverse.com>
+ * Contributor   2014-2014 Paulo Miguel Almeida Rodenas <paulo.ubuntu@gmail.com>
+ * Contributor & Copyright  2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static ch.keybridge.lib.identicon.NineBlockCode.*;
+
+/**
+ * 9-block Identicon visual hash renderer.
+ * <p>
+ * An Identicon is a visual representation of a hash value, usually of an IP
+ * address, that serves to identify a user of a computer system as a form of
+ * avatar while protecting the users' privacy.
+ * <p>
+ * This (original) Identicon is a 9-block graphic, and the representation has
+ * been extended to other graphic forms by third parties.
+ * <p>
+ * This is refactored / renamed from the
+ * <code>NineBlockIdenticonRenderer2</code> class file.
+ * <p>
+ * This implementation uses only the lower 32 bits of the input identicon code.
+ *
+ * @author Don Park donpark@docuverse.com
+ * @author Jesse Caulfiled
+ * @since 1.0.0 created 06/01/2016
+ */
+public class NineBlockIdenticonRenderer implements IdenticonRenderer {
+
+  /**
+   * The default patch size in pixels.
+   */
+  private static final double DEFAULT_PATCH_SIZE = 20.0;
+  /**
+   * The number of pixels drawn at a time when an image is written or
+   * rendered into a buffer in bands of rows.
+   */
+  private static final int BAND_PIXELS = 256 * 1024;
+
+  /**
+   * The size in pixels at which each patch will be rendered before they are
+   * scaled down to the requested output image size.
+   */
+  private double patchSize;
+  /**
+   * Array of java.awt patch shapes.
+   */
+  private GeneralPath[] patchShapes;
+  /**
+   * used to center patch shape at origin because shape rotation works
+   * correctly.
+   */
+  private double patchOffset;
+  /**
+   * The background color. Default is white.
+   */
+  private Color backgroundColor = Color.WHITE;
+  /**
+   * The patch fill color, or null to derive it from the code.
+   */
+  private Color fillColor;
+  /**
+   * The patch outline color, or null to use the complement of the fill color.
+   */
+  private Color strokeColor;
+  /**
+   * The rendering quality.
+   */
+  private RenderQuality quality = RenderQuality.DEFAULT;
+  /**
+   * The version tag of the configuration.
+   */
+  private String versionTag = "";
+
+  /**
+   * Private constructor. Use {@code getInstance()}.
+   */
+  private NineBlockIdenticonRenderer() {
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine.
+   *
+   * @return a ready instance.
+   */
+  public static IdenticonRenderer getInstance() {
+    NineBlockIdenticonRenderer renderer = new NineBlockIdenticonRenderer();
+    renderer.setPatchSize(DEFAULT_PATCH_SIZE);
+    return renderer;
+  }
+
+  /**
+   * Returns the size in pixels at which each patch will be rendered before they
+   * are scaled down to requested identicon size.
+   *
+   * @return the patch size in pixels
+   */
+  public double getPatchSize() {
+    return patchSize;
+  }
+
+  /**
+   * Set the size in pixels at which each patch will be rendered before they are
+   * scaled down to requested output image size.
+   * <p>
+   * Default size is 20 pixels which means, for a 9-block image a 60x60 image
+   * will be rendered and scaled down.
+   *
+   * @param patchSize the patch size in pixels
+   */
+  public final void setPatchSize(double patchSize) {
+    this.patchSize = patchSize;
+    this.patchOffset = patchSize / 2.0; // used to center patch shape at origin.
+    double patchScale = patchSize / 4.0;
+    this.patchShapes = new GeneralPath[PATCH_TYPES.length];
+    for (int i = 0; i < PATCH_TYPES.length; i++) {
+      GeneralPath patch = new GeneralPath(GeneralPath.WIND_NON_ZERO);
+      boolean moveTo = true;
+      byte[] patchVertices = PATCH_TYPES[i];
+      for (int j = 0; j < patchVertices.length; j++) {
+        int v = (int) patchVertices[j];
+        if (v == PATCH_MOVETO) {
+          moveTo = true;
+        }
+        double vx = ((v % PATCH_GRIDS) * patchScale) - patchOffset;
+        double vy = (Math.floor(((double) v) / PATCH_GRIDS)) * patchScale - patchOffset;
+        if (!moveTo) {
+          patch.lineTo(vx, vy);
+        } else {
+          moveTo = false;
+          patch.moveTo(vx, vy);
+        }
+      }
+      patch.closePath();
+      this.patchShapes[i] = patch;
+    }
+    updateVersionTag();
+  }
+
+  /**
+   * Get the background color.
+   *
+   * @return the background color.
+   */
+  public Color getBackgroundColor() {
+    return backgroundColor;
+  }
+
+  /**
+   * Set the background color.
+   *
+   * @param backgroundColor the background color.
+   */
+  public void setBackgroundColor(Color backgroundColor) {
+    this.backgroundColor = backgroundColor;
+    updateVersionTag();
+  }
+
+  /**
+   * Get the patch fill color.
+   *
+   * @return the fill color, or null if derived from the code
+   */
+  Color getFillColor() {
+    return fillColor;
+  }
+
+  /**
+   * Set the patch fill color.
+   *
+   * @param fillColor the fill color, or null to derive it from the code
+   */
+  void setFillColor(Color fillColor) {
+    this.fillColor = fillColor;
+    updateVersionTag();
+  }
+
+  /**
+   * Get the patch outline color.
+   *
+   * @return the outline color, or null if the complement of the fill color
+   */
+  Color getStrokeColor() {
+    return strokeColor;
+  }
+
+  /**
+   * Set the color used to outline patches when the fill color is too close to
+   * the background color.
+   *
+   * @param strokeColor the outline color, or null to use the complement of the
+   *                    fill color
+   */
+  void setStrokeColor(Color strokeColor) {
+    this.strokeColor = strokeColor;
+    updateVersionTag();
+  }
+
+  /**
+   * Get the rendering quality.
+   *
+   * @return the rendering quality
+   */
+  RenderQuality getQuality() {
+    return quality;
+  }
+
+  /**
+   * Set the rendering quality.
+   *
+   * @param quality the rendering quality
+   */
+  void setQuality(RenderQuality quality) {
+    this.quality = quality;
+    updateVersionTag();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The default configuration has an empty tag; any other has a tag derived
+   * from its patch size, colors and quality.
+   */
+  @Override
+  public String getVersionTag() {
+    return versionTag;
+  }
+
+  /**
+   * Internal method to update the version tag after the configuration has
+   * changed.
+   */
+  private void updateVersionTag() {
+    versionTag = getVersionTag(patchSize, backgroundColor, fillColor, strokeColor, quality);
+  }
+
+  /**
+   * Get the version tag of a configuration.
+   *
+   * @param patchSize       the patch size in pixels
+   * @param backgroundColor the background color
+   * @param fillColor       the fill color, or null
+   * @param strokeColor     the outline color, or null
+   * @param quality         the rendering quality
+   * @return the version tag; empty for the default configuration
+   */
+  static String getVersionTag(double patchSize, Color backgroundColor, Color fillColor, Color strokeColor, RenderQuality quality) {
+    if (patchSize == DEFAULT_PATCH_SIZE && backgroundColor.getRGB() == Color.WHITE.getRGB()
+        && fillColor == null && strokeColor == null && quality == RenderQuality.DEFAULT) {
+      return "";
+    }
+    String configuration = patchSize + ","
+                           + Integer.toHexString(backgroundColor.getRGB()) + ","
+                           + (fillColor == null ? "" : Integer.toHexString(fillColor.getRGB())) + ","
+                           + (strokeColor == null ? "" : Integer.toHexString(strokeColor.getRGB())) + ","
+                           + quality.name();
+    return "n" + Integer.toHexString(Murmur3.hash(configuration, 0));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(Integer code, int size) {
+    return render(code.intValue(), size);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(int code, int size) {
+    return renderQuilt(code, size);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The code and colors are decoded once and shared by all sizes. Each size
+   * is drawn into its own image by its own graphics context: antialiased
+   * edges drawn at an offset into a shared image do not always match those
+   * of a standalone render. The patch geometry is scaled to each size, so
+   * the drawing is not shared, and a set costs about the same as rendering
+   * each size separately (around 4% less for 32, 64 and 96 pixels; see
+   * {@code SrcsetBenchmark}).
+   */
+  @Override
+  public BufferedImage[] render(int code, int[] sizes) {
+    NineBlockCode decoded = new NineBlockCode(code);
+    Color fillColor = resolveFillColor(decoded);
+    Color strokeColor = resolveStrokeColor(fillColor);
+    BufferedImage[] images = new BufferedImage[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      images[i] = renderQuilt(decoded, fillColor, strokeColor, sizes[i]);
+    }
+    return images;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The quilt is drawn directly into the array through an image that shares
+   * it.
+   */
+  @Override
+  public void render(int code, int size, int[] pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.length, offset, scanlineStride, size, 1);
+    NineBlockCode decoded = new NineBlockCode(code);
+    Color fillColor = resolveFillColor(decoded);
+    renderQuilt(decoded, fillColor, resolveStrokeColor(fillColor), size, 0, wrap(pixels, offset, scanlineStride, size, size));
+    for (int y = 0, i = offset; y < size; y++, i += scanlineStride) {
+      layout.pack(pixels, i, i + size);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * A buffer without a backing array is drawn in bands of rows, as by
+   * {@link #write(int, int, OutputStream)}, so the full image raster is never
+   * materialized above 512 x 512 pixels.
+   */
+  @Override
+  public void render(int code, int size, IntBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.limit(), offset, scanlineStride, size, 1);
+    if (pixels.hasArray()) {
+      render(code, size, pixels.array(), pixels.arrayOffset() + offset, scanlineStride, layout);
+      return;
+    }
+    BandSource bands = createBandSource(code, size);
+    for (int y = 0; y < size; y += bands.bandHeight) {
+      bands.put(y, Math.min(bands.bandHeight, size - y), layout, pixels, offset + y * scanlineStride, scanlineStride);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The image is drawn in bands of rows, as by
+   * {@link #write(int, int, OutputStream)}, so the full image raster is never
+   * materialized above 512 x 512 pixels.
+   */
+  @Override
+  public void render(int code, int size, ByteBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.limit(), offset, scanlineStride, size, layout.getBytesPerPixel());
+    BandSource bands = createBandSource(code, size);
+    for (int y = 0; y < size; y += bands.bandHeight) {
+      bands.put(y, Math.min(bands.bandHeight, size - y), layout, pixels, offset + y * scanlineStride, scanlineStride);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The image is drawn in bands of rows, each band by a graphics context
+   * translated to its first row, with the same pixels as the full image.
+   * Each band is encoded as it is drawn, so above 512 x 512 pixels the full
+   * image raster is never materialized.
+   */
+  @Override
+  public void write(int code, int size, OutputStream out) throws IOException {
+    Identicon.ENCODER.encode(size, size, createBandSource(code, size), out);
+  }
+
+  /**
+   * Internal method to decode a code and create a source that draws its image
+   * in bands of rows.
+   *
+   * @param code the Identicon code
+   * @param size the horizontal and vertical image size
+   * @return the band source
+   */
+  private BandSource createBandSource(int code, int size) {
+    NineBlockCode decoded = new NineBlockCode(code);
+    Color fillColor = resolveFillColor(decoded);
+    return new BandSource(decoded, fillColor, resolveStrokeColor(fillColor), size);
+  }
+
+  /**
+   * Internal method to create an RGB image that draws into a region of an
+   * array. Java2D recognizes the image as a standard
+   * {@link BufferedImage#TYPE_INT_RGB} image and draws it with the same
+   * loops.
+   *
+   * @param pixels         the pixels
+   * @param offset         the array index of the top left pixel
+   * @param scanlineStride the array distance between vertically adjacent
+   *                       pixels
+   * @param width          the image width
+   * @param height         the image height
+   * @return an image sharing the array
+   */
+  private static BufferedImage wrap(int[] pixels, int offset, int scanlineStride, int width, int height) {
+    int[] masks = {0xff0000, 0xff00, 0xff};
+    WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length - offset, offset),
+                                                      width, height, scanlineStride, masks, null);
+    return new BufferedImage(new DirectColorModel(24, masks[0], masks[1], masks[2]), raster, false, null);
+  }
+
+  /**
+   * Internal worker method to render the Identicon quilt.
+   * <p>
+   * Size of the returned identicon image is determined by patchSize set using
+   * {@link #setPatchSize(double)}. Since a 9-block identicon consists of 3x3
+   * patches the width and height will be 3 times the patch size.
+   *
+   * @param hashCode  the Identicon hash code to render
+   * @param imageSize the horizontal and vertical image size to create
+   * @return the rendered Identicon image
+   */
+  private BufferedImage renderQuilt(int hashCode, int imageSize) {
+    /**
+     * PREPARE
+     * <p>
+     * Decode the code into parts. See {@link NineBlockCode}.
+     */
+    NineBlockCode code = new NineBlockCode(hashCode);
+    Color fillColor = resolveFillColor(code);
+    return renderQuilt(code, fillColor, resolveStrokeColor(fillColor), imageSize);
+  }
+
+  /**
+   * Get the patch fill color of a decoded code.
+   *
+   * @param code the decoded code
+   * @return the fill color
+   */
+  private Color resolveFillColor(NineBlockCode code) {
+    /**
+     * color components are used at top of the range for color difference. Use
+     * white background for now.
+     * <p>
+     * TODO: support transparency.
+     */
+    return this.fillColor != null ? this.fillColor : new Color(code.getFillColor());
+  }
+
+  /**
+   * Get the patch outline color for a fill color.
+   *
+   * @param fillColor the fill color
+   * @return the outline color, or null if patches are not outlined
+   */
+  private Color resolveStrokeColor(Color fillColor) {
+    /**
+     * Outline shapes with a noticeable color (complementary will do) if shape
+     * color and background color are too similar (measured by color distance).
+     */
+    int stroke = NineBlockCode.getStrokeColor(fillColor.getRGB(), backgroundColor.getRGB());
+    return stroke < 0 ? null : this.strokeColor != null ? this.strokeColor : new Color(stroke);
+  }
+
+  /**
+   * Internal worker method to render a decoded Identicon quilt.
+   *
+   * @param code        the decoded Identicon code
+   * @param fillColor   the patch fill color
+   * @param strokeColor the patch outline color, or null for none
+   * @param imageSize   the horizontal and vertical image size to create
+   * @return the rendered Identicon image
+   */
+  private BufferedImage renderQuilt(NineBlockCode code, Color fillColor, Color strokeColor, int imageSize) {
+    /**
+     * RENDER
+     * <p>
+     * Prepare a square RGB buffered image.
+     */
+    BufferedImage targetImage = new BufferedImage(imageSize,
+                                                  imageSize,
+                                                  BufferedImage.TYPE_INT_RGB);
+    renderQuilt(code, fillColor, strokeColor, imageSize, 0, targetImage);
+    return targetImage;
+  }
+
+  /**
+   * Internal worker method to render rows of a decoded Identicon quilt into an
+   * RGB image. The target image holds the rows from {@code top} down; it is
+   * the whole quilt when it is as tall as the image size.
+   *
+   * @param code        the decoded Identicon code
+   * @param fillColor   the patch fill color
+   * @param strokeColor the patch outline color, or null for none
+   * @param imageSize   the horizontal and vertical image size
+   * @param top         the first row of the quilt to draw
+   * @param targetImage the image to draw, with a packed {@code int} raster
+   */
+  private void renderQuilt(NineBlockCode code, Color fillColor, Color strokeColor, int imageSize, int top, BufferedImage targetImage) {
+    RenderQuality tier = quality.forSize(imageSize);
+    if (tier == RenderQuality.HIGH) {
+      renderSupersampled(code, fillColor, strokeColor, imageSize, top, targetImage);
+      return;
+    }
+    Graphics2D g = createGraphics(targetImage, tier);
+    g.translate(0, -top);
+    drawQuilt(g, code, fillColor, strokeColor, imageSize, tier == RenderQuality.FAST);
+    /**
+     * Done drawing.
+     */
+    g.dispose();
+  }
+
+  /**
+   * Internal worker method to render a decoded Identicon quilt at
+   * {@link RenderQuality#SUPERSAMPLING} times the image size then box filter
+   * it down to the image size.
+   *
+   * @param code        the decoded Identicon code
+   * @param fillColor   the patch fill color
+   * @param strokeColor the patch outline color, or null for none
+   * @param imageSize   the horizontal and vertical image size
+   * @param top         the first row of the quilt to draw
+   * @param targetImage the image to draw, with a packed {@code int} raster
+   */
+  private void renderSupersampled(NineBlockCode code, Color fillColor, Color strokeColor, int imageSize, int top, BufferedImage targetImage) {
+    int factor = RenderQuality.SUPERSAMPLING;
+    int sampleSize = imageSize * factor;
+    int rows = targetImage.getHeight();
+    BufferedImage sampleImage = new BufferedImage(sampleSize, rows * factor, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = createGraphics(sampleImage, RenderQuality.HIGH);
+    /**
+     * Scale the device rather than the quilt so the geometry is that of the
+     * other tiers.
+     */
+    g.translate(0, -top * factor);
+    g.scale(factor, factor);
+    drawQuilt(g, code, fillColor, strokeColor, imageSize, false);
+    g.dispose();
+    /**
+     * Average each square of samples, rounding to nearest.
+     */
+    int[] samples = ((DataBufferInt) sampleImage.getRaster().getDataBuffer()).getData();
+    DataBufferInt target = (DataBufferInt) targetImage.getRaster().getDataBuffer();
+    int[] pixels = target.getData();
+    int offset = target.getOffset();
+    int scanlineStride = ((SinglePixelPackedSampleModel) targetImage.getSampleModel()).getScanlineStride();
+    int count = factor * factor;
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < imageSize; x++) {
+        int r = count / 2;
+        int gr = count / 2;
+        int b = count / 2;
+        for (int sy = 0; sy < factor; sy++) {
+          for (int sx = 0, i = (y * factor + sy) * sampleSize + x * factor; sx < factor; sx++, i++) {
+            int sample = samples[i];
+            r += (sample >> 16) & 0xff;
+            gr += (sample >> 8) & 0xff;
+            b += sample & 0xff;
+          }
+        }
+        pixels[offset + y * scanlineStride + x] = (r / count) << 16 | (gr / count) << 8 | (b / count);
+      }
+    }
+  }
+
+  /**
+   * Internal method to create a graphics context with the rendering hints of
+   * a quality tier.
+   *
+   * @param image the image to draw
+   * @param tier  the quality tier, other than {@link RenderQuality#AUTO}
+   * @return the graphics context
+   */
+  private Graphics2D createGraphics(BufferedImage image, RenderQuality tier) {
+    Graphics2D g = image.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                       tier == RenderQuality.FAST
+                       ? RenderingHints.VALUE_ANTIALIAS_OFF
+                       : RenderingHints.VALUE_ANTIALIAS_ON);
+    if (tier == RenderQuality.FAST) {
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+    } else if (tier == RenderQuality.HIGH) {
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    }
+    g.setBackground(backgroundColor);
+    return g;
+  }
+
+  /**
+   * Internal method to draw a decoded Identicon quilt at the origin.
+   *
+   * @param g           the graphics utility
+   * @param code        the decoded Identicon code
+   * @param fillColor   the patch fill color
+   * @param strokeColor the patch outline color, or null for none
+   * @param imageSize   the horizontal and vertical image size
+   * @param snap        true to snap block edges to whole pixels
+   */
+  private void drawQuilt(Graphics2D g, NineBlockCode code, Color fillColor, Color strokeColor, int imageSize, boolean snap) {
+    g.clearRect(0, 0, imageSize, imageSize);
+    /**
+     * Start drawing: the middle patch, then side patches starting from top and
+     * moving clock-wise, then corner patches starting from top left and moving
+     * clock-wise.
+     */
+    double blockSize = imageSize / 3.0f;
+    for (int block = 0; block < BLOCKS; block++) {
+      double x = blockSize * BLOCK_COLUMN[block];
+      double y = blockSize * BLOCK_ROW[block];
+      double width = blockSize;
+      double height = blockSize;
+      if (snap) {
+        x = Math.round(x);
+        y = Math.round(y);
+        width = Math.round(blockSize * (BLOCK_COLUMN[block] + 1)) - x;
+        height = Math.round(blockSize * (BLOCK_ROW[block] + 1)) - y;
+      }
+      drawPatch(g,
+                x,
+                y,
+                width,
+                height,
+                code.getPatch(block),
+                code.getTurn(block),
+                code.isInvert(block),
+                fillColor,
+                strokeColor);
+    }
+  }
+
+  /**
+   * Internal method to draw a patch.
+   *
+   * @param g           the graphics utility
+   * @param x           the x start
+   * @param y           the y start
+   * @param width       the patch width
+   * @param height      the patch height
+   * @param patch       the patch
+   * @param turn        the turn factor
+   * @param invert      corner invert factor
+   * @param fillColor   the fill color
+   * @param strokeColor the stroke color
+   */
+  private void drawPatch(Graphics2D g, double x, double y, double width, double height, int patch, int turn, boolean invert, Color fillColor, Color strokeColor) {
+    /**
+     * Assert usable patch and turn values. Inversion has already been
+     * resolved by the decoded code.
+     */
+    assert patch >= 0 && patch < PATCH_TYPES.length;
+    assert turn >= 0 && turn < 4;
+
+    Shape shape = patchShapes[patch];
+    /**
+     * paint background
+     */
+    g.setColor(invert ? fillColor : backgroundColor);
+    fillBlock(g, x, y, width, height);
+    /**
+     * transform the patch
+     */
+    AffineTransform savet = transformPatch(g, x, y, width, height, turn);
+    /**
+     * If stroke color was specified, apply stroke stroke color should be
+     * specified if fore color is too close to the back color.
+     */
+    if (strokeColor != null) {
+      g.setColor(strokeColor);
+      g.draw(shape);
+    }
+    /**
+     * render rotated patch using fore color (back color if inverted)
+     */
+    g.setColor(invert ? backgroundColor : fillColor);
+    g.fill(shape);
+    g.setTransform(savet);
+  }
+
+  /**
+   * Internal method to paint a block background in the current color.
+   *
+   * @param g    the graphics utility
+   * @param x    the x start
+   * @param y    the y start
+   * @param size the patch size
+   */
+  void fillBlock(Graphics2D g, double x, double y, double size) {
+    fillBlock(g, x, y, size, size);
+  }
+
+  /**
+   * Internal method to paint a rectangular block background in the current
+   * color.
+   *
+   * @param g      the graphics utility
+   * @param x      the x start
+   * @param y      the y start
+   * @param width  the patch width
+   * @param height the patch height
+   */
+  private void fillBlock(Graphics2D g, double x, double y, double width, double height) {
+    g.fill(new Rectangle2D.Double(x, y, width, height));
+  }
+
+  /**
+   * Internal method to transform the graphics so that a patch shape is drawn
+   * scaled and rotated into a block.
+   *
+   * @param g    the graphics utility
+   * @param x    the x start
+   * @param y    the y start
+   * @param size the patch size
+   * @param turn the turn factor
+   * @return the transform to restore when done
+   */
+  AffineTransform transformPatch(Graphics2D g, double x, double y, double size, int turn) {
+    return transformPatch(g, x, y, size, size, turn);
+  }
+
+  /**
+   * Internal method to transform the graphics so that a patch shape is drawn
+   * scaled and rotated into a rectangular block.
+   *
+   * @param g      the graphics utility
+   * @param x      the x start
+   * @param y      the y start
+   * @param width  the patch width
+   * @param height the patch height
+   * @param turn   the turn factor
+   * @return the transform to restore when done
+   */
+  private AffineTransform transformPatch(Graphics2D g, double x, double y, double width, double height, int turn) {
+    AffineTransform savet = g.getTransform();
+    g.translate(x + width / 2.0f, y + height / 2.0f);
+    g.scale(width / patchSize, height / patchSize);
+    g.rotate(Math.toRadians(turn * 90));
+    return savet;
+  }
+
+  /**
+   * Get a patch shape.
+   *
+   * @param patch the patch type
+   * @return the patch shape, centered at the origin
+   */
+  Shape getPatchShape(int patch) {
+    return patchShapes[patch];
+  }
+
+  /**
+   * Draws an image in bands of rows and hands them to the encoder in strips,
+   * or copies them into a pixel buffer.
+   */
+  private final class BandSource implements PngEncoder.PixelSource {
+
+    private final NineBlockCode code;
+    private final Color fillColor;
+    private final Color strokeColor;
+    private final int size;
+    private final int bandHeight;
+    private final int[] band;
+    private final BufferedImage bandImage;
+    /**
+     * The first row of the band, or -1 before the first band is drawn.
+     */
+    private int bandTop = -1;
+
+    BandSource(NineBlockCode code, Color fillColor, Color strokeColor, int size) {
+      this.code = code;
+      this.fillColor = fillColor;
+      this.strokeColor = strokeColor;
+      this.size = size;
+      this.bandHeight = Math.max(1, Math.min(size, BAND_PIXELS / size));
+      this.band = new int[bandHeight * size];
+      this.bandImage = wrap(band, 0, size, size, bandHeight);
+    }
+
+    @Override
+    public void getPixels(int y, int height, int[] pixels) {
+      for (int i = 0, j = draw(y, height); i < height * size; i++, j++) {
+        pixels[i] = 0xff000000 | band[j];
+      }
+    }
+
+    /**
+     * Draw the band holding a run of rows, unless it is already drawn.
+     *
+     * @param y      the first row
+     * @param height the number of rows, at most the band height
+     * @return the band index of the first pixel of the first row
+     */
+    int draw(int y, int height) {
+      if (bandTop < 0 || y < bandTop || y + height > bandTop + bandHeight) {
+        /**
+         * Draw the band starting at the row. The last band may overlap the
+         * previous one so that it stays inside the image.
+         */
+        bandTop = Math.min(y, size - bandHeight);
+        renderQuilt(code, fillColor, strokeColor, size, bandTop, bandImage);
+      }
+      return (y - bandTop) * size;
+    }
+
+    /**
+     * Copy a run of rows into an int buffer.
+     *
+     * @param y              the first row
+     * @param height         the number of rows, at most the band height
+     * @param layout         the pixel layout
+     * @param pixels         the destination pixels
+     * @param index          the buffer index of the first pixel of the first
+     *                       row
+     * @param scanlineStride the buffer distance between vertically adjacent
+     *                       pixels
+     */
+    void put(int y, int height, PixelLayout layout, IntBuffer pixels, int index, int scanlineStride) {
+      for (int row = 0, i = draw(y, height); row < height; row++, i += size, index += scanlineStride) {
+        layout.put(band, i, i + size, pixels, index);
+      }
+    }
+
+    /**
+     * Copy a run of rows into a byte buffer.
+     *
+     * @param y              the first row
+     * @param height         the number of rows, at most the band height
+     * @param layout         the pixel layout
+     * @param pixels         the destination pixels
+     * @param index          the buffer index of the first byte of the first
+     *                       row
+     * @param scanlineStride the number of bytes between vertically adjacent
+     *                       pixels
+     */
+    void put(int y, int height, PixelLayout layout, ByteBuffer pixels, int index, int scanlineStride) {
+      for (int row = 0, i = draw(y, height); row < height; row++, i += size, index += scanlineStride) {
+        layout.put(band, i, i + size, pixels, index);
+      }
+    }
+  }
+}
@@ -0,0 +1,691 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.util.Arrays;
+
+import static ch.keybridge.lib.identicon.NineBlockCode.*;
+
+/**
+ * A pure Java 9-block Identicon rasterizer.
+ * <p>
+ * This draws the same quilt as {@link NineBlockIdenticonRenderer} directly
+ * into an {@code int[]} of 0xAARRGGBB pixels without using Java2D. Each patch
+ * polygon is transformed into device space and filled with an analytic-coverage
+ * scanline algorithm: every polygon edge deposits the exact signed area it
+ * covers in each pixel into an accumulation buffer, and a running sum along
+ * each row then yields the coverage of every pixel. Coverage is accumulated in
+ * fixed point so the result of any pixel does not depend upon which part of
+ * the image is being rendered; a window of the image is rendered identically
+ * to the same pixels of the full image.
+ * <p>
+ * Layers are composited in the same order and with the same 8-bit blending
+ * arithmetic as the Java2D software loops: the block background, the optional
+ * outline, then the patch.
+ * <p>
+ * Instances are immutable and thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+final class NineBlockRasterizer {
+
+  /**
+   * Fixed point representation of full pixel coverage.
+   */
+  private static final int ONE = 1 << 16;
+  /**
+   * The outline width relative to the block size. This is the 1 pixel default
+   * stroke of a patch drawn at the default 20 pixel patch size.
+   */
+  private static final double STROKE_WIDTH = 1.0 / 20.0;
+  /**
+   * The maximum ratio of miter length to stroke width before a corner is
+   * beveled, as per the default Java2D stroke.
+   */
+  private static final double MITER_LIMIT = 10.0;
+  /**
+   * Opaque alpha channel.
+   */
+  private static final int OPAQUE = 0xff000000;
+  /**
+   * The unit square patch vertices of each patch type, centered at the origin.
+   * Indexed by patch type then [x0, y0, x1, y1, ...].
+   */
+  private static final double[][] PATCH_VERTICES = new double[PATCH_TYPES.length][];
+
+  static {
+    for (int i = 0; i < PATCH_TYPES.length; i++) {
+      byte[] patchVertices = PATCH_TYPES[i];
+      double[] vertices = new double[patchVertices.length * 2];
+      for (int j = 0; j < patchVertices.length; j++) {
+        int v = patchVertices[j];
+        vertices[2 * j] = (v % PATCH_GRIDS) / 4.0 - 0.5;
+        vertices[2 * j + 1] = (v / PATCH_GRIDS) / 4.0 - 0.5;
+      }
+      PATCH_VERTICES[i] = vertices;
+    }
+  }
+
+  /**
+   * The background color as 0xRRGGBB.
+   */
+  private final int backgroundColor;
+  /**
+   * The bulk pixel loops.
+   */
+  private final PixelKernels kernels;
+
+  /**
+   * Construct a new rasterizer with the fastest pixel kernels available.
+   *
+   * @param backgroundColor the background color as 0xRRGGBB
+   */
+  NineBlockRasterizer(int backgroundColor) {
+    this(backgroundColor, PixelKernels.getInstance());
+  }
+
+  /**
+   * Construct a new rasterizer.
+   *
+   * @param backgroundColor the background color as 0xRRGGBB
+   * @param kernels         the bulk pixel loops
+   */
+  NineBlockRasterizer(int backgroundColor, PixelKernels kernels) {
+    this.backgroundColor = backgroundColor & 0xffffff;
+    this.kernels = kernels;
+  }
+
+  /**
+   * Get the background color.
+   *
+   * @return the background color as 0xRRGGBB
+   */
+  int getBackgroundColor() {
+    return backgroundColor;
+  }
+
+  /**
+   * Render a rectangular window of an Identicon image.
+   *
+   * @param code           the Identicon hash code to render
+   * @param imageSize      the horizontal and vertical size of the full image
+   * @param x              the window left column in image coordinates
+   * @param y              the window top row in image coordinates
+   * @param width          the window width in pixels
+   * @param height         the window height in pixels
+   * @param pixels         the destination 0xAARRGGBB pixel array
+   * @param offset         the array index of the window top left pixel
+   * @param scanlineStride the array distance between vertically adjacent
+   *                       pixels
+   */
+  void render(int code, int imageSize, int x, int y, int width, int height, int[] pixels, int offset, int scanlineStride) {
+    render(new NineBlockCode(code), imageSize, x, y, width, height, pixels, offset, scanlineStride);
+  }
+
+  /**
+   * Render a rectangular window of a decoded Identicon image.
+   *
+   * @see #render(int, int, int, int, int, int, int[], int, int)
+   */
+  void render(NineBlockCode code, int imageSize, int x, int y, int width, int height, int[] pixels, int offset, int scanlineStride) {
+    render(code, imageSize, x, y, width, height, pixels, offset, scanlineStride, null);
+  }
+
+  /**
+   * Render a rectangular window of a decoded Identicon image, reusing a
+   * scratch buffer from a previous call where possible. Callers rendering an
+   * image in many windows should pass the returned buffer to the next call.
+   *
+   * @param scratch a buffer returned by a previous call, or null
+   * @return the scratch buffer used by this call
+   * @see #render(int, int, int, int, int, int, int[], int, int)
+   */
+  int[] render(NineBlockCode code, int imageSize, int x, int y, int width, int height, int[] pixels, int offset, int scanlineStride, int[] scratch) {
+    if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > imageSize || y + height > imageSize) {
+      throw new IllegalArgumentException("Window exceeds the image bounds.");
+    }
+    int fillColor = code.getFillColor();
+    int strokeColor = code.getStrokeColor(backgroundColor);
+    /**
+     * Replicate the Java2D block geometry, which is computed in float.
+     */
+    double blockSize = imageSize / 3.0f;
+    /**
+     * Clear to the background. Every pixel is painted by a block background
+     * so only the pixels on a fractional block boundary, which are painted
+     * with partial coverage, need to be cleared first.
+     */
+    int background = OPAQUE | backgroundColor;
+    for (int i = 1; i <= 3; i++) {
+      double boundary = blockSize * i;
+      int line = (int) Math.floor(boundary);
+      if (line == boundary) {
+        continue;
+      }
+      if (line >= y && line < y + height) {
+        int start = offset + (line - y) * scanlineStride;
+        kernels.fill(pixels, start, start + width, background);
+      }
+      if (line >= x && line < x + width) {
+        for (int row = 0; row < height; row++) {
+          pixels[offset + row * scanlineStride + line - x] = background;
+        }
+      }
+    }
+    Layer layer = new Layer(x, y, width, height, blockSize, strokeColor >= 0, kernels, scratch);
+    double[] polygon = new double[16];
+    double[] outline = new double[8 * 8];
+    double[] outlinePolygon = new double[16];
+    double margin = strokeColor >= 0 ? blockSize * STROKE_WIDTH * MITER_LIMIT / 2.0 : 0;
+    for (int block = 0; block < BLOCKS; block++) {
+      double bx = blockSize * BLOCK_COLUMN[block];
+      double by = blockSize * BLOCK_ROW[block];
+      /**
+       * Skip blocks that paint no pixel of the window. A patch lies within its
+       * block and its outline within the margin, so a small window (such as
+       * one tile of a very large image) only transforms the patches that
+       * intersect it.
+       */
+      if (Math.floor(bx - margin) >= x + width || Math.ceil(bx + blockSize + margin) <= x
+          || Math.floor(by - margin) >= y + height || Math.ceil(by + blockSize + margin) <= y) {
+        continue;
+      }
+      boolean invert = code.isInvert(block);
+      /**
+       * Paint the block background.
+       */
+      layer.rectangle(bx, by, bx + blockSize, by + blockSize, invert ? fillColor : backgroundColor, pixels, offset, scanlineStride);
+      /**
+       * Transform the patch into the block.
+       */
+      double[] vertices = PATCH_VERTICES[code.getPatch(block)];
+      int count = vertices.length / 2;
+      double cx = bx + blockSize / 2.0f;
+      double cy = by + blockSize / 2.0f;
+      int turn = code.getTurn(block);
+      for (int i = 0; i < count; i++) {
+        double u = vertices[2 * i];
+        double v = vertices[2 * i + 1];
+        double tu;
+        double tv;
+        switch (turn) {
+          case 1:
+            tu = -v;
+            tv = u;
+            break;
+          case 2:
+            tu = -u;
+            tv = -v;
+            break;
+          case 3:
+            tu = v;
+            tv = -u;
+            break;
+          default:
+            tu = u;
+            tv = v;
+        }
+        polygon[2 * i] = cx + tu * blockSize;
+        polygon[2 * i + 1] = cy + tv * blockSize;
+      }
+      /**
+       * Outline the patch if the fill color is too close to the background.
+       */
+      if (strokeColor >= 0) {
+        for (int i = 0; i < 2 * count; i++) {
+          outlinePolygon[i] = Math.floor(polygon[i]) + 0.5;
+        }
+        layer.begin(bx - margin, by - margin, bx + blockSize + margin, by + blockSize + margin);
+        layer.outline(outlinePolygon, count, blockSize * STROKE_WIDTH / 2.0, outline);
+        layer.composite(strokeColor, pixels, offset, scanlineStride);
+      }
+      /**
+       * Render the rotated patch using fore color (back color if inverted).
+       */
+      layer.begin(polygon, count);
+      layer.polygon(polygon, count);
+      layer.composite(invert ? backgroundColor : fillColor, pixels, offset, scanlineStride);
+    }
+    return layer.accumulation;
+  }
+
+  /**
+   * Multiply two 8-bit values scaled so that 255 represents 1.0, rounding as
+   * per the Java2D alpha multiplication table.
+   *
+   * @param a the first value (0 to 255)
+   * @param b the second value (0 to 255)
+   * @return the product (0 to 255)
+   */
+  static int mul8(int a, int b) {
+    return (a * b * 0x10101 + 0x800000) >>> 24;
+  }
+
+  /**
+   * Blend a color over a pixel with the given coverage.
+   *
+   * @param color the source color as 0xRRGGBB
+   * @param pixel the destination pixel as 0xAARRGGBB
+   * @param alpha the coverage (0 to 255)
+   * @return the blended pixel as opaque 0xAARRGGBB
+   */
+  static int blend(int color, int pixel, int alpha) {
+    if (alpha == 0xff) {
+      return OPAQUE | color;
+    }
+    int inverse = 0xff - alpha;
+    int r = mul8(alpha, (color >> 16) & 0xff) + mul8(inverse, (pixel >> 16) & 0xff);
+    int g = mul8(alpha, (color >> 8) & 0xff) + mul8(inverse, (pixel >> 8) & 0xff);
+    int b = mul8(alpha, color & 0xff) + mul8(inverse, pixel & 0xff);
+    return OPAQUE | (r << 16) | (g << 8) | b;
+  }
+
+  /**
+   * A single coverage layer, clipped to the render window.
+   * <p>
+   * Not thread safe. A layer is created for each render call and reused for
+   * all of its polygons.
+   */
+  private static final class Layer {
+
+    /**
+     * The render window in image coordinates.
+     */
+    private final int windowX;
+    private final int windowY;
+    private final int windowWidth;
+    private final int windowHeight;
+    /**
+     * The bulk pixel loops.
+     */
+    private final PixelKernels kernels;
+    /**
+     * Signed area accumulation buffer, one int per pixel of the layer bounds.
+     */
+    private final int[] accumulation;
+    /**
+     * The current layer bounds in image coordinates.
+     */
+    private int layerX;
+    private int layerY;
+    private int layerWidth;
+    private int layerHeight;
+
+    /**
+     * Construct a layer for a render window.
+     *
+     * @param x         the window left column
+     * @param y         the window top row
+     * @param width     the window width
+     * @param height    the window height
+     * @param blockSize the block size in pixels
+     * @param outline   true if patches will be outlined
+     * @param kernels   the bulk pixel loops
+     * @param scratch   an accumulation buffer to reuse if large enough, or
+     *                  null
+     */
+    Layer(int x, int y, int width, int height, double blockSize, boolean outline, PixelKernels kernels, int[] scratch) {
+      this.windowX = x;
+      this.windowY = y;
+      this.windowWidth = width;
+      this.windowHeight = height;
+      this.kernels = kernels;
+      double extent = blockSize + (outline ? blockSize * STROKE_WIDTH * MITER_LIMIT : 0) + 2;
+      int maximumWidth = Math.min(width, (int) Math.ceil(extent));
+      int maximumHeight = Math.min(height, (int) Math.ceil(extent));
+      this.accumulation = scratch != null && scratch.length >= maximumWidth * maximumHeight
+                          ? scratch
+                          : new int[maximumWidth * maximumHeight];
+    }
+
+    /**
+     * Start a new layer covering the given area, clipped to the window.
+     */
+    void begin(double minX, double minY, double maxX, double maxY) {
+      int x0 = Math.max(windowX, (int) Math.floor(minX));
+      int y0 = Math.max(windowY, (int) Math.floor(minY));
+      int x1 = Math.min(windowX + windowWidth, (int) Math.ceil(maxX));
+      int y1 = Math.min(windowY + windowHeight, (int) Math.ceil(maxY));
+      layerX = x0;
+      layerY = y0;
+      layerWidth = Math.max(0, x1 - x0);
+      layerHeight = Math.max(0, y1 - y0);
+    }
+
+    /**
+     * Start a new layer covering the bounds of a polygon, clipped to the
+     * window.
+     *
+     * @param xy    the polygon vertices as [x0, y0, x1, y1, ...]
+     * @param count the number of vertices
+     */
+    void begin(double[] xy, int count) {
+      double minX = xy[0];
+      double minY = xy[1];
+      double maxX = minX;
+      double maxY = minY;
+      for (int i = 1; i < count; i++) {
+        minX = Math.min(minX, xy[2 * i]);
+        minY = Math.min(minY, xy[2 * i + 1]);
+        maxX = Math.max(maxX, xy[2 * i]);
+        maxY = Math.max(maxY, xy[2 * i + 1]);
+      }
+      begin(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Add a closed polygon to the layer.
+     *
+     * @param xy    the polygon vertices as [x0, y0, x1, y1, ...]
+     * @param count the number of vertices
+     */
+    void polygon(double[] xy, int count) {
+      if (layerWidth == 0 || layerHeight == 0) {
+        return;
+      }
+      for (int i = 0; i < count; i++) {
+        int j = (i + 1) % count;
+        line(xy[2 * i], xy[2 * i + 1], xy[2 * j], xy[2 * j + 1]);
+      }
+    }
+
+    /**
+     * Add the outline of a closed polygon to the layer.
+     * <p>
+     * The outline is split into one quadrilateral per edge, bounded by the
+     * miter points of the offset edges at each end. Adjacent quadrilaterals
+     * share an edge so the outline is covered exactly once. Where a miter
+     * would exceed the miter limit the outside corner is beveled and the gap
+     * between the two quadrilaterals is filled with a triangle.
+     *
+     * @param xy        the polygon vertices as [x0, y0, x1, y1, ...]
+     * @param count     the number of vertices
+     * @param halfWidth half the outline width in pixels
+     * @param joins     scratch space for at least 8 coordinates per vertex
+     */
+    void outline(double[] xy, int count, double halfWidth, double[] joins) {
+      if (layerWidth == 0 || layerHeight == 0) {
+        return;
+      }
+      double[] piece = new double[8];
+      /**
+       * Compute the offset points at each vertex: [inPlus, inMinus, outPlus,
+       * outMinus] where "plus" is on the positive normal side of an edge, "in"
+       * ends the incoming edge and "out" starts the outgoing edge.
+       */
+      for (int j = 0; j < count; j++) {
+        int i = (j + count - 1) % count;
+        int k = (j + 1) % count;
+        double vx = xy[2 * j];
+        double vy = xy[2 * j + 1];
+        double length1 = Math.hypot(vx - xy[2 * i], vy - xy[2 * i + 1]);
+        double length2 = Math.hypot(xy[2 * k] - vx, xy[2 * k + 1] - vy);
+        double nx1 = -(vy - xy[2 * i + 1]) / length1;
+        double ny1 = (vx - xy[2 * i]) / length1;
+        double nx2 = -(xy[2 * k + 1] - vy) / length2;
+        double ny2 = (xy[2 * k] - vx) / length2;
+        double dot = nx1 * nx2 + ny1 * ny2;
+        double mx = (nx1 + nx2) * halfWidth / (1.0 + dot);
+        double my = (ny1 + ny2) * halfWidth / (1.0 + dot);
+        int o = 8 * j;
+        joins[o] = joins[o + 4] = vx + mx;
+        joins[o + 1] = joins[o + 5] = vy + my;
+        joins[o + 2] = joins[o + 6] = vx - mx;
+        joins[o + 3] = joins[o + 7] = vy - my;
+        if (Math.sqrt((1.0 + dot) / 2.0) * MITER_LIMIT < 1.0) {
+          /**
+           * Bevel the outside corner.
+           */
+          double cross = nx1 * ny2 - ny1 * nx2;
+          int outside = cross > 0 ? 2 : 0;
+          double side = cross > 0 ? -halfWidth : halfWidth;
+          joins[o + outside] = vx + nx1 * side;
+          joins[o + outside + 1] = vy + ny1 * side;
+          joins[o + outside + 4] = vx + nx2 * side;
+          joins[o + outside + 5] = vy + ny2 * side;
+          piece[0] = joins[o + outside];
+          piece[1] = joins[o + outside + 1];
+          piece[2] = joins[o + outside + 4];
+          piece[3] = joins[o + outside + 5];
+          piece[4] = joins[o + 2 - outside];
+          piece[5] = joins[o + 3 - outside];
+          orientedPolygon(piece, 3);
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        int o = 8 * i;
+        int p = 8 * ((i + 1) % count);
+        piece[0] = joins[o + 4];
+        piece[1] = joins[o + 5];
+        piece[2] = joins[p];
+        piece[3] = joins[p + 1];
+        piece[4] = joins[p + 2];
+        piece[5] = joins[p + 3];
+        piece[6] = joins[o + 6];
+        piece[7] = joins[o + 7];
+        orientedPolygon(piece, 4);
+      }
+    }
+
+    /**
+     * Add a polygon with a positive orientation.
+     */
+    private void orientedPolygon(double[] xy, int count) {
+      double area = 0;
+      for (int i = 0; i < count; i++) {
+        int j = (i + 1) % count;
+        area += xy[2 * i] * xy[2 * j + 1] - xy[2 * j] * xy[2 * i + 1];
+      }
+      if (area > 0) {
+        polygon(xy, count);
+      } else {
+        for (int i = count; i > 0; i--) {
+          int a = i % count;
+          int b = i - 1;
+          line(xy[2 * a], xy[2 * a + 1], xy[2 * b], xy[2 * b + 1]);
+        }
+      }
+    }
+
+    /**
+     * Accumulate the signed area covered by a line segment in each pixel.
+     */
+    private void line(double ax, double ay, double bx, double by) {
+      if (ay == by) {
+        return;
+      }
+      double direction = 1.0;
+      double x0 = ax;
+      double y0 = ay;
+      double x1 = bx;
+      double y1 = by;
+      if (ay > by) {
+        direction = -1.0;
+        x0 = bx;
+        y0 = by;
+        x1 = ax;
+        y1 = ay;
+      }
+      double dxdy = (x1 - x0) / (y1 - y0);
+      int rowStart = Math.max(layerY, (int) Math.floor(y0));
+      int rowEnd = Math.min(layerY + layerHeight, (int) Math.ceil(y1));
+      for (int y = rowStart; y < rowEnd; y++) {
+        double top = Math.max(y, y0);
+        double bottom = Math.min(y + 1, y1);
+        double dy = bottom - top;
+        if (dy <= 0) {
+          continue;
+        }
+        double xa = x0 + (top - y0) * dxdy;
+        double xb = bottom == y1 ? x1 : x0 + (bottom - y0) * dxdy;
+        double d = dy * direction;
+        int row = (y - layerY) * layerWidth;
+        double xMin = Math.min(xa, xb);
+        double xMax = Math.max(xa, xb);
+        double xMinFloor = Math.floor(xMin);
+        double xMaxCeil = Math.ceil(xMax);
+        int i0 = (int) xMinFloor;
+        int i1 = (int) xMaxCeil;
+        if (i1 <= i0 + 1) {
+          /**
+           * The segment lies within a single pixel column.
+           */
+          double xmf = 0.5 * (xa + xb) - xMinFloor;
+          add(row, i0, d - d * xmf);
+          add(row, i0 + 1, d * xmf);
+        } else {
+          double s = 1.0 / (xMax - xMin);
+          double x0f = xMin - xMinFloor;
+          double a0 = 0.5 * s * (1 - x0f) * (1 - x0f);
+          double x1f = xMax - xMaxCeil + 1;
+          double am = 0.5 * s * x1f * x1f;
+          add(row, i0, d * a0);
+          if (i1 == i0 + 2) {
+            add(row, i0 + 1, d * (1 - a0 - am));
+          } else {
+            double a1 = s * (1.5 - x0f);
+            add(row, i0 + 1, d * (a1 - a0));
+            int step = quantize(d * s);
+            for (int i = Math.max(i0 + 2, layerX); i < i1 - 1 && i < layerX + layerWidth; i++) {
+              accumulation[row + i - layerX] += step;
+            }
+            if (i0 + 2 < layerX) {
+              /**
+               * Carry steps left of the layer into its first column.
+               */
+              accumulation[row] += step * (Math.min(layerX, i1 - 1) - (i0 + 2));
+            }
+            double a2 = a1 + (i1 - i0 - 3) * s;
+            add(row, i1 - 1, d * (1 - a2 - am));
+          }
+          add(row, i1, d * am);
+        }
+      }
+    }
+
+    /**
+     * Add an area to a pixel. Areas left of the layer are carried into its
+     * first column; areas right of the layer are discarded.
+     */
+    private void add(int row, int x, double area) {
+      int column = x - layerX;
+      if (column >= layerWidth) {
+        return;
+      }
+      accumulation[row + Math.max(0, column)] += quantize(area);
+    }
+
+    /**
+     * Convert an area to fixed point.
+     */
+    private static int quantize(double area) {
+      return (int) Math.round(area * ONE);
+    }
+
+    /**
+     * Blend a color over the destination pixels according to the accumulated
+     * coverage, then clear the accumulation buffer. Coverage only changes
+     * where an edge deposited an area, so each row is composited as runs of
+     * constant coverage: filled where fully covered, skipped where uncovered
+     * and blended in bulk otherwise.
+     *
+     * @param color          the color as 0xRRGGBB
+     * @param pixels         the destination pixels
+     * @param offset         the array index of the window top left pixel
+     * @param scanlineStride the array distance between rows
+     */
+    void composite(int color, int[] pixels, int offset, int scanlineStride) {
+      int opaque = OPAQUE | color;
+      for (int row = 0; row < layerHeight; row++) {
+        int index = row * layerWidth;
+        int end = index + layerWidth;
+        int pixel = offset + (layerY - windowY + row) * scanlineStride + (layerX - windowX) - index;
+        int coverage = 0;
+        while (index < end) {
+          coverage += accumulation[index];
+          accumulation[index] = 0;
+          int alpha = alpha(coverage < 0 ? -coverage : coverage);
+          int run = index + 1;
+          while (run < end && accumulation[run] == 0) {
+            run++;
+          }
+          if (alpha == 0xff) {
+            kernels.fill(pixels, pixel + index, pixel + run, opaque);
+          } else if (alpha != 0) {
+            kernels.blend(color, alpha, pixels, pixel + index, pixel + run);
+          }
+          index = run;
+        }
+      }
+    }
+
+    /**
+     * Blend a color over the destination pixels covered by an axis aligned
+     * rectangle. Coverage of a rectangle is computed directly rather than by
+     * accumulation.
+     *
+     * @param x0             the rectangle left edge
+     * @param y0             the rectangle top edge
+     * @param x1             the rectangle right edge
+     * @param y1             the rectangle bottom edge
+     * @param color          the color as 0xRRGGBB
+     * @param pixels         the destination pixels
+     * @param offset         the array index of the window top left pixel
+     * @param scanlineStride the array distance between rows
+     */
+    void rectangle(double x0, double y0, double x1, double y1, int color, int[] pixels, int offset, int scanlineStride) {
+      begin(x0, y0, x1, y1);
+      int opaque = OPAQUE | color;
+      for (int row = layerY; row < layerY + layerHeight; row++) {
+        double height = Math.min(row + 1, y1) - Math.max(row, y0);
+        int pixel = offset + (row - windowY) * scanlineStride + (layerX - windowX);
+        for (int column = layerX; column < layerX + layerWidth; column++, pixel++) {
+          double width = Math.min(column + 1, x1) - Math.max(column, x0);
+          if (width >= 1.0 && height >= 1.0) {
+            /**
+             * Fill the fully covered interior of the row in one pass.
+             */
+            int end = Math.min(layerX + layerWidth, (int) Math.floor(x1));
+            kernels.fill(pixels, pixel, pixel + end - column, opaque);
+            pixel += end - column - 1;
+            column = end - 1;
+            continue;
+          }
+          int alpha = alpha(quantize(width * height));
+          if (alpha != 0) {
+            pixels[pixel] = blend(color, pixels[pixel], alpha);
+          }
+        }
+      }
+    }
+
+    /**
+     * Convert a fixed point coverage to an 8-bit alpha.
+     */
+    private static int alpha(int area) {
+      return area >= ONE ? 0xff : (area * 0xff + ONE / 2) >> 16;
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.util.Arrays;
+
+/**
+ * The bulk 0xAARRGGBB pixel loops of the {@link NineBlockRasterizer}: filling
+ * a run of pixels with a color and blending a color over a run of pixels with
+ * the same coverage.
+ * <p>
+ * This class is the scalar implementation and runs on every Java version. On
+ * Java 17 and later the multi-release jar also contains a
+ * {@code VectorPixelKernels} subclass that uses the incubating Vector API. It
+ * is used when the {@code jdk.incubator.vector} module is resolved (run with
+ * {@code --add-modules jdk.incubator.vector}) and produces identical pixels.
+ * Set the system property {@value #VECTOR_PROPERTY} to {@code false} to always
+ * use the scalar loops.
+ * <p>
+ * Instances are stateless and thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+class PixelKernels {
+
+  /**
+   * The system property that enables the Vector API kernels where available.
+   * Default is true.
+   */
+  static final String VECTOR_PROPERTY = "ch.keybridge.lib.identicon.vector";
+
+  /**
+   * The scalar kernels.
+   */
+  static final PixelKernels SCALAR = new PixelKernels();
+  /**
+   * The fastest kernels available on this JVM.
+   */
+  private static final PixelKernels INSTANCE = load();
+
+  /**
+   * Opaque alpha channel.
+   */
+  static final int OPAQUE = 0xff000000;
+
+  /**
+   * Package-private constructor. Use {@code getInstance()}.
+   */
+  PixelKernels() {
+  }
+
+  /**
+   * Get the fastest kernels available on this JVM.
+   *
+   * @return the Vector API kernels if available, otherwise the scalar kernels
+   */
+  static PixelKernels getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Internal method to load the Vector API kernels. The class is only present
+   * in the Java 17 layer of the multi-release jar, and only links if the
+   * incubator module is resolved.
+   */
+  private static PixelKernels load() {
+    if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) {
+      return SCALAR;
+    }
+    try {
+      return (PixelKernels) Class.forName(PixelKernels.class.getPackage().getName() + ".VectorPixelKernels")
+        .getDeclaredConstructor()
+        .newInstance();
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+      return SCALAR;
+    }
+  }
+
+  /**
+   * Determine whether these kernels use the Vector API.
+   *
+   * @return true if vectorized
+   */
+  boolean isVectorized() {
+    return false;
+  }
+
+  /**
+   * Fill a run of pixels with a color.
+   *
+   * @param pixels the destination pixels
+   * @param from   the index of the first pixel (inclusive)
+   * @param to     the index of the last pixel (exclusive)
+   * @param color  the pixel value
+   */
+  void fill(int[] pixels, int from, int to, int color) {
+    Arrays.fill(pixels, from, to, color);
+  }
+
+  /**
+   * Blend a color over a run of pixels with the same partial coverage, as per
+   * {@link NineBlockRasterizer#blend(int, int, int)}.
+   *
+   * @param color  the color as 0xRRGGBB
+   * @param alpha  the coverage (0 to 255)
+   * @param pixels the destination 0xAARRGGBB pixels
+   * @param from   the index of the first pixel (inclusive)
+   * @param to     the index of the last pixel (exclusive)
+   */
+  void blend(int color, int alpha, int[] pixels, int from, int to) {
+    for (int i = from; i < to; i++) {
+      pixels[i] = NineBlockRasterizer.blend(color, pixels[i], alpha);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * The layout of the components of an opaque pixel in a caller-supplied pixel
+ * buffer.
+ * <p>
+ * In a byte buffer the components are stored in the order of the layout name,
+ * one byte each. In an {@code int[]} or {@code IntBuffer} each pixel is one
+ * int holding the components in the order of the layout name from the most
+ * significant byte; {@link #RGB} pixels are {@code 0x00RRGGBB}, as in a
+ * {@code BufferedImage.TYPE_INT_RGB} raster. Alpha, where present, is always
+ * 255.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public enum PixelLayout {
+
+  /**
+   * Red, green and blue: three bytes, or {@code 0x00RRGGBB}.
+   */
+  RGB(3),
+  /**
+   * Alpha, red, green and blue: {@code 0xAARRGGBB}, as in Java2D.
+   */
+  ARGB(4),
+  /**
+   * Red, green, blue and alpha: {@code 0xRRGGBBAA}, as in OpenGL and HTML
+   * canvas image data.
+   */
+  RGBA(4),
+  /**
+   * Blue, green, red and alpha: {@code 0xBBGGRRAA}, as in little-endian
+   * Cairo, Skia and Direct2D surfaces.
+   */
+  BGRA(4);
+
+  /**
+   * Opaque alpha channel.
+   */
+  private static final int OPAQUE = 0xff000000;
+
+  /**
+   * The number of bytes per pixel in a byte buffer.
+   */
+  private final int bytesPerPixel;
+
+  private PixelLayout(int bytesPerPixel) {
+    this.bytesPerPixel = bytesPerPixel;
+  }
+
+  /**
+   * Get the number of bytes per pixel in a byte buffer.
+   *
+   * @return the number of bytes per pixel
+   */
+  public int getBytesPerPixel() {
+    return bytesPerPixel;
+  }
+
+  /**
+   * Convert a 0xRRGGBB color to an int pixel of this layout. The upper byte of
+   * the color is ignored.
+   *
+   * @param rgb the color
+   * @return the int pixel
+   */
+  int pack(int rgb) {
+    switch (this) {
+      case RGB:
+        return rgb & 0xffffff;
+      case ARGB:
+        return rgb | OPAQUE;
+      case RGBA:
+        return rgb << 8 | 0xff;
+      default:
+        return Integer.reverseBytes(rgb | OPAQUE);
+    }
+  }
+
+  /**
+   * Convert a run of 0xRRGGBB pixels to this layout, in place.
+   *
+   * @param pixels the pixels
+   * @param from   the index of the first pixel (inclusive)
+   * @param to     the index of the last pixel (exclusive)
+   */
+  void pack(int[] pixels, int from, int to) {
+    switch (this) {
+      case RGB:
+        for (int i = from; i < to; i++) {
+          pixels[i] &= 0xffffff;
+        }
+        break;
+      case ARGB:
+        for (int i = from; i < to; i++) {
+          pixels[i] |= OPAQUE;
+        }
+        break;
+      default:
+        for (int i = from; i < to; i++) {
+          pixels[i] = pack(pixels[i]);
+        }
+    }
+  }
+
+  /**
+   * Copy a run of 0xRRGGBB pixels into an int buffer in this layout. The
+   * buffer position is not changed.
+   *
+   * @param pixels the pixels
+   * @param from   the index of the first pixel (inclusive)
+   * @param to     the index of the last pixel (exclusive)
+   * @param buffer the destination buffer
+   * @param index  the buffer index of the first pixel
+   */
+  void put(int[] pixels, int from, int to, IntBuffer buffer, int index) {
+    for (int i = from; i < to; i++) {
+      buffer.put(index++, pack(pixels[i]));
+    }
+  }
+
+  /**
+   * Copy a run of 0xRRGGBB pixels into a byte buffer in this layout. The
+   * buffer position and byte order are not changed.
+   *
+   * @param pixels the pixels
+   * @param from   the index of the first pixel (inclusive)
+   * @param to     the index of the last pixel (exclusive)
+   * @param buffer the destination buffer
+   * @param index  the buffer index of the first byte
+   */
+  void put(int[] pixels, int from, int to, ByteBuffer buffer, int index) {
+    if (this == RGB) {
+      for (int i = from; i < to; i++, index += 3) {
+        int pixel = pixels[i];
+        buffer.put(index, (byte) (pixel >> 16));
+        buffer.put(index + 1, (byte) (pixel >> 8));
+        buffer.put(index + 2, (byte) pixel);
+      }
+      return;
+    }
+    /**
+     * Write whole ints, byte swapped where the buffer order would otherwise
+     * reverse the components: BGRA is ARGB written little-endian.
+     */
+    boolean rgba = this == RGBA;
+    boolean swap = (this == BGRA) == (buffer.order() == ByteOrder.BIG_ENDIAN);
+    for (int i = from; i < to; i++, index += 4) {
+      int pixel = rgba ? pixels[i] << 8 | 0xff : pixels[i] | OPAQUE;
+      buffer.putInt(index, swap ? Integer.reverseBytes(pixel) : pixel);
+    }
+  }
+
+  /**
+   * Validate that a pixel buffer holds a square image.
+   *
+   * @param capacity       the buffer length or limit, in units
+   * @param offset         the index of the top left pixel, in units
+   * @param scanlineStride the distance between vertically adjacent pixels, in
+   *                       units
+   * @param imageSize      the image size in pixels square
+   * @param pixelSize      the number of units per pixel
+   * @throws IllegalArgumentException if the image does not fit the buffer
+   */
+  static void checkBounds(int capacity, int offset, int scanlineStride, int imageSize, int pixelSize) {
+    if (imageSize < 1) {
+      throw new IllegalArgumentException("Image size must be positive.");
+    }
+    long row = (long) imageSize * pixelSize;
+    if (offset < 0 || scanlineStride < row || offset + (imageSize - 1L) * scanlineStride + row > capacity) {
+      throw new IllegalArgumentException("Pixel buffer is too small for a " + imageSize + " pixel image.");
+    }
+  }
+}
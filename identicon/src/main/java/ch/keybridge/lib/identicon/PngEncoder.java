@@ -0,0 +1,804 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A PNG encoder specialized for Identicon images.
+ * <p>
+ * A rendered Identicon holds only a few distinct colors: the background, the
+ * fill, the optional outline and the antialiasing ramps between them. This
+ * encoder counts the colors in the image and, when there are no more than 256,
+ * writes an indexed-color (palette) PNG with the smallest sufficient bit depth.
+ * Images with more colors are written as RGB (or RGBA if any pixel is
+ * translucent), as are images larger than 512 x 512 pixels streamed from a
+ * renderer that does not hold the whole image. Compared to the general purpose
+ * {@code ImageIO} PNG writer this produces smaller files with much less work.
+ * <p>
+ * A transparent color may be configured; pixels of exactly that color are
+ * written as fully transparent using a {@code tRNS} chunk. Images with an
+ * alpha channel are also supported.
+ * <p>
+ * {@code Deflater} instances are reused across calls from a small bounded pool;
+ * deflaters returned to a full pool are ended, so their native memory does not
+ * accumulate with the number of threads.
+ * Instances are immutable and thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class PngEncoder {
+
+  /**
+   * The default compression level.
+   */
+  public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+  /**
+   * The PNG file signature.
+   */
+  private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+  /**
+   * Chunk types.
+   */
+  private static final int IHDR = 0x49484452;
+  private static final int PLTE = 0x504c5445;
+  private static final int TRNS = 0x74524e53;
+  private static final int IDAT = 0x49444154;
+  private static final int IEND = 0x49454e44;
+  /**
+   * Color types.
+   */
+  static final int COLOR_TYPE_RGB = 2;
+  static final int COLOR_TYPE_PALETTE = 3;
+  static final int COLOR_TYPE_RGBA = 6;
+  /**
+   * Row filter types.
+   */
+  private static final int FILTER_NONE = 0;
+  private static final int FILTER_SUB = 1;
+  /**
+   * The maximum number of palette entries.
+   */
+  private static final int MAXIMUM_PALETTE_SIZE = 256;
+  /**
+   * The maximum size of an IDAT chunk.
+   */
+  private static final int IDAT_CHUNK_SIZE = 8 * 1024;
+  /**
+   * The number of pixels read from a pixel source at a time.
+   */
+  private static final int STRIP_PIXELS = 16 * 1024;
+  /**
+   * The largest image, in pixels, read from an unbuffered source into memory
+   * to count its colors (512 x 512). Larger unbuffered images are written as
+   * truecolor in a single pass.
+   */
+  private static final int BUFFER_PIXELS = 512 * 512;
+  /**
+   * The maximum number of idle deflaters kept for reuse.
+   */
+  private static final int DEFLATER_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  /**
+   * The deflate compression level (0 to 9, or -1 for the default).
+   */
+  private final int compressionLevel;
+  /**
+   * The color written as fully transparent as 0xRRGGBB, or -1 if none.
+   */
+  private final int transparentColor;
+  /**
+   * Idle deflaters, reused across calls.
+   */
+  private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(DEFLATER_POOL_SIZE);
+
+  /**
+   * Construct a new encoder with the default compression level and no
+   * transparent color.
+   */
+  public PngEncoder() {
+    this(DEFAULT_COMPRESSION_LEVEL, null);
+  }
+
+  /**
+   * Construct a new encoder with no transparent color.
+   *
+   * @param compressionLevel the deflate compression level, from 0 (fastest)
+   *                         to 9 (smallest), or -1 for the default
+   */
+  public PngEncoder(int compressionLevel) {
+    this(compressionLevel, null);
+  }
+
+  /**
+   * Construct a new encoder.
+   *
+   * @param compressionLevel the deflate compression level, from 0 (fastest)
+   *                         to 9 (smallest), or -1 for the default
+   * @param transparentColor the color to write as fully transparent (e.g. the
+   *                         renderer background color), or null for none
+   */
+  public PngEncoder(int compressionLevel, Color transparentColor) {
+    if (compressionLevel < -1 || compressionLevel > 9) {
+      throw new IllegalArgumentException("Compression level must be between -1 and 9.");
+    }
+    this.compressionLevel = compressionLevel;
+    this.transparentColor = transparentColor == null ? -1 : transparentColor.getRGB() & 0xffffff;
+  }
+
+  /**
+   * Get the compression level.
+   *
+   * @return the deflate compression level
+   */
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * Encode an image as PNG.
+   *
+   * @param image the image to encode
+   * @return the PNG bytes
+   * @throws IOException if the image cannot be encoded
+   */
+  public byte[] encode(RenderedImage image) throws IOException {
+    ByteArrayOutputStream byteOut = new ByteArrayOutputStream(1024);
+    encode(image, byteOut);
+    return byteOut.toByteArray();
+  }
+
+  /**
+   * Encode an image as PNG and write it to an output stream. The stream is
+   * not closed.
+   *
+   * @param image the image to encode
+   * @param out   the output stream
+   * @throws IOException if the image cannot be encoded or written
+   */
+  public void encode(RenderedImage image, OutputStream out) throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    ColorModel colorModel = image.getColorModel();
+    if (colorModel instanceof IndexColorModel
+        && image instanceof BufferedImage
+        && ((BufferedImage) image).getType() == BufferedImage.TYPE_BYTE_INDEXED) {
+      /**
+       * Already indexed: use the color model palette and raster directly.
+       */
+      IndexColorModel indexColorModel = (IndexColorModel) colorModel;
+      int[] palette = new int[indexColorModel.getMapSize()];
+      indexColorModel.getRGBs(palette);
+      applyTransparentColor(palette, palette.length);
+      Raster raster = ((BufferedImage) image).getRaster();
+      byte[] row = new byte[width];
+      try (ImageWriter writer = new ImageWriter(out, width, height, palette, palette.length)) {
+        for (int y = 0; y < height; y++) {
+          raster.getDataElements(0, y, width, 1, row);
+          writer.writeIndexedRow(row, 0);
+        }
+      }
+      return;
+    }
+    encode(width, height, new ImagePixelSource(image), out);
+  }
+
+  /**
+   * Encode an image, reading its pixels from a source in horizontal strips.
+   * <p>
+   * The colors of a {@link PixelSource#isBuffered() buffered} source are
+   * counted to choose between palette and truecolor encoding. A source that
+   * is not buffered is read once into memory for this if the image has up to
+   * 512 x 512 pixels; larger unbuffered images are written as RGB in a single
+   * pass over the source, so that memory use is bounded by one strip
+   * regardless of the image size.
+   *
+   * @param width  the image width
+   * @param height the image height
+   * @param source the pixel source
+   * @param out    the output stream
+   * @throws IOException if the image cannot be written
+   */
+  void encode(int width, int height, PixelSource source, OutputStream out) throws IOException {
+    int stripHeight = Math.max(1, Math.min(height, STRIP_PIXELS / width));
+    int[] pixels = new int[width * stripHeight];
+    if (!source.isBuffered()) {
+      if ((long) width * height > BUFFER_PIXELS) {
+        writeTruecolor(width, height, source, false, pixels, stripHeight, out);
+        return;
+      }
+      int[] image = new int[width * height];
+      for (int y = 0; y < height; y += stripHeight) {
+        int rows = Math.min(stripHeight, height - y);
+        source.getPixels(y, rows, pixels);
+        System.arraycopy(pixels, 0, image, y * width, rows * width);
+      }
+      source = (y, rows, strip) -> System.arraycopy(image, y * width, strip, 0, rows * width);
+    }
+    /**
+     * Count the colors to choose between palette and truecolor encoding.
+     */
+    Palette palette = new Palette();
+    int alpha = 0xff;
+    for (int y = 0; y < height; y += stripHeight) {
+      int length = width * Math.min(stripHeight, height - y);
+      source.getPixels(y, Math.min(stripHeight, height - y), pixels);
+      if (palette != null && !palette.addAll(pixels, length)) {
+        palette = null;
+      }
+      for (int i = 0; i < length; i++) {
+        alpha &= pixels[i] >>> 24;
+      }
+    }
+    if (palette != null) {
+      palette.sort(transparentColor);
+      byte[] indices = new byte[width];
+      try (ImageWriter writer = new ImageWriter(out, width, height, palette.colors, palette.size)) {
+        for (int y = 0; y < height; y += stripHeight) {
+          int rows = Math.min(stripHeight, height - y);
+          source.getPixels(y, rows, pixels);
+          for (int row = 0; row < rows; row++) {
+            for (int x = 0; x < width; x++) {
+              indices[x] = (byte) palette.indexOf(pixels[row * width + x]);
+            }
+            writer.writeIndexedRow(indices, 0);
+          }
+        }
+      }
+      return;
+    }
+    writeTruecolor(width, height, source, alpha != 0xff, pixels, stripHeight, out);
+  }
+
+  /**
+   * Internal method to write an image as RGB or RGBA in a single pass over
+   * the pixel source.
+   *
+   * @param width       the image width
+   * @param height      the image height
+   * @param source      the pixel source
+   * @param translucent true to write an alpha channel
+   * @param pixels      a strip buffer
+   * @param stripHeight the number of rows in the strip buffer
+   * @param out         the output stream
+   * @throws IOException if the image cannot be written
+   */
+  private void writeTruecolor(int width, int height, PixelSource source, boolean translucent,
+                              int[] pixels, int stripHeight, OutputStream out) throws IOException {
+    /**
+     * Opaque images mark the transparent color with a tRNS chunk; images with
+     * an alpha channel carry it in the pixels.
+     */
+    try (ImageWriter writer = new ImageWriter(out, width, height, translucent)) {
+      for (int y = 0; y < height; y += stripHeight) {
+        int rows = Math.min(stripHeight, height - y);
+        source.getPixels(y, rows, pixels);
+        if (translucent && transparentColor >= 0) {
+          for (int i = 0; i < rows * width; i++) {
+            if ((pixels[i] & 0xffffff) == transparentColor) {
+              pixels[i] = transparentColor;
+            }
+          }
+        }
+        for (int row = 0; row < rows; row++) {
+          writer.writeRow(pixels, row * width);
+        }
+      }
+    }
+  }
+
+  /**
+   * Internal method to make the transparent color (if any) fully transparent
+   * in a palette.
+   */
+  private void applyTransparentColor(int[] palette, int size) {
+    for (int i = 0; i < size; i++) {
+      if (transparentColor >= 0 && (palette[i] & 0xffffff) == transparentColor) {
+        palette[i] = transparentColor;
+      }
+    }
+  }
+
+  /**
+   * A source of image pixels, read in horizontal strips from the top.
+   */
+  interface PixelSource {
+
+    /**
+     * Get a strip of pixels.
+     *
+     * @param y      the first row
+     * @param height the number of rows
+     * @param pixels the destination 0xAARRGGBB pixels, in row order with a
+     *               stride of the image width
+     */
+    void getPixels(int y, int height, int[] pixels);
+
+    /**
+     * Determine if the pixels are already in memory, so that reading them
+     * again costs no more than a copy. Sources that are not buffered are read
+     * only once, in order, and must return opaque pixels.
+     *
+     * @return true if the source may be read more than once
+     */
+    default boolean isBuffered() {
+      return false;
+    }
+  }
+
+  /**
+   * Reads the pixels of a rendered image. Images without an alpha channel are
+   * read as opaque.
+   */
+  private static final class ImagePixelSource implements PixelSource {
+
+    private final RenderedImage image;
+    private final boolean opaque;
+    private Object element;
+
+    ImagePixelSource(RenderedImage image) {
+      this.image = image;
+      this.opaque = !image.getColorModel().hasAlpha();
+    }
+
+    @Override
+    public boolean isBuffered() {
+      return true;
+    }
+
+    @Override
+    public void getPixels(int y, int height, int[] pixels) {
+      int width = image.getWidth();
+      if (image instanceof BufferedImage) {
+        ((BufferedImage) image).getRGB(0, y, width, height, pixels, 0, width);
+      } else {
+        ColorModel colorModel = image.getColorModel();
+        Raster raster = image.getData(new Rectangle(image.getMinX(), image.getMinY() + y, width, height));
+        for (int row = 0; row < height; row++) {
+          for (int x = 0; x < width; x++) {
+            element = raster.getDataElements(image.getMinX() + x, image.getMinY() + y + row, element);
+            pixels[row * width + x] = colorModel.getRGB(element);
+          }
+        }
+      }
+      if (opaque) {
+        for (int i = 0; i < width * height; i++) {
+          pixels[i] |= 0xff000000;
+        }
+      }
+    }
+  }
+
+  /**
+   * Internal method to choose the smallest bit depth for a palette.
+   */
+  private static int getBitDepth(int paletteSize) {
+    if (paletteSize <= 2) {
+      return 1;
+    } else if (paletteSize <= 4) {
+      return 2;
+    } else if (paletteSize <= 16) {
+      return 4;
+    }
+    return 8;
+  }
+
+  /**
+   * A palette of up to 256 colors, built with an open addressing hash table.
+   */
+  private static final class Palette {
+
+    /**
+     * The hash table size. A power of two at least twice the palette size.
+     */
+    private static final int TABLE_SIZE = 1024;
+
+    /**
+     * The palette colors as 0xAARRGGBB.
+     */
+    private final int[] colors = new int[MAXIMUM_PALETTE_SIZE];
+    private final int[] keys = new int[TABLE_SIZE];
+    private final int[] values = new int[TABLE_SIZE];
+    private int size;
+
+    private int last;
+
+    Palette() {
+      Arrays.fill(values, -1);
+    }
+
+    /**
+     * Add the colors of some pixels to the palette.
+     *
+     * @param pixels the 0xAARRGGBB pixels
+     * @param length the number of pixels
+     * @return false if the palette would exceed 256 colors
+     */
+    boolean addAll(int[] pixels, int length) {
+      for (int i = 0; i < length; i++) {
+        int pixel = pixels[i];
+        if ((pixel != last || size == 0) && indexOf(pixel) < 0) {
+          if (!add(pixel)) {
+            return false;
+          }
+        }
+        last = pixel;
+      }
+      return true;
+    }
+
+    /**
+     * Apply the transparent color, then move translucent entries to the start
+     * of the palette so that the tRNS chunk is as short as possible.
+     *
+     * @param transparentColor the color to make transparent, or -1
+     */
+    void sort(int transparentColor) {
+      int[] order = new int[size];
+      int count = 0;
+      for (int pass = 0; pass < 2; pass++) {
+        for (int i = 0; i < size; i++) {
+          int color = colors[i];
+          boolean translucent = (color >>> 24) != 0xff || (color & 0xffffff) == transparentColor;
+          if (translucent == (pass == 0)) {
+            order[count++] = i;
+          }
+        }
+      }
+      int[] unsorted = colors.clone();
+      int[] index = new int[size];
+      for (int i = 0; i < count; i++) {
+        index[order[i]] = i;
+        int color = unsorted[order[i]];
+        colors[i] = (color & 0xffffff) == transparentColor ? transparentColor : color;
+      }
+      for (int slot = 0; slot < TABLE_SIZE; slot++) {
+        if (values[slot] >= 0) {
+          values[slot] = index[values[slot]];
+        }
+      }
+    }
+
+    /**
+     * Get the index of a color.
+     *
+     * @param color the color as 0xAARRGGBB
+     * @return the palette index, or -1 if not present
+     */
+    int indexOf(int color) {
+      int slot = hash(color);
+      while (values[slot] >= 0) {
+        if (keys[slot] == color) {
+          return values[slot];
+        }
+        slot = (slot + 1) & (TABLE_SIZE - 1);
+      }
+      return -1;
+    }
+
+    private boolean add(int color) {
+      if (size == MAXIMUM_PALETTE_SIZE) {
+        return false;
+      }
+      int slot = hash(color);
+      while (values[slot] >= 0) {
+        slot = (slot + 1) & (TABLE_SIZE - 1);
+      }
+      keys[slot] = color;
+      values[slot] = size;
+      colors[size++] = color;
+      return true;
+    }
+
+    private static int hash(int color) {
+      int h = color * 0x9E3779B9;
+      return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+    }
+  }
+
+  /**
+   * Internal method to take an idle deflater from the pool, or create one if
+   * the pool is empty.
+   *
+   * @return a deflater ready for a new stream
+   */
+  private Deflater acquireDeflater() {
+    Deflater deflater = deflaters.poll();
+    return deflater == null ? new Deflater(compressionLevel) : deflater;
+  }
+
+  /**
+   * Internal method to return a deflater to the pool. The deflater is ended
+   * if the pool is full.
+   *
+   * @param deflater the deflater
+   */
+  private void releaseDeflater(Deflater deflater) {
+    deflater.reset();
+    if (!deflaters.offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Writes the PNG chunks of one image, deflating the image rows as they are
+   * written.
+   * <p>
+   * Not thread safe. Closing the writer completes the image and returns its
+   * deflater to the pool, but does not close the output stream.
+   */
+  final class ImageWriter implements AutoCloseable {
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final int colorType;
+    private final int bitDepth;
+    /**
+     * The deflater, taken from the pool when the first row is written.
+     */
+    private Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    /**
+     * The filtered row, starting with the filter type byte.
+     */
+    private final byte[] row;
+    /**
+     * The pending IDAT chunk. Compressed data is written after the 8 byte
+     * chunk header and followed by the 4 byte CRC.
+     */
+    private final byte[] chunk = new byte[IDAT_CHUNK_SIZE + 12];
+    private int chunkLength;
+    private int rows;
+    private boolean closed;
+
+    /**
+     * Start an indexed-color image.
+     *
+     * @param out         the output stream
+     * @param width       the image width
+     * @param height      the image height
+     * @param palette     the palette colors as 0xAARRGGBB
+     * @param paletteSize the number of palette entries
+     * @throws IOException if the header cannot be written
+     */
+    ImageWriter(OutputStream out, int width, int height, int[] palette, int paletteSize) throws IOException {
+      this(out, width, height, COLOR_TYPE_PALETTE, getBitDepth(paletteSize));
+      byte[] plte = new byte[3 * paletteSize];
+      int transparent = 0;
+      for (int i = 0; i < paletteSize; i++) {
+        plte[3 * i] = (byte) (palette[i] >> 16);
+        plte[3 * i + 1] = (byte) (palette[i] >> 8);
+        plte[3 * i + 2] = (byte) palette[i];
+        if ((palette[i] >>> 24) != 0xff) {
+          transparent = i + 1;
+        }
+      }
+      writeChunk(PLTE, plte, plte.length);
+      if (transparent > 0) {
+        byte[] trns = new byte[transparent];
+        for (int i = 0; i < transparent; i++) {
+          trns[i] = (byte) (palette[i] >>> 24);
+        }
+        writeChunk(TRNS, trns, trns.length);
+      }
+    }
+
+    /**
+     * Start a truecolor image.
+     *
+     * @param out    the output stream
+     * @param width  the image width
+     * @param height the image height
+     * @param alpha  true to write an alpha channel
+     * @throws IOException if the header cannot be written
+     */
+    ImageWriter(OutputStream out, int width, int height, boolean alpha) throws IOException {
+      this(out, width, height, alpha ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB, 8);
+      if (!alpha && transparentColor >= 0) {
+        byte[] trns = {0, (byte) (transparentColor >> 16), 0, (byte) (transparentColor >> 8), 0, (byte) transparentColor};
+        writeChunk(TRNS, trns, trns.length);
+      }
+    }
+
+    private ImageWriter(OutputStream out, int width, int height, int colorType, int bitDepth) throws IOException {
+      if (width <= 0 || height <= 0) {
+        throw new IllegalArgumentException("Image dimensions must be positive.");
+      }
+      this.out = out;
+      this.width = width;
+      this.height = height;
+      this.colorType = colorType;
+      this.bitDepth = bitDepth;
+      int bitsPerPixel = colorType == COLOR_TYPE_PALETTE ? bitDepth : colorType == COLOR_TYPE_RGB ? 24 : 32;
+      this.row = new byte[1 + (int) (((long) width * bitsPerPixel + 7) / 8)];
+      byte[] ihdr = new byte[13];
+      putInt(ihdr, 0, width);
+      putInt(ihdr, 4, height);
+      ihdr[8] = (byte) bitDepth;
+      ihdr[9] = (byte) colorType;
+      out.write(SIGNATURE);
+      writeChunk(IHDR, ihdr, ihdr.length);
+    }
+
+    /**
+     * Write a row of palette indices.
+     *
+     * @param indices the palette index of each pixel
+     * @param offset  the array index of the first pixel of the row
+     * @throws IOException if the row cannot be written
+     */
+    void writeIndexedRow(byte[] indices, int offset) throws IOException {
+      row[0] = FILTER_NONE;
+      if (bitDepth == 8) {
+        System.arraycopy(indices, offset, row, 1, width);
+      } else {
+        Arrays.fill(row, 1, row.length, (byte) 0);
+        int pixelsPerByte = 8 / bitDepth;
+        for (int x = 0; x < width; x++) {
+          int shift = 8 - bitDepth * (1 + x % pixelsPerByte);
+          row[1 + x / pixelsPerByte] |= (indices[offset + x] & 0xff) << shift;
+        }
+      }
+      deflate(row, row.length);
+    }
+
+    /**
+     * Write a row of 0xAARRGGBB pixels to a truecolor image.
+     *
+     * @param pixels the pixels
+     * @param offset the array index of the first pixel of the row
+     * @throws IOException if the row cannot be written
+     */
+    void writeRow(int[] pixels, int offset) throws IOException {
+      /**
+       * Apply the Sub filter: each byte is stored as the difference from the
+       * corresponding byte of the pixel to its left.
+       */
+      row[0] = FILTER_SUB;
+      int channels = colorType == COLOR_TYPE_RGBA ? 4 : 3;
+      int previous = 0;
+      for (int x = 0, i = 1; x < width; x++, i += channels) {
+        int pixel = pixels[offset + x];
+        row[i] = (byte) ((pixel >> 16) - (previous >> 16));
+        row[i + 1] = (byte) ((pixel >> 8) - (previous >> 8));
+        row[i + 2] = (byte) (pixel - previous);
+        if (channels == 4) {
+          row[i + 3] = (byte) ((pixel >>> 24) - (previous >>> 24));
+        }
+        previous = pixel;
+      }
+      deflate(row, row.length);
+    }
+
+    /**
+     * Internal method to compress row data into IDAT chunks.
+     */
+    private void deflate(byte[] data, int length) throws IOException {
+      if (++rows > height) {
+        throw new IllegalStateException("Too many rows.");
+      }
+      if (deflater == null) {
+        deflater = acquireDeflater();
+      }
+      deflater.setInput(data, 0, length);
+      while (!deflater.needsInput()) {
+        drain();
+      }
+    }
+
+    /**
+     * Internal method to move compressed data into the pending chunk, writing
+     * the chunk when it is full.
+     */
+    private void drain() throws IOException {
+      chunkLength += deflater.deflate(chunk, 8 + chunkLength, IDAT_CHUNK_SIZE - chunkLength);
+      if (chunkLength == IDAT_CHUNK_SIZE) {
+        writeIdat();
+      }
+    }
+
+    /**
+     * Complete the image.
+     *
+     * @throws IOException if the image cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        if (rows != height) {
+          throw new IllegalStateException("Expected " + height + " rows but " + rows + " were written.");
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+          drain();
+        }
+        if (chunkLength > 0) {
+          writeIdat();
+        }
+        writeChunk(IEND, chunk, 0);
+      } finally {
+        if (deflater != null) {
+          releaseDeflater(deflater);
+        }
+      }
+    }
+
+    /**
+     * Internal method to write a chunk.
+     */
+    private void writeChunk(int type, byte[] data, int length) throws IOException {
+      byte[] buffer = new byte[length + 12];
+      System.arraycopy(data, 0, buffer, 8, length);
+      writeChunk(type, buffer, 0, length);
+    }
+
+    /**
+     * Internal method to write the pending IDAT chunk.
+     */
+    private void writeIdat() throws IOException {
+      writeChunk(IDAT, chunk, 0, chunkLength);
+      chunkLength = 0;
+    }
+
+    /**
+     * Internal method to complete and write a chunk whose data is already in
+     * place after an 8 byte header gap.
+     */
+    private void writeChunk(int type, byte[] buffer, int offset, int length) throws IOException {
+      putInt(buffer, offset, length);
+      putInt(buffer, offset + 4, type);
+      crc.reset();
+      crc.update(buffer, offset + 4, length + 4);
+      putInt(buffer, offset + 8 + length, (int) crc.getValue());
+      out.write(buffer, offset, length + 12);
+    }
+  }
+
+  /**
+   * Internal method to store a big-endian int.
+   */
+  private static void putInt(byte[] data, int offset, int value) {
+    data[offset] = (byte) (value >>> 24);
+    data[offset + 1] = (byte) (value >>> 16);
+    data[offset + 2] = (byte) (value >>> 8);
+    data[offset + 3] = (byte) value;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+/**
+ * Identicon rendering quality.
+ * <p>
+ * The tiers trade rendering cost for edge quality. {@link #AUTO} picks a tier
+ * by image size: aliased for small thumbnails, where antialiasing costs much
+ * and shows little, supersampled for large print and high density images, and
+ * antialiased otherwise. Very large images are antialiased rather than
+ * supersampled, as the supersampled raster grows with the square of the size.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public enum RenderQuality {
+
+  /**
+   * Aliased (hard edged) rendering with block edges snapped to whole pixels.
+   * Fastest, and suitable where edges are not noticeable.
+   */
+  FAST,
+  /**
+   * Antialiased rendering. This is the default.
+   */
+  DEFAULT,
+  /**
+   * Antialiased rendering at {@value #SUPERSAMPLING} times the image size,
+   * box filtered down to the image size. Slowest, with the most accurate
+   * edges. The sample image holds {@value #SUPERSAMPLING} squared times the
+   * pixels of the image (64 MB for a 2048 pixel image).
+   */
+  HIGH,
+  /**
+   * {@link #FAST} up to {@value #AUTO_FAST_MAXIMUM} pixels, {@link #HIGH}
+   * from {@value #AUTO_HIGH_MINIMUM} to {@value #AUTO_HIGH_MAXIMUM} pixels and
+   * {@link #DEFAULT} otherwise.
+   */
+  AUTO;
+
+  /**
+   * The largest image size rendered {@link #FAST} by {@link #AUTO}.
+   */
+  public static final int AUTO_FAST_MAXIMUM = 32;
+  /**
+   * The smallest image size rendered {@link #HIGH} by {@link #AUTO}.
+   */
+  public static final int AUTO_HIGH_MINIMUM = 512;
+  /**
+   * The largest image size rendered {@link #HIGH} by {@link #AUTO}. Larger
+   * images are rendered {@link #DEFAULT}, which needs no sample image.
+   */
+  public static final int AUTO_HIGH_MAXIMUM = 2048;
+  /**
+   * The {@link #HIGH} quality supersampling factor in each direction.
+   */
+  public static final int SUPERSAMPLING = 2;
+
+  /**
+   * Get the quality tier used to render an image of the given size.
+   *
+   * @param imageSize the horizontal and vertical image size
+   * @return the tier chosen by {@link #AUTO}, otherwise this tier
+   */
+  public RenderQuality forSize(int imageSize) {
+    if (this != AUTO) {
+      return this;
+    }
+    return imageSize <= AUTO_FAST_MAXIMUM
+           ? FAST
+           : imageSize >= AUTO_HIGH_MINIMUM && imageSize <= AUTO_HIGH_MAXIMUM ? HIGH : DEFAULT;
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * A single image holding many Identicon images in a grid, with the offset of
+ * each image.
+ * <p>
+ * Images are placed left to right then top to bottom in the order they were
+ * rendered. Clients display image {@code i} by showing the
+ * {@link #getImageSize()} square at ({@link #getX(int)}, {@link #getY(int)})
+ * of the sheet, for example as a CSS background position.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class SpriteSheet {
+
+  /**
+   * The sheet image.
+   */
+  private final BufferedImage image;
+  /**
+   * The horizontal and vertical size of each image.
+   */
+  private final int imageSize;
+  /**
+   * The number of images per sheet row.
+   */
+  private final int columns;
+  /**
+   * The number of images.
+   */
+  private final int count;
+
+  /**
+   * Construct a new sprite sheet.
+   *
+   * @param image     the sheet image
+   * @param imageSize the horizontal and vertical size of each image
+   * @param columns   the number of images per sheet row
+   * @param count     the number of images
+   */
+  SpriteSheet(BufferedImage image, int imageSize, int columns, int count) {
+    this.image = image;
+    this.imageSize = imageSize;
+    this.columns = columns;
+    this.count = count;
+  }
+
+  /**
+   * Get the sheet image.
+   *
+   * @return the sheet image
+   */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  /**
+   * Get the horizontal and vertical size of each image.
+   *
+   * @return the image size in pixels
+   */
+  public int getImageSize() {
+    return imageSize;
+  }
+
+  /**
+   * Get the number of images per sheet row.
+   *
+   * @return the number of columns
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Get the number of images in the sheet.
+   *
+   * @return the image count
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Get the left edge of an image in the sheet.
+   *
+   * @param index the image index
+   * @return the x offset in pixels
+   */
+  public int getX(int index) {
+    checkIndex(index);
+    return (index % columns) * imageSize;
+  }
+
+  /**
+   * Get the top edge of an image in the sheet.
+   *
+   * @param index the image index
+   * @return the y offset in pixels
+   */
+  public int getY(int index) {
+    checkIndex(index);
+    return (index / columns) * imageSize;
+  }
+
+  /**
+   * Get the bounds of an image in the sheet.
+   *
+   * @param index the image index
+   * @return the image bounds
+   */
+  public Rectangle getBounds(int index) {
+    return new Rectangle(getX(index), getY(index), imageSize, imageSize);
+  }
+
+  /**
+   * Get an image from the sheet. The returned image shares the sheet pixels.
+   *
+   * @param index the image index
+   * @return the image
+   */
+  public BufferedImage getSubimage(int index) {
+    return image.getSubimage(getX(index), getY(index), imageSize, imageSize);
+  }
+
+  /**
+   * Get the offset index: the x and y offset of each image in turn.
+   *
+   * @return the offsets as [x0, y0, x1, y1, ...]
+   */
+  public int[] getOffsets() {
+    int[] offsets = new int[2 * count];
+    for (int i = 0; i < count; i++) {
+      offsets[2 * i] = getX(i);
+      offsets[2 * i + 1] = getY(i);
+    }
+    return offsets;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Image index " + index + " is not between 0 and " + count);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SpriteSheet{" + count + " images of " + imageSize + "px in " + columns + " columns}";
+  }
+}
@@ -0,0 +1,364 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import static ch.keybridge.lib.identicon.NineBlockCode.*;
+
+/**
+ * Nine-block Identicon renderer that produces SVG vector images.
+ * <p>
+ * The shapes and colors are decoded by the same {@link NineBlockCode} as the
+ * raster renderers, so an SVG image matches the raster image of the same code.
+ * No rasterization is performed: patch vertices lie on a 4x4 grid within each
+ * block, so the image is drawn in a 12x12 view box with integer coordinates.
+ * An SVG image is independent of the display size and resolution; one image
+ * per code serves every size.
+ * <p>
+ * Output is built in a per-thread reusable buffer. Instances are thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class SvgIdenticonRenderer {
+
+  /**
+   * The SVG MIME type.
+   */
+  public static final String SVG_MIMETYPE = "image/svg+xml";
+  /**
+   * The block size in view box units.
+   */
+  private static final int BLOCK_SIZE = PATCH_GRIDS - 1;
+  /**
+   * The view box size.
+   */
+  private static final int VIEW_SIZE = 3 * BLOCK_SIZE;
+  /**
+   * The outline width in view box units. The raster renderers stroke a one
+   * pixel line on a 20 pixel patch.
+   */
+  private static final String STROKE_WIDTH = ".2";
+  /**
+   * The Java2D default miter limit (SVG defaults to 4).
+   */
+  private static final String STROKE_MITERLIMIT = "10";
+  /**
+   * The largest buffer retained for reuse, in characters.
+   */
+  private static final int MAXIMUM_BUFFER_SIZE = 16 * 1024;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  /**
+   * A reusable output buffer per thread.
+   */
+  private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+  /**
+   * The background color as 0xRRGGBB.
+   */
+  private volatile int backgroundColor = 0xffffff;
+
+  /**
+   * Private constructor. Use {@code getInstance()}.
+   */
+  private SvgIdenticonRenderer() {
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine.
+   *
+   * @return a ready instance.
+   */
+  public static SvgIdenticonRenderer getInstance() {
+    return new SvgIdenticonRenderer();
+  }
+
+  /**
+   * Get the background color.
+   *
+   * @return the background color.
+   */
+  public Color getBackgroundColor() {
+    return new Color(backgroundColor);
+  }
+
+  /**
+   * Set the background color. Default is white.
+   *
+   * @param backgroundColor the background color.
+   */
+  public void setBackgroundColor(Color backgroundColor) {
+    this.backgroundColor = backgroundColor.getRGB() & 0xffffff;
+  }
+
+  /**
+   * Render the numeric hashcode into a size-independent SVG image. The image
+   * scales to fill its container.
+   *
+   * @param code the numeric hash code to render.
+   * @return the SVG document
+   */
+  public String render(int code) {
+    return render(code, 0);
+  }
+
+  /**
+   * Render the numeric hashcode into an SVG image.
+   *
+   * @param code      the numeric hash code to render.
+   * @param imageSize the horizontal and vertical display size in pixels, or
+   *                  zero to omit the size
+   * @return the SVG document
+   */
+  public String render(int code, int imageSize) {
+    Buffer buffer = BUFFERS.get();
+    StringBuilder sb = buffer.begin();
+    append(sb, code, imageSize);
+    return sb.toString();
+  }
+
+  /**
+   * Render the numeric hashcode into an SVG image, encoded as UTF-8.
+   *
+   * @param code      the numeric hash code to render.
+   * @param imageSize the horizontal and vertical display size in pixels, or
+   *                  zero to omit the size
+   * @return the SVG document bytes
+   */
+  public byte[] renderBytes(int code, int imageSize) {
+    Buffer buffer = BUFFERS.get();
+    StringBuilder sb = buffer.begin();
+    append(sb, code, imageSize);
+    byte[] bytes = new byte[sb.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) sb.charAt(i);
+    }
+    return bytes;
+  }
+
+  /**
+   * Render the numeric hashcode into an SVG image and write it, encoded as
+   * UTF-8, to an output stream. The stream is not closed.
+   *
+   * @param code      the numeric hash code to render.
+   * @param imageSize the horizontal and vertical display size in pixels, or
+   *                  zero to omit the size
+   * @param out       the output stream
+   * @throws IOException if the image cannot be written
+   */
+  public void write(int code, int imageSize, OutputStream out) throws IOException {
+    Buffer buffer = BUFFERS.get();
+    StringBuilder sb = buffer.begin();
+    append(sb, code, imageSize);
+    byte[] bytes = buffer.bytes(sb.length());
+    for (int i = 0; i < sb.length(); i++) {
+      bytes[i] = (byte) sb.charAt(i);
+    }
+    out.write(bytes, 0, sb.length());
+  }
+
+  /**
+   * Internal method to build the SVG document. The output is ASCII.
+   */
+  private void append(StringBuilder sb, int code, int imageSize) {
+    NineBlockCode decoded = new NineBlockCode(code);
+    int background = backgroundColor;
+    int fillColor = decoded.getFillColor();
+    int strokeColor = decoded.getStrokeColor(background);
+    sb.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+      .append(VIEW_SIZE).append(' ').append(VIEW_SIZE).append('"');
+    if (imageSize > 0) {
+      sb.append(" width=\"").append(imageSize).append("\" height=\"").append(imageSize).append('"');
+    }
+    sb.append('>');
+    sb.append("<rect width=\"").append(VIEW_SIZE).append("\" height=\"").append(VIEW_SIZE).append("\" fill=\"");
+    appendColor(sb, background).append("\"/>");
+    if (strokeColor < 0) {
+      /**
+       * Without outlines nothing is drawn outside its block, so the inverted
+       * block backgrounds and each color of patch are merged into one path.
+       */
+      appendBlocks(sb, decoded, true, fillColor);
+      appendPatches(sb, decoded, false, fillColor);
+      appendPatches(sb, decoded, true, background);
+    } else {
+      /**
+       * Outlines extend past the block and are covered by the blocks drawn
+       * after them, so each block is drawn in turn.
+       */
+      for (int block = 0; block < BLOCKS; block++) {
+        boolean invert = decoded.isInvert(block);
+        sb.append("<path fill=\"");
+        appendColor(sb, invert ? fillColor : background).append("\" d=\"");
+        appendBlock(sb, block).append("\"/>");
+        sb.append("<path fill=\"none\" stroke=\"");
+        appendColor(sb, strokeColor)
+          .append("\" stroke-width=\"").append(STROKE_WIDTH)
+          .append("\" stroke-miterlimit=\"").append(STROKE_MITERLIMIT)
+          .append("\" d=\"");
+        appendPatch(sb, decoded, block).append("\"/>");
+        sb.append("<path fill=\"");
+        appendColor(sb, invert ? background : fillColor).append("\" d=\"");
+        appendPatch(sb, decoded, block).append("\"/>");
+      }
+    }
+    sb.append("</svg>");
+  }
+
+  /**
+   * Internal method to append one path of the background of all blocks with
+   * the given inversion.
+   */
+  private static void appendBlocks(StringBuilder sb, NineBlockCode code, boolean invert, int color) {
+    int start = sb.length();
+    sb.append("<path fill=\"");
+    appendColor(sb, color).append("\" d=\"");
+    int empty = sb.length();
+    for (int block = 0; block < BLOCKS; block++) {
+      if (code.isInvert(block) == invert) {
+        appendBlock(sb, block);
+      }
+    }
+    closePath(sb, start, empty);
+  }
+
+  /**
+   * Internal method to append one path of the patches of all blocks with the
+   * given inversion.
+   */
+  private static void appendPatches(StringBuilder sb, NineBlockCode code, boolean invert, int color) {
+    int start = sb.length();
+    sb.append("<path fill=\"");
+    appendColor(sb, color).append("\" d=\"");
+    int empty = sb.length();
+    for (int block = 0; block < BLOCKS; block++) {
+      if (code.isInvert(block) == invert) {
+        appendPatch(sb, code, block);
+      }
+    }
+    closePath(sb, start, empty);
+  }
+
+  /**
+   * Internal method to complete a path element, or remove it if it has no
+   * path data.
+   */
+  private static void closePath(StringBuilder sb, int start, int empty) {
+    if (sb.length() == empty) {
+      sb.setLength(start);
+    } else {
+      sb.append("\"/>");
+    }
+  }
+
+  /**
+   * Internal method to append the path data of a block square.
+   */
+  private static StringBuilder appendBlock(StringBuilder sb, int block) {
+    return sb.append('M').append(BLOCK_SIZE * BLOCK_COLUMN[block])
+      .append(' ').append(BLOCK_SIZE * BLOCK_ROW[block])
+      .append('h').append(BLOCK_SIZE).append('v').append(BLOCK_SIZE).append('h').append(-BLOCK_SIZE).append('z');
+  }
+
+  /**
+   * Internal method to append the path data of a block patch, rotated about
+   * the block center.
+   */
+  private static StringBuilder appendPatch(StringBuilder sb, NineBlockCode code, int block) {
+    byte[] vertices = PATCH_TYPES[code.getPatch(block)];
+    int turn = code.getTurn(block);
+    int half = BLOCK_SIZE / 2;
+    int cx = BLOCK_SIZE * BLOCK_COLUMN[block] + half;
+    int cy = BLOCK_SIZE * BLOCK_ROW[block] + half;
+    for (int i = 0; i < vertices.length; i++) {
+      int u = vertices[i] % PATCH_GRIDS - half;
+      int v = vertices[i] / PATCH_GRIDS - half;
+      int tu;
+      int tv;
+      switch (turn) {
+        case 1:
+          tu = -v;
+          tv = u;
+          break;
+        case 2:
+          tu = -u;
+          tv = -v;
+          break;
+        case 3:
+          tu = v;
+          tv = -u;
+          break;
+        default:
+          tu = u;
+          tv = v;
+      }
+      sb.append(i == 0 ? 'M' : 'L').append(cx + tu).append(' ').append(cy + tv);
+    }
+    return sb.append('z');
+  }
+
+  /**
+   * Internal method to append a color as #rrggbb.
+   */
+  private static StringBuilder appendColor(StringBuilder sb, int color) {
+    sb.append('#');
+    for (int shift = 20; shift >= 0; shift -= 4) {
+      sb.append(HEX[(color >> shift) & 0xf]);
+    }
+    return sb;
+  }
+
+  /**
+   * A reusable per-thread output buffer.
+   */
+  private static final class Buffer {
+
+    private StringBuilder builder = new StringBuilder(1024);
+    private byte[] bytes = new byte[1024];
+
+    /**
+     * Get the empty character buffer. A buffer that has grown too large is
+     * discarded.
+     */
+    StringBuilder begin() {
+      if (builder.capacity() > MAXIMUM_BUFFER_SIZE) {
+        builder = new StringBuilder(1024);
+      }
+      builder.setLength(0);
+      return builder;
+    }
+
+    /**
+     * Get a byte buffer of at least the given length.
+     */
+    byte[] bytes(int length) {
+      if (bytes.length < length) {
+        bytes = new byte[length];
+      }
+      return bytes;
+    }
+  }
+}
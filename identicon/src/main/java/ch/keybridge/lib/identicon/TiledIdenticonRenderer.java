@@ -0,0 +1,418 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 9-block Identicon renderer for very large images, such as print and poster
+ * sizes of 4096 to 16384 pixels square.
+ * <p>
+ * The image is divided into square tiles of a fixed size that are rendered in
+ * parallel on a fork-join pool by the {@link ScanlineIdenticonRenderer}
+ * rasterizer. Each tile only rasterizes the patches that intersect it. When
+ * an image is written or rendered into a buffer, tiles are rendered one band
+ * (a row of tiles) at a time, and the next band is rendered while the current
+ * one is encoded. Memory use is therefore bounded by two bands rather than
+ * the full raster: a 16384 pixel image with 256 pixel tiles needs 32 MB of
+ * pixels instead of 1 GB.
+ * <p>
+ * Output is identical to the {@code ScanlineIdenticonRenderer} for every
+ * image and tile size.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+public class TiledIdenticonRenderer implements IdenticonRenderer {
+
+  /**
+   * The default tile size in pixels square.
+   */
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  /**
+   * The number of tasks to create per pool thread, to balance the load.
+   */
+  private static final int TASKS_PER_THREAD = 4;
+
+  /**
+   * The pool to render on.
+   */
+  private final ForkJoinPool pool;
+  /**
+   * The pixel rasterizer.
+   */
+  private volatile NineBlockRasterizer rasterizer;
+  /**
+   * The version tag; the same as a {@link ScanlineIdenticonRenderer} with the
+   * same background color, as the images are identical.
+   */
+  private volatile String versionTag = "s";
+  /**
+   * The tile size in pixels square.
+   */
+  private volatile int tileSize = DEFAULT_TILE_SIZE;
+
+  /**
+   * Private constructor. Use {@code getInstance()}.
+   *
+   * @param pool the pool to render on
+   */
+  private TiledIdenticonRenderer(ForkJoinPool pool) {
+    this.pool = pool;
+    this.rasterizer = new NineBlockRasterizer(0xffffff);
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine that
+   * renders on the common fork-join pool.
+   *
+   * @return a ready instance.
+   */
+  public static TiledIdenticonRenderer getInstance() {
+    return new TiledIdenticonRenderer(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Get a running instance of this Identicon image rendering engine.
+   *
+   * @param pool the fork-join pool to render on
+   * @return a ready instance.
+   */
+  public static TiledIdenticonRenderer getInstance(ForkJoinPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool is required.");
+    }
+    return new TiledIdenticonRenderer(pool);
+  }
+
+  /**
+   * Get the background color.
+   *
+   * @return the background color.
+   */
+  public Color getBackgroundColor() {
+    return new Color(rasterizer.getBackgroundColor());
+  }
+
+  /**
+   * Set the background color. Default is white.
+   *
+   * @param backgroundColor the background color.
+   */
+  public void setBackgroundColor(Color backgroundColor) {
+    this.rasterizer = new NineBlockRasterizer(backgroundColor.getRGB());
+    this.versionTag = Identicon.getVersionTag("s", backgroundColor.getRGB());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The tag is that of a {@link ScanlineIdenticonRenderer} with the same
+   * background color, as the images are identical.
+   */
+  @Override
+  public String getVersionTag() {
+    return versionTag;
+  }
+
+  /**
+   * Get the tile size.
+   *
+   * @return the tile size in pixels square
+   */
+  public int getTileSize() {
+    return tileSize;
+  }
+
+  /**
+   * Set the tile size. Smaller tiles use less memory and balance the load
+   * better; larger tiles have less overhead. Default is 256.
+   *
+   * @param tileSize the tile size in pixels square
+   */
+  public void setTileSize(int tileSize) {
+    if (tileSize <= 0) {
+      throw new IllegalArgumentException("Tile size must be positive.");
+    }
+    this.tileSize = tileSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BufferedImage render(Integer code, int size) {
+    return render(code.intValue(), size);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The full image raster is allocated and its tiles are rendered in
+   * parallel.
+   */
+  @Override
+  public BufferedImage render(int code, int size) {
+    BufferedImage targetImage = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) targetImage.getRaster().getDataBuffer()).getData();
+    pool.invoke(tiles(rasterizer, new NineBlockCode(code), size, tileSize, 0, size, pixels, 0, size, null));
+    return targetImage;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The tiles are rendered in parallel directly into the array.
+   */
+  @Override
+  public void render(int code, int size, int[] pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.length, offset, scanlineStride, size, 1);
+    pool.invoke(tiles(rasterizer, new NineBlockCode(code), size, tileSize, 0, size, pixels, offset, scanlineStride, layout));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * A buffer without a backing array is rendered in bands of tiles.
+   */
+  @Override
+  public void render(int code, int size, IntBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.limit(), offset, scanlineStride, size, 1);
+    if (pixels.hasArray()) {
+      render(code, size, pixels.array(), pixels.arrayOffset() + offset, scanlineStride, layout);
+      return;
+    }
+    BandSource source = getBandSource(code, size);
+    for (int y = 0; y < size; y++) {
+      int start = source.getIndex(y);
+      layout.put(source.getBand(y), start, start + size, pixels, offset + y * scanlineStride);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The image is rendered in bands of tiles.
+   */
+  @Override
+  public void render(int code, int size, ByteBuffer pixels, int offset, int scanlineStride, PixelLayout layout) {
+    PixelLayout.checkBounds(pixels.limit(), offset, scanlineStride, size, layout.getBytesPerPixel());
+    BandSource source = getBandSource(code, size);
+    for (int y = 0; y < size; y++) {
+      int start = source.getIndex(y);
+      layout.put(source.getBand(y), start, start + size, pixels, offset + y * scanlineStride);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The image is rendered once, in bands of tiles. Above 512 x 512 pixels
+   * each band is encoded as it completes and the full image raster is never
+   * materialized.
+   */
+  @Override
+  public void write(int code, int size, OutputStream out) throws IOException {
+    Identicon.ENCODER.encode(size, size, getBandSource(code, size), out);
+  }
+
+  /**
+   * Get a source that renders an image in bands of tiles with the current
+   * tile size.
+   *
+   * @param code the Identicon code
+   * @param size the image size
+   * @return the band source
+   */
+  BandSource getBandSource(int code, int size) {
+    return new BandSource(rasterizer, new NineBlockCode(code), size, tileSize);
+  }
+
+  /**
+   * Internal method to create a task that renders the tiles of a band of
+   * image rows, split into tasks of roughly equal size. Each task reuses its
+   * rasterizer scratch buffer across the tiles it renders.
+   *
+   * @param target         the rasterizer
+   * @param code           the decoded code
+   * @param size           the image size
+   * @param tile           the tile size
+   * @param y              the first image row of the band
+   * @param height         the number of rows in the band
+   * @param pixels         the destination pixels
+   * @param offset         the array index of the band top left pixel
+   * @param scanlineStride the array distance between vertically adjacent
+   *                       pixels
+   * @param layout         the layout to pack the pixels into, or null to
+   *                       leave them as 0xAARRGGBB
+   * @return a task rendering the band
+   */
+  private ForkJoinTask<Void> tiles(NineBlockRasterizer target, NineBlockCode code, int size, int tile,
+                                   int y, int height, int[] pixels, int offset, int scanlineStride, PixelLayout layout) {
+    int columns = (size + tile - 1) / tile;
+    int count = columns * ((height + tile - 1) / tile);
+    int threshold = Math.max(1, count / (pool.getParallelism() * TASKS_PER_THREAD));
+    return new BatchIdenticonRenderer.RangeTask((from, to) -> {
+      int[] scratch = null;
+      for (int i = from; i < to; i++) {
+        int tileX = (i % columns) * tile;
+        int tileY = y + (i / columns) * tile;
+        int width = Math.min(tile, size - tileX);
+        int rows = Math.min(tile, y + height - tileY);
+        int start = offset + (tileY - y) * scanlineStride + tileX;
+        scratch = target.render(code, size, tileX, tileY, width, rows, pixels, start, scanlineStride, scratch);
+        if (layout != null) {
+          for (int row = 0, index = start; row < rows; row++, index += scanlineStride) {
+            layout.pack(pixels, index, index + width);
+          }
+        }
+      }
+    }, 0, count, threshold);
+  }
+
+  /**
+   * Renders an image in bands of tiles, rendering the next band in the
+   * background while the current band is read. The pixels of at most two
+   * bands are held at once. The image must be read once, from the top; each
+   * band is rendered exactly once.
+   * <p>
+   * Not thread safe.
+   */
+  final class BandSource implements PngEncoder.PixelSource {
+
+    private final NineBlockRasterizer target;
+    private final NineBlockCode code;
+    private final int size;
+    private final int tile;
+    /**
+     * The band pixel buffers, used alternately.
+     */
+    private final int[][] buffers = new int[2][];
+    /**
+     * The index of the band available to read, or -1 if none.
+     */
+    private int band = -1;
+    /**
+     * The task rendering the next band, or null if none.
+     */
+    private ForkJoinTask<Void> next;
+    /**
+     * The number of bands rendered.
+     */
+    private int renderCount;
+
+    BandSource(NineBlockRasterizer target, NineBlockCode code, int size, int tile) {
+      this.target = target;
+      this.code = code;
+      this.size = size;
+      this.tile = Math.min(tile, size);
+    }
+
+    @Override
+    public void getPixels(int y, int height, int[] pixels) {
+      for (int row = y; row < y + height; row++) {
+        System.arraycopy(getBand(row), getIndex(row), pixels, (row - y) * size, size);
+      }
+    }
+
+    /**
+     * Get the pixels of the band holding an image row, rendering it if
+     * necessary. The buffer is valid until a row of another band is read.
+     *
+     * @param y the image row
+     * @return the band pixels
+     */
+    int[] getBand(int y) {
+      int index = y / tile;
+      if (index != band) {
+        load(index);
+      }
+      return buffers[index & 1];
+    }
+
+    /**
+     * Get the index of the first pixel of an image row in its band.
+     *
+     * @param y the image row
+     * @return the array index
+     */
+    int getIndex(int y) {
+      return (y % tile) * size;
+    }
+
+    /**
+     * Get the number of bands rendered.
+     *
+     * @return the render count
+     */
+    int getRenderCount() {
+      return renderCount;
+    }
+
+    /**
+     * Make a band available to read, then start rendering the band that
+     * follows it.
+     */
+    private void load(int index) {
+      if (index != band + 1) {
+        throw new IllegalStateException("Bands must be read in order.");
+      }
+      if (next == null) {
+        pool.invoke(render(index));
+      } else {
+        next.join();
+      }
+      band = index;
+      next = null;
+      if ((index + 1) * tile < size) {
+        next = render(index + 1);
+        pool.execute(next);
+      }
+    }
+
+    /**
+     * Create a task to render a band into its buffer.
+     */
+    private ForkJoinTask<Void> render(int index) {
+      renderCount++;
+      int[] buffer = buffers[index & 1];
+      if (buffer == null) {
+        buffer = buffers[index & 1] = new int[tile * size];
+      }
+      int y = index * tile;
+      return tiles(target, code, size, tile, y, Math.min(tile, size - y), buffer, 0, size, null);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link PixelKernels} implemented with the incubating Vector API.
+ * <p>
+ * This class is compiled for Java 17 into the multi-release jar and is only
+ * loaded when the {@code jdk.incubator.vector} module is resolved. Each kernel
+ * processes whole vectors of pixels then finishes the run with the scalar
+ * loop. The 8-bit blend is evaluated in 32-bit lanes with the same wrapping
+ * multiplication and unsigned shift as the scalar code, so the output is
+ * identical.
+ *
+ * @author Key Bridge LLC
+ * @since 1.1.0 created 10/16/26
+ */
+final class VectorPixelKernels extends PixelKernels {
+
+  /**
+   * The widest integer vector shape supported by the CPU.
+   */
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /**
+   * Constructor. Loaded reflectively by {@code PixelKernels}.
+   */
+  VectorPixelKernels() {
+  }
+
+  @Override
+  boolean isVectorized() {
+    return true;
+  }
+
+  @Override
+  void fill(int[] pixels, int from, int to, int color) {
+    IntVector vector = IntVector.broadcast(SPECIES, color);
+    int i = from;
+    for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+      vector.intoArray(pixels, i);
+    }
+    super.fill(pixels, i, to, color);
+  }
+
+  @Override
+  void blend(int color, int alpha, int[] pixels, int from, int to) {
+    /**
+     * The color terms are the same for every pixel of the run.
+     */
+    int inverse = 0xff - alpha;
+    int red = NineBlockRasterizer.mul8(alpha, (color >> 16) & 0xff);
+    int green = NineBlockRasterizer.mul8(alpha, (color >> 8) & 0xff);
+    int blue = NineBlockRasterizer.mul8(alpha, color & 0xff);
+    int i = from;
+    for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+      IntVector pixel = IntVector.fromArray(SPECIES, pixels, i);
+      IntVector r = mul8(pixel.lanewise(VectorOperators.LSHR, 16).and(0xff), inverse).add(red);
+      IntVector g = mul8(pixel.lanewise(VectorOperators.LSHR, 8).and(0xff), inverse).add(green);
+      IntVector b = mul8(pixel.and(0xff), inverse).add(blue);
+      r.lanewise(VectorOperators.LSHL, 16)
+        .or(g.lanewise(VectorOperators.LSHL, 8))
+        .or(b)
+        .or(OPAQUE)
+        .intoArray(pixels, i);
+    }
+    super.blend(color, alpha, pixels, i, to);
+  }
+
+  /**
+   * Multiply 8-bit lanes by an 8-bit value as per
+   * {@link NineBlockRasterizer#mul8(int, int)}.
+   */
+  private static IntVector mul8(IntVector a, int b) {
+    return a.mul(b * 0x10101).add(0x800000).lanewise(VectorOperators.LSHR, 24);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class AsyncIdenticonRendererTest {
+
+  @Test
+  public void testRender() throws Exception {
+    System.out.println("AsyncIdenticonRenderer TestRender");
+    IdenticonMetrics metrics = new IdenticonMetrics();
+    Identicon.setListener(metrics);
+    try (AsyncIdenticonRenderer renderer = AsyncIdenticonRenderer.builder().threads(2).virtualThreads(true).build()) {
+      int code = Identicon.getCode("async@keybridgeglobal.com");
+      BufferedImage image = renderer.render(code, 48).get(10, TimeUnit.SECONDS);
+      byte[] encoded = renderer.renderBytes(code, 48).get(10, TimeUnit.SECONDS);
+      assertArrayEquals(Identicon.encode(Identicon.generate("async@keybridgeglobal.com", 48)), encoded);
+      assertArrayEquals(Identicon.encode(image), encoded);
+      assertEquals(2, metrics.getQueue().getCount());
+      System.out.println("  " + renderer);
+    } finally {
+      Identicon.setListener(IdenticonListener.NONE);
+    }
+  }
+
+  @Test
+  public void testReject() throws Exception {
+    System.out.println("AsyncIdenticonRenderer TestReject");
+    BlockingRenderer blocking = new BlockingRenderer();
+    try (AsyncIdenticonRenderer renderer = AsyncIdenticonRenderer.builder()
+      .renderer(blocking).threads(1).queueCapacity(2).build()) {
+      CompletableFuture<BufferedImage> running = renderer.render(1, 16);
+      blocking.started.await(10, TimeUnit.SECONDS);
+      CompletableFuture<BufferedImage> first = renderer.render(2, 16);
+      CompletableFuture<BufferedImage> second = renderer.render(3, 16);
+      CompletableFuture<BufferedImage> rejected = renderer.render(4, 16);
+      assertTrue(rejected.isCompletedExceptionally());
+      assertFailure(rejected, RejectedExecutionException.class);
+      assertEquals(1, renderer.getRejectedCount());
+      assertEquals(2, renderer.getQueueSize());
+      blocking.release.countDown();
+      assertNotNull(running.get(10, TimeUnit.SECONDS));
+      assertNotNull(first.get(10, TimeUnit.SECONDS));
+      assertNotNull(second.get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testShedOldest() throws Exception {
+    System.out.println("AsyncIdenticonRenderer TestShedOldest");
+    BlockingRenderer blocking = new BlockingRenderer();
+    try (AsyncIdenticonRenderer renderer = AsyncIdenticonRenderer.builder()
+      .renderer(blocking).threads(1).queueCapacity(2).overloadPolicy(OverloadPolicy.SHED_OLDEST).build()) {
+      CompletableFuture<BufferedImage> running = renderer.render(1, 16);
+      blocking.started.await(10, TimeUnit.SECONDS);
+      CompletableFuture<BufferedImage> oldest = renderer.render(2, 16);
+      CompletableFuture<BufferedImage> older = renderer.render(3, 16);
+      CompletableFuture<BufferedImage> newest = renderer.render(4, 16);
+      assertFailure(oldest, RejectedExecutionException.class);
+      assertEquals(1, renderer.getShedCount());
+      blocking.release.countDown();
+      assertNotNull(running.get(10, TimeUnit.SECONDS));
+      assertNotNull(older.get(10, TimeUnit.SECONDS));
+      assertNotNull(newest.get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testExpiryAndCancel() throws Exception {
+    System.out.println("AsyncIdenticonRenderer TestExpiryAndCancel");
+    BlockingRenderer blocking = new BlockingRenderer();
+    try (AsyncIdenticonRenderer renderer = AsyncIdenticonRenderer.builder()
+      .renderer(blocking).threads(1).maxQueueTime(20).build()) {
+      CompletableFuture<BufferedImage> running = renderer.render(1, 16);
+      blocking.started.await(10, TimeUnit.SECONDS);
+      CompletableFuture<BufferedImage> expired = renderer.render(2, 16);
+      CompletableFuture<BufferedImage> cancelled = renderer.render(3, 16);
+      cancelled.cancel(false);
+      Thread.sleep(50);
+      blocking.release.countDown();
+      assertNotNull(running.get(10, TimeUnit.SECONDS));
+      assertFailure(expired, TimeoutException.class);
+      assertTrue(cancelled.isCancelled());
+      assertEquals(1, renderer.getExpiredCount());
+      /**
+       * Only the first request was rendered.
+       */
+      assertTrue(renderer.close(10, TimeUnit.SECONDS));
+      assertEquals(1, blocking.renders);
+    }
+  }
+
+  @Test
+  public void testClosed() throws Exception {
+    System.out.println("AsyncIdenticonRenderer TestClosed");
+    AsyncIdenticonRenderer renderer = AsyncIdenticonRenderer.builder().build();
+    renderer.close();
+    assertFailure(renderer.renderBytes(1, 16), RejectedExecutionException.class);
+  }
+
+  private static void assertFailure(CompletableFuture<?> future, Class<? extends Throwable> type) throws Exception {
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail("expected " + type.getSimpleName());
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause().toString(), type.isInstance(ex.getCause()));
+    }
+  }
+
+  /**
+   * A renderer that blocks until released.
+   */
+  private static class BlockingRenderer implements IdenticonRenderer {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile int renders;
+
+    @Override
+    public BufferedImage render(Integer hashCode, int imageSize) {
+      renders++;
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
+    }
+  }
+}
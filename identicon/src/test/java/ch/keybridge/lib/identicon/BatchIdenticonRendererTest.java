@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import static ch.keybridge.lib.identicon.ImageAssert.assertSamePixels;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class BatchIdenticonRendererTest {
+
+  @Test
+  public void testRender() {
+    System.out.println("BatchIdenticonRenderer TestRender");
+    int[] codes = codes(500);
+    BatchIdenticonRenderer batch = BatchIdenticonRenderer.getInstance(new ForkJoinPool(4));
+    batch.setRenderer(ScanlineIdenticonRenderer.getInstance());
+    IdenticonRenderer single = ScanlineIdenticonRenderer.getInstance();
+    for (int size : new int[]{16, 33}) {
+      BufferedImage[] images = batch.render(codes, size);
+      assertEquals(codes.length, images.length);
+      for (int i = 0; i < codes.length; i++) {
+        assertSamePixels(single.render(codes[i], size), images[i]);
+      }
+    }
+    assertEquals(0, batch.render(new int[0], 16).length);
+  }
+
+  /**
+   * By default batch output is identical to Identicon.generate and follows
+   * the Identicon renderer.
+   */
+  @Test
+  public void testIdenticonRenderer() {
+    System.out.println("BatchIdenticonRenderer TestIdenticonRenderer");
+    int[] codes = codes(40);
+    BatchIdenticonRenderer batch = BatchIdenticonRenderer.getInstance();
+    IdenticonRenderer renderer = Identicon.getRenderer();
+    try {
+      for (IdenticonRenderer global : new IdenticonRenderer[]{renderer, GridIdenticonRenderer.getInstance()}) {
+        Identicon.setRenderer(global);
+        assertSame(global, batch.getRenderer());
+        BufferedImage[] images = batch.render(codes, 30);
+        SpriteSheet sheet = batch.renderSheet(codes, 30);
+        for (int i = 0; i < codes.length; i++) {
+          assertSamePixels(global.render(codes[i], 30), images[i]);
+          assertSamePixels(global.render(codes[i], 30), sheet.getSubimage(i));
+        }
+      }
+    } finally {
+      Identicon.setRenderer(renderer);
+    }
+  }
+
+  @Test
+  public void testRenderSheet() {
+    System.out.println("BatchIdenticonRenderer TestRenderSheet");
+    int[] codes = codes(103);
+    BatchIdenticonRenderer batch = BatchIdenticonRenderer.getInstance();
+    ScanlineIdenticonRenderer single = (ScanlineIdenticonRenderer) ScanlineIdenticonRenderer.getInstance();
+    single.setBackgroundColor(new Color(0x102030));
+    batch.setRenderer(single);
+    batch.setBackgroundColor(new Color(0x102030));
+    SpriteSheet sheet = batch.renderSheet(codes, 24);
+    System.out.println("  " + sheet);
+    assertEquals(11, sheet.getColumns());
+    assertEquals(11 * 24, sheet.getImage().getWidth());
+    assertEquals(10 * 24, sheet.getImage().getHeight());
+    int[] offsets = sheet.getOffsets();
+    for (int i = 0; i < codes.length; i++) {
+      assertEquals(sheet.getX(i), offsets[2 * i]);
+      assertEquals(sheet.getY(i), offsets[2 * i + 1]);
+      assertSamePixels(single.render(codes[i], 24), sheet.getSubimage(i));
+    }
+    /**
+     * Unused cells are the background color.
+     */
+    assertEquals(0xff102030, sheet.getImage().getRGB(sheet.getImage().getWidth() - 1, sheet.getImage().getHeight() - 1));
+  }
+
+  private static int[] codes(int count) {
+    Random random = new Random(8);
+    int[] codes = new int[count];
+    for (int i = 0; i < count; i++) {
+      codes[i] = random.nextInt();
+    }
+    return codes;
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests of the pluggable code functions and the MurmurHash3 implementation.
+ *
+ * @author Key Bridge LLC
+ */
+public class CodeFunctionTest {
+
+  @Test
+  public void testKnownValues() {
+    System.out.println("CodeFunction TestKnownValues");
+    assertEquals(0, Murmur3.hash("", 0));
+    assertEquals(0x248bfa47, Murmur3.hash("hello", 0));
+    assertEquals(0xfaf6cdb3, Murmur3.hash("Hello, world!", 1234));
+    assertEquals(0x2e4ff723, Murmur3.hash("The quick brown fox jumps over the lazy dog", 0));
+    for (Object object : new Object[]{null, "", "keybridge@keybridgeglobal.com", 42}) {
+      assertEquals(Objects.hash(object), CodeFunction.DEFAULT.getCode(object));
+    }
+  }
+
+  /**
+   * Every input form of the same bytes must produce the same code, and hashing
+   * must not move the buffer position.
+   */
+  @Test
+  public void testInputForms() {
+    System.out.println("CodeFunction TestInputForms");
+    CodeFunction function = CodeFunction.murmur3("salt");
+    Random random = new Random(11);
+    String[] fixed = {"", "a", "ab", "abc", "abcd", "été", "中文", "😀x", "a\ud800b", "\udc00"};
+    for (int i = 0; i < 2000; i++) {
+      String string;
+      if (i < fixed.length) {
+        string = fixed[i];
+      } else {
+        char[] chars = new char[random.nextInt(40)];
+        for (int j = 0; j < chars.length; j++) {
+          chars[j] = (char) (random.nextBoolean() ? random.nextInt(0x80) : random.nextInt(0x10000));
+        }
+        string = new String(chars);
+      }
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      int code = function.getCode(bytes);
+      assertEquals(string, code, function.getCode(string));
+      assertEquals(code, function.getCode(new StringBuilder(string)));
+      ByteBuffer heap = ByteBuffer.allocate(bytes.length + 7);
+      heap.position(3);
+      heap.put(bytes).flip().position(3);
+      assertEquals(code, function.getCode(heap.slice()));
+      assertEquals(code, function.getCode(heap));
+      assertEquals(3, heap.position());
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 5);
+      direct.position(5);
+      direct.put(bytes).flip().position(5);
+      assertEquals(code, function.getCode(direct));
+      assertEquals(5, direct.position());
+    }
+  }
+
+  @Test
+  public void testSalt() {
+    System.out.println("CodeFunction TestSalt");
+    String key = "keybridge@keybridgeglobal.com";
+    assertEquals(CodeFunction.murmur3().getCode(key), CodeFunction.murmur3("").getCode(key));
+    assertEquals(CodeFunction.murmur3("1321321321321321").getCode(key), CodeFunction.murmur3("1321321321321321").getCode(key));
+    assertNotEquals(CodeFunction.murmur3().getCode(key), CodeFunction.murmur3("1321321321321321").getCode(key));
+    assertNotEquals(CodeFunction.murmur3("a").getCode(key), CodeFunction.murmur3("b").getCode(key));
+    assertNotEquals(CodeFunction.murmur3().getCode(null), CodeFunction.murmur3(1).getCode(null));
+  }
+
+  /**
+   * Flipping any input bit must flip each code bit with probability close to
+   * one half.
+   */
+  @Test
+  public void testAvalanche() {
+    System.out.println("CodeFunction TestAvalanche");
+    CodeFunction function = CodeFunction.murmur3("1321321321321321");
+    Random random = new Random(5);
+    int samples = 2000;
+    int inputBits = 128;
+    int[][] flips = new int[inputBits][32];
+    byte[] input = new byte[inputBits / 8];
+    for (int s = 0; s < samples; s++) {
+      random.nextBytes(input);
+      int code = function.getCode(input);
+      for (int bit = 0; bit < inputBits; bit++) {
+        input[bit >> 3] ^= 1 << (bit & 7);
+        int diff = code ^ function.getCode(input);
+        input[bit >> 3] ^= 1 << (bit & 7);
+        for (int out = 0; out < 32; out++) {
+          flips[bit][out] += diff >>> out & 1;
+        }
+      }
+    }
+    double worst = 0;
+    for (int[] row : flips) {
+      for (int count : row) {
+        worst = Math.max(worst, Math.abs((double) count / samples - 0.5));
+      }
+    }
+    System.out.println("  worst bit bias " + worst);
+    assertTrue(worst < 0.05);
+    /**
+     * E-mail addresses differing in one character: the upper code bits select
+     * the Identicon colors.
+     */
+    double[] upper = new double[2];
+    CodeFunction[] functions = {CodeFunction.DEFAULT, function};
+    for (int i = 0; i < samples; i++) {
+      String a = "user" + i + "@example.com";
+      String b = "user" + i + "@example.con";
+      for (int f = 0; f < functions.length; f++) {
+        upper[f] += Integer.bitCount((functions[f].getCode(a) ^ functions[f].getCode(b)) >>> 16) / 16.0 / samples;
+      }
+    }
+    System.out.println("  upper bit flip rate default " + upper[0] + " murmur3 " + upper[1]);
+    assertEquals(0.5, upper[1], 0.02);
+  }
+
+  @Test
+  public void testIdenticonCodeFunction() {
+    System.out.println("CodeFunction TestIdenticonCodeFunction");
+    String key = "keybridge@keybridgeglobal.com";
+    assertSame(CodeFunction.DEFAULT, Identicon.getCodeFunction());
+    CodeFunction function = CodeFunction.murmur3("1321321321321321");
+    Identicon.setCodeFunction(function);
+    try {
+      assertEquals(function.getCode(key), Identicon.getCode(key));
+      assertEquals("W/\"" + Integer.toHexString(function.getCode(key)) + "@64v1\"", Identicon.getETag(key, 64));
+    } finally {
+      Identicon.setCodeFunction(CodeFunction.DEFAULT);
+    }
+    assertEquals(Objects.hash(key), Identicon.getCode(key));
+  }
+
+  /**
+   * Measure the bytes allocated by the current thread hashing each input form.
+   */
+  @Test
+  public void testZeroAllocation() {
+    System.out.println("CodeFunction TestZeroAllocation");
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    CodeFunction function = CodeFunction.murmur3("salt");
+    String key = "keybridge@keybridgeglobal.comé";
+    byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer heap = ByteBuffer.wrap(bytes);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+    direct.flip();
+    int iterations = 200_000;
+    long sink = 0;
+    for (int round = 0; round < 2; round++) {
+      long threadId = Thread.currentThread().getId();
+      long before = threads.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < iterations; i++) {
+        sink += function.getCode(key);
+        sink += function.getCode(bytes);
+        sink += function.getCode(heap);
+        sink += function.getCode(direct);
+        sink += function.getCode(null);
+      }
+      long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+      if (round == 1) {
+        System.out.println("  " + allocated + " bytes allocated over " + iterations + " iterations");
+        assertTrue(allocated < 1024);
+      }
+    }
+    assertTrue(sink != 0);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests of the cold-start path: streaming an image with the scanline renderer
+ * in a fresh JVM must not load the AWT toolkit or the Java2D pipeline.
+ *
+ * @author Key Bridge LLC
+ */
+public class ColdStartTest {
+
+  private static final String KEY = "coldstart@keybridgeglobal.com";
+
+  @Test
+  public void testNoToolkit() throws IOException, InterruptedException {
+    System.out.println("ColdStart TestNoToolkit");
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    Process process = new ProcessBuilder(java, "-verbose:class",
+                                         "-cp", System.getProperty("java.class.path"),
+                                         ColdStartTest.class.getName())
+      .redirectErrorStream(true)
+      .start();
+    String output;
+    try (InputStream in = process.getInputStream()) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+        bytes.write(buffer, 0, n);
+      }
+      output = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+    assertEquals(output, 0, process.waitFor());
+    assertTrue(output, output.contains("PNG " + KEY));
+    for (String name : new String[]{"java.awt.Toolkit", "java.awt.Color", "java.awt.image.ColorModel", "sun.java2d."}) {
+      assertFalse(name + " was loaded", output.contains(" " + name));
+    }
+  }
+
+  /**
+   * Stream one image with the scanline renderer, as the first use of the
+   * library in a JVM. Run by {@code testNoToolkit} in a child JVM.
+   *
+   * @param args ignored
+   * @throws IOException if the image cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Identicon.setRenderer(ScanlineIdenticonRenderer.getInstance());
+    Identicon.write(KEY, 64, out);
+    byte[] png = out.toByteArray();
+    if (png.length > 8 && png[1] == 'P' && png[2] == 'N' && png[3] == 'G') {
+      System.out.println("PNG " + KEY);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import static ch.keybridge.lib.identicon.ImageAssert.assertSamePixels;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class GlyphIdenticonRendererTest {
+
+  private static final int[] SIZES = {16, 17, 32, 48, 64, 100, 128};
+
+  @Test
+  public void testBitIdentical() {
+    System.out.println("GlyphIdenticonRenderer TestBitIdentical");
+    IdenticonRenderer java2d = NineBlockIdenticonRenderer.getInstance();
+    GlyphIdenticonRenderer glyph = GlyphIdenticonRenderer.getInstance();
+    Random random = new Random(42);
+    for (int size : SIZES) {
+      for (int i = 0; i < 100; i++) {
+        int code = random.nextInt();
+        if (i % 4 == 0) {
+          /**
+           * Near-white fill: exercises the outline.
+           */
+          code |= 0xffff0000;
+        }
+        assertSamePixels(java2d.render(code, size), glyph.render(code, size));
+        /**
+         * The same shape in a different color must come from the cache.
+         */
+        long hits = glyph.getHitCount();
+        int recolored = (code & 0x1ffff) | (random.nextInt() & 0xfffe0000);
+        assertSamePixels(java2d.render(recolored, size), glyph.render(recolored, size));
+        assertSamePixels(java2d.render(recolored, size), glyph.renderIndexed(recolored, size));
+        assertTrue(glyph.getHitCount() > hits);
+      }
+    }
+    System.out.println("  " + glyph.getSize() + " glyphs, " + glyph.getWeightedSize() + " bytes");
+  }
+
+  @Test
+  public void testBackgroundColor() {
+    System.out.println("GlyphIdenticonRenderer TestBackgroundColor");
+    NineBlockIdenticonRenderer java2d = (NineBlockIdenticonRenderer) NineBlockIdenticonRenderer.getInstance();
+    GlyphIdenticonRenderer glyph = GlyphIdenticonRenderer.getInstance();
+    Color background = new Color(0x203040);
+    java2d.setBackgroundColor(background);
+    glyph.setBackgroundColor(background);
+    Random random = new Random(7);
+    for (int i = 0; i < 50; i++) {
+      int code = random.nextInt();
+      assertSamePixels(java2d.render(code, 64), glyph.render(code, 64));
+    }
+  }
+
+  @Test
+  public void testCacheBound() {
+    System.out.println("GlyphIdenticonRenderer TestCacheBound");
+    GlyphIdenticonRenderer glyph = GlyphIdenticonRenderer.getInstance(100_000);
+    for (int i = 0; i < 100; i++) {
+      glyph.render(i * 0x9E3779B9, 64);
+      assertTrue(glyph.getWeightedSize() <= 100_000);
+    }
+    assertEquals(100, glyph.getMissCount());
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    System.out.println("GlyphIdenticonRenderer TestWrite");
+    GlyphIdenticonRenderer glyph = GlyphIdenticonRenderer.getInstance();
+    IdenticonRenderer java2d = NineBlockIdenticonRenderer.getInstance();
+    Random random = new Random(5);
+    for (int size : new int[]{16, 64, 300}) {
+      int code = random.nextInt();
+      ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+      glyph.write(code, size, byteOut);
+      assertArrayEquals(Identicon.encode(java2d.render(code, size)), byteOut.toByteArray());
+    }
+  }
+}
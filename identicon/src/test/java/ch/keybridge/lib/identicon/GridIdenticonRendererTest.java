@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class GridIdenticonRendererTest {
+
+  private static final int[] SIZES = {1, 4, 5, 7, 16, 32, 33, 64, 100};
+
+  @Test
+  public void testCells() {
+    System.out.println("GridIdenticonRenderer TestCells");
+    GridIdenticonRenderer renderer = GridIdenticonRenderer.getInstance();
+    Random random = new Random(8);
+    for (int i = 0; i < 100; i++) {
+      int code = random.nextInt();
+      BufferedImage image = renderer.render(code, 50);
+      int fill = 0xff000000 | GridIdenticonRenderer.getCellColor(code, 0xffffff);
+      for (int row = 0; row < 5; row++) {
+        for (int column = 0; column < 5; column++) {
+          int expected = GridIdenticonRenderer.isFilled(code, row, column) ? fill : Color.WHITE.getRGB();
+          for (int y = row * 10; y < row * 10 + 10; y++) {
+            for (int x = column * 10; x < column * 10 + 10; x++) {
+              assertEquals(expected, image.getRGB(x, y));
+            }
+          }
+        }
+      }
+      /**
+       * Mirrored left to right.
+       */
+      for (int y = 0; y < 50; y++) {
+        for (int x = 0; x < 25; x++) {
+          assertEquals(image.getRGB(x, y), image.getRGB(49 - x, y));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testColor() {
+    System.out.println("GridIdenticonRenderer TestColor");
+    int code = 0x9abc1234;
+    assertEquals(new NineBlockCode(code).getFillColor(), GridIdenticonRenderer.getCellColor(code, 0xffffff));
+    /**
+     * A near-white fill on white is replaced by its complement.
+     */
+    int white = 0xffff0000 | 0x1234;
+    int color = GridIdenticonRenderer.getCellColor(white, 0xffffff);
+    assertNotEquals(NineBlockCode.getFillColor(white), color);
+    assertEquals(NineBlockCode.getStrokeColor(NineBlockCode.getFillColor(white), 0xffffff), color);
+    GridIdenticonRenderer renderer = GridIdenticonRenderer.getInstance();
+    renderer.setBackgroundColor(Color.BLACK);
+    assertEquals(Color.BLACK, renderer.getBackgroundColor());
+    BufferedImage image = renderer.render(0, 10);
+    assertEquals(Color.BLACK.getRGB(), image.getRGB(5, 5));
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    System.out.println("GridIdenticonRenderer TestWrite");
+    GridIdenticonRenderer renderer = GridIdenticonRenderer.getInstance();
+    Random random = new Random(9);
+    for (int size : SIZES) {
+      int code = random.nextInt();
+      BufferedImage image = renderer.render(code, size);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      renderer.write(code, size, out);
+      byte[] png = out.toByteArray();
+      assertArrayEquals(Identicon.encode(image), png);
+      BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+      for (int y = 0; y < size; y++) {
+        for (int x = 0; x < size; x++) {
+          assertEquals(image.getRGB(x, y), decoded.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTinyPng() throws Exception {
+    System.out.println("GridIdenticonRenderer TestTinyPng");
+    GridIdenticonRenderer grid = GridIdenticonRenderer.getInstance();
+    IdenticonRenderer nineBlock = NineBlockIdenticonRenderer.getInstance();
+    long gridBytes = 0;
+    long nineBlockBytes = 0;
+    for (int code = 0; code < 100; code++) {
+      byte[] png = Identicon.encode(grid.render(code * 7919, 64));
+      /**
+       * Two colors: a 1-bit indexed PNG.
+       */
+      assertEquals(1, png[24]);
+      gridBytes += png.length;
+      nineBlockBytes += Identicon.encode(nineBlock.render(code * 7919, 64)).length;
+    }
+    System.out.println("  grid " + gridBytes / 100 + " bytes, nine-block " + nineBlockBytes / 100 + " bytes");
+    assertTrue(gridBytes * 3 < nineBlockBytes);
+  }
+
+  @Test
+  public void testIdenticonRenderer() throws Exception {
+    System.out.println("GridIdenticonRenderer TestIdenticonRenderer");
+    GridIdenticonRenderer grid = GridIdenticonRenderer.getInstance();
+    IdenticonRenderer previous = Identicon.getRenderer();
+    Identicon.setRenderer(grid);
+    try {
+      int code = Identicon.getCode("Hello World");
+      byte[] expected = Identicon.encode(grid.render(code, 48));
+      assertArrayEquals(expected, Identicon.encode(Identicon.generate("Hello World", 48)));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      Identicon.write("Hello World", 48, out);
+      assertArrayEquals(expected, out.toByteArray());
+    } finally {
+      Identicon.setRenderer(previous);
+    }
+    assertSame(previous, Identicon.getRenderer());
+  }
+}
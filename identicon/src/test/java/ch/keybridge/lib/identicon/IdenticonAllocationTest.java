@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests of the primitive, allocation-free code and ETag path.
+ *
+ * @author Key Bridge LLC
+ */
+public class IdenticonAllocationTest {
+
+  @Test
+  public void testETagFormat() {
+    System.out.println("IdenticonAllocation TestETagFormat");
+    Random random = new Random(4);
+    char[] buffer = new char[Identicon.MAXIMUM_ETAG_LENGTH + 5];
+    StringBuilder sb = new StringBuilder();
+    Object[] objects = {null, "", "Hello World", -31, Integer.MIN_VALUE - 31, Integer.MAX_VALUE - 31};
+    for (int i = 0; i < 1000; i++) {
+      Object object = i < objects.length ? objects[i] : (Object) random.nextLong();
+      int size = i < 10 ? new int[]{0, 1, 9, 10, 64, 1024, Integer.MAX_VALUE, Integer.MIN_VALUE, -1, 16384}[i] : random.nextInt(2048);
+      String expected = "W/\"" + Integer.toHexString(Objects.hash(object)) + "@" + size + "v1\"";
+      assertEquals(Objects.hash(object), Identicon.getCode(object));
+      assertEquals(expected, Identicon.getETag(object, size));
+      sb.setLength(0);
+      assertEquals(expected, Identicon.appendETag(sb, object, size).toString());
+      int length = Identicon.getETag(buffer, 5, object, size);
+      assertEquals(expected, new String(buffer, 5, length));
+      assertTrue(Identicon.isNotModified(" " + expected.substring(2) + " , \"x\"", object, size));
+    }
+  }
+
+  /**
+   * Measure the bytes allocated by the current thread over many calls of the
+   * hash and ETag methods. These must not allocate.
+   */
+  @Test
+  public void testZeroAllocation() {
+    System.out.println("IdenticonAllocation TestZeroAllocation");
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    String[] keys = new String[64];
+    String[] headers = new String[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = "user" + i + "@example.com";
+      headers[i] = "\"abc\", " + Identicon.getETag(keys[i], 64) + ", W/\"def\"";
+    }
+    StringBuilder sb = new StringBuilder(64);
+    char[] buffer = new char[Identicon.MAXIMUM_ETAG_LENGTH];
+    int iterations = 200_000;
+    long sink = 0;
+    /**
+     * Warm up so that the measured calls are compiled.
+     */
+    for (int round = 0; round < 2; round++) {
+      long threadId = Thread.currentThread().getId();
+      long before = threads.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < iterations; i++) {
+        String key = keys[i & (keys.length - 1)];
+        sink += Identicon.getCode(key);
+        sb.setLength(0);
+        sink += Identicon.appendETag(sb, key, 64).length();
+        sink += Identicon.getETag(buffer, 0, key, 64);
+        sink += Identicon.isNotModified(headers[i & (keys.length - 1)], key, 64) ? 1 : 0;
+        sink += Identicon.isNotModified(headers[i & (keys.length - 1)], key, 32) ? 1 : 0;
+      }
+      long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+      if (round == 1) {
+        System.out.println("  " + allocated + " bytes allocated over " + iterations + " iterations");
+        /**
+         * Allow for allocation by the measurement itself.
+         */
+        assertTrue(allocated < 1024);
+      }
+    }
+    assertTrue(sink != 0);
+  }
+}
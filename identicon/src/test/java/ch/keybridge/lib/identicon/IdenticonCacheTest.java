@@ -0,0 +1,163 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class IdenticonCacheTest {
+
+  @Test
+  public void testHitAndMiss() throws IOException {
+    System.out.println("IdenticonCache TestHitAndMiss");
+    IdenticonCache cache = new IdenticonCache();
+    String email = "cachetest@keybridgeglobal.com";
+
+    byte[] first = cache.get(email, 64);
+    byte[] second = cache.get(email, 64);
+    assertSame(first, second);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(first.length, cache.getWeightedSize());
+    assertNotNull(ImageIO.read(new ByteArrayInputStream(first)));
+    assertArrayEquals(Identicon.encode(Identicon.generate(email, 64)), first);
+    /**
+     * A different size is a different entry.
+     */
+    cache.get(email, 32);
+    assertEquals(2, cache.getMissCount());
+    assertEquals(2, cache.getSize());
+    System.out.println(cache);
+  }
+
+  @Test
+  public void testByteBudget() {
+    System.out.println("IdenticonCache TestByteBudget");
+    IdenticonCache cache = new IdenticonCache(10_000);
+    for (int i = 0; i < 100; i++) {
+      String etag = Identicon.getETag(i, 64);
+      cache.getIfPresent(etag);
+      cache.getIfPresent(etag);
+      cache.put(etag, new byte[1000]);
+      assertTrue(cache.getWeightedSize() <= cache.getMaximumBytes());
+    }
+    assertEquals(10, cache.getSize());
+    assertFalse(cache.put("W/\"too-large\"", new byte[10_001]));
+    System.out.println(cache);
+  }
+
+  @Test
+  public void testFrequencyAwareEviction() {
+    System.out.println("IdenticonCache TestFrequencyAwareEviction");
+    IdenticonCache cache = new IdenticonCache(10_000);
+    byte[] encoded = new byte[1000];
+    /**
+     * Establish a popular working set.
+     */
+    for (int repeat = 0; repeat < 5; repeat++) {
+      for (int i = 0; i < 10; i++) {
+        String etag = Identicon.getETag(i, 64);
+        if (cache.getIfPresent(etag) == null) {
+          cache.put(etag, encoded);
+        }
+      }
+    }
+    /**
+     * A scan of one-off requests must not flush the working set.
+     */
+    for (int i = 1000; i < 2000; i++) {
+      String etag = Identicon.getETag(i, 64);
+      if (cache.getIfPresent(etag) == null) {
+        cache.put(etag, encoded);
+      }
+    }
+    for (int i = 0; i < 10; i++) {
+      assertNotNull(cache.getIfPresent(Identicon.getETag(i, 64)));
+    }
+    System.out.println(cache);
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    System.out.println("IdenticonCache TestConcurrent");
+    IdenticonCache cache = new IdenticonCache(50_000);
+    byte[] encoded = new byte[1000];
+    int threads = 4;
+    int lookups = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int seed = t;
+        futures.add(executor.submit(() -> {
+          Random random = new Random(seed);
+          for (int i = 0; i < lookups; i++) {
+            String etag = Identicon.getETag(random.nextInt(200), 64);
+            if (cache.getIfPresent(etag) == null) {
+              cache.put(etag, encoded);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(threads * lookups, cache.getHitCount() + cache.getMissCount());
+    assertTrue(cache.getWeightedSize() <= cache.getMaximumBytes());
+    assertEquals(cache.getSize() * 1000L, cache.getWeightedSize());
+    System.out.println(cache);
+  }
+
+  @Test
+  public void testNotModified() {
+    System.out.println("IdenticonCache TestNotModified");
+    String email = "cachetest@keybridgeglobal.com";
+    String etag = Identicon.getETag(email, 48);
+    assertTrue(Identicon.isNotModified(etag, email, 48));
+    assertTrue(Identicon.isNotModified(etag.substring(2), email, 48));
+    assertTrue(Identicon.isNotModified("\"abc\", " + etag, email, 48));
+    assertTrue(Identicon.isNotModified("*", email, 48));
+    assertFalse(Identicon.isNotModified(etag, email, 64));
+    assertFalse(Identicon.isNotModified(null, email, 48));
+    assertFalse(Identicon.isNotModified("", email, 48));
+    System.out.println(Arrays.asList(etag, "not modified"));
+  }
+}
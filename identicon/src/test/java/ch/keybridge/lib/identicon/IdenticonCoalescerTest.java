@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class IdenticonCoalescerTest {
+
+  private static final int THREADS = 32;
+
+  /**
+   * A burst of concurrent requests for one image renders it exactly once. The
+   * render does not complete until every other request is waiting for it.
+   */
+  @Test
+  public void testBurstRendersOnce() throws Exception {
+    System.out.println("IdenticonCoalescer TestBurstRendersOnce");
+    IdenticonCoalescer coalescer = new IdenticonCoalescer();
+    AtomicInteger loads = new AtomicInteger();
+    byte[] image = new byte[]{1, 2, 3};
+    CyclicBarrier start = new CyclicBarrier(THREADS);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int burst = 0; burst < 3; burst++) {
+        long coalesced = coalescer.getCoalescedCount();
+        List<Future<byte[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+          futures.add(executor.submit(() -> {
+            start.await();
+            return coalescer.get(7, 64, () -> {
+              loads.incrementAndGet();
+              while (coalescer.getCoalescedCount() - coalesced < THREADS - 1) {
+                Thread.yield();
+              }
+              return image;
+            });
+          }));
+        }
+        for (Future<byte[]> future : futures) {
+          assertSame(image, future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(burst + 1, loads.get());
+        assertEquals(0, coalescer.getInFlightCount());
+      }
+      System.out.println("  " + coalescer);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A failed render fails every waiting request, and the next request renders
+   * again.
+   */
+  @Test
+  public void testFailure() throws Exception {
+    System.out.println("IdenticonCoalescer TestFailure");
+    IdenticonCoalescer coalescer = new IdenticonCoalescer();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<byte[]> leader = executor.submit(() -> coalescer.get(7, 64, () -> {
+        while (coalescer.getCoalescedCount() == 0) {
+          Thread.yield();
+        }
+        throw new IOException("render failed");
+      }));
+      while (coalescer.getInFlightCount() == 0) {
+        Thread.yield();
+      }
+      try {
+        coalescer.get(7, 64, () -> {
+          throw new AssertionError("must not load");
+        });
+        fail("expected IOException");
+      } catch (IOException ex) {
+        assertEquals("render failed", ex.getCause().getMessage());
+      }
+      try {
+        leader.get();
+        fail("expected failure");
+      } catch (ExecutionException ex) {
+        assertTrue(ex.getCause() instanceof IOException);
+      }
+      assertEquals(0, coalescer.getInFlightCount());
+      assertArrayEquals(new byte[]{4}, coalescer.get(7, 64, () -> new byte[]{4}));
+      assertEquals(2, coalescer.getLoadCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A waiting request times out, while requests for other images are not
+   * delayed.
+   */
+  @Test
+  public void testTimeoutDoesNotBlockOtherKeys() throws Exception {
+    System.out.println("IdenticonCoalescer TestTimeoutDoesNotBlockOtherKeys");
+    IdenticonCoalescer coalescer = new IdenticonCoalescer(50);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<byte[]> slow = executor.submit(() -> coalescer.get(7, 64, () -> {
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          throw new InterruptedIOException();
+        }
+        return new byte[]{1};
+      }));
+      while (coalescer.getInFlightCount() == 0) {
+        Thread.yield();
+      }
+      /**
+       * Same code, other size; and other code, same size.
+       */
+      assertArrayEquals(new byte[]{2}, coalescer.get(7, 32, () -> new byte[]{2}));
+      assertArrayEquals(new byte[]{3}, coalescer.get(8, 64, () -> new byte[]{3}));
+      try {
+        coalescer.get(7, 64, () -> new byte[]{4});
+        fail("expected timeout");
+      } catch (InterruptedIOException ex) {
+        System.out.println("  " + ex.getMessage());
+      }
+      release.countDown();
+      assertArrayEquals(new byte[]{1}, slow.get(10, TimeUnit.SECONDS));
+      assertEquals(0, coalescer.getInFlightCount());
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A burst of cache misses for one image renders and caches it once.
+   */
+  @Test
+  public void testCacheBurst() throws Exception {
+    System.out.println("IdenticonCoalescer TestCacheBurst");
+    IdenticonCache cache = new IdenticonCache();
+    AtomicInteger renders = new AtomicInteger();
+    Identicon.setListener(new IdenticonListener() {
+      @Override
+      public void rendered(int imageSize, long nanos) {
+        renders.incrementAndGet();
+        /**
+         * Hold the render open so that the burst overlaps it.
+         */
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    CyclicBarrier start = new CyclicBarrier(THREADS);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<byte[]>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return cache.get("coalesce@keybridgeglobal.com", 48);
+        }));
+      }
+      byte[] first = futures.get(0).get(10, TimeUnit.SECONDS);
+      for (Future<byte[]> future : futures) {
+        assertSame(first, future.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(1, renders.get());
+      assertEquals(1, cache.getSize());
+    } finally {
+      Identicon.setListener(IdenticonListener.NONE);
+      executor.shutdownNow();
+    }
+  }
+}
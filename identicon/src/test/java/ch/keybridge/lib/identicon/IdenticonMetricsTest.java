@@ -0,0 +1,186 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class IdenticonMetricsTest {
+
+  @Test
+  public void testEvents() throws Exception {
+    System.out.println("IdenticonMetrics TestEvents");
+    IdenticonMetrics metrics = new IdenticonMetrics();
+    byte[] other = Identicon.encode(Identicon.generate("other", 32));
+    Identicon.setListener(metrics);
+    try {
+      byte[] png = Identicon.encode(Identicon.generate("metrics", 32));
+      Identicon.generate("metrics", new int[]{16, 32});
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      Identicon.write("metrics", 64, out);
+
+      assertEquals(3, metrics.getHash().getCount());
+      assertEquals(3, metrics.getRender().getCount());
+      assertEquals(2, metrics.getEncode().getCount());
+      assertEquals(png.length + out.size(), metrics.getEncodedBytes());
+      assertEquals(2, metrics.getRenderBySize().get(32).getCount());
+      assertEquals(1, metrics.getRenderBySize().get(16).getCount());
+      assertEquals(Long.valueOf(out.size()), metrics.getEncodedBytesBySize().get(64));
+      assertTrue(metrics.getRender().getTotalNanos() > 0);
+      assertTrue(metrics.getRender().getP50Nanos() <= metrics.getRender().getMaxNanos());
+
+      IdenticonCache cache = new IdenticonCache(Math.max(png.length, other.length));
+      cache.get("metrics", 32);
+      cache.get("metrics", 32);
+      cache.get("metrics", 32);
+      assertEquals(2, metrics.getCacheHitCount());
+      assertEquals(1, metrics.getCacheMissCount());
+      /**
+       * A more frequently requested image displaces the first.
+       */
+      for (int i = 0; i < 5; i++) {
+        cache.get("other", 32);
+      }
+      assertEquals(1, cache.getEvictionCount());
+      assertEquals(1, metrics.getCacheEvictionCount());
+      assertEquals(png.length, metrics.getCacheEvictedBytes());
+      System.out.println("  " + metrics);
+
+      metrics.reset();
+      assertEquals(0, metrics.getHash().getCount());
+      assertTrue(metrics.getRenderBySize().isEmpty());
+      assertEquals(1.0, metrics.getCacheHitRate(), 0);
+    } finally {
+      Identicon.setListener(IdenticonListener.NONE);
+    }
+    /**
+     * Nothing is recorded once the listener is removed.
+     */
+    Identicon.generate("metrics", 32);
+    assertEquals(0, metrics.getRender().getCount());
+  }
+
+  @Test
+  public void testMBean() throws Exception {
+    System.out.println("IdenticonMetrics TestMBean");
+    IdenticonMetrics metrics = new IdenticonMetrics();
+    ObjectName name = metrics.register();
+    try {
+      metrics.rendered(64, 1000);
+      metrics.rendered(64, 3000);
+      metrics.encoded(64, 500, 800);
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      CompositeData render = (CompositeData) server.getAttribute(name, "Render");
+      assertEquals(2L, render.get("count"));
+      assertEquals(4000L, render.get("totalNanos"));
+      assertEquals(3000L, render.get("maxNanos"));
+      assertEquals(800L, server.getAttribute(name, "EncodedBytes"));
+      TabularData bySize = (TabularData) server.getAttribute(name, "RenderBySize");
+      assertEquals(1, bySize.size());
+      server.invoke(name, "reset", null, null);
+      assertEquals(0L, server.getAttribute(name, "EncodedBytes"));
+    } finally {
+      metrics.unregister();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+  }
+
+  @Test
+  public void testMBeanServer() throws Exception {
+    System.out.println("IdenticonMetrics TestMBeanServer");
+    IdenticonMetrics metrics = new IdenticonMetrics();
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    ObjectName name = metrics.register(server, new ObjectName(IdenticonMetrics.OBJECT_NAME));
+    assertTrue(server.isRegistered(name));
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    /**
+     * Unregistering removes the MBean from the server it was registered with.
+     */
+    metrics.unregister();
+    assertFalse(server.isRegistered(name));
+    metrics.unregister();
+  }
+
+  @Test
+  public void testConcurrentRecording() throws Exception {
+    System.out.println("IdenticonMetrics TestConcurrentRecording");
+    IdenticonMetrics metrics = new IdenticonMetrics();
+    int threads = 8;
+    int events = 100_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    Future<?>[] futures = new Future<?>[threads];
+    for (int t = 0; t < threads; t++) {
+      futures[t] = executor.submit(() -> {
+        for (int i = 0; i < events; i++) {
+          metrics.rendered(16 << (i & 3), i);
+          metrics.cacheHit();
+        }
+      });
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    assertEquals((long) threads * events, metrics.getRender().getCount());
+    assertEquals((long) threads * events, metrics.getCacheHitCount());
+    assertEquals(events - 1, metrics.getRender().getMaxNanos());
+    assertEquals(4, metrics.getRenderBySize().size());
+  }
+
+  @Test
+  public void testPercentiles() {
+    System.out.println("IdenticonMetrics TestPercentiles");
+    for (long value = 0; value < 100_000; value++) {
+      int bucket = IdenticonMetrics.Timer.bucket(value);
+      assertTrue(value <= IdenticonMetrics.Timer.highestValue(bucket));
+      assertTrue(bucket == 0 || value > IdenticonMetrics.Timer.highestValue(bucket - 1));
+    }
+    IdenticonMetrics.Timer timer = new IdenticonMetrics.Timer();
+    for (int i = 1; i <= 1000; i++) {
+      timer.record(i * 1000L);
+    }
+    IdenticonMetrics.Timing timing = timer.snapshot();
+    assertEquals(1000, timing.getCount());
+    assertEquals(500_500.0, timing.getMeanNanos(), 0.001);
+    assertEquals(500_000, timing.getP50Nanos(), 500_000 * 0.25);
+    assertEquals(990_000, timing.getP99Nanos(), 990_000 * 0.25);
+    assertEquals(1_000_000, timing.getMaxNanos());
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import static ch.keybridge.lib.identicon.ImageAssert.assertSamePixels;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests of multi-resolution rendering: each image of a set must be identical
+ * to a standalone render of its size.
+ *
+ * @author Key Bridge LLC
+ */
+public class IdenticonRendererTest {
+
+  private static final int[] SIZES = {64, 1, 7, 16, 31, 32, 48, 64, 96, 100, 128, 300};
+
+  @Test
+  public void testRenderSet() {
+    System.out.println("IdenticonRenderer TestRenderSet");
+    IdenticonRenderer[] renderers = {
+      NineBlockIdenticonRenderer.getInstance(),
+      ImmutableIdenticonRenderer.builder().quality(RenderQuality.FAST).build(),
+      ImmutableIdenticonRenderer.builder().quality(RenderQuality.AUTO).build(),
+      /**
+       * A fill color close to the background: patches are outlined.
+       */
+      ImmutableIdenticonRenderer.builder().fillColor(new Color(0xf0f0f0)).patchSize(7).build(),
+      ImmutableIdenticonRenderer.builder().backgroundColor(Color.BLACK).build(),
+      ScanlineIdenticonRenderer.getInstance(),
+      GlyphIdenticonRenderer.getInstance(),
+      GridIdenticonRenderer.getInstance()
+    };
+    Random random = new Random(13);
+    for (IdenticonRenderer renderer : renderers) {
+      for (int i = 0; i < 20; i++) {
+        int code = random.nextInt();
+        BufferedImage[] images = renderer.render(code, SIZES);
+        assertEquals(SIZES.length, images.length);
+        for (int j = 0; j < SIZES.length; j++) {
+          System.out.println(renderer.getClass().getSimpleName() + " " + code + " " + SIZES[j]);
+          assertSamePixels(renderer.render(code, SIZES[j]), images[j]);
+        }
+      }
+      assertEquals(0, renderer.render(1, new int[0]).length);
+    }
+  }
+
+  @Test
+  public void testGenerateSet() throws Exception {
+    System.out.println("IdenticonRenderer TestGenerateSet");
+    int[] sizes = {32, 64, 96};
+    BufferedImage[] images = Identicon.generate("Hello World", sizes);
+    byte[][] encoded = Identicon.generateBytes("Hello World", sizes);
+    for (int i = 0; i < sizes.length; i++) {
+      assertSamePixels(Identicon.generate("Hello World", sizes[i]), images[i]);
+      assertArrayEquals(Identicon.encode(Identicon.generate("Hello World", sizes[i])), encoded[i]);
+    }
+  }
+}
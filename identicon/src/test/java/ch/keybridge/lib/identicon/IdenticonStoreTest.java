@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the persistent, memory-mapped image store.
+ *
+ * @author Key Bridge LLC
+ */
+public class IdenticonStoreTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Stored images are returned unchanged, also after the store is reopened.
+   */
+  @Test
+  public void testReopen() throws Exception {
+    System.out.println("IdenticonStore TestReopen");
+    Path directory = folder.getRoot().toPath();
+    byte[] png;
+    try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+      png = toArray(store.get("Hello World", 64));
+      assertArrayEquals(Identicon.encode(Identicon.generate("Hello World", 64)), png);
+      assertArrayEquals(png, toArray(store.get("Hello World", 64)));
+      assertEquals(1, store.getHitCount());
+      for (int i = 0; i < 500; i++) {
+        assertTrue(store.put(i, 16, bytes(i, 100 + i)));
+      }
+      assertNull(store.getIfPresent(1000, 16));
+      assertNull(store.getIfPresent(1, 32));
+    }
+    try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+      System.out.println("  " + store);
+      assertEquals(501, store.getSize());
+      assertArrayEquals(png, toArray(store.getIfPresent(Identicon.getCode("Hello World"), 64)));
+      for (int i = 0; i < 500; i++) {
+        ByteBuffer slice = store.getIfPresent(i, 16);
+        assertTrue(slice.isReadOnly());
+        assertArrayEquals(bytes(i, 100 + i), toArray(slice));
+      }
+      assertTrue(store.put(1000, 16, bytes(1000, 10)));
+    }
+  }
+
+  /**
+   * Images of another renderer are not returned, also after the store is
+   * reopened.
+   */
+  @Test
+  public void testRenderer() throws Exception {
+    System.out.println("IdenticonStore TestRenderer");
+    Path directory = folder.getRoot().toPath();
+    int code = Identicon.getCode("Hello World");
+    IdenticonRenderer previous = Identicon.getRenderer();
+    try {
+      try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+        store.get("Hello World", 64);
+        Identicon.setRenderer(GridIdenticonRenderer.getInstance());
+        assertNull(store.getIfPresent(code, 64));
+        byte[] grid = Identicon.encode(Identicon.generate("Hello World", 64));
+        assertArrayEquals(grid, toArray(store.get("Hello World", 64)));
+        assertEquals(1, store.getSize());
+      }
+      try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+        assertEquals(1, store.getSize());
+        assertNotNull(store.getIfPresent(code, 64));
+      }
+      Identicon.setRenderer(previous);
+      try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+        assertEquals(0, store.getSize());
+      }
+    } finally {
+      Identicon.setRenderer(previous);
+    }
+  }
+
+  /**
+   * A torn write of the last record is discarded when the store is reopened.
+   */
+  @Test
+  public void testCrashRecovery() throws Exception {
+    System.out.println("IdenticonStore TestCrashRecovery");
+    Path directory = folder.getRoot().toPath();
+    try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+      for (int i = 0; i < 10; i++) {
+        store.put(i, 16, bytes(i, 1000));
+      }
+    }
+    /**
+     * Corrupt the image of the last record, as if the process died while its
+     * pages were being written.
+     */
+    Path segment;
+    try (Stream<Path> paths = Files.list(directory)) {
+      segment = paths.sorted().reduce((a, b) -> b).get();
+    }
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      long position = 32 + 9 * (16 + 1000) + 16 + 500;
+      file.seek(position);
+      int value = file.read();
+      file.seek(position);
+      file.write(value ^ 0xff);
+    }
+    try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+      assertEquals(9, store.getSize());
+      assertNull(store.getIfPresent(9, 16));
+      store.put(20, 16, bytes(20, 10));
+      store.put(21, 16, bytes(21, 10));
+    }
+    try (IdenticonStore store = new IdenticonStore(directory, 1 << 20, 1 << 18)) {
+      assertEquals(11, store.getSize());
+      for (int i = 0; i < 9; i++) {
+        assertArrayEquals(bytes(i, 1000), toArray(store.getIfPresent(i, 16)));
+      }
+      assertArrayEquals(bytes(21, 10), toArray(store.getIfPresent(21, 16)));
+    }
+  }
+
+  /**
+   * The store stays within its maximum size: replaced images are compacted
+   * away and, when all images are live, the oldest are evicted. One segment
+   * is always left free for compaction to copy into.
+   */
+  @Test
+  public void testBounded() throws Exception {
+    System.out.println("IdenticonStore TestBounded");
+    Path directory = folder.getRoot().toPath();
+    int segmentBytes = 64 * 1024;
+    long maximumBytes = 4 * segmentBytes;
+    Random random = new Random(3);
+    try (IdenticonStore store = new IdenticonStore(directory, maximumBytes, segmentBytes)) {
+      /**
+       * Repeatedly replace a small working set: everything stays stored.
+       */
+      for (int i = 0; i < 5000; i++) {
+        int code = random.nextInt(50);
+        store.put(code, 16, bytes(code, 500 + random.nextInt(500)));
+        assertTrue((store.getSegmentCount() + 1) * (long) segmentBytes <= maximumBytes);
+      }
+      assertEquals(50, store.getSize());
+      assertEquals(0, store.getEvictionCount());
+      assertTrue(store.getDeadBytes() < maximumBytes);
+      ByteBuffer held = store.getIfPresent(7, 16);
+      byte[] expected = toArray(held);
+      /**
+       * Fill with new images: the oldest are evicted.
+       */
+      for (int code = 1000; code < 2000; code++) {
+        store.put(code, 16, bytes(code, 1000));
+        assertTrue((store.getSegmentCount() + 1) * (long) segmentBytes <= maximumBytes);
+      }
+      System.out.println("  " + store);
+      assertTrue(store.getEvictionCount() > 0);
+      assertNotNull(store.getIfPresent(1999, 16));
+      assertNull(store.getIfPresent(1000, 16));
+      assertArrayEquals(expected, toArray(held));
+      long stored = store.getSize();
+      store.compact();
+      assertTrue((store.getSegmentCount() + 1) * (long) segmentBytes <= maximumBytes);
+      assertEquals(stored, store.getSize());
+      assertEquals(0, store.getDeadBytes());
+      assertArrayEquals(bytes(1999, 1000), toArray(store.getIfPresent(1999, 16)));
+    }
+    try (IdenticonStore store = new IdenticonStore(directory, maximumBytes, segmentBytes)) {
+      assertArrayEquals(bytes(1999, 1000), toArray(store.getIfPresent(1999, 16)));
+      store.invalidateAll();
+      assertEquals(0, store.getSize());
+      assertEquals(1, store.getSegmentCount());
+    }
+  }
+
+  /**
+   * Concurrent lookups and stores see only whole images, and the listener is
+   * called without the store lock held: a listener that reads the store from
+   * another thread does not block.
+   */
+  @Test
+  public void testConcurrent() throws Exception {
+    System.out.println("IdenticonStore TestConcurrent");
+    Path directory = folder.getRoot().toPath();
+    int threads = 4;
+    int lookups = 5000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+    IdenticonListener previous = Identicon.getListener();
+    try (IdenticonStore store = new IdenticonStore(directory, 4 * 64 * 1024, 64 * 1024)) {
+      AtomicLong evicted = new AtomicLong();
+      Identicon.setListener(new IdenticonListener() {
+        @Override
+        public void cacheEvicted(long bytes) {
+          try {
+            executor.submit(store::getSize).get(10, TimeUnit.SECONDS);
+          } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+          }
+          evicted.addAndGet(bytes);
+        }
+      });
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int seed = t;
+        futures.add(executor.submit(() -> {
+          Random random = new Random(seed);
+          for (int i = 0; i < lookups; i++) {
+            int code = random.nextInt(400);
+            ByteBuffer stored = store.getIfPresent(code, 16);
+            if (stored == null) {
+              store.put(code, 16, bytes(code, 600 + code));
+            } else {
+              assertArrayEquals(bytes(code, 600 + code), toArray(stored));
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      System.out.println("  " + store);
+      assertEquals(threads * lookups, store.getHitCount() + store.getMissCount());
+      assertTrue(store.getEvictionCount() > 0);
+      assertTrue(evicted.get() > 0);
+    } finally {
+      Identicon.setListener(previous);
+      executor.shutdown();
+    }
+  }
+
+  private static byte[] bytes(int seed, int length) {
+    byte[] bytes = new byte[length];
+    new Random(seed * 31L + length).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] toArray(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Image assertions shared by the renderer and encoder tests.
+ *
+ * @author Key Bridge LLC
+ */
+final class ImageAssert {
+
+  private ImageAssert() {
+  }
+
+  /**
+   * Assert that two images have the same size and the same RGB value at every
+   * pixel.
+   *
+   * @param expected the expected image
+   * @param actual   the actual image
+   */
+  static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+    assertEquals("width", expected.getWidth(), actual.getWidth());
+    assertEquals("height", expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        int rgb = expected.getRGB(x, y);
+        if (rgb != actual.getRGB(x, y)) {
+          assertEquals("pixel " + x + "," + y + " of " + expected.getWidth(), rgb, actual.getRGB(x, y));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.*;
+import javax.imageio.ImageIO;
+import static ch.keybridge.lib.identicon.ImageAssert.assertSamePixels;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class ImmutableIdenticonRendererTest {
+
+  @Test
+  public void testMatchesMutableRenderer() {
+    System.out.println("ImmutableIdenticonRenderer TestMatchesMutableRenderer");
+    NineBlockIdenticonRenderer mutable = (NineBlockIdenticonRenderer) NineBlockIdenticonRenderer.getInstance();
+    mutable.setPatchSize(10);
+    mutable.setBackgroundColor(Color.BLACK);
+    ImmutableIdenticonRenderer renderer = ImmutableIdenticonRenderer.builder()
+      .patchSize(10)
+      .backgroundColor(Color.BLACK)
+      .build();
+    Random random = new Random(9);
+    for (int i = 0; i < 50; i++) {
+      int code = random.nextInt();
+      assertSamePixels(mutable.render(code, 48), renderer.render(code, 48));
+    }
+    /**
+     * The default configuration matches the default renderer.
+     */
+    assertSamePixels(NineBlockIdenticonRenderer.getInstance().render(Objects.hash("Hello World"), 64),
+                     Identicon.generate("Hello World", 64));
+    assertEquals(renderer, renderer.toBuilder().build());
+  }
+
+  @Test
+  public void testColorsAndQuality() {
+    System.out.println("ImmutableIdenticonRenderer TestColorsAndQuality");
+    /**
+     * A white fill on a white background is outlined in the stroke color.
+     */
+    BufferedImage image = ImmutableIdenticonRenderer.builder()
+      .fillColor(Color.WHITE)
+      .strokeColor(Color.RED)
+      .quality(RenderQuality.FAST)
+      .build()
+      .render(12345, 64);
+    Set<Integer> colors = new HashSet<>();
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        colors.add(image.getRGB(x, y));
+      }
+    }
+    /**
+     * Aliased rendering produces no intermediate edge colors.
+     */
+    assertTrue(colors.contains(Color.RED.getRGB()));
+    assertTrue(colors.contains(Color.WHITE.getRGB()));
+    assertEquals(2, colors.size());
+  }
+
+  @Test
+  public void testSharedInstances() {
+    System.out.println("ImmutableIdenticonRenderer TestSharedInstances");
+    ImmutableIdenticonRenderer a = Identicon.getRenderer(ImmutableIdenticonRenderer.builder().backgroundColor(Color.GRAY));
+    ImmutableIdenticonRenderer b = Identicon.getRenderer(ImmutableIdenticonRenderer.builder().backgroundColor(Color.GRAY));
+    ImmutableIdenticonRenderer c = Identicon.getRenderer(ImmutableIdenticonRenderer.builder().backgroundColor(Color.GRAY).quality(RenderQuality.FAST));
+    assertSame(a, b);
+    assertNotSame(a, c);
+    assertEquals(Color.GRAY, a.getBackgroundColor());
+    assertEquals(RenderQuality.FAST, c.getQuality());
+  }
+
+  @Test
+  public void testSharedInstancesBounded() {
+    System.out.println("ImmutableIdenticonRenderer TestSharedInstancesBounded");
+    /**
+     * Many distinct configurations do not grow the shared set without bound,
+     * and the most recent configuration is still shared.
+     */
+    for (int i = 1; i <= 3 * Identicon.MAXIMUM_SHARED_RENDERERS; i++) {
+      ImmutableIdenticonRenderer.Builder builder = ImmutableIdenticonRenderer.builder().patchSize(i);
+      assertSame(Identicon.getRenderer(builder), Identicon.getRenderer(builder));
+      assertTrue(Identicon.RENDERERS.size() <= Identicon.MAXIMUM_SHARED_RENDERERS);
+    }
+  }
+
+  /**
+   * Render from many threads at once through shared renderers and compare
+   * every image to one rendered on a single thread.
+   */
+  @Test
+  public void testConcurrentStress() throws Exception {
+    System.out.println("ImmutableIdenticonRenderer TestConcurrentStress");
+    List<ImmutableIdenticonRenderer.Builder> builders = new ArrayList<>();
+    builders.add(ImmutableIdenticonRenderer.builder());
+    builders.add(ImmutableIdenticonRenderer.builder().backgroundColor(Color.BLACK));
+    builders.add(ImmutableIdenticonRenderer.builder().patchSize(8).quality(RenderQuality.FAST));
+    int[] codes = new int[64];
+    Random random = new Random(21);
+    for (int i = 0; i < codes.length; i++) {
+      codes[i] = random.nextInt();
+    }
+    int size = 40;
+    BufferedImage[][] expected = new BufferedImage[builders.size()][codes.length];
+    for (int b = 0; b < builders.size(); b++) {
+      for (int i = 0; i < codes.length; i++) {
+        expected[b][i] = builders.get(b).build().render(codes[i], size);
+      }
+    }
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int seed = t;
+      results.add(executor.submit(() -> {
+        Random local = new Random(seed);
+        start.await();
+        int renders = 0;
+        for (int n = 0; n < 300; n++) {
+          int b = local.nextInt(builders.size());
+          int i = local.nextInt(codes.length);
+          IdenticonRenderer renderer = Identicon.getRenderer(builders.get(b));
+          assertSamePixels(expected[b][i], renderer.render(codes[i], size));
+          renders++;
+        }
+        return renders;
+      }));
+    }
+    start.countDown();
+    int renders = 0;
+    for (Future<Integer> result : results) {
+      renders += result.get(2, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+    assertEquals(threads * 300, renders);
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    System.out.println("ImmutableIdenticonRenderer TestWrite");
+    Random random = new Random(17);
+    /**
+     * Large images are drawn and encoded in several bands of rows, which must
+     * have the same pixels as the full image in every quality tier.
+     */
+    for (RenderQuality quality : new RenderQuality[]{RenderQuality.FAST, RenderQuality.DEFAULT, RenderQuality.AUTO}) {
+      IdenticonRenderer renderer = ImmutableIdenticonRenderer.builder().quality(quality).build();
+      for (int size : new int[]{40, 300, 700, 1100}) {
+        int code = random.nextInt();
+        BufferedImage image = renderer.render(code, size);
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        renderer.write(code, size, byteOut);
+        if (size <= 512) {
+          assertArrayEquals(Identicon.encode(image), byteOut.toByteArray());
+        }
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(byteOut.toByteArray())));
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.util.Random;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class PixelKernelsTest {
+
+  private static final int[] SIZES = {16, 17, 32, 64, 100, 128, 255, 512, 1024};
+
+  @Test
+  public void testScalarBlend() {
+    System.out.println("PixelKernels TestScalarBlend");
+    Random random = new Random(1);
+    int[] pixels = new int[1000];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt();
+    }
+    int color = 0x3c89d1;
+    for (int alpha = 1; alpha < 0xff; alpha++) {
+      int[] expected = pixels.clone();
+      int[] actual = pixels.clone();
+      for (int i = 10; i < 990; i++) {
+        expected[i] = NineBlockRasterizer.blend(color, expected[i], alpha);
+      }
+      PixelKernels.SCALAR.blend(color, alpha, actual, 10, 990);
+      assertArrayEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void testVectorBlend() {
+    System.out.println("PixelKernels TestVectorBlend");
+    PixelKernels vector = PixelKernels.getInstance();
+    assumeTrue(vector.isVectorized());
+    Random random = new Random(2);
+    int[] pixels = new int[300];
+    for (int alpha = 1; alpha < 0xff; alpha++) {
+      for (int i = 0; i < pixels.length; i++) {
+        pixels[i] = random.nextInt();
+      }
+      int color = random.nextInt() & 0xffffff;
+      for (int length = 0; length < 100; length++) {
+        int[] expected = pixels.clone();
+        int[] actual = pixels.clone();
+        PixelKernels.SCALAR.blend(color, alpha, expected, 5, 5 + length);
+        vector.blend(color, alpha, actual, 5, 5 + length);
+        assertArrayEquals(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testVectorFill() {
+    System.out.println("PixelKernels TestVectorFill");
+    PixelKernels vector = PixelKernels.getInstance();
+    assumeTrue(vector.isVectorized());
+    for (int from = 0; from < 20; from++) {
+      for (int to = from; to < 100; to++) {
+        int[] expected = new int[100];
+        int[] actual = new int[100];
+        PixelKernels.SCALAR.fill(expected, from, to, 0xff123456);
+        vector.fill(actual, from, to, 0xff123456);
+        assertArrayEquals(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testVectorRender() {
+    System.out.println("PixelKernels TestVectorRender");
+    PixelKernels vector = PixelKernels.getInstance();
+    assumeTrue(vector.isVectorized());
+    NineBlockRasterizer scalarRasterizer = new NineBlockRasterizer(0xffffff, PixelKernels.SCALAR);
+    NineBlockRasterizer vectorRasterizer = new NineBlockRasterizer(0xffffff, vector);
+    Random random = new Random(3);
+    for (int size : SIZES) {
+      for (int i = 0; i < 10; i++) {
+        /**
+         * Near-white fill: exercises the outline.
+         */
+        int code = i % 2 == 0 ? random.nextInt() : random.nextInt() | 0xffff0000;
+        int[] expected = new int[size * size];
+        int[] actual = new int[size * size];
+        scalarRasterizer.render(code, size, 0, 0, size, size, expected, 0, size);
+        vectorRasterizer.render(code, size, 0, 0, size, size, actual, 0, size);
+        assertArrayEquals("code " + code + " size " + size, expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testScratchReuse() {
+    System.out.println("PixelKernels TestScratchReuse");
+    NineBlockRasterizer rasterizer = new NineBlockRasterizer(0xffffff);
+    Random random = new Random(4);
+    int[] scratch = null;
+    for (int i = 0; i < 40; i++) {
+      int size = SIZES[random.nextInt(SIZES.length - 2)];
+      int code = random.nextInt() | (i % 2 == 0 ? 0 : 0xffff0000);
+      int[] expected = new int[size * size];
+      int[] actual = new int[size * size];
+      rasterizer.render(new NineBlockCode(code), size, 0, 0, size, size, expected, 0, size, null);
+      scratch = rasterizer.render(new NineBlockCode(code), size, 0, 0, size, size, actual, 0, size, scratch);
+      assertArrayEquals(expected, actual);
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests of rendering into caller-supplied pixel buffers: every layout and
+ * buffer must hold the pixels of a standalone render, and nothing outside the
+ * image may change.
+ *
+ * @author Key Bridge LLC
+ */
+public class PixelLayoutTest {
+
+  private static final int[] SIZES = {1, 7, 16, 32, 64, 100, 300};
+  /**
+   * The value of pixels outside the image.
+   */
+  private static final int GUARD = 0x5a5a5a5a;
+
+  private static final IdenticonRenderer[] RENDERERS = {
+    NineBlockIdenticonRenderer.getInstance(),
+    ImmutableIdenticonRenderer.builder().quality(RenderQuality.FAST).build(),
+    ImmutableIdenticonRenderer.builder().quality(RenderQuality.HIGH).build(),
+    ScanlineIdenticonRenderer.getInstance(),
+    GlyphIdenticonRenderer.getInstance(),
+    GridIdenticonRenderer.getInstance()
+  };
+
+  @Test
+  public void testPack() {
+    System.out.println("PixelLayout TestPack");
+    assertEquals(0x123456, PixelLayout.RGB.pack(0xff123456));
+    assertEquals(0xff123456, PixelLayout.ARGB.pack(0x123456));
+    assertEquals(0x123456ff, PixelLayout.RGBA.pack(0x00123456));
+    assertEquals(0x563412ff, PixelLayout.BGRA.pack(0xff123456));
+  }
+
+  @Test
+  public void testArray() {
+    System.out.println("PixelLayout TestArray");
+    Random random = new Random(23);
+    for (IdenticonRenderer renderer : RENDERERS) {
+      for (int size : SIZES) {
+        int code = random.nextInt();
+        int[] expected = getPixels(renderer, code, size);
+        for (PixelLayout layout : PixelLayout.values()) {
+          int offset = 5;
+          int stride = size + 3;
+          int[] pixels = new int[offset + size * stride + 2];
+          Arrays.fill(pixels, GUARD);
+          renderer.render(code, size, pixels, offset, stride, layout);
+          for (int i = 0; i < pixels.length; i++) {
+            int x = (i - offset) % stride;
+            int y = (i - offset) / stride;
+            boolean inside = i >= offset && x < size && y < size;
+            assertEquals(renderer + " " + layout + " " + size + " @" + i,
+                         inside ? layout.pack(expected[y * size + x]) : GUARD, pixels[i]);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testIntBuffer() {
+    System.out.println("PixelLayout TestIntBuffer");
+    for (IdenticonRenderer renderer : RENDERERS) {
+      int size = 48;
+      int[] expected = getPixels(renderer, 0xcafe1234, size);
+      IntBuffer[] buffers = {
+        IntBuffer.allocate(size * size + 10),
+        ByteBuffer.allocateDirect(4 * (size * size + 10)).asIntBuffer()
+      };
+      for (IntBuffer buffer : buffers) {
+        buffer.position(3);
+        renderer.render(0xcafe1234, size, buffer, 10, size, PixelLayout.ARGB);
+        assertEquals(3, buffer.position());
+        for (int i = 0; i < expected.length; i++) {
+          assertEquals(renderer + " " + i, expected[i] | 0xff000000, buffer.get(10 + i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testByteBuffer() {
+    System.out.println("PixelLayout TestByteBuffer");
+    for (IdenticonRenderer renderer : RENDERERS) {
+      for (int size : new int[]{9, 64, 300}) {
+        int[] expected = getPixels(renderer, 0x1234cafe, size);
+        for (PixelLayout layout : PixelLayout.values()) {
+          for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            int bytes = layout.getBytesPerPixel();
+            int stride = size * bytes + 8;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(7 + size * stride).order(order);
+            renderer.render(0x1234cafe, size, buffer, 7, stride, layout);
+            assertEquals(0, buffer.position());
+            assertEquals(order, buffer.order());
+            for (int y = 0; y < size; y++) {
+              for (int x = 0; x < size; x++) {
+                int pixel = expected[y * size + x];
+                int i = 7 + y * stride + x * bytes;
+                byte r = (byte) (pixel >> 16);
+                byte g = (byte) (pixel >> 8);
+                byte b = (byte) pixel;
+                byte a = (byte) 0xff;
+                byte[] components;
+                switch (layout) {
+                  case RGB:
+                    components = new byte[]{r, g, b};
+                    break;
+                  case ARGB:
+                    components = new byte[]{a, r, g, b};
+                    break;
+                  case RGBA:
+                    components = new byte[]{r, g, b, a};
+                    break;
+                  default:
+                    components = new byte[]{b, g, r, a};
+                }
+                for (int c = 0; c < bytes; c++) {
+                  assertEquals(renderer + " " + layout + " " + order, components[c], buffer.get(i + c));
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testLargeBuffer() {
+    System.out.println("PixelLayout TestLargeBuffer");
+    /**
+     * Above 512 x 512 pixels the 9-block renderer draws into direct buffers in
+     * several bands of rows.
+     */
+    int size = 1100;
+    for (IdenticonRenderer renderer : new IdenticonRenderer[]{
+      NineBlockIdenticonRenderer.getInstance(),
+      ImmutableIdenticonRenderer.builder().quality(RenderQuality.AUTO).build()}) {
+      int[] expected = getPixels(renderer, 0x5eed1234, size);
+      IntBuffer ints = ByteBuffer.allocateDirect(4 * (size * size + 10)).asIntBuffer();
+      renderer.render(0x5eed1234, size, ints, 10, size, PixelLayout.ARGB);
+      ByteBuffer bytes = ByteBuffer.allocateDirect(3 * size * size);
+      renderer.render(0x5eed1234, size, bytes, 0, 3 * size, PixelLayout.RGB);
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(renderer + " " + i, expected[i] | 0xff000000, ints.get(10 + i));
+        assertEquals(renderer + " " + i, expected[i], (bytes.get(3 * i) & 0xff) << 16 | (bytes.get(3 * i + 1) & 0xff) << 8 | bytes.get(3 * i + 2) & 0xff);
+      }
+    }
+  }
+
+  @Test
+  public void testBounds() {
+    System.out.println("PixelLayout TestBounds");
+    IdenticonRenderer renderer = ScanlineIdenticonRenderer.getInstance();
+    int[][] invalid = {
+      {16, 0, 16, 255},
+      {16, -1, 16, 256},
+      {16, 0, 15, 256},
+      {16, 16, 16, 256 + 15},
+      {0, 0, 16, 256}
+    };
+    for (int[] arguments : invalid) {
+      try {
+        renderer.render(1, arguments[0], new int[arguments[3]], arguments[1], arguments[2], PixelLayout.ARGB);
+        fail("Expected an IllegalArgumentException for " + Arrays.toString(arguments));
+      } catch (IllegalArgumentException ex) {
+      }
+    }
+    try {
+      renderer.render(1, 16, ByteBuffer.allocate(16 * 16 * 3 - 1), 0, 16 * 3, PixelLayout.RGB);
+      fail("Expected an IllegalArgumentException.");
+    } catch (IllegalArgumentException ex) {
+    }
+    /**
+     * The last row need not be followed by a full stride.
+     */
+    renderer.render(1, 16, new int[16 * 20 + 16], 0, 20, PixelLayout.ARGB);
+    renderer.render(1, 16, ByteBuffer.allocate(16 * 16 * 3), 0, 16 * 3, PixelLayout.RGB);
+  }
+
+  /**
+   * Get the 0xRRGGBB pixels of a standalone render.
+   */
+  private static int[] getPixels(IdenticonRenderer renderer, int code, int size) {
+    BufferedImage image = renderer.render(code, size);
+    int[] pixels = image.getRGB(0, 0, size, size, null, 0, size);
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] &= 0xffffff;
+    }
+    return pixels;
+  }
+}
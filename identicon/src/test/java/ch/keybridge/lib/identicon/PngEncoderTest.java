@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import static ch.keybridge.lib.identicon.ImageAssert.assertSamePixels;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class PngEncoderTest {
+
+  private static final int[] SIZES = {1, 16, 17, 32, 64, 128};
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    System.out.println("PngEncoder TestRoundTrip");
+    PngEncoder encoder = new PngEncoder();
+    Random random = new Random(42);
+    long encoded = 0, imageio = 0;
+    for (int size : SIZES) {
+      for (int i = 0; i < 20; i++) {
+        BufferedImage image = NineBlockIdenticonRenderer.getInstance().render(random.nextInt(), size);
+        byte[] png = encoder.encode(image);
+        assertSamePixels(image, decode(png));
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", byteOut);
+        encoded += png.length;
+        imageio += byteOut.size();
+      }
+    }
+    System.out.println("  PngEncoder " + encoded + " bytes, ImageIO " + imageio + " bytes");
+    assertTrue(encoded < imageio);
+  }
+
+  @Test
+  public void testIndexedImage() throws IOException {
+    System.out.println("PngEncoder TestIndexedImage");
+    GlyphIdenticonRenderer renderer = GlyphIdenticonRenderer.getInstance();
+    for (int size : SIZES) {
+      BufferedImage image = renderer.renderIndexed(size * 31, size);
+      assertSamePixels(image, decode(new PngEncoder(9).encode(image)));
+    }
+  }
+
+  @Test
+  public void testTruecolor() throws IOException {
+    System.out.println("PngEncoder TestTruecolor");
+    Random random = new Random(7);
+    for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB}) {
+      BufferedImage image = new BufferedImage(37, 23, type);
+      for (int y = 0; y < image.getHeight(); y++) {
+        for (int x = 0; x < image.getWidth(); x++) {
+          image.setRGB(x, y, random.nextInt());
+        }
+      }
+      assertSamePixels(image, decode(new PngEncoder(1).encode(image)));
+    }
+  }
+
+  @Test
+  public void testTransparentColor() throws IOException {
+    System.out.println("PngEncoder TestTransparentColor");
+    NineBlockIdenticonRenderer renderer = (NineBlockIdenticonRenderer) NineBlockIdenticonRenderer.getInstance();
+    BufferedImage image = renderer.render(1234567, 64);
+    PngEncoder encoder = new PngEncoder(PngEncoder.DEFAULT_COMPRESSION_LEVEL, renderer.getBackgroundColor());
+    BufferedImage decoded = decode(encoder.encode(image));
+    assertTrue(decoded.getColorModel().hasAlpha());
+    int background = renderer.getBackgroundColor().getRGB();
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        int expected = image.getRGB(x, y);
+        int actual = decoded.getRGB(x, y);
+        if (expected == background) {
+          assertEquals(0, actual >>> 24);
+        } else {
+          assertEquals(expected, actual);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPixelSource() throws IOException {
+    System.out.println("PngEncoder TestPixelSource");
+    PngEncoder encoder = new PngEncoder();
+    Random random = new Random(5);
+    /**
+     * Sources that are not buffered are read once, in order. Up to 512 x 512
+     * pixels they are encoded as the same bytes as an image of the same
+     * pixels; larger ones are written as RGB.
+     */
+    for (int size : new int[]{17, 300, 600}) {
+      BufferedImage image = NineBlockIdenticonRenderer.getInstance().render(random.nextInt(), size);
+      int[] next = new int[1];
+      ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+      encoder.encode(size, size, (y, height, pixels) -> {
+        assertEquals(next[0], y);
+        next[0] = y + height;
+        image.getRGB(0, y, size, height, pixels, 0, size);
+      }, byteOut);
+      assertEquals(size, next[0]);
+      if (size <= 512) {
+        assertArrayEquals(encoder.encode(image), byteOut.toByteArray());
+      } else {
+        assertEquals(PngEncoder.COLOR_TYPE_RGB, byteOut.toByteArray()[25]);
+      }
+      assertSamePixels(image, decode(byteOut.toByteArray()));
+    }
+  }
+
+  @Test
+  public void testLargeImage() throws IOException {
+    System.out.println("PngEncoder TestLargeImage");
+    PngEncoder encoder = new PngEncoder();
+    /**
+     * Images larger than 512 x 512 pixels are still written with a palette.
+     */
+    for (int size : new int[]{513, 600}) {
+      BufferedImage image = NineBlockIdenticonRenderer.getInstance().render(size, size);
+      byte[] png = encoder.encode(image);
+      assertEquals(PngEncoder.COLOR_TYPE_PALETTE, png[25]);
+      assertSamePixels(image, decode(png));
+    }
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    System.out.println("PngEncoder TestConcurrent");
+    PngEncoder encoder = new PngEncoder();
+    BufferedImage image = NineBlockIdenticonRenderer.getInstance().render(42, 96);
+    byte[] expected = encoder.encode(image);
+    /**
+     * More threads than pooled deflaters encode the same image.
+     */
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<byte[]>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        futures.add(executor.submit(() -> encoder.encode(image)));
+      }
+      for (Future<byte[]> future : futures) {
+        assertArrayEquals(expected, future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static BufferedImage decode(byte[] png) throws IOException {
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+    assertNotNull(image);
+    return image;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import static ch.keybridge.lib.identicon.ImageAssert.assertSamePixels;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests of the rendering quality tiers. The aliased and supersampled tiers
+ * must stay close to the default antialiased image.
+ *
+ * @author Key Bridge LLC
+ */
+public class RenderQualityTest {
+
+  private static final int[] SIZES = {16, 32, 64, 128, 256, 512};
+
+  @Test
+  public void testForSize() {
+    System.out.println("RenderQuality TestForSize");
+    assertEquals(RenderQuality.FAST, RenderQuality.AUTO.forSize(1));
+    assertEquals(RenderQuality.FAST, RenderQuality.AUTO.forSize(RenderQuality.AUTO_FAST_MAXIMUM));
+    assertEquals(RenderQuality.DEFAULT, RenderQuality.AUTO.forSize(RenderQuality.AUTO_FAST_MAXIMUM + 1));
+    assertEquals(RenderQuality.DEFAULT, RenderQuality.AUTO.forSize(RenderQuality.AUTO_HIGH_MINIMUM - 1));
+    assertEquals(RenderQuality.HIGH, RenderQuality.AUTO.forSize(RenderQuality.AUTO_HIGH_MINIMUM));
+    assertEquals(RenderQuality.HIGH, RenderQuality.AUTO.forSize(RenderQuality.AUTO_HIGH_MAXIMUM));
+    assertEquals(RenderQuality.DEFAULT, RenderQuality.AUTO.forSize(RenderQuality.AUTO_HIGH_MAXIMUM + 1));
+    assertEquals(RenderQuality.DEFAULT, RenderQuality.AUTO.forSize(16384));
+    for (RenderQuality quality : new RenderQuality[]{RenderQuality.FAST, RenderQuality.DEFAULT, RenderQuality.HIGH}) {
+      assertEquals(quality, quality.forSize(16));
+      assertEquals(quality, quality.forSize(1024));
+    }
+  }
+
+  @Test
+  public void testAuto() {
+    System.out.println("RenderQuality TestAuto");
+    IdenticonRenderer auto = ImmutableIdenticonRenderer.builder().quality(RenderQuality.AUTO).build();
+    for (int size : new int[]{16, 32, 33, 511, 512}) {
+      IdenticonRenderer tier = ImmutableIdenticonRenderer.builder().quality(RenderQuality.AUTO.forSize(size)).build();
+      assertSamePixels(tier.render(12345, size), auto.render(12345, size));
+    }
+  }
+
+  /**
+   * Above the supersampling limit AUTO renders antialiased, without a sample
+   * image four times the size of the image.
+   */
+  @Test
+  public void testAutoLargeSize() {
+    System.out.println("RenderQuality TestAutoLargeSize");
+    int size = RenderQuality.AUTO_HIGH_MAXIMUM + 952;
+    IdenticonRenderer auto = ImmutableIdenticonRenderer.builder().quality(RenderQuality.AUTO).build();
+    IdenticonRenderer antialiased = ImmutableIdenticonRenderer.builder().quality(RenderQuality.DEFAULT).build();
+    assertSamePixels(antialiased.render(12345, size), auto.render(12345, size));
+  }
+
+  @Test
+  public void testFastIsAliased() {
+    System.out.println("RenderQuality TestFastIsAliased");
+    IdenticonRenderer renderer = ImmutableIdenticonRenderer.builder()
+      .fillColor(Color.WHITE)
+      .strokeColor(Color.RED)
+      .quality(RenderQuality.FAST)
+      .build();
+    for (int size : SIZES) {
+      BufferedImage image = renderer.render(54321, size);
+      Set<Integer> colors = new HashSet<>();
+      for (int y = 0; y < size; y++) {
+        for (int x = 0; x < size; x++) {
+          colors.add(image.getRGB(x, y));
+        }
+      }
+      assertTrue(colors.toString(), colors.size() <= 2);
+    }
+  }
+
+  @Test
+  public void testQualityDifference() {
+    System.out.println("RenderQuality TestQualityDifference");
+    IdenticonRenderer fast = ImmutableIdenticonRenderer.builder().quality(RenderQuality.FAST).build();
+    IdenticonRenderer standard = ImmutableIdenticonRenderer.builder().build();
+    IdenticonRenderer high = ImmutableIdenticonRenderer.builder().quality(RenderQuality.HIGH).build();
+    Random random = new Random(5);
+    for (int size : SIZES) {
+      double fastDifference = 0;
+      double highDifference = 0;
+      int count = size > 128 ? 4 : 20;
+      for (int i = 0; i < count; i++) {
+        int code = i % 4 == 0 ? random.nextInt() | 0xffff0000 : random.nextInt();
+        BufferedImage expected = standard.render(code, size);
+        BufferedImage actual = high.render(code, size);
+        assertEquals(size, actual.getWidth());
+        assertEquals(BufferedImage.TYPE_INT_RGB, actual.getType());
+        fastDifference += meanDifference(expected, fast.render(code, size)) / count;
+        highDifference += meanDifference(expected, actual) / count;
+      }
+      System.out.printf("  size %4d mean channel difference fast %.3f, high %.3f%n", size, fastDifference, highDifference);
+      /**
+       * Edges differ in a band about one pixel wide, which is a shrinking share
+       * of larger images: by up to a full color step where aliased and by the
+       * finer coverage estimate where supersampled.
+       */
+      assertTrue("fast " + fastDifference, fastDifference < 800.0 / size);
+      assertTrue("high " + highDifference, highDifference < 160.0 / size);
+    }
+  }
+
+  /**
+   * Get the mean absolute difference per color channel of two images.
+   */
+  private static double meanDifference(BufferedImage expected, BufferedImage actual) {
+    long difference = 0;
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        int p = expected.getRGB(x, y);
+        int q = actual.getRGB(x, y);
+        for (int shift = 0; shift < 24; shift += 8) {
+          difference += Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff));
+        }
+      }
+    }
+    return difference / (3.0 * expected.getWidth() * expected.getHeight());
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import static ch.keybridge.lib.identicon.ImageAssert.assertSamePixels;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class ScanlineIdenticonRendererTest {
+
+  private static final int[] SIZES = {16, 17, 32, 64, 100, 128};
+
+  @Test
+  public void testMatchesJava2D() {
+    System.out.println("ScanlineIdenticonRenderer TestMatchesJava2D");
+    IdenticonRenderer java2d = NineBlockIdenticonRenderer.getInstance();
+    IdenticonRenderer scanline = ScanlineIdenticonRenderer.getInstance();
+    Random random = new Random(42);
+    for (int size : SIZES) {
+      long pixels = 0;
+      long channelDifference = 0;
+      long outliers = 0;
+      for (int i = 0; i < 100; i++) {
+        int code = random.nextInt();
+        if (i % 4 == 0) {
+          /**
+           * Near-white fill: exercises the outline.
+           */
+          code |= 0xffff0000;
+        }
+        BufferedImage expected = java2d.render(code, size);
+        BufferedImage actual = scanline.render(code, size);
+        assertEquals(size, actual.getWidth());
+        assertEquals(BufferedImage.TYPE_INT_RGB, actual.getType());
+        for (int y = 0; y < size; y++) {
+          for (int x = 0; x < size; x++) {
+            int p = expected.getRGB(x, y);
+            int q = actual.getRGB(x, y);
+            int difference = 0;
+            for (int shift = 0; shift < 24; shift += 8) {
+              int d = Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff));
+              channelDifference += d;
+              difference = Math.max(difference, d);
+            }
+            if (difference > 32) {
+              outliers++;
+            }
+            pixels++;
+          }
+        }
+      }
+      double meanDifference = channelDifference / (3.0 * pixels);
+      double outlierRatio = (double) outliers / pixels;
+      System.out.printf("  size %4d mean channel difference %.3f, outliers %.4f%%%n", size, meanDifference, 100 * outlierRatio);
+      assertTrue("mean channel difference " + meanDifference, meanDifference < 1.0);
+      assertTrue("outlier ratio " + outlierRatio, outlierRatio < 0.002);
+    }
+  }
+
+  @Test
+  public void testWindowMatchesFullImage() {
+    System.out.println("ScanlineIdenticonRenderer TestWindowMatchesFullImage");
+    NineBlockRasterizer rasterizer = new NineBlockRasterizer(0xffffff);
+    Random random = new Random(7);
+    for (int size : SIZES) {
+      for (int i = 0; i < 20; i++) {
+        int code = i % 2 == 0 ? random.nextInt() : random.nextInt() | 0xffff0000;
+        int[] full = new int[size * size];
+        rasterizer.render(code, size, 0, 0, size, size, full, 0, size);
+        /**
+         * Render the image again as four unequal windows.
+         */
+        int[] windows = new int[size * size];
+        int split = size / 3 + 1;
+        rasterizer.render(code, size, 0, 0, split, split, windows, 0, size);
+        rasterizer.render(code, size, split, 0, size - split, split, windows, split, size);
+        rasterizer.render(code, size, 0, split, split, size - split, windows, split * size, size);
+        rasterizer.render(code, size, split, split, size - split, size - split, windows, split * size + split, size);
+        assertArrayEquals(full, windows);
+      }
+    }
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    System.out.println("ScanlineIdenticonRenderer TestWrite");
+    IdenticonRenderer renderer = ScanlineIdenticonRenderer.getInstance();
+    Random random = new Random(11);
+    /**
+     * Sizes above 128 are encoded in several strips. Above 512 the streamed
+     * image is written as RGB, so only the pixels match the rendered image.
+     */
+    for (int size : new int[]{16, 64, 300, 1000}) {
+      int code = random.nextInt();
+      BufferedImage image = renderer.render(code, size);
+      ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+      renderer.write(code, size, byteOut);
+      byte[] expected = byteOut.toByteArray();
+      if (size <= 512) {
+        assertArrayEquals(Identicon.encode(image), expected);
+      }
+      assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(expected)));
+      byteOut.reset();
+      renderer.write(code, size, Channels.newChannel(byteOut));
+      assertArrayEquals(expected, byteOut.toByteArray());
+      ByteBuffer buffer = ByteBuffer.allocate(expected.length + 10);
+      buffer.position(10);
+      assertEquals(expected.length, renderer.write(code, size, buffer));
+      assertArrayEquals(expected, Arrays.copyOfRange(buffer.array(), 10, buffer.position()));
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Random;
+import javax.xml.parsers.DocumentBuilderFactory;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class SvgIdenticonRendererTest {
+
+  private static final int SIZE = 60;
+
+  /**
+   * Draw each SVG image with Java2D and compare it to the raster renderer.
+   */
+  @Test
+  public void testMatchesRaster() throws Exception {
+    System.out.println("SvgIdenticonRenderer TestMatchesRaster");
+    IdenticonRenderer raster = NineBlockIdenticonRenderer.getInstance();
+    SvgIdenticonRenderer svg = SvgIdenticonRenderer.getInstance();
+    Random random = new Random(3);
+    long total = 0, count = 0;
+    for (int i = 0; i < 200; i++) {
+      int code = random.nextInt();
+      if (i % 4 == 0) {
+        /**
+         * Near-white fill: exercises the outline.
+         */
+        code |= 0xffff0000;
+      }
+      BufferedImage expected = raster.render(code, SIZE);
+      BufferedImage actual = draw(svg.renderBytes(code, SIZE));
+      for (int y = 0; y < SIZE; y++) {
+        for (int x = 0; x < SIZE; x++) {
+          int a = expected.getRGB(x, y);
+          int b = actual.getRGB(x, y);
+          for (int shift = 0; shift < 24; shift += 8) {
+            total += Math.abs(((a >> shift) & 0xff) - ((b >> shift) & 0xff));
+            count++;
+          }
+        }
+      }
+    }
+    double mean = (double) total / count;
+    System.out.println("  mean channel difference " + mean);
+    assertTrue(mean < 1.0);
+  }
+
+  @Test
+  public void testOutput() throws IOException {
+    System.out.println("SvgIdenticonRenderer TestOutput");
+    SvgIdenticonRenderer svg = SvgIdenticonRenderer.getInstance();
+    String document = svg.render(42);
+    assertFalse(document.substring(0, document.indexOf('>')).contains(" width="));
+    assertTrue(svg.render(42, 64).contains("width=\"64\""));
+    assertEquals(svg.render(42, 64), new String(svg.renderBytes(42, 64), StandardCharsets.UTF_8));
+    ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+    svg.write(42, 64, byteOut);
+    assertEquals(svg.render(42, 64), byteOut.toString("UTF-8"));
+    assertEquals(svg.render(Objects.hash("Hello World")), Identicon.generateSvg("Hello World"));
+    System.out.println("  " + document.length() + " characters: " + document);
+  }
+
+  /**
+   * Draw the SVG paths produced by the renderer with Java2D.
+   */
+  private static BufferedImage draw(byte[] svg) throws Exception {
+    Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+      .parse(new ByteArrayInputStream(svg)).getDocumentElement();
+    assertEquals("svg", root.getTagName());
+    BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    g.scale(SIZE / 12.0, SIZE / 12.0);
+    for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+      Element element = (Element) node;
+      if (element.getTagName().equals("rect")) {
+        g.setColor(Color.decode(element.getAttribute("fill")));
+        g.fillRect(0, 0, 12, 12);
+        continue;
+      }
+      Path2D path = parse(element.getAttribute("d"));
+      if (element.getAttribute("fill").equals("none")) {
+        g.setColor(Color.decode(element.getAttribute("stroke")));
+        g.setStroke(new BasicStroke(Float.parseFloat(element.getAttribute("stroke-width")),
+                                    BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER,
+                                    Float.parseFloat(element.getAttribute("stroke-miterlimit"))));
+        g.draw(path);
+      } else {
+        g.setColor(Color.decode(element.getAttribute("fill")));
+        g.fill(path);
+      }
+    }
+    g.dispose();
+    return image;
+  }
+
+  /**
+   * Parse the M, L, h, v and z path commands.
+   */
+  private static Path2D parse(String d) {
+    Path2D.Double path = new Path2D.Double();
+    String[] tokens = d.replaceAll("([MLhvz])", " $1 ").trim().split("\\s+");
+    double x = 0, y = 0;
+    for (int i = 0; i < tokens.length;) {
+      switch (tokens[i++]) {
+        case "M":
+          x = Double.parseDouble(tokens[i++]);
+          y = Double.parseDouble(tokens[i++]);
+          path.moveTo(x, y);
+          break;
+        case "L":
+          x = Double.parseDouble(tokens[i++]);
+          y = Double.parseDouble(tokens[i++]);
+          path.lineTo(x, y);
+          break;
+        case "h":
+          x += Double.parseDouble(tokens[i++]);
+          path.lineTo(x, y);
+          break;
+        case "v":
+          y += Double.parseDouble(tokens[i++]);
+          path.lineTo(x, y);
+          break;
+        case "z":
+          path.closePath();
+          break;
+        default:
+          fail("Unexpected path command " + tokens[i - 1]);
+      }
+    }
+    return path;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Key Bridge LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ch.keybridge.lib.identicon;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Key Bridge LLC
+ */
+public class TiledIdenticonRendererTest {
+
+  @Test
+  public void testRender() {
+    System.out.println("TiledIdenticonRenderer TestRender");
+    TiledIdenticonRenderer tiled = TiledIdenticonRenderer.getInstance(new ForkJoinPool(4));
+    ScanlineIdenticonRenderer single = (ScanlineIdenticonRenderer) ScanlineIdenticonRenderer.getInstance();
+    Random random = new Random(25);
+    for (Color background : new Color[]{Color.WHITE, new Color(0x102030)}) {
+      tiled.setBackgroundColor(background);
+      single.setBackgroundColor(background);
+      for (int tileSize : new int[]{1, 64, 100, 1000}) {
+        tiled.setTileSize(tileSize);
+        for (int size : tileSize == 1 ? new int[]{1, 37} : new int[]{16, 257, 600}) {
+          for (int i = 0; i < 4; i++) {
+            int code = random.nextInt();
+            assertArrayEquals(getPixels(single.render(code, size)), getPixels(tiled.render(code, size)));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRenderPixels() {
+    System.out.println("TiledIdenticonRenderer TestRenderPixels");
+    TiledIdenticonRenderer tiled = TiledIdenticonRenderer.getInstance();
+    tiled.setTileSize(48);
+    IdenticonRenderer single = ScanlineIdenticonRenderer.getInstance();
+    int size = 200;
+    int stride = 230;
+    for (PixelLayout layout : PixelLayout.values()) {
+      int code = layout.hashCode();
+      int[] expected = new int[stride * size + 7];
+      int[] actual = new int[stride * size + 7];
+      single.render(code, size, expected, 7, stride, layout);
+      tiled.render(code, size, actual, 7, stride, layout);
+      assertArrayEquals(expected, actual);
+      IntBuffer direct = ByteBuffer.allocateDirect(actual.length * 4).asIntBuffer();
+      tiled.render(code, size, direct, 7, stride, layout);
+      int[] buffered = new int[actual.length];
+      direct.get(buffered);
+      assertArrayEquals(expected, buffered);
+      ByteBuffer bytes = ByteBuffer.allocateDirect(stride * size * layout.getBytesPerPixel());
+      ByteBuffer expectedBytes = ByteBuffer.allocate(bytes.capacity());
+      single.render(code, size, expectedBytes, 0, stride * layout.getBytesPerPixel(), layout);
+      tiled.render(code, size, bytes, 0, stride * layout.getBytesPerPixel(), layout);
+      assertEquals(expectedBytes, bytes);
+    }
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    System.out.println("TiledIdenticonRenderer TestWrite");
+    TiledIdenticonRenderer tiled = TiledIdenticonRenderer.getInstance(new ForkJoinPool(3));
+    IdenticonRenderer single = ScanlineIdenticonRenderer.getInstance();
+    /**
+     * Tiles that are not a multiple of the encoder strip height span strips.
+     */
+    for (int tileSize : new int[]{7, 64, TiledIdenticonRenderer.DEFAULT_TILE_SIZE}) {
+      tiled.setTileSize(tileSize);
+      for (int size : new int[]{5, 300, 1500}) {
+        int code = size * 31 + tileSize;
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        single.write(code, size, expected);
+        tiled.write(code, size, actual);
+        assertTrue(Arrays.equals(expected.toByteArray(), actual.toByteArray()));
+      }
+    }
+  }
+
+  @Test
+  public void testBandsRenderedOnce() throws IOException {
+    System.out.println("TiledIdenticonRenderer TestBandsRenderedOnce");
+    TiledIdenticonRenderer tiled = TiledIdenticonRenderer.getInstance(new ForkJoinPool(2));
+    IdenticonRenderer single = ScanlineIdenticonRenderer.getInstance();
+    tiled.setTileSize(100);
+    /**
+     * Small images are counted in memory, larger ones are written as read.
+     */
+    for (int size : new int[]{250, 1000}) {
+      TiledIdenticonRenderer.BandSource source = tiled.getBandSource(size, size);
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      ByteArrayOutputStream actual = new ByteArrayOutputStream();
+      single.write(size, size, expected);
+      Identicon.ENCODER.encode(size, size, source, actual);
+      assertEquals((size + 99) / 100, source.getRenderCount());
+      assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+  }
+
+  @Test
+  public void testTileSize() {
+    System.out.println("TiledIdenticonRenderer TestTileSize");
+    TiledIdenticonRenderer tiled = TiledIdenticonRenderer.getInstance();
+    assertEquals(TiledIdenticonRenderer.DEFAULT_TILE_SIZE, tiled.getTileSize());
+    try {
+      tiled.setTileSize(0);
+      fail("Tile size must be positive.");
+    } catch (IllegalArgumentException ex) {
+    }
+    try {
+      TiledIdenticonRenderer.getInstance(null);
+      fail("Pool is required.");
+    } catch (IllegalArgumentException ex) {
+    }
+  }
+
+  private static int[] getPixels(BufferedImage image) {
+    return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+  }
+}